@@ -0,0 +1,172 @@
+import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Loads everything the game needs on a background thread while the TitleScreen is showing, so the title appears
+ * right away instead of after every image, the soundtrack and the CPU players have been set up.
+ *
+ * Loading happens once per run of the scenario (resetting the world reuses it all) in two parts:
+ *   1. the assets: every image (see SpriteRegistry), the soundtrack, the endgame tablebase and the CPU players.
+ *      The GameBoard can't start a game until these are done (see awaitLoaded).
+ *   2. the warm-up: a batch of headless games, so the rules engine and the CPU searches are already compiled by
+ *      the JIT when the first real move is made. Nothing waits for this part.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public final class AssetLoader
+{
+    /* PUBLIC CONSTANTS */
+    public static final String MUSIC_FILE_NAME = "retro-8bit-happy-adventure-videogame-music-246635.mp3";
+
+    /* PRIVATE CONSTANTS */
+    private static final int WARM_UP_RANDOM_GAMES = 200;            // about 25 microseconds each
+    private static final int WARM_UP_SEARCH_GAMES = 2;
+    private static final long WARM_UP_SEARCH_BUDGET_NANOS = 1_000_000L;
+    private static final long WARM_UP_SEED = 2024L;
+
+    /* FIELDS */
+    private static final CompletableFuture<Void> assetsLoaded = new CompletableFuture<>();
+    private static Thread loaderThread;
+    private static volatile GreenfootSound music;
+    private static volatile CpuPlayer[] cpuPlayerOptions;
+    private static volatile boolean warmedUp;
+
+    /* CONSTRUCTORS */
+    /**
+     * AssetLoader only has static methods, so it is never instantiated
+     */
+    private AssetLoader()
+    {
+    } // end private no-arg constructor
+
+    /* METHODS */
+    /**
+     * Starts loading on a background thread (only the first call does anything)
+     */
+    public static synchronized void startLoading()
+    {
+        if ( loaderThread != null )
+        {
+            return;
+        } // end if
+        loaderThread = new Thread( AssetLoader::loadEverything, "WormholeDash asset loader" );
+        loaderThread.setDaemon( true ); // never keeps the JVM alive if the scenario is closed while loading
+        loaderThread.start();
+    } // end method startLoading
+
+    /**
+     * Runs on the loader thread: loads the assets, lets anyone waiting on them continue, then warms up the engine
+     */
+    private static void loadEverything()
+    {
+        try
+        {
+            SpriteRegistry.preloadAll();
+            music = new GreenfootSound( MUSIC_FILE_NAME );
+            cpuPlayerOptions = createCpuPlayerOptions();
+            assetsLoaded.complete( null );
+        } // end try
+        catch ( RuntimeException | Error exception )
+        {
+            assetsLoaded.completeExceptionally( exception );
+            return;
+        } // end catch
+
+        warmUpEngine();
+        warmedUp = true;
+    } // end method loadEverything
+
+    /**
+     * Builds the CPU players to choose from: the search (backed by the endgame tablebase if RetrogradeSolver has
+     * written one), MCTS and the original random CPU, in that order
+     */
+    private static CpuPlayer[] createCpuPlayerOptions()
+    {
+        Tablebase tablebase = Tablebase.openIfPresent( Tablebase.DEFAULT_FILE_NAME ); // solved endgames, if RetrogradeSolver has been run
+        CpuPlayer searchCpuPlayer = ( tablebase == null ) ? new ExpectiminimaxCpuPlayer() : new TablebaseCpuPlayer( tablebase, new ExpectiminimaxCpuPlayer() );
+        return new CpuPlayer[]{ searchCpuPlayer, new MonteCarloTreeSearchCpuPlayer(), new RandomCpuPlayer() };
+    } // end method createCpuPlayerOptions
+
+    /**
+     * Plays headless games so the hot code is compiled before the first real move. The searches use their own
+     * small tables and tiny budgets, so the real CPU players' transposition tables aren't touched.
+     */
+    private static void warmUpEngine()
+    {
+        GameManager warmUpGameManager = new GameManager( WARM_UP_SEED );
+        for ( int gameIndex = 0; gameIndex < WARM_UP_RANDOM_GAMES; gameIndex++ )
+        {
+            warmUpGameManager.newGame();
+            warmUpGameManager.playCpuVsCpuGame();
+        } // end for
+
+        CpuPlayer warmUpSearchCpuPlayer = new ExpectiminimaxCpuPlayer( WARM_UP_SEARCH_BUDGET_NANOS, ExpectiminimaxCpuPlayer.DEFAULT_MAX_DEPTH, new TranspositionTable( 1 ) );
+        CpuPlayer warmUpMonteCarloCpuPlayer = new MonteCarloTreeSearchCpuPlayer( WARM_UP_SEARCH_BUDGET_NANOS );
+        for ( int gameIndex = 0; gameIndex < WARM_UP_SEARCH_GAMES; gameIndex++ )
+        {
+            warmUpGameManager.newGame();
+            warmUpGameManager.playCpuVsCpuGame( warmUpSearchCpuPlayer, warmUpMonteCarloCpuPlayer );
+        } // end for
+    } // end method warmUpEngine
+
+    /**
+     * Checks whether the assets are ready (without waiting)
+     */
+    public static boolean isLoaded()
+    {
+        return assetsLoaded.isDone();
+    } // end method isLoaded
+
+    /**
+     * Waits until the assets are ready, starting the loading first if nobody has yet. Returns at once if they
+     * already are.
+     *
+     * @throws IllegalStateException if loading failed
+     */
+    public static void awaitLoaded()
+    {
+        startLoading();
+        try
+        {
+            assetsLoaded.get();
+        } // end try
+        catch ( InterruptedException exception )
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException( "interrupted while waiting for the game's assets", exception );
+        } // end catch
+        catch ( ExecutionException exception )
+        {
+            throw new IllegalStateException( "loading the game's assets failed", exception.getCause() );
+        } // end catch
+    } // end method awaitLoaded
+
+    /**
+     * Getter for the soundtrack (waits for the assets if they aren't ready)
+     */
+    public static GreenfootSound getMusic()
+    {
+        awaitLoaded();
+        return music;
+    } // end method getMusic
+
+    /**
+     * Getter for the shared CPU players: search, MCTS and random, in that order (waits for the assets if they
+     * aren't ready)
+     */
+    public static CpuPlayer[] getCpuPlayerOptions()
+    {
+        awaitLoaded();
+        return cpuPlayerOptions;
+    } // end method getCpuPlayerOptions
+
+    /**
+     * Checks whether the JIT warm-up games have finished
+     */
+    public static boolean isWarmedUp()
+    {
+        return warmedUp;
+    } // end method isWarmedUp
+} // end class AssetLoader
@@ -0,0 +1,492 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Plays huge numbers of headless CPU vs CPU games to measure how the rules themselves play out, rather than how
+ * strong a CPU player is (that's the Tournament's job): how often the player who moves first wins, how many games
+ * end early because an Orbiter was lost, how long games last, where the pieces spend their time, how often each
+ * space (each star in particular) is landed on, where the captures happen and how battles between every pairing of
+ * tiers turn out.
+ *
+ * The games run on a pool of worker threads (one per core by default), which claim games in blocks from a shared
+ * counter. Each worker streams the games it plays into its own Tally, a fixed set of primitive arrays, and the
+ * tallies are added together once the workers are done, so memory stays the same whether a thousand games are
+ * played or a billion, and the workers never contend on a shared counter per game. Game n's dice are seeded from
+ * the run's seed and n alone, so a run with the same seed gives the same totals on any number of threads.
+ *
+ * A "turn" here is one roll of the movement die, as in a GameRecord, so a star reroll starts a new turn.
+ *
+ * Run it from the scenario folder with `java BalanceStatistics [games] [threads] [csvFile] [seed]`.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public class BalanceStatistics
+{
+    /* PUBLIC CONSTANTS */
+    public static final int MAX_TRACKED_TURNS = 1000;      // longer games all go into the last game-length bucket
+    public static final String DEFAULT_CSV_FILE = "balance.csv";
+
+    /* PRIVATE CONSTANTS */
+    private static final int GAMES_PER_CLAIM = 256;         // how many games a worker takes from the counter at once
+    private static final double CONFIDENCE_Z = 1.96;        // 95% confidence intervals
+    private static final String[] ENDING_NAMES = { "player1_goal", "player2_goal", "player1_orbiter_loss", "player2_orbiter_loss" };
+
+    /* FIELDS */
+    private final long numberOfGames;
+    private final long seed;
+    private final Supplier<CpuPlayer> cpuPlayerFactory;     // null for the original random CPU
+    private final AtomicLong gameCursor = new AtomicLong();
+    private final Tally totals = new Tally();               // the workers' tallies, added in as each one finishes
+
+    /* CONSTRUCTORS */
+    /**
+     * Initializes a run in which the same kind of CPU player sits in both seats
+     *
+     * @param numberOfGames     how many games to play
+     * @param seed              the seed every game's dice are drawn from
+     * @param cpuPlayerFactory  builds a worker's CPU player (each worker gets its own), or null for the original random CPU
+     */
+    public BalanceStatistics( long numberOfGames, long seed, Supplier<CpuPlayer> cpuPlayerFactory )
+    {
+        if ( numberOfGames < 1 )
+        {
+            throw new IllegalArgumentException( "the statistics need at least 1 game, got " + numberOfGames );
+        } // end if
+        this.numberOfGames = numberOfGames;
+        this.seed = seed;
+        this.cpuPlayerFactory = cpuPlayerFactory;
+    } // end BalanceStatistics 3-arg constructor
+
+    /* METHODS */
+    /**
+     * Plays the games with the original random CPU in both seats, prints the report and writes the CSV file
+     *
+     * @param args  optionally the number of games (default 1000000), the number of worker threads (default one
+     *              per core), the CSV file (default balance.csv) and the seed (default the current time)
+     */
+    public static void main( String[] args )
+    {
+        long numberOfGames = ( args.length > 0 ) ? Long.parseLong( args[0] ) : 1_000_000L;
+        int numberOfThreads = ( args.length > 1 ) ? Integer.parseInt( args[1] ) : Runtime.getRuntime().availableProcessors();
+        Path csvPath = Paths.get( ( args.length > 2 ) ? args[2] : DEFAULT_CSV_FILE );
+        long seed = ( args.length > 3 ) ? Long.parseLong( args[3] ) : System.nanoTime();
+
+        BalanceStatistics statistics = new BalanceStatistics( numberOfGames, seed, null );
+        long startNanos = System.nanoTime();
+        statistics.run( numberOfThreads );
+        double seconds = ( System.nanoTime() - startNanos ) / 1_000_000_000.0;
+        System.out.print( statistics.getReport() );
+        System.out.println( numberOfGames + " games in " + seconds + " s on " + numberOfThreads + " threads (seed " + seed + ")" );
+        try
+        {
+            statistics.writeCsv( csvPath );
+            System.out.println( "Wrote " + csvPath.toAbsolutePath() );
+        } // end try
+        catch ( IOException exception )
+        {
+            System.err.println( "Could not write " + csvPath + ": " + exception.getMessage() );
+        } // end catch
+    } // end method main
+
+    /**
+     * Plays every game on the given number of worker threads, and waits for them to finish
+     *
+     * @param numberOfThreads   how many games are played at the same time
+     */
+    public void run( int numberOfThreads )
+    {
+        if ( numberOfThreads < 1 )
+        {
+            throw new IllegalArgumentException( "the statistics need at least 1 thread, got " + numberOfThreads );
+        } // end if
+        Thread[] workers = new Thread[numberOfThreads];
+        for ( int workerIndex = 0; workerIndex < numberOfThreads; workerIndex++ )
+        {
+            workers[workerIndex] = new Thread( this::playGames, "BalanceStatistics worker " + workerIndex );
+            workers[workerIndex].start();
+        } // end for
+        for ( Thread worker : workers )
+        {
+            try
+            {
+                worker.join();
+            } // end try
+            catch ( InterruptedException exception )
+            {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException( "interrupted while waiting for the statistics", exception );
+            } // end catch
+        } // end for
+    } // end method run
+
+    /**
+     * One worker thread: keeps claiming the next block of games until there are none left, tallying them in its
+     * own arrays, then adds its tally to the totals
+     */
+    private void playGames()
+    {
+        CpuPlayer cpuPlayer = ( cpuPlayerFactory == null ) ? null : cpuPlayerFactory.get();
+        Tally tally = new Tally();
+        while ( true )
+        {
+            long firstGameIndex = gameCursor.getAndAdd( GAMES_PER_CLAIM );
+            if ( firstGameIndex >= numberOfGames )
+            {
+                break;
+            } // end if
+            long endGameIndex = Math.min( firstGameIndex + GAMES_PER_CLAIM, numberOfGames );
+            for ( long gameIndex = firstGameIndex; gameIndex < endGameIndex; gameIndex++ )
+            {
+                long gameSeed = new SplittableRandom( seed ^ gameIndex ).nextLong();
+                playGame( new GameManager( gameSeed ), cpuPlayer, tally );
+            } // end for
+        } // end while
+        synchronized ( totals )
+        {
+            totals.add( tally );
+        } // end synchronized
+    } // end method playGames
+
+    /**
+     * Plays one game to the end (the same turn as GameManager.playCpuTurn, opened up so every move can be tallied)
+     *
+     * @param gameManager   a new game
+     * @param cpuPlayer     the CPU player for both seats (null for the original random CPU)
+     * @param tally         where the game's numbers go
+     */
+    private static void playGame( GameManager gameManager, CpuPlayer cpuPlayer, Tally tally )
+    {
+        int turns = 0;
+        while ( !gameManager.isGameOver() )
+        {
+            int playerIndex = gameManager.getCurrentPlayerIndex();
+            gameManager.rollMovementDie();
+            int pieceIndex = ( cpuPlayer == null ) ? gameManager.selectRandomCpuPieceIndex() : cpuPlayer.selectPieceIndex( gameManager );
+            if ( pieceIndex >= 0 )
+            {
+                int targetLocationIndex = gameManager.getTargetGameBoardLocationIndex( playerIndex, pieceIndex );
+                gameManager.movePiece( pieceIndex );
+                tally.recordMove( gameManager, playerIndex, pieceIndex, targetLocationIndex );
+            } // end if
+            gameManager.finishTurn();
+            turns++;
+            tally.recordOccupancy( gameManager );
+        } // end while
+        tally.recordGameEnd( gameManager, turns );
+    } // end method playGame
+
+    /**
+     * Builds the report: seat win rates (with a 95% confidence interval), how the games ended, the game lengths,
+     * how often each star is landed on, the battle odds of every tier pairing and the busiest capture spaces
+     */
+    public String getReport()
+    {
+        Tally tally = totals;
+        long games = Math.max( tally.games, 1 );
+        StringBuilder report = new StringBuilder();
+        report.append( tally.games ).append( " games, " ).append( cpuPlayerFactory == null ? "original random CPU" : "the same CPU player" ).append( " in both seats, " ).append( RuleVariant.ACTIVE.getName() ).append( " rules\n" );
+
+        long player1Wins = tally.winsByState[GameManager.PLAYER1_WIN] + tally.winsByState[GameManager.PLAYER1_WIN2];
+        double player1Score = (double) player1Wins / games;
+        double standardError = Math.sqrt( player1Score * ( 1.0 - player1Score ) / games );
+        report.append( String.format( Locale.ROOT, "Seats: player 1 (moves first) won %.2f%% [%.2f%%, %.2f%%], player 2 won %.2f%%%n",
+                                      100.0 * player1Score,
+                                      100.0 * ( player1Score - CONFIDENCE_Z * standardError ),
+                                      100.0 * ( player1Score + CONFIDENCE_Z * standardError ),
+                                      100.0 * ( 1.0 - player1Score ) ) );
+
+        report.append( "Endings:\n" );
+        for ( int state = GameManager.PLAYER1_WIN; state <= GameManager.PLAYER2_WIN2; state++ )
+        {
+            long count = tally.winsByState[state];
+            report.append( String.format( Locale.ROOT, "  %-22s %6.2f%%  mean %6.1f turns%n",
+                                          ENDING_NAMES[state - GameManager.PLAYER1_WIN], 100.0 * count / games,
+                                          ( count == 0 ) ? 0.0 : (double) tally.turnsByState[state] / count ) );
+        } // end for
+        long orbiterLosses = tally.winsByState[GameManager.PLAYER1_WIN2] + tally.winsByState[GameManager.PLAYER2_WIN2];
+        long orbiterLossesWonFromBehind = 0;
+        for ( int winnerGoals = 0; winnerGoals <= GameManager.NUMBER_OF_PIECES_PER_PLAYER; winnerGoals++ )
+        {
+            for ( int loserGoals = winnerGoals + 1; loserGoals <= GameManager.NUMBER_OF_PIECES_PER_PLAYER; loserGoals++ )
+            {
+                orbiterLossesWonFromBehind += tally.goalCountsAtOrbiterLoss[winnerGoals][loserGoals];
+            } // end INNER for
+        } // end OUTER for
+        report.append( String.format( Locale.ROOT, "  Orbiter losses ended %.2f%% of the games; in %.2f%% of those the winner had fewer pieces home%n",
+                                      100.0 * orbiterLosses / games, ( orbiterLosses == 0 ) ? 0.0 : 100.0 * orbiterLossesWonFromBehind / orbiterLosses ) );
+
+        report.append( String.format( Locale.ROOT, "Game length (turns): mean %.1f, 10%% %d, median %d, 90%% %d, 99%% %d%n",
+                                      (double) tally.turns / games, getGameLengthPercentile( 0.10 ), getGameLengthPercentile( 0.50 ),
+                                      getGameLengthPercentile( 0.90 ), getGameLengthPercentile( 0.99 ) ) );
+
+        long totalLandings = 0;
+        for ( int playerIndex = 0; playerIndex < GameManager.NUMBER_OF_PLAYERS; playerIndex++ )
+        {
+            for ( int spaceIndex = 0; spaceIndex < GameManager.NUMBER_OF_SPACES; spaceIndex++ )
+            {
+                totalLandings += tally.landings[playerIndex][spaceIndex];
+            } // end INNER for
+        } // end OUTER for
+        report.append( "Stars (landings per game, share of all landings):\n" );
+        for ( int spaceIndex = 0; spaceIndex < GameManager.NUMBER_OF_SPACES; spaceIndex++ )
+        {
+            if ( GameManager.isRerollSpaceIndex( spaceIndex ) )
+            {
+                long landings = tally.landings[0][spaceIndex] + tally.landings[1][spaceIndex];
+                report.append( String.format( Locale.ROOT, "  space %2d  %6.3f  %5.2f%%  (player 1 %.3f, player 2 %.3f)%n",
+                                              spaceIndex, (double) landings / games, ( totalLandings == 0 ) ? 0.0 : 100.0 * landings / totalLandings,
+                                              (double) tally.landings[0][spaceIndex] / games, (double) tally.landings[1][spaceIndex] / games ) );
+            } // end if
+        } // end for
+
+        report.append( "Battles (attacker tier vs defender tier: battles per game, attacker won):\n" );
+        for ( int attackerTier = 1; attackerTier <= GameManager.MAX_PIECE_TIER; attackerTier++ )
+        {
+            for ( int defenderTier = 1; defenderTier <= GameManager.MAX_PIECE_TIER; defenderTier++ )
+            {
+                long battles = tally.battles[attackerTier - 1][defenderTier - 1];
+                report.append( String.format( Locale.ROOT, "  %d vs %d  %6.3f  %5.1f%%%n", attackerTier, defenderTier, (double) battles / games,
+                                              ( battles == 0 ) ? 0.0 : 100.0 * tally.attackerWins[attackerTier - 1][defenderTier - 1] / battles ) );
+            } // end INNER for
+        } // end OUTER for
+
+        report.append( "Captures per game by space:\n " );
+        for ( int spaceIndex = 0; spaceIndex < GameManager.NUMBER_OF_SPACES; spaceIndex++ )
+        {
+            long captures = tally.captures[0][spaceIndex] + tally.captures[1][spaceIndex];
+            report.append( String.format( Locale.ROOT, " %d:%.2f", spaceIndex, (double) captures / games ) );
+        } // end for
+        report.append( '\n' );
+        return report.toString();
+    } // end method getReport
+
+    /**
+     * Returns the game length (in turns) that the given fraction of the games were no longer than
+     *
+     * @param fraction  0 to 1, e.g. 0.5 for the median
+     */
+    public int getGameLengthPercentile( double fraction )
+    {
+        long wanted = (long) Math.ceil( fraction * totals.games );
+        long seen = 0;
+        for ( int turns = 0; turns < MAX_TRACKED_TURNS; turns++ )
+        {
+            seen += totals.gameLengthCounts[turns];
+            if ( seen >= wanted && seen > 0 )
+            {
+                return turns;
+            } // end if
+        } // end for
+        return MAX_TRACKED_TURNS;
+    } // end method getGameLengthPercentile
+
+    /**
+     * Writes every total as a CSV file with one count per row, in the columns "metric,key,subkey,value":
+     *   games / turns                                  the totals (no keys)
+     *   ending, ending_turns                           games (and their total turns) by ending, e.g. player1_orbiter_loss
+     *   game_length, turns                             games that lasted that many turns ("1000+" for the longest)
+     *   occupancy, player, space                       turns that ended with one of the player's pieces on the space
+     *   landings, player, space                        moves by the player that ended on the space
+     *   captures, player, space                        opposing pieces the player sent back to the start from the space
+     *   battles / attacker_wins, attacker, defender    battles between the tiers, and how many the attacker won
+     *   orbiter_loss_goals, winner, loser              games lost with an Orbiter, by how many pieces each player had home
+     * Players count from 1, spaces from 0 (as on the GameBoard); empty rows are left out.
+     *
+     * @param path  the file to write (replaced if it exists)
+     * @throws IOException if the file can't be written
+     */
+    public void writeCsv( Path path ) throws IOException
+    {
+        Tally tally = totals;
+        try ( PrintWriter csv = new PrintWriter( Files.newBufferedWriter( path ) ) )
+        {
+            csv.println( "metric,key,subkey,value" );
+            csv.println( "games,,," + tally.games );
+            csv.println( "turns,,," + tally.turns );
+            for ( int state = GameManager.PLAYER1_WIN; state <= GameManager.PLAYER2_WIN2; state++ )
+            {
+                csv.println( "ending," + ENDING_NAMES[state - GameManager.PLAYER1_WIN] + ",," + tally.winsByState[state] );
+                csv.println( "ending_turns," + ENDING_NAMES[state - GameManager.PLAYER1_WIN] + ",," + tally.turnsByState[state] );
+            } // end for
+            for ( int turns = 0; turns <= MAX_TRACKED_TURNS; turns++ )
+            {
+                if ( tally.gameLengthCounts[turns] > 0 )
+                {
+                    csv.println( "game_length," + turns + ( turns == MAX_TRACKED_TURNS ? "+" : "" ) + ",," + tally.gameLengthCounts[turns] );
+                } // end if
+            } // end for
+            writeCsvTable( csv, "occupancy", tally.occupancy, 1, 0 );
+            writeCsvTable( csv, "landings", tally.landings, 1, 0 );
+            writeCsvTable( csv, "captures", tally.captures, 1, 0 );
+            writeCsvTable( csv, "battles", tally.battles, 1, 1 );
+            writeCsvTable( csv, "attacker_wins", tally.attackerWins, 1, 1 );
+            writeCsvTable( csv, "orbiter_loss_goals", tally.goalCountsAtOrbiterLoss, 0, 0 );
+            if ( csv.checkError() )
+            {
+                throw new IOException( "write failed" );
+            } // end if
+        } // end try
+    } // end method writeCsv
+
+    /**
+     * Writes the non-zero cells of a 2-D tally as CSV rows
+     *
+     * @param csv           where to write
+     * @param metric        the metric column
+     * @param counts        the counts, [key][subkey]
+     * @param keyBase       what the first key is called (1 for players and tiers, 0 for goal counts)
+     * @param subkeyBase    what the first subkey is called (0 for spaces and goal counts, 1 for tiers)
+     */
+    private static void writeCsvTable( PrintWriter csv, String metric, long[][] counts, int keyBase, int subkeyBase )
+    {
+        for ( int key = 0; key < counts.length; key++ )
+        {
+            for ( int subkey = 0; subkey < counts[key].length; subkey++ )
+            {
+                if ( counts[key][subkey] > 0 )
+                {
+                    csv.println( metric + "," + ( key + keyBase ) + "," + ( subkey + subkeyBase ) + "," + counts[key][subkey] );
+                } // end if
+            } // end INNER for
+        } // end OUTER for
+    } // end method writeCsvTable
+
+    /**
+     * Getter for how many games have been tallied (only complete once run has returned)
+     */
+    public long getGamesPlayed()
+    {
+        synchronized ( totals )
+        {
+            return totals.games;
+        } // end synchronized
+    } // end method getGamesPlayed
+
+    /**
+     * The running totals of one worker (or of the whole run, once the workers' tallies are added up): nothing but
+     * fixed-size arrays of counts, so a tally is the same size after one game or a billion
+     */
+    private static final class Tally
+    {
+        long games;
+        long turns;
+        final long[] winsByState = new long[GameManager.PLAYER2_WIN2 + 1];
+        final long[] turnsByState = new long[GameManager.PLAYER2_WIN2 + 1];
+        final long[] gameLengthCounts = new long[MAX_TRACKED_TURNS + 1];
+        final long[][] occupancy = new long[GameManager.NUMBER_OF_PLAYERS][GameManager.NUMBER_OF_SPACES];
+        final long[][] landings = new long[GameManager.NUMBER_OF_PLAYERS][GameManager.NUMBER_OF_SPACES];
+        final long[][] captures = new long[GameManager.NUMBER_OF_PLAYERS][GameManager.NUMBER_OF_SPACES];
+        final long[][] battles = new long[GameManager.MAX_PIECE_TIER][GameManager.MAX_PIECE_TIER];         // [attacker tier - 1][defender tier - 1]
+        final long[][] attackerWins = new long[GameManager.MAX_PIECE_TIER][GameManager.MAX_PIECE_TIER];
+        final long[][] goalCountsAtOrbiterLoss = new long[GameManager.NUMBER_OF_PIECES_PER_PLAYER + 1][GameManager.NUMBER_OF_PIECES_PER_PLAYER + 1]; // [winner][loser]
+
+        /**
+         * Tallies a move that has just been made: the landing space, and the battle if there was one
+         *
+         * @param gameManager           the game, right after the move
+         * @param playerIndex           the player who moved
+         * @param pieceIndex            the piece that moved
+         * @param targetLocationIndex   where the piece was headed (a path index, or the goal zone)
+         */
+        void recordMove( GameManager gameManager, int playerIndex, int pieceIndex, int targetLocationIndex )
+        {
+            if ( targetLocationIndex == GameManager.GOAL_ZONE_INDEX )
+            {
+                return;
+            } // end if
+            int spaceIndex = GameManager.getSpaceIndexForPlayerIndex( playerIndex, targetLocationIndex );
+            landings[playerIndex][spaceIndex]++;
+            if ( gameManager.wasLastMoveBattle() )
+            {
+                int attackerTierIndex = GameManager.getPieceTier( pieceIndex ) - 1;
+                int defenderTierIndex = GameManager.getPieceTier( gameManager.getLastBattleDefenderPieceIndex() ) - 1;
+                battles[attackerTierIndex][defenderTierIndex]++;
+                if ( gameManager.wasLastBattleWonByAttacker() )
+                {
+                    attackerWins[attackerTierIndex][defenderTierIndex]++;
+                    captures[playerIndex][spaceIndex]++;
+                } // end if
+                else
+                {
+                    captures[1 - playerIndex][spaceIndex]++;
+                } // end else
+            } // end if
+        } // end method recordMove
+
+        /**
+         * Tallies where every piece on the board is at the end of a turn
+         */
+        void recordOccupancy( GameManager gameManager )
+        {
+            for ( int playerIndex = 0; playerIndex < GameManager.NUMBER_OF_PLAYERS; playerIndex++ )
+            {
+                for ( int pieceIndex = 0; pieceIndex < GameManager.NUMBER_OF_PIECES_PER_PLAYER; pieceIndex++ )
+                {
+                    int locationIndex = gameManager.getGameBoardLocationIndex( playerIndex, pieceIndex );
+                    if ( locationIndex >= 0 && locationIndex < GameManager.PATH_LENGTH )
+                    {
+                        occupancy[playerIndex][GameManager.getSpaceIndexForPlayerIndex( playerIndex, locationIndex )]++;
+                    } // end if
+                } // end INNER for
+            } // end OUTER for
+        } // end method recordOccupancy
+
+        /**
+         * Tallies a finished game: its ending, its length and, after an Orbiter loss, how far along each player was
+         */
+        void recordGameEnd( GameManager gameManager, int gameTurns )
+        {
+            int state = gameManager.getState();
+            games++;
+            turns += gameTurns;
+            winsByState[state]++;
+            turnsByState[state] += gameTurns;
+            gameLengthCounts[Math.min( gameTurns, MAX_TRACKED_TURNS )]++;
+            if ( state == GameManager.PLAYER1_WIN2 || state == GameManager.PLAYER2_WIN2 )
+            {
+                int winnerPlayerIndex = ( state == GameManager.PLAYER1_WIN2 ) ? 0 : 1;
+                goalCountsAtOrbiterLoss[gameManager.getGoalCountForPlayerIndex( winnerPlayerIndex )][gameManager.getGoalCountForPlayerIndex( 1 - winnerPlayerIndex )]++;
+            } // end if
+        } // end method recordGameEnd
+
+        /**
+         * Adds another tally's counts to this one
+         */
+        void add( Tally other )
+        {
+            games += other.games;
+            turns += other.turns;
+            addCounts( winsByState, other.winsByState );
+            addCounts( turnsByState, other.turnsByState );
+            addCounts( gameLengthCounts, other.gameLengthCounts );
+            for ( long[][][] pair : new long[][][][]{ { occupancy, other.occupancy }, { landings, other.landings }, { captures, other.captures },
+                                                     { battles, other.battles }, { attackerWins, other.attackerWins },
+                                                     { goalCountsAtOrbiterLoss, other.goalCountsAtOrbiterLoss } } )
+            {
+                for ( int row = 0; row < pair[0].length; row++ )
+                {
+                    addCounts( pair[0][row], pair[1][row] );
+                } // end INNER for
+            } // end OUTER for
+        } // end method add
+
+        /**
+         * Adds one array of counts to another of the same length
+         */
+        private static void addCounts( long[] counts, long[] otherCounts )
+        {
+            for ( int index = 0; index < counts.length; index++ )
+            {
+                counts[index] += otherCounts[index];
+            } // end for
+        } // end method addCounts
+    } // end class Tally
+} // end class BalanceStatistics
@@ -0,0 +1,115 @@
+/**
+ * The exact odds of every battle. In a battle each piece rolls one battle die per tier, the highest single die
+ * wins and ties go to the defender, so the outcome only depends on the two tiers. All 3 x 3 matchups are worked
+ * out once, when the class loads, for the battle die of the active RuleVariant, so the odds are exact fractions
+ * rather than estimates (the table below is for the standard 6-sided dice).
+ *
+ * The CPU players use these odds to weigh battles, and the GameBoard shows them on screen during a battle.
+ *
+ *                  defender T1        defender T2         defender T3
+ *   attacker T1    15/36    (42%)    55/216    (25%)    225/1296    (17%)
+ *   attacker T2   125/216   (58%)   505/1296   (39%)   2183/7776    (28%)
+ *   attacker T3   855/1296  (66%)  3667/7776   (47%)  16437/46656   (35%)
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public final class BattleOdds
+{
+    /* FIELDS */
+    // [attackerTier][defenderTier], tier 0 is never used
+    private static final long[][] ATTACKER_WIN_COUNT = new long[GameManager.MAX_PIECE_TIER + 1][GameManager.MAX_PIECE_TIER + 1];
+    private static final long[][] OUTCOME_COUNT = new long[GameManager.MAX_PIECE_TIER + 1][GameManager.MAX_PIECE_TIER + 1];
+    private static final double[][] ATTACKER_WIN_PROBABILITY = new double[GameManager.MAX_PIECE_TIER + 1][GameManager.MAX_PIECE_TIER + 1];
+
+    static
+    {
+        int sides = GameManager.BATTLE_DIE_SIDES;
+        for ( int attackerTier = 1; attackerTier <= GameManager.MAX_PIECE_TIER; attackerTier++ )
+        {
+            for ( int defenderTier = 1; defenderTier <= GameManager.MAX_PIECE_TIER; defenderTier++ )
+            {
+                // the number of ways n dice can have a highest roll of at most h is h^n
+                long attackerWinCount = 0;
+                for ( int highestRoll = 1; highestRoll <= sides; highestRoll++ )
+                {
+                    long attackerExactly = power( highestRoll, attackerTier ) - power( highestRoll - 1, attackerTier );
+                    attackerWinCount += attackerExactly * power( highestRoll - 1, defenderTier ); // every defender die is lower
+                } // end INNER INNER for
+                ATTACKER_WIN_COUNT[attackerTier][defenderTier] = attackerWinCount;
+                OUTCOME_COUNT[attackerTier][defenderTier] = power( sides, attackerTier + defenderTier );
+                ATTACKER_WIN_PROBABILITY[attackerTier][defenderTier] = (double) attackerWinCount / OUTCOME_COUNT[attackerTier][defenderTier];
+            } // end INNER for
+        } // end OUTER for
+    } // end static initializer
+
+    /* CONSTRUCTORS */
+    /**
+     * BattleOdds only has static lookups, so it is never instantiated
+     */
+    private BattleOdds()
+    {
+    } // end private no-arg constructor
+
+    /* METHODS */
+    /**
+     * Raises a small whole number to a small power, exactly
+     */
+    private static long power( long base, int exponent )
+    {
+        long result = 1;
+        for ( int count = 0; count < exponent; count++ )
+        {
+            result *= base;
+        } // end for
+        return result;
+    } // end method power
+
+    /**
+     * Returns the exact probability that an attacker of the given tier beats a defender of the given tier
+     *
+     * @param attackerTier  the attacking piece's tier (1 to 3)
+     * @param defenderTier  the defending piece's tier (1 to 3)
+     */
+    public static double getAttackerWinProbability( int attackerTier, int defenderTier )
+    {
+        return ATTACKER_WIN_PROBABILITY[attackerTier][defenderTier];
+    } // end method getAttackerWinProbability
+
+    /**
+     * Returns the exact probability that a defender of the given tier holds off an attacker of the given tier
+     * (ties included)
+     *
+     * @param attackerTier  the attacking piece's tier (1 to 3)
+     * @param defenderTier  the defending piece's tier (1 to 3)
+     */
+    public static double getDefenderWinProbability( int attackerTier, int defenderTier )
+    {
+        return 1.0 - ATTACKER_WIN_PROBABILITY[attackerTier][defenderTier];
+    } // end method getDefenderWinProbability
+
+    /**
+     * Returns how many of the equally likely rolls of the dice the attacker wins (the numerator of the odds)
+     */
+    public static long getAttackerWinCount( int attackerTier, int defenderTier )
+    {
+        return ATTACKER_WIN_COUNT[attackerTier][defenderTier];
+    } // end method getAttackerWinCount
+
+    /**
+     * Returns how many equally likely rolls of the dice a battle has: sides^(attacker tier + defender tier)
+     * (the denominator of the odds)
+     */
+    public static long getOutcomeCount( int attackerTier, int defenderTier )
+    {
+        return OUTCOME_COUNT[attackerTier][defenderTier];
+    } // end method getOutcomeCount
+
+    /**
+     * Describes the attacker's chance of winning as a whole percentage, e.g. "42%", for on-screen readouts
+     */
+    public static String getAttackerWinPercentText( int attackerTier, int defenderTier )
+    {
+        return Math.round( 100.0 * ATTACKER_WIN_PROBABILITY[attackerTier][defenderTier] ) + "%";
+    } // end method getAttackerWinPercentText
+} // end class BattleOdds
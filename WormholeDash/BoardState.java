@@ -0,0 +1,527 @@
+/**
+ * A compact, primitive encoding of a Wormhole Dash position that fits in two `long`s, so copying a position,
+ * comparing two positions or hashing one only costs a few nanoseconds. Piece identity (which Sputnik is which)
+ * isn't stored, only what matters to the rules: who is on each square, the tier of each occupant, how many pieces
+ * of each tier are still in each starting zone, the goal counts and whose turn it is.
+ *
+ * Squares are stored along each player's own movement path (path index 0 to 15), the same indexing as
+ * `GameManager` and `movementPathForPlayerIndex` in the GameBoard. Which squares of one path are squares of the
+ * other comes from the routes of the active RuleVariant, through tables it compiles when the class loads.
+ *
+ * `occupancy` word:
+ *   bits  0-15   red path occupancy (bit i = red piece on red path index i)
+ *   bits 16-31   blue path occupancy
+ *   bits 32-36   red start zone: tier 1 count (2 bits), tier 2 count (2 bits), tier 3 count (1 bit)
+ *   bits 37-41   blue start zone, same layout
+ *   bits 42-44   red goal count
+ *   bits 45-47   blue goal count
+ *   bits 48-51   game state (one of the GameManager state constants)
+ *   bits 52-54   current movement die roll (0 = not rolled yet)
+ *   bit  55      star space reroll pending
+ *
+ * `tiers` word: 2 bits per path square holding the occupant's tier (0 = empty),
+ *   bits 0-31 for red's path and bits 32-63 for blue's path.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public final class BoardState
+{
+    /* PUBLIC CONSTANTS */
+    public static final int FULL_PATH_MASK = 0xFFFF;
+    public static final int SHARED_MIDDLE_LANE_MASK = 0x07F0;     // on the standard routes, path indices 4-10, shared in the same direction by both players
+    public static final int SHARED_TOP_LANE_MASK = 0xF800;        // on the standard routes, path indices 11-15, shared but travelled in opposite directions
+
+    /* PRIVATE CONSTANTS for the bit layout */
+    private static final int BLUE_OCCUPANCY_SHIFT = 16;
+    private static final int[] START_SHIFT_FOR_PLAYER_INDEX = { 32, 37 };
+    private static final int[] START_TIER_SHIFT = { 0, 0, 2, 4 };  // indexed by tier (1 to 3)
+    private static final long[] START_TIER_MASK = { 0, 3, 3, 1 };  // indexed by tier (1 to 3)
+    private static final int[] GOAL_SHIFT_FOR_PLAYER_INDEX = { 42, 45 };
+    private static final int STATE_SHIFT = 48;
+    private static final int DIE_ROLL_SHIFT = 52;
+    private static final long DIE_ROLL_MASK = 7;
+    private static final int REROLL_SHIFT = 55;
+
+    // the active rule variant's route tables: [playerIndex][pathIndex] to the same square on the opponent's path
+    // (or -1), and [playerIndex][byte of the opponent's path mask] to those squares on the player's own path
+    private static final int[][] OPPONENT_PATH_INDEX = RuleVariant.ACTIVE.getOpponentPathIndices();
+    private static final int[][] OPPONENT_MASK_FROM_LOW_BYTE = RuleVariant.ACTIVE.getOpponentMaskFromLowByte();
+    private static final int[][] OPPONENT_MASK_FROM_HIGH_BYTE = RuleVariant.ACTIVE.getOpponentMaskFromHighByte();
+    private static final int[] STAR_TARGET_MASK_FOR_PLAYER_INDEX = RuleVariant.ACTIVE.getStarTargetMasks();
+
+    /* FIELDS */
+    private long occupancy;
+    private long tiers;
+
+    /* CONSTRUCTORS */
+    /**
+     * Initializes a board state directly from its two packed words
+     *
+     * @param occupancy     the packed occupancy/counts/turn word
+     * @param tiers         the packed tier-per-square word
+     */
+    public BoardState( long occupancy, long tiers )
+    {
+        this.occupancy = occupancy;
+        this.tiers = tiers;
+    } // end BoardState 2-arg constructor
+
+    /**
+     * Initializes a copy of another board state
+     *
+     * @param other     the board state to copy
+     */
+    public BoardState( BoardState other )
+    {
+        this( other.occupancy, other.tiers );
+    } // end BoardState copy constructor
+
+    /* METHODS */
+    /**
+     * Creates the board state for the start of a game: every piece in its starting zone, player 1 to roll
+     */
+    public static BoardState newGame()
+    {
+        BoardState boardState = new BoardState( 0L, 0L );
+        for ( int playerIndex = 0; playerIndex < GameManager.NUMBER_OF_PLAYERS; playerIndex++ )
+        {
+            for ( int pieceIndex = 0; pieceIndex < GameManager.NUMBER_OF_PIECES_PER_PLAYER; pieceIndex++ )
+            {
+                boardState.addToStartZone( playerIndex, GameManager.getPieceTier( pieceIndex ) );
+            } // end INNER for
+        } // end OUTER for
+        boardState.setState( GameManager.PLAYER1_ROLL_DIE );
+        return boardState;
+    } // end method newGame
+
+    /**
+     * Overwrites this board state with another one (no allocation)
+     *
+     * @param other     the board state to copy
+     */
+    public void copyFrom( BoardState other )
+    {
+        occupancy = other.occupancy;
+        tiers = other.tiers;
+    } // end method copyFrom
+
+    /**
+     * Overwrites this board state with the given packed words (no allocation)
+     *
+     * @param occupancy     the packed occupancy/counts/turn word
+     * @param tiers         the packed tier-per-square word
+     */
+    public void set( long occupancy, long tiers )
+    {
+        this.occupancy = occupancy;
+        this.tiers = tiers;
+    } // end method set
+
+    /**
+     * Getter for the packed occupancy/counts/turn word
+     */
+    public long getOccupancy()
+    {
+        return occupancy;
+    } // end method getOccupancy
+
+    /**
+     * Getter for the packed tier-per-square word
+     */
+    public long getTiers()
+    {
+        return tiers;
+    } // end method getTiers
+
+    /**
+     * Returns the squares (bit i = path index i) occupied by the given player's pieces, along that player's own path
+     *
+     * @param playerIndex   the index of the player (0 = red, 1 = blue)
+     */
+    public int getPathMaskForPlayerIndex( int playerIndex )
+    {
+        return pathMaskForPlayerIndex( occupancy, playerIndex );
+    } // end method getPathMaskForPlayerIndex
+
+    /**
+     * Returns the squares occupied by the OPPOSING player's pieces, translated onto the given player's own path, so
+     * `getPathMaskForPlayerIndex(p) & getOpponentMaskForPlayerIndex(p)` lines up square for square. The opponent's
+     * private squares (their path indices 0-3 on the standard routes) are never on this player's path, so they
+     * don't show up.
+     *
+     * @param playerIndex   the index of the player whose path is used
+     */
+    public int getOpponentMaskForPlayerIndex( int playerIndex )
+    {
+        return opponentMaskForPlayerIndex( occupancy, playerIndex );
+    } // end method getOpponentMaskForPlayerIndex
+
+    /**
+     * Static version of getPathMaskForPlayerIndex, working on a raw occupancy word
+     */
+    public static int pathMaskForPlayerIndex( long occupancy, int playerIndex )
+    {
+        return (int)( occupancy >>> ( playerIndex * BLUE_OCCUPANCY_SHIFT ) ) & FULL_PATH_MASK;
+    } // end method pathMaskForPlayerIndex
+
+    /**
+     * Static version of getOpponentMaskForPlayerIndex, working on a raw occupancy word
+     */
+    public static int opponentMaskForPlayerIndex( long occupancy, int playerIndex )
+    {
+        return mirrorPathMask( playerIndex, pathMaskForPlayerIndex( occupancy, 1 - playerIndex ) );
+    } // end method opponentMaskForPlayerIndex
+
+    /**
+     * Translates a mask along the opponent's path onto the given player's path, a byte at a time through the
+     * active rule variant's tables. On the standard routes path indices 4-10 are the same squares for both
+     * players, path indices 11-15 are the same squares in reverse order (path index i on one path is 26 - i on
+     * the other) and path indices 0-3 are private, so they are dropped.
+     *
+     * @param playerIndex   the player whose path the mask is translated onto
+     * @param pathMask      a mask along the opponent's path
+     * @return the same squares as a mask along the given player's path
+     */
+    public static int mirrorPathMask( int playerIndex, int pathMask )
+    {
+        return OPPONENT_MASK_FROM_LOW_BYTE[playerIndex][pathMask & 0xFF] | OPPONENT_MASK_FROM_HIGH_BYTE[playerIndex][pathMask >>> 8];
+    } // end method mirrorPathMask
+
+    /**
+     * Translates a single path index onto the opponent's path
+     *
+     * @param playerIndex   the player whose path the index is along
+     * @param pathIndex     a path index (0 to 15) along that player's path
+     * @return the same square's path index along the opponent's path, or -1 for a square only this player uses
+     */
+    public static int mirrorPathIndex( int playerIndex, int pathIndex )
+    {
+        return OPPONENT_PATH_INDEX[playerIndex][pathIndex];
+    } // end method mirrorPathIndex
+
+    /**
+     * Returns the tier (1 to 3) of the given player's piece on the given path index, or 0 if the square is empty
+     *
+     * @param playerIndex   the index of the player
+     * @param pathIndex     the square, along that player's path (0 to 15)
+     */
+    public int getTierAt( int playerIndex, int pathIndex )
+    {
+        return tierAt( tiers, playerIndex, pathIndex );
+    } // end method getTierAt
+
+    /**
+     * Static version of getTierAt, working on a raw tiers word
+     */
+    public static int tierAt( long tiers, int playerIndex, int pathIndex )
+    {
+        return (int)( tiers >>> ( ( playerIndex << 5 ) + ( pathIndex << 1 ) ) ) & 3;
+    } // end method tierAt
+
+    /**
+     * Returns how many of the given player's pieces of the given tier are still in the starting zone
+     *
+     * @param playerIndex   the index of the player
+     * @param tier          the tier (1 to 3)
+     */
+    public int getStartCountForPlayerIndex( int playerIndex, int tier )
+    {
+        return startCountForPlayerIndex( occupancy, playerIndex, tier );
+    } // end method getStartCountForPlayerIndex
+
+    /**
+     * Static version of getStartCountForPlayerIndex, working on a raw occupancy word
+     */
+    public static int startCountForPlayerIndex( long occupancy, int playerIndex, int tier )
+    {
+        return (int)( ( occupancy >>> ( START_SHIFT_FOR_PLAYER_INDEX[playerIndex] + START_TIER_SHIFT[tier] ) ) & START_TIER_MASK[tier] );
+    } // end method startCountForPlayerIndex
+
+    /**
+     * Returns how many of the given player's pieces (of any tier) are still in the starting zone
+     *
+     * @param playerIndex   the index of the player
+     */
+    public int getTotalStartCountForPlayerIndex( int playerIndex )
+    {
+        return startCountForPlayerIndex( occupancy, playerIndex, 1 )
+               + startCountForPlayerIndex( occupancy, playerIndex, 2 )
+               + startCountForPlayerIndex( occupancy, playerIndex, 3 );
+    } // end method getTotalStartCountForPlayerIndex
+
+    /**
+     * Returns how many of the given player's pieces have made it to the goal zone
+     *
+     * @param playerIndex   the index of the player
+     */
+    public int getGoalCountForPlayerIndex( int playerIndex )
+    {
+        return goalCountForPlayerIndex( occupancy, playerIndex );
+    } // end method getGoalCountForPlayerIndex
+
+    /**
+     * Static version of getGoalCountForPlayerIndex, working on a raw occupancy word
+     */
+    public static int goalCountForPlayerIndex( long occupancy, int playerIndex )
+    {
+        return (int)( occupancy >>> GOAL_SHIFT_FOR_PLAYER_INDEX[playerIndex] ) & 7;
+    } // end method goalCountForPlayerIndex
+
+    /**
+     * Getter for the game state (one of the GameManager state constants)
+     */
+    public int getState()
+    {
+        return stateOf( occupancy );
+    } // end method getState
+
+    /**
+     * Static version of getState, working on a raw occupancy word
+     */
+    public static int stateOf( long occupancy )
+    {
+        return (int)( occupancy >>> STATE_SHIFT ) & 15;
+    } // end method stateOf
+
+    /**
+     * Getter for the current movement die roll (0 if the die hasn't been rolled this turn)
+     */
+    public int getDieRollValue()
+    {
+        return (int)( ( occupancy >>> DIE_ROLL_SHIFT ) & DIE_ROLL_MASK );
+    } // end method getDieRollValue
+
+    /**
+     * Returns true if the player whose turn it is landed on a star space this turn and gets to roll again
+     */
+    public boolean isRerollPending()
+    {
+        return ( ( occupancy >>> REROLL_SHIFT ) & 1L ) != 0;
+    } // end method isRerollPending
+
+    /**
+     * Returns the index of the player whose turn it is (0 = red, 1 = blue)
+     */
+    public int getCurrentPlayerIndex()
+    {
+        int state = getState();
+        return ( state == GameManager.PLAYER2_ROLL_DIE || state == GameManager.PLAYER2_MOVE_BLUE ) ? 1 : 0;
+    } // end method getCurrentPlayerIndex
+
+    /**
+     * Returns true once either player has won
+     */
+    public boolean isGameOver()
+    {
+        return getState() >= GameManager.PLAYER1_WIN;
+    } // end method isGameOver
+
+    /**
+     * Puts a piece of the given tier on the given (empty) square of the given player's path
+     *
+     * @param playerIndex   the index of the player
+     * @param pathIndex     the square, along that player's path (0 to 15)
+     * @param tier          the piece's tier (1 to 3)
+     */
+    public void placePiece( int playerIndex, int pathIndex, int tier )
+    {
+        occupancy |= 1L << ( playerIndex * BLUE_OCCUPANCY_SHIFT + pathIndex );
+        tiers |= (long) tier << ( ( playerIndex << 5 ) + ( pathIndex << 1 ) );
+    } // end method placePiece
+
+    /**
+     * Takes the given player's piece off the given square
+     *
+     * @param playerIndex   the index of the player
+     * @param pathIndex     the square, along that player's path (0 to 15)
+     */
+    public void removePiece( int playerIndex, int pathIndex )
+    {
+        occupancy &= ~( 1L << ( playerIndex * BLUE_OCCUPANCY_SHIFT + pathIndex ) );
+        tiers &= ~( 3L << ( ( playerIndex << 5 ) + ( pathIndex << 1 ) ) );
+    } // end method removePiece
+
+    /**
+     * Adds a piece of the given tier to the given player's starting zone
+     */
+    public void addToStartZone( int playerIndex, int tier )
+    {
+        occupancy += 1L << ( START_SHIFT_FOR_PLAYER_INDEX[playerIndex] + START_TIER_SHIFT[tier] );
+    } // end method addToStartZone
+
+    /**
+     * Takes a piece of the given tier out of the given player's starting zone
+     */
+    public void removeFromStartZone( int playerIndex, int tier )
+    {
+        occupancy -= 1L << ( START_SHIFT_FOR_PLAYER_INDEX[playerIndex] + START_TIER_SHIFT[tier] );
+    } // end method removeFromStartZone
+
+    /**
+     * Adds a piece to the given player's goal zone
+     */
+    public void addToGoalZone( int playerIndex )
+    {
+        occupancy += 1L << GOAL_SHIFT_FOR_PLAYER_INDEX[playerIndex];
+    } // end method addToGoalZone
+
+    /**
+     * Setter for the game state (one of the GameManager state constants)
+     */
+    public void setState( int state )
+    {
+        occupancy = ( occupancy & ~( 15L << STATE_SHIFT ) ) | ( (long) state << STATE_SHIFT );
+    } // end method setState
+
+    /**
+     * Setter for the current movement die roll (0 to GameManager.MOVEMENT_DIE_SIDES)
+     */
+    public void setDieRollValue( int dieRollValue )
+    {
+        occupancy = ( occupancy & ~( DIE_ROLL_MASK << DIE_ROLL_SHIFT ) ) | ( (long) dieRollValue << DIE_ROLL_SHIFT );
+    } // end method setDieRollValue
+
+    /**
+     * Setter for whether the player whose turn it is gets to roll again
+     */
+    public void setRerollPending( boolean rerollPending )
+    {
+        occupancy = ( occupancy & ~( 1L << REROLL_SHIFT ) ) | ( rerollPending ? 1L << REROLL_SHIFT : 0L );
+    } // end method setRerollPending
+
+    /**
+     * Uses the given value as the movement die roll for the player whose turn it is
+     *
+     * @param dieRollValue  the movement die value (1 to GameManager.MOVEMENT_DIE_SIDES)
+     */
+    public void applyMovementDieRoll( int dieRollValue )
+    {
+        setDieRollValue( dieRollValue );
+        setState( getCurrentPlayerIndex() == 0 ? GameManager.PLAYER1_MOVE_RED : GameManager.PLAYER2_MOVE_BLUE );
+    } // end method applyMovementDieRoll
+
+    /**
+     * Moves one of the current player's pieces by the current die roll, following the same rules as
+     * `GameManager.movePiece`. The move has to be legal (see MoveTable). Battle dice aren't rolled here:
+     * the caller says who wins, which lets a search treat the battle as a chance node.
+     *
+     * @param sourceLocationIndex   where the piece is moving from (GameManager.START_ZONE_INDEX or a path index)
+     * @param tier                  the tier of the moving piece (this picks which piece leaves the starting zone)
+     * @param attackerWinsBattle    who wins if the target holds an opposing piece (ignored otherwise)
+     */
+    public void movePiece( int sourceLocationIndex, int tier, boolean attackerWinsBattle )
+    {
+        int playerIndex = getCurrentPlayerIndex();
+        int targetLocationIndex = sourceLocationIndex + getDieRollValue();
+
+        if ( sourceLocationIndex == GameManager.START_ZONE_INDEX )
+        {
+            removeFromStartZone( playerIndex, tier );
+        } // end if
+        else
+        {
+            removePiece( playerIndex, sourceLocationIndex );
+        } // end else
+
+        if ( targetLocationIndex == GameManager.GOAL_ZONE_INDEX )
+        {
+            addToGoalZone( playerIndex );
+            return;
+        } // end if
+
+        if ( ( STAR_TARGET_MASK_FOR_PLAYER_INDEX[playerIndex] & ( 1 << targetLocationIndex ) ) != 0 )
+        {
+            setRerollPending( true );
+        } // end if
+
+        int opposingPlayerIndex = 1 - playerIndex;
+        int opposingPathIndex = mirrorPathIndex( playerIndex, targetLocationIndex );
+        if ( opposingPathIndex >= 0 && tierAt( tiers, opposingPlayerIndex, opposingPathIndex ) != 0 )
+        {
+            int defenderTier = tierAt( tiers, opposingPlayerIndex, opposingPathIndex );
+            if ( attackerWinsBattle )
+            {
+                removePiece( opposingPlayerIndex, opposingPathIndex );
+                addToStartZone( opposingPlayerIndex, defenderTier );
+                if ( defenderTier == GameManager.MAX_PIECE_TIER )
+                {
+                    setState( playerIndex == 0 ? GameManager.PLAYER1_WIN2 : GameManager.PLAYER2_WIN2 );
+                } // end if
+            } // end if
+            else
+            {
+                addToStartZone( playerIndex, tier );
+                if ( tier == GameManager.MAX_PIECE_TIER )
+                {
+                    setState( playerIndex == 0 ? GameManager.PLAYER2_WIN2 : GameManager.PLAYER1_WIN2 );
+                } // end if
+                return;
+            } // end else
+        } // end if
+
+        placePiece( playerIndex, targetLocationIndex, tier );
+    } // end method movePiece
+
+    /**
+     * Ends the current player's turn after their move (or after finding they had no move): checks for an
+     * all-pieces-home win, then either gives the same player a star reroll or hands the die to the other player
+     */
+    public void finishTurn()
+    {
+        if ( isGameOver() )
+        {
+            return;
+        } // end if
+
+        int playerIndex = getCurrentPlayerIndex();
+        setDieRollValue( 0 );
+
+        if ( getGoalCountForPlayerIndex( playerIndex ) == GameManager.NUMBER_OF_PIECES_PER_PLAYER )
+        {
+            setState( playerIndex == 0 ? GameManager.PLAYER1_WIN : GameManager.PLAYER2_WIN );
+        } // end if
+        else if ( isRerollPending() )
+        {
+            setRerollPending( false );
+            setState( playerIndex == 0 ? GameManager.PLAYER1_ROLL_DIE : GameManager.PLAYER2_ROLL_DIE );
+        } // end else if
+        else
+        {
+            setState( playerIndex == 0 ? GameManager.PLAYER2_ROLL_DIE : GameManager.PLAYER1_ROLL_DIE );
+        } // end else
+    } // end method finishTurn
+
+    /**
+     * Two board states are equal if both packed words are equal
+     */
+    @Override
+    public boolean equals( Object other )
+    {
+        if ( !( other instanceof BoardState ) )
+        {
+            return false;
+        } // end if
+        BoardState otherBoardState = (BoardState) other;
+        return occupancy == otherBoardState.occupancy && tiers == otherBoardState.tiers;
+    } // end method equals
+
+    /**
+     * Mixes both packed words into a hash code
+     */
+    @Override
+    public int hashCode()
+    {
+        long mixed = ( occupancy ^ Long.rotateLeft( tiers, 29 ) ) * 0x9E3779B97F4A7C15L;
+        return (int)( mixed ^ ( mixed >>> 32 ) );
+    } // end method hashCode
+
+    /**
+     * Describes the packed words, mostly for debugging
+     */
+    @Override
+    public String toString()
+    {
+        return "BoardState[occupancy=0x" + Long.toHexString( occupancy ) + ", tiers=0x" + Long.toHexString( tiers ) + "]";
+    } // end method toString
+} // end class BoardState
@@ -36,31 +36,31 @@ public class Button extends Actor
         switch (buttonType) 
         {
             case RESET_BUTTON:
-                setImage("ResetButton.png");
+                setImage(SpriteRegistry.getImage("ResetButton.png"));
                 break;
 
             case LEARN_MORE_BUTTON:
-                setImage("LearnMore.png");
+                setImage(SpriteRegistry.getImage("LearnMore.png"));
                 break;
 
             case EXIT_BUTTON:
-                setImage("ExitButton.png");
+                setImage(SpriteRegistry.getImage("ExitButton.png"));
                 break;
 
             case RULES_BUTTON:
-                setImage("rules.png");
+                setImage(SpriteRegistry.getImage("rules.png"));
                 break;
 
             case LORE_BUTTON:
-                setImage("LoreButton.png");
+                setImage(SpriteRegistry.getImage("LoreButton.png"));
                 break;
 
             case CHANGE_MODE_BUTTON:
-                setImage("SmallredButton.png");
+                setImage(SpriteRegistry.getImage("SmallredButton.png"));
                 break;
 
             case TOGGLE_MUSIC_BUTTON:
-                setImage("MuteButton.png");
+                setImage(SpriteRegistry.getImage("MuteButton.png"));
                 break;
 
             default:
@@ -130,11 +130,18 @@ public class Button extends Actor
     } // end method toggleMusic
 
     /**
-     * Toggles game modes between human and CPU controlled players
+     * Toggles game modes between human and CPU controlled players (or, with shift held down, switches which kind of CPU plays)
      */
     public void toggleGameMode()
     {
-        ((GameBoard) getWorld()).cycleGameMode();
+        if (Greenfoot.isKeyDown("shift"))
+        {
+            ((GameBoard) getWorld()).cycleCpuPlayer();
+        } // end if
+        else
+        {
+            ((GameBoard) getWorld()).cycleGameMode();
+        } // end else
     } // end method toggleGameMode
 
     /**
@@ -144,6 +151,7 @@ public class Button extends Actor
     {
         getWorld().showText("", getWorld().getWidth() / 2, 360);
         getWorld().showText("", getWorld().getWidth() / 2, 260);
+        ((GameBoard) getWorld()).getHudText().forgetTextAt(getWorld().getWidth() / 2, 360); // the info text was drawn where the banner goes
         List<Overlay> overlays = getWorld().getObjects(Overlay.class);
         for (Overlay existingOverlay : overlays) 
         {
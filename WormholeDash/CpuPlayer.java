@@ -0,0 +1,18 @@
+/**
+ * A computer-controlled player. Whenever it is a CPU player's turn to move, the GameBoard (or a headless
+ * game in the GameManager) asks it which of the moveable pieces to move for the die roll that was just made.
+ * 
+ * @author  bickfori@email.uscb.edu 
+ * @version Final Version
+ */
+public interface CpuPlayer
+{
+    /**
+     * Chooses which piece the player whose turn it is should move. The die has already been rolled,
+     * so `gameManager.isMoveable(...)` tells which pieces are allowed to move.
+     * 
+     * @param gameManager   the game being played (it must not be changed by the CPU player)
+     * @return the index (0 to 6) of a moveable piece, or -1 if no piece is moveable
+     */
+    int selectPieceIndex( GameManager gameManager );
+} // end interface CpuPlayer
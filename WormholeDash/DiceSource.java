@@ -0,0 +1,51 @@
+/**
+ * Where a game's randomness comes from: the movement die, the battle dice, the draw that settles an instant
+ * battle and the original CPU's random picks. Every source starts from a seed, so a game played from the same
+ * seed (with the same moves chosen) rolls exactly the same dice, and can be split into independent sources, so
+ * every game or thread in a simulation gets its own generator instead of sharing (and contending on) one.
+ *
+ * A DiceSource is not thread-safe: give each thread its own, e.g. with split.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public interface DiceSource
+{
+    /**
+     * Rolls the movement die
+     *
+     * @return 1 to GameManager.MOVEMENT_DIE_SIDES
+     */
+    int rollMovementDie();
+
+    /**
+     * Rolls one battle die
+     *
+     * @return 1 to GameManager.BATTLE_DIE_SIDES
+     */
+    int rollBattleDie();
+
+    /**
+     * Draws a whole number, each equally likely
+     *
+     * @param bound     how many numbers to draw from (1 or more)
+     * @return 0 to bound - 1
+     */
+    int nextInt( int bound );
+
+    /**
+     * Draws a number between 0 (inclusive) and 1 (exclusive), e.g. to settle an instant battle against its odds
+     */
+    double nextDouble();
+
+    /**
+     * Getter for the seed this source started from (a new source with the same seed rolls the same dice)
+     */
+    long getSeed();
+
+    /**
+     * Creates a new, independent source whose seed is drawn from this one, so a seeded source splits into the
+     * same children every time
+     */
+    DiceSource split();
+} // end interface DiceSource
@@ -0,0 +1,227 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Measures the engine's hot paths, so every claim about its speed can be backed by a number and a regression shows
+ * up as one: rolling dice, move generation, battle resolution, whole random games, hashing and copying positions, and how long
+ * the CPU players take to pick a move.
+ *
+ * This is a small self-contained harness in the style of JMH (there is no build tool here to pull JMH in): each
+ * benchmark is warmed up, then timed over several measurement rounds, and reported as the mean time per operation
+ * with its standard deviation across rounds. Every input comes from fixed seeds, so two runs measure exactly the
+ * same work. Each result is folded into a sink that is printed at the end, so the JIT can't throw the work away.
+ *
+ * Run it from the scenario folder with `java EngineBenchmark [nameFilter] [msPerRound]`.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public class EngineBenchmark
+{
+    /* PUBLIC CONSTANTS */
+    public static final long SEED = 20240501L;
+    public static final int NUMBER_OF_SAMPLE_POSITIONS = 1024;
+    public static final int WARM_UP_ROUNDS = 5;
+    public static final int MEASUREMENT_ROUNDS = 10;
+    public static final long DEFAULT_ROUND_NANOS = 200_000_000L;    // 200 ms per round
+    public static final int SEARCH_DEPTH = 3;                       // fixed depth, so the search does the same work every run
+
+    /* FIELDS */
+    private final long roundNanos;
+    private final List<BoardState> rolledPositions;         // positions right after a roll, from seeded random games
+    private final List<GameManager> rolledGameManagers;     // the same kind of positions, inside a GameManager
+    private long sink;
+
+    /* CONSTRUCTORS */
+    /**
+     * Initializes the benchmarks and builds their sample positions
+     *
+     * @param roundNanos    how long each warm-up and measurement round runs
+     */
+    public EngineBenchmark( long roundNanos )
+    {
+        this.roundNanos = roundNanos;
+        rolledPositions = new ArrayList<>();
+        rolledGameManagers = new ArrayList<>();
+        buildSamplePositions();
+    } // end EngineBenchmark 1-arg constructor
+
+    /* METHODS */
+    /**
+     * Runs every benchmark (or those whose name contains the filter) and prints the results
+     *
+     * @param args  optionally a filter on the benchmark names and the length of a round in milliseconds
+     */
+    public static void main( String[] args )
+    {
+        String nameFilter = ( args.length > 0 ) ? args[0] : "";
+        long roundNanos = ( args.length > 1 ) ? Long.parseLong( args[1] ) * 1_000_000L : DEFAULT_ROUND_NANOS;
+        new EngineBenchmark( roundNanos ).runAll( nameFilter );
+    } // end method main
+
+    /**
+     * Plays seeded random games and keeps the position after each roll, until there are enough samples
+     */
+    private void buildSamplePositions()
+    {
+        Random sampleRandom = new Random( SEED );
+        for ( int gameIndex = 0; rolledGameManagers.size() < NUMBER_OF_SAMPLE_POSITIONS; gameIndex++ )
+        {
+            // replay a seeded game up to a random turn, so the samples cover openings, middle games and endgames
+            int turnsToPlay = sampleRandom.nextInt( 120 );
+            GameManager gameManager = new GameManager( SEED + gameIndex );
+            for ( int turn = 0; turn < turnsToPlay && !gameManager.isGameOver(); turn++ )
+            {
+                gameManager.playCpuTurn();
+            } // end for
+            if ( gameManager.isGameOver() )
+            {
+                continue;
+            } // end if
+            gameManager.rollMovementDie();
+            rolledGameManagers.add( gameManager );
+            rolledPositions.add( new BoardState( gameManager.getBoardState() ) );
+        } // end for
+    } // end method buildSamplePositions
+
+    /**
+     * Runs the benchmarks whose name contains the filter
+     */
+    public void runAll( String nameFilter )
+    {
+        System.out.println( String.format( Locale.ROOT, "%-34s %14s %10s %16s", "benchmark", "ns/op", "+/-", "ops/s" ) );
+
+        int[] moves = new int[16];
+        run( nameFilter, "moveGeneration.boardState", operation ->
+             ExpectiminimaxCpuPlayer.generateMoves( rolledPositions.get( operation & ( NUMBER_OF_SAMPLE_POSITIONS - 1 ) ), moves ) );
+        run( nameFilter, "moveGeneration.gameManager", operation ->
+        {
+            GameManager gameManager = rolledGameManagers.get( operation & ( NUMBER_OF_SAMPLE_POSITIONS - 1 ) );
+            gameManager.determineWhichPiecesAreMoveableForPlayerIndex( gameManager.getCurrentPlayerIndex() );
+            return gameManager.hasMoveablePiece() ? 1 : 0;
+        } );
+
+        DiceSource diceSource = new SplittableDiceSource( SEED );
+        run( nameFilter, "dice.movementRoll", operation -> diceSource.rollMovementDie() );
+        run( nameFilter, "dice.battleRoll", operation -> diceSource.rollBattleDie() );
+
+        int[] attackerRolls = new int[GameManager.MAX_PIECE_TIER];
+        int[] defenderRolls = new int[GameManager.MAX_PIECE_TIER];
+        run( nameFilter, "battle.dice", operation ->
+             GameManager.rollBattleDice( diceSource, operation % 3 + 1, ( operation / 3 ) % 3 + 1, attackerRolls, defenderRolls ) ? 1 : 0 );
+        run( nameFilter, "battle.instant", operation ->
+             diceSource.nextDouble() < BattleOdds.getAttackerWinProbability( operation % 3 + 1, ( operation / 3 ) % 3 + 1 ) ? 1 : 0 );
+
+        GameManager playoutGameManager = new GameManager( SEED );
+        run( nameFilter, "playout.randomGame", operation ->
+        {
+            playoutGameManager.newGame();
+            return playoutGameManager.playCpuVsCpuGame();
+        } );
+
+        run( nameFilter, "state.zobristHash", operation ->
+             ZobristHash.hash( rolledPositions.get( operation & ( NUMBER_OF_SAMPLE_POSITIONS - 1 ) ) ) );
+        BoardState copiedState = new BoardState( 0L, 0L );
+        run( nameFilter, "state.copy", operation ->
+        {
+            copiedState.copyFrom( rolledPositions.get( operation & ( NUMBER_OF_SAMPLE_POSITIONS - 1 ) ) );
+            return copiedState.getOccupancy();
+        } );
+
+        CpuPlayer randomCpuPlayer = new RandomCpuPlayer();
+        run( nameFilter, "cpu.random.selectPiece", operation ->
+             randomCpuPlayer.selectPieceIndex( rolledGameManagers.get( operation & ( NUMBER_OF_SAMPLE_POSITIONS - 1 ) ) ) );
+        TranspositionTable searchTable = new TranspositionTable( 1 );
+        ExpectiminimaxCpuPlayer searchCpuPlayer = new ExpectiminimaxCpuPlayer( Long.MAX_VALUE / 4, SEARCH_DEPTH, searchTable );
+        run( nameFilter, "cpu.search.depth" + SEARCH_DEPTH, operation ->
+        {
+            searchTable.clear(); // every search starts from the same (empty) table
+            return searchCpuPlayer.searchBestMove( rolledPositions.get( operation & ( NUMBER_OF_SAMPLE_POSITIONS - 1 ) ) );
+        } );
+
+        System.out.println( "(sink " + sink + ")" );
+    } // end method runAll
+
+    /**
+     * Warms up, then measures, one benchmark: each round runs the operation for about roundNanos, and the rounds'
+     * times per operation are averaged
+     *
+     * @param nameFilter    only benchmarks whose name contains this are run
+     * @param name          the benchmark's name
+     * @param operation     the work being measured, given the operation's number (to pick its inputs)
+     */
+    private void run( String nameFilter, String name, Operation operation )
+    {
+        if ( !name.contains( nameFilter ) )
+        {
+            return;
+        } // end if
+
+        int operationsPerRound = calibrate( operation );
+        for ( int round = 0; round < WARM_UP_ROUNDS; round++ )
+        {
+            timeRound( operation, operationsPerRound );
+        } // end for
+
+        double[] nanosPerOperation = new double[MEASUREMENT_ROUNDS];
+        double sum = 0.0;
+        for ( int round = 0; round < MEASUREMENT_ROUNDS; round++ )
+        {
+            nanosPerOperation[round] = (double) timeRound( operation, operationsPerRound ) / operationsPerRound;
+            sum += nanosPerOperation[round];
+        } // end for
+        double mean = sum / MEASUREMENT_ROUNDS;
+        double squaredDeviationSum = 0.0;
+        for ( double roundNanosPerOperation : nanosPerOperation )
+        {
+            squaredDeviationSum += ( roundNanosPerOperation - mean ) * ( roundNanosPerOperation - mean );
+        } // end for
+        double standardDeviation = Math.sqrt( squaredDeviationSum / ( MEASUREMENT_ROUNDS - 1 ) );
+
+        System.out.println( String.format( Locale.ROOT, "%-34s %14.1f %10.1f %16.0f", name, mean, standardDeviation, 1e9 / mean ) );
+    } // end method run
+
+    /**
+     * Finds how many operations fill one round, doubling from 1 (the first calls also start warming up the JIT)
+     */
+    private int calibrate( Operation operation )
+    {
+        int operationCount = 1;
+        while ( timeRound( operation, operationCount ) < roundNanos / 4 && operationCount < ( 1 << 29 ) )
+        {
+            operationCount *= 2;
+        } // end while
+        return operationCount * 4;
+    } // end method calibrate
+
+    /**
+     * Runs the operation a number of times and returns how long that took, in nanoseconds
+     */
+    private long timeRound( Operation operation, int operationCount )
+    {
+        long localSink = 0;
+        long startNanos = System.nanoTime();
+        for ( int operationNumber = 0; operationNumber < operationCount; operationNumber++ )
+        {
+            localSink += operation.run( operationNumber );
+        } // end for
+        long elapsedNanos = System.nanoTime() - startNanos;
+        sink += localSink;
+        return elapsedNanos;
+    } // end method timeRound
+
+    /**
+     * One benchmarked operation. It returns a value depending on its work, which is added to the sink.
+     */
+    private interface Operation
+    {
+        /**
+         * Does the work once
+         *
+         * @param operationNumber   counts up from 0 within a round, for picking inputs
+         */
+        long run( int operationNumber );
+    } // end interface Operation
+} // end class EngineBenchmark
@@ -0,0 +1,687 @@
+/**
+ * A search-based CPU player. It looks ahead through the game tree using expectiminimax: the CPU picks its best
+ * move, assumes the opponent picks theirs, and averages over everything the dice can do -- the movement
+ * die at the start of every turn and the tier-dependent battle dice whenever a move lands on an
+ * opposing piece. A star landing gives the same player another roll, so their next turn is searched as theirs again.
+ *
+ * Chance nodes are pruned with Ballard's Star1 and Star2 algorithms (alpha-beta bounds carried through the
+ * averages, plus a cheap "probe" of each roll's first move), and the search deepens one turn at a time until
+ * its time budget runs out, so it always answers within about one frame.
+ *
+ * Positions already searched are remembered in a TranspositionTable (keyed by ZobristHash), which also keeps the
+ * best move found at each decision so it can be searched first next time. The table can be shared between
+ * several CPU players, e.g. one per thread; each player keeps its own search stacks.
+ *
+ * Values are always from the point of view of the player the CPU is choosing for: +1 is a win, -1 is a loss.
+ * Once the position is a race (see RaceDatabase) its exact value is looked up instead of searched.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public class ExpectiminimaxCpuPlayer implements CpuPlayer
+{
+    /* PUBLIC CONSTANTS */
+    public static final long DEFAULT_TIME_BUDGET_NANOS = 15_000_000L;   // 15 ms, about one frame
+    public static final int DEFAULT_MAX_DEPTH = 24;                     // in turns (decisions), including the current one
+    public static final int DEFAULT_TABLE_SIZE_MEGABYTES = 16;
+
+    /* PRIVATE CONSTANTS */
+    private static final double WIN_VALUE = 1.0;
+    private static final double LOSS_VALUE = -1.0;
+    private static final double ROLL_PROBABILITY = 1.0 / GameManager.MOVEMENT_DIE_SIDES;
+    private static final int MAX_MOVES = 16;
+    private static final int NODES_BETWEEN_CLOCK_CHECKS = 1024;
+
+    /* FIELDS */
+    private long timeBudgetNanos;
+    private int maxDepth;
+    private TranspositionTable transpositionTable;
+
+    private int rootPlayerIndex;
+    private double tableValueSign;      // table values are stored from player 1's point of view
+    private long deadlineNanos;
+    private boolean aborted;
+    private long nodeCount;
+    private int lastCompletedDepth;
+
+    private BoardState[] stateForPly;
+    private int[][] movesForPly;
+    private double[][] probeBoundForPly;
+
+    /* CONSTRUCTORS */
+    /**
+     * Initializes a CPU player with the default time budget (about one frame)
+     */
+    public ExpectiminimaxCpuPlayer()
+    {
+        this( DEFAULT_TIME_BUDGET_NANOS, DEFAULT_MAX_DEPTH );
+    } // end ExpectiminimaxCpuPlayer no-arg constructor
+
+    /**
+     * Initializes a CPU player with its own time budget and depth limit
+     *
+     * @param timeBudgetNanos   how long one move may take to choose, in nanoseconds
+     * @param maxDepth          the deepest search, in turns (decisions), including the current one
+     */
+    public ExpectiminimaxCpuPlayer( long timeBudgetNanos, int maxDepth )
+    {
+        this( timeBudgetNanos, maxDepth, new TranspositionTable( DEFAULT_TABLE_SIZE_MEGABYTES ) );
+    } // end ExpectiminimaxCpuPlayer 2-arg constructor
+
+    /**
+     * Initializes a CPU player that uses the given (possibly shared) transposition table
+     *
+     * @param timeBudgetNanos       how long one move may take to choose, in nanoseconds
+     * @param maxDepth              the deepest search, in turns (decisions), including the current one
+     * @param transpositionTable    where searched positions are remembered
+     */
+    public ExpectiminimaxCpuPlayer( long timeBudgetNanos, int maxDepth, TranspositionTable transpositionTable )
+    {
+        this.timeBudgetNanos = timeBudgetNanos;
+        this.maxDepth = maxDepth;
+        this.transpositionTable = transpositionTable;
+
+        int maxPly = 2 * maxDepth + 4; // every turn uses one ply for the roll and one for the move
+        stateForPly = new BoardState[maxPly];
+        movesForPly = new int[maxPly][MAX_MOVES];
+        probeBoundForPly = new double[maxPly][GameManager.MOVEMENT_DIE_SIDES];
+        for ( int ply = 0; ply < maxPly; ply++ )
+        {
+            stateForPly[ply] = new BoardState( 0L, 0L );
+        } // end for
+    } // end ExpectiminimaxCpuPlayer 3-arg constructor
+
+    /* METHODS */
+    /**
+     * Searches the current position and picks the piece with the best expected outcome
+     *
+     * @param gameManager   the game being played
+     * @return the index of the piece to move, or -1 if no piece is moveable
+     */
+    public int selectPieceIndex( GameManager gameManager )
+    {
+        if ( !gameManager.hasMoveablePiece() )
+        {
+            return -1;
+        } // end if
+
+        BoardState rootState = gameManager.getBoardState();
+        int move = searchBestMove( rootState );
+        return gameManager.getPieceIndexAtLocation( rootState.getCurrentPlayerIndex(), getSourceOfMove( move ), getTierOfMove( move ) );
+    } // end method selectPieceIndex
+
+    /**
+     * Searches the given position (the die must already be rolled) with iterative deepening until the
+     * time budget or the depth limit is reached
+     *
+     * @param rootState     the position to search, in a PLAYER1_MOVE_RED or PLAYER2_MOVE_BLUE state
+     * @return the best move found (see getSourceOfMove and getTierOfMove), or -1 if there is no legal move
+     */
+    public int searchBestMove( BoardState rootState )
+    {
+        int[] rootMoves = new int[MAX_MOVES];
+        int numberOfRootMoves = generateMoves( rootState, rootMoves );
+        if ( numberOfRootMoves == 0 )
+        {
+            return -1;
+        } // end if
+
+        rootPlayerIndex = rootState.getCurrentPlayerIndex();
+        tableValueSign = ( rootPlayerIndex == 0 ) ? 1.0 : -1.0;
+        transpositionTable.newSearch();
+        deadlineNanos = System.nanoTime() + timeBudgetNanos;
+        aborted = false;
+        nodeCount = 0;
+        lastCompletedDepth = 0;
+
+        int bestMove = rootMoves[0];
+        if ( numberOfRootMoves == 1 )
+        {
+            return bestMove; // nothing to think about
+        } // end if
+
+        for ( int depth = 1; depth <= maxDepth; depth++ )
+        {
+            double bestValue = Double.NEGATIVE_INFINITY;
+            int bestMoveAtThisDepth = bestMove;
+
+            // search the previous best move first, since it is the most likely to still be best
+            moveToFront( rootMoves, numberOfRootMoves, bestMove );
+            for ( int moveIndex = 0; moveIndex < numberOfRootMoves; moveIndex++ )
+            {
+                double value = searchMoveOutcome( rootState, rootMoves[moveIndex], depth, Math.max( bestValue, LOSS_VALUE ), WIN_VALUE, 0 );
+                if ( aborted )
+                {
+                    break;
+                } // end if
+                if ( value > bestValue )
+                {
+                    bestValue = value;
+                    bestMoveAtThisDepth = rootMoves[moveIndex];
+                } // end if
+            } // end for
+
+            if ( aborted )
+            {
+                break; // keep the answer from the last depth that finished
+            } // end if
+            bestMove = bestMoveAtThisDepth;
+            lastCompletedDepth = depth;
+            if ( bestValue >= WIN_VALUE || bestValue <= LOSS_VALUE )
+            {
+                break; // the result is already certain
+            } // end if
+        } // end for
+        return bestMove;
+    } // end method searchBestMove
+
+    /**
+     * Chance node at the start of a turn: averages over the 3 movement die rolls, each followed by a decision.
+     * Pruned with Star2: every roll is "probed" with only its first move, which bounds the roll's value from one
+     * side; if those bounds already put the average outside the window there's no need to search further.
+     * Otherwise the rolls are searched fully with Star1 windows that use the probed bounds.
+     */
+    private double searchRollChance( BoardState state, int depth, double alpha, double beta, int ply )
+    {
+        if ( state.isGameOver() )
+        {
+            return getTerminalValue( state );
+        } // end if
+        if ( RaceDatabase.isRace( state ) )
+        {
+            double value = 2.0 * RaceDatabase.getWinProbability( state ) - 1.0; // exact, so no need to search any further
+            return ( state.getCurrentPlayerIndex() == rootPlayerIndex ) ? value : -value;
+        } // end if
+        if ( depth == 0 )
+        {
+            return evaluate( state );
+        } // end if
+        if ( ++nodeCount % NODES_BETWEEN_CLOCK_CHECKS == 0 && System.nanoTime() > deadlineNanos )
+        {
+            aborted = true;
+        } // end if
+        if ( aborted )
+        {
+            return 0.0;
+        } // end if
+
+        long hash = ZobristHash.hash( state );
+        long entry = transpositionTable.probe( hash );
+        if ( entry != 0 && TranspositionTable.getDepth( entry ) >= depth && isUsableTableEntry( entry, alpha, beta ) )
+        {
+            return getTableValue( entry );
+        } // end if
+
+        double value = expandRollChance( state, depth, alpha, beta, ply );
+        if ( !aborted )
+        {
+            storeTableValue( hash, value, depth, alpha, beta, 0 );
+        } // end if
+        return value;
+    } // end method searchRollChance
+
+    /**
+     * Does the actual Star2/Star1 search of a roll chance node for searchRollChance (which handles the table)
+     */
+    private double expandRollChance( BoardState state, int depth, double alpha, double beta, int ply )
+    {
+        boolean maximizing = state.getCurrentPlayerIndex() == rootPlayerIndex;
+        BoardState rolledState = stateForPly[ply];
+        double[] probeBound = probeBoundForPly[ply];
+
+        // Star2 probing phase: a max node's first move gives a lower bound, a min node's an upper bound
+        double boundSum = 0.0;
+        for ( int rollIndex = 0; rollIndex < GameManager.MOVEMENT_DIE_SIDES; rollIndex++ )
+        {
+            double unprobed = ( GameManager.MOVEMENT_DIE_SIDES - 1 - rollIndex ) * ROLL_PROBABILITY;
+            double childAlpha = ( alpha - boundSum - WIN_VALUE * unprobed ) / ROLL_PROBABILITY;
+            double childBeta = ( beta - boundSum - LOSS_VALUE * unprobed ) / ROLL_PROBABILITY;
+            childAlpha = Math.max( childAlpha, LOSS_VALUE );
+            childBeta = Math.min( childBeta, WIN_VALUE );
+
+            rolledState.copyFrom( state );
+            rolledState.applyMovementDieRoll( rollIndex + 1 );
+            double probe = searchDecision( rolledState, depth, childAlpha, childBeta, ply + 1, true );
+            if ( aborted )
+            {
+                return 0.0;
+            } // end if
+
+            // only a probe that didn't fail on the "wrong" side of its window is a usable bound
+            if ( maximizing )
+            {
+                probeBound[rollIndex] = ( probe > childAlpha ) ? probe : LOSS_VALUE;
+                boundSum += ROLL_PROBABILITY * probeBound[rollIndex];
+                if ( boundSum + LOSS_VALUE * unprobed >= beta )
+                {
+                    return boundSum + LOSS_VALUE * unprobed; // fail high: this chance node is already too good
+                } // end if
+            } // end if
+            else
+            {
+                probeBound[rollIndex] = ( probe < childBeta ) ? probe : WIN_VALUE;
+                boundSum += ROLL_PROBABILITY * probeBound[rollIndex];
+                if ( boundSum + WIN_VALUE * unprobed <= alpha )
+                {
+                    return boundSum + WIN_VALUE * unprobed; // fail low: this chance node is already too bad
+                } // end if
+            } // end else
+        } // end for
+
+        // Star1 search phase, using the probed bounds in place of the worst case for the rolls not yet searched
+        double valueSum = 0.0;
+        double remainingBoundSum = boundSum;
+        for ( int rollIndex = 0; rollIndex < GameManager.MOVEMENT_DIE_SIDES; rollIndex++ )
+        {
+            remainingBoundSum -= ROLL_PROBABILITY * probeBound[rollIndex];
+            double unsearched = ( GameManager.MOVEMENT_DIE_SIDES - 1 - rollIndex ) * ROLL_PROBABILITY;
+            double lowerRest = maximizing ? remainingBoundSum : LOSS_VALUE * unsearched;
+            double upperRest = maximizing ? WIN_VALUE * unsearched : remainingBoundSum;
+            double childAlpha = Math.max( ( alpha - valueSum - upperRest ) / ROLL_PROBABILITY, LOSS_VALUE );
+            double childBeta = Math.min( ( beta - valueSum - lowerRest ) / ROLL_PROBABILITY, WIN_VALUE );
+
+            rolledState.copyFrom( state );
+            rolledState.applyMovementDieRoll( rollIndex + 1 );
+            double value = searchDecision( rolledState, depth, childAlpha, childBeta, ply + 1, false );
+            if ( aborted )
+            {
+                return 0.0;
+            } // end if
+
+            valueSum += ROLL_PROBABILITY * value;
+            if ( value <= childAlpha )
+            {
+                return valueSum + upperRest; // fail low
+            } // end if
+            if ( value >= childBeta )
+            {
+                return valueSum + lowerRest; // fail high
+            } // end if
+        } // end for
+        return valueSum;
+    } // end method expandRollChance
+
+    /**
+     * Decision node: the player whose turn it is picks a move for the roll they just made (the CPU maximizes,
+     * the opponent minimizes). With no legal move, the turn simply passes. The best move remembered in the
+     * transposition table (if any) is searched first.
+     *
+     * @param probeOnly     if true, only the first move is searched (used by the Star2 probing phase)
+     */
+    private double searchDecision( BoardState state, int depth, double alpha, double beta, int ply, boolean probeOnly )
+    {
+        int[] moves = movesForPly[ply];
+        int numberOfMoves = generateMoves( state, moves );
+        if ( numberOfMoves == 0 )
+        {
+            BoardState passedState = stateForPly[ply];
+            passedState.copyFrom( state );
+            passedState.finishTurn();
+            return searchRollChance( passedState, depth - 1, alpha, beta, ply + 1 );
+        } // end if
+
+        // a probe only needs a bound, so any usable table entry will do for it as well
+        long hash = ZobristHash.hash( state );
+        long entry = transpositionTable.probe( hash );
+        if ( entry != 0 )
+        {
+            if ( TranspositionTable.getDepth( entry ) >= depth && isUsableTableEntry( entry, alpha, beta ) )
+            {
+                return getTableValue( entry );
+            } // end if
+            moveToFront( moves, numberOfMoves, TranspositionTable.getBestMove( entry ) );
+        } // end if
+
+        boolean maximizing = state.getCurrentPlayerIndex() == rootPlayerIndex;
+        double originalAlpha = alpha;
+        double originalBeta = beta;
+        double bestValue = maximizing ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        int bestMove = moves[0];
+        for ( int moveIndex = 0; moveIndex < numberOfMoves; moveIndex++ )
+        {
+            double value = searchMoveOutcome( state, moves[moveIndex], depth, alpha, beta, ply );
+            if ( aborted )
+            {
+                return 0.0;
+            } // end if
+            if ( maximizing ? value > bestValue : value < bestValue )
+            {
+                bestValue = value;
+                bestMove = moves[moveIndex];
+            } // end if
+            if ( maximizing )
+            {
+                alpha = Math.max( alpha, value );
+            } // end if
+            else
+            {
+                beta = Math.min( beta, value );
+            } // end else
+            if ( alpha >= beta || probeOnly )
+            {
+                break;
+            } // end if
+        } // end for
+
+        if ( !probeOnly )
+        {
+            storeTableValue( hash, bestValue, depth, originalAlpha, originalBeta, bestMove );
+        } // end if
+        return bestValue;
+    } // end method searchDecision
+
+    /**
+     * Plays the given move and searches what follows. A move onto an opposing piece is a chance node with two
+     * outcomes (attacker wins or defender wins), weighted by the exact battle odds and pruned with Star1.
+     */
+    private double searchMoveOutcome( BoardState state, int move, int depth, double alpha, double beta, int ply )
+    {
+        int playerIndex = state.getCurrentPlayerIndex();
+        int sourceLocationIndex = getSourceOfMove( move );
+        int tier = getTierOfMove( move );
+        int targetLocationIndex = sourceLocationIndex + state.getDieRollValue();
+        int opposingPathIndex = ( targetLocationIndex < GameManager.GOAL_ZONE_INDEX ) ? BoardState.mirrorPathIndex( playerIndex, targetLocationIndex ) : -1;
+        int defenderTier = ( opposingPathIndex >= 0 ) ? state.getTierAt( 1 - playerIndex, opposingPathIndex ) : 0;
+
+        if ( defenderTier == 0 )
+        {
+            return searchAfterMove( state, sourceLocationIndex, tier, false, depth, alpha, beta, ply );
+        } // end if
+
+        // battle chance node (Star1 over its two outcomes)
+        double winProbability = BattleOdds.getAttackerWinProbability( tier, defenderTier );
+        double lossProbability = 1.0 - winProbability;
+
+        double childAlpha = Math.max( ( alpha - WIN_VALUE * lossProbability ) / winProbability, LOSS_VALUE );
+        double childBeta = Math.min( ( beta - LOSS_VALUE * lossProbability ) / winProbability, WIN_VALUE );
+        double winValue = searchAfterMove( state, sourceLocationIndex, tier, true, depth, childAlpha, childBeta, ply );
+        if ( aborted )
+        {
+            return 0.0;
+        } // end if
+        if ( winValue <= childAlpha )
+        {
+            return winProbability * winValue + WIN_VALUE * lossProbability;
+        } // end if
+        if ( winValue >= childBeta )
+        {
+            return winProbability * winValue + LOSS_VALUE * lossProbability;
+        } // end if
+
+        childAlpha = Math.max( ( alpha - winProbability * winValue ) / lossProbability, LOSS_VALUE );
+        childBeta = Math.min( ( beta - winProbability * winValue ) / lossProbability, WIN_VALUE );
+        double lossValue = searchAfterMove( state, sourceLocationIndex, tier, false, depth, childAlpha, childBeta, ply );
+        return winProbability * winValue + lossProbability * lossValue;
+    } // end method searchMoveOutcome
+
+    /**
+     * Applies a move (with a known battle outcome) and finishes the turn, then searches the next turn's roll
+     */
+    private double searchAfterMove( BoardState state, int sourceLocationIndex, int tier, boolean attackerWinsBattle,
+                                    int depth, double alpha, double beta, int ply )
+    {
+        BoardState movedState = stateForPly[ply];
+        movedState.copyFrom( state );
+        movedState.movePiece( sourceLocationIndex, tier, attackerWinsBattle );
+        movedState.finishTurn();
+        return searchRollChance( movedState, depth - 1, alpha, beta, ply + 1 );
+    } // end method searchAfterMove
+
+    /**
+     * Checks whether a table entry (already known to be deep enough) settles a node searched with the given window
+     */
+    private boolean isUsableTableEntry( long entry, double alpha, double beta )
+    {
+        double value = getTableValue( entry );
+        int bound = TranspositionTable.getBound( entry );
+        if ( bound == TranspositionTable.BOUND_EXACT )
+        {
+            return true;
+        } // end if
+        boolean lowerBound = ( bound == TranspositionTable.BOUND_LOWER ) == ( tableValueSign > 0 ); // flipped for player 2
+        return lowerBound ? value >= beta : value <= alpha;
+    } // end method isUsableTableEntry
+
+    /**
+     * Reads a table entry's value, from the CPU's point of view
+     */
+    private double getTableValue( long entry )
+    {
+        return tableValueSign * TranspositionTable.getValue( entry );
+    } // end method getTableValue
+
+    /**
+     * Remembers a node's value in the table, along with whether it is exact or only a bound (because it fell
+     * outside the window it was searched with)
+     */
+    private void storeTableValue( long hash, double value, int depth, double alpha, double beta, int bestMove )
+    {
+        int bound = TranspositionTable.BOUND_EXACT;
+        if ( value <= alpha )
+        {
+            bound = ( tableValueSign > 0 ) ? TranspositionTable.BOUND_UPPER : TranspositionTable.BOUND_LOWER;
+        } // end if
+        else if ( value >= beta )
+        {
+            bound = ( tableValueSign > 0 ) ? TranspositionTable.BOUND_LOWER : TranspositionTable.BOUND_UPPER;
+        } // end else if
+        transpositionTable.store( hash, (float)( tableValueSign * value ), depth, bound, bestMove );
+    } // end method storeTableValue
+
+    /**
+     * Lists every legal move for the player whose turn it is (the die must already be rolled), best-looking first.
+     * A piece entering from the starting zone is a different move for each tier still waiting there.
+     *
+     * @param state     the position, in a PLAYER1_MOVE_RED or PLAYER2_MOVE_BLUE state
+     * @param moves     filled with the moves
+     * @return how many moves were listed
+     */
+    public static int generateMoves( BoardState state, int[] moves )
+    {
+        int playerIndex = state.getCurrentPlayerIndex();
+        int dieRollValue = state.getDieRollValue();
+        int legalSourceMask = MoveTable.getLegalSourceMask( state.getOccupancy(), playerIndex, dieRollValue );
+        int opponentMask = state.getOpponentMaskForPlayerIndex( playerIndex );
+        int numberOfMoves = 0;
+
+        while ( legalSourceMask != 0 )
+        {
+            int sourceBit = Integer.numberOfTrailingZeros( legalSourceMask );
+            legalSourceMask &= legalSourceMask - 1;
+            int sourceLocationIndex = sourceBit - 1;
+
+            if ( sourceLocationIndex == GameManager.START_ZONE_INDEX )
+            {
+                for ( int tier = 1; tier <= GameManager.MAX_PIECE_TIER; tier++ )
+                {
+                    if ( state.getStartCountForPlayerIndex( playerIndex, tier ) > 0 )
+                    {
+                        moves[numberOfMoves++] = encodeMove( sourceLocationIndex, tier );
+                    } // end if
+                } // end for
+            } // end if
+            else
+            {
+                moves[numberOfMoves++] = encodeMove( sourceLocationIndex, state.getTierAt( playerIndex, sourceLocationIndex ) );
+            } // end else
+        } // end while
+
+        // simple move ordering: a higher score is searched first (insertion sort, there are only a few moves)
+        int starMask = MoveTable.getStarTargetMask( playerIndex );
+        for ( int moveIndex = 1; moveIndex < numberOfMoves; moveIndex++ )
+        {
+            int move = moves[moveIndex];
+            int score = scoreMove( move, dieRollValue, opponentMask, starMask );
+            int insertIndex = moveIndex;
+            while ( insertIndex > 0 && scoreMove( moves[insertIndex - 1], dieRollValue, opponentMask, starMask ) < score )
+            {
+                moves[insertIndex] = moves[insertIndex - 1];
+                insertIndex--;
+            } // end while
+            moves[insertIndex] = move;
+        } // end for
+        return numberOfMoves;
+    } // end method generateMoves
+
+    /**
+     * Gives a quick guess of how good a move is, only used to decide which moves to search first
+     */
+    private static int scoreMove( int move, int dieRollValue, int opponentMask, int starMask )
+    {
+        int sourceLocationIndex = getSourceOfMove( move );
+        int tier = getTierOfMove( move );
+        int targetBit = 1 << ( sourceLocationIndex + dieRollValue );
+        int score = sourceLocationIndex; // prefer moving pieces that are further along
+
+        if ( ( targetBit & MoveTable.GOAL_TARGET_BIT ) != 0 )
+        {
+            score += 40;
+        } // end if
+        if ( ( targetBit & starMask ) != 0 )
+        {
+            score += 30;
+        } // end if
+        if ( ( targetBit & opponentMask ) != 0 )
+        {
+            score += ( tier == GameManager.MAX_PIECE_TIER ) ? -20 : 10 * tier; // don't risk the Orbiter lightly
+        } // end if
+        return score;
+    } // end method scoreMove
+
+    /**
+     * Value of a finished game for the CPU's player
+     */
+    private double getTerminalValue( BoardState state )
+    {
+        int finalState = state.getState();
+        boolean player1Won = finalState == GameManager.PLAYER1_WIN || finalState == GameManager.PLAYER1_WIN2;
+        return ( player1Won == ( rootPlayerIndex == 0 ) ) ? WIN_VALUE : LOSS_VALUE;
+    } // end method getTerminalValue
+
+    /**
+     * Heuristic value (strictly between -1 and +1) of a position where the search stops: how far ahead the
+     * CPU's pieces are compared to the opponent's, minus the danger each Orbiter is in of being attacked
+     */
+    private double evaluate( BoardState state )
+    {
+        int opposingPlayerIndex = 1 - rootPlayerIndex;
+        double progressDifference = getProgress( state, rootPlayerIndex ) - getProgress( state, opposingPlayerIndex );
+        double orbiterDanger = getOrbiterThreatCount( state, rootPlayerIndex ) - getOrbiterThreatCount( state, opposingPlayerIndex );
+        double value = progressDifference / 80.0 - 0.15 * orbiterDanger;
+        return Math.max( -0.95, Math.min( 0.95, value ) );
+    } // end method evaluate
+
+    /**
+     * Sums how far along the given player's pieces are: a piece in the goal counts as 17 squares
+     */
+    private static int getProgress( BoardState state, int playerIndex )
+    {
+        int progress = 17 * state.getGoalCountForPlayerIndex( playerIndex );
+        int pathMask = state.getPathMaskForPlayerIndex( playerIndex );
+        while ( pathMask != 0 )
+        {
+            progress += Integer.numberOfTrailingZeros( pathMask ) + 1;
+            pathMask &= pathMask - 1;
+        } // end while
+        return progress;
+    } // end method getProgress
+
+    /**
+     * Counts how many opposing pieces sit 1 to MOVEMENT_DIE_SIDES squares behind the given player's Orbiter (along the
+     * opponent's own path), i.e. could attack it with the right roll on their next turn
+     */
+    private static int getOrbiterThreatCount( BoardState state, int playerIndex )
+    {
+        int pathMask = state.getPathMaskForPlayerIndex( playerIndex );
+        int opposingPlayerIndex = 1 - playerIndex;
+        int opposingPathMask = state.getPathMaskForPlayerIndex( opposingPlayerIndex );
+        int threats = 0;
+        while ( pathMask != 0 )
+        {
+            int pathIndex = Integer.numberOfTrailingZeros( pathMask );
+            pathMask &= pathMask - 1;
+            if ( state.getTierAt( playerIndex, pathIndex ) != GameManager.MAX_PIECE_TIER )
+            {
+                continue;
+            } // end if
+            int opposingPathIndex = BoardState.mirrorPathIndex( playerIndex, pathIndex );
+            if ( opposingPathIndex < 0 )
+            {
+                break; // the Orbiter is on a private square
+            } // end if
+            for ( int distance = 1; distance <= Math.min( GameManager.MOVEMENT_DIE_SIDES, opposingPathIndex ); distance++ )
+            {
+                int attackerPathIndex = opposingPathIndex - distance;
+                if ( ( opposingPathMask & ( 1 << attackerPathIndex ) ) != 0 )
+                {
+                    threats++;
+                } // end if
+            } // end for
+        } // end while
+        return threats;
+    } // end method getOrbiterThreatCount
+
+    /**
+     * Moves the given move to the front of the list, keeping the others in order
+     */
+    private static void moveToFront( int[] moves, int numberOfMoves, int move )
+    {
+        for ( int moveIndex = 0; moveIndex < numberOfMoves; moveIndex++ )
+        {
+            if ( moves[moveIndex] == move )
+            {
+                System.arraycopy( moves, 0, moves, 1, moveIndex );
+                moves[0] = move;
+                return;
+            } // end if
+        } // end for
+    } // end method moveToFront
+
+    /**
+     * Packs a move into an int: the source location + 1 in the low 5 bits, the tier above that
+     */
+    public static int encodeMove( int sourceLocationIndex, int tier )
+    {
+        return ( sourceLocationIndex + 1 ) | ( tier << 5 );
+    } // end method encodeMove
+
+    /**
+     * Unpacks where a move starts from (GameManager.START_ZONE_INDEX or a path index)
+     */
+    public static int getSourceOfMove( int move )
+    {
+        return ( move & 31 ) - 1;
+    } // end method getSourceOfMove
+
+    /**
+     * Unpacks the tier of the piece a move moves
+     */
+    public static int getTierOfMove( int move )
+    {
+        return move >>> 5;
+    } // end method getTierOfMove
+
+    /**
+     * Getter for the deepest search (in turns) that finished during the last move choice
+     */
+    public int getLastCompletedDepth()
+    {
+        return lastCompletedDepth;
+    } // end method getLastCompletedDepth
+
+    /**
+     * Getter for how many chance nodes the last move choice visited
+     */
+    public long getNodeCount()
+    {
+        return nodeCount;
+    } // end method getNodeCount
+
+    /**
+     * Getter for the transposition table this CPU player uses (e.g. to share it or read its hit rate)
+     */
+    public TranspositionTable getTranspositionTable()
+    {
+        return transpositionTable;
+    } // end method getTranspositionTable
+} // end class ExpectiminimaxCpuPlayer
@@ -1,8 +1,13 @@
 import greenfoot.*;  // imports Actor, World, Greenfoot, GreenfootImage
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
- * This is the physical board for my Wormhole Dash game. The gameboard acts as a level manager
- * that controls much of the game (e.g. game logic, game state, etc.)
+ * This is the physical board for my Wormhole Dash game. The gameboard acts as the view on top of the
+ * GameManager: the GameManager owns the game logic and game state, while the gameboard handles the mouse,
+ * moves the sprites and shows the on-screen messages.
  * 
  * @author bickfori@email.uscb.edu
  * @version Final Version
@@ -21,8 +26,12 @@ public class GameBoard extends World
     private PlayerPiece[][] playerPieces;
     private PlayerPiece[][] playerPieceTier;
     private PlayerPiece[] tiers;
-    private final int NUMBER_OF_PIECES_PER_PLAYER = 7; 
-    private final int DELAY_LENGTH = 30;                
+    private final int NUMBER_OF_PIECES_PER_PLAYER = GameManager.NUMBER_OF_PIECES_PER_PLAYER; 
+    private static final boolean BAKE_STATIC_BOARD = true;      // draw the spaces and wormholes into the background instead of adding them as actors
+    private static final boolean BAKE_SPACE_NAMES = false;      // also label every space with its name on the baked board
+    private static final int[][] WORMHOLE_COORDS = { { 275, 230 }, { 445, 230 } };
+    private static GreenfootImage bakedBoardBackground;         // built by the first GameBoard, shared by every reset after it
+    private final int DELAY_LENGTH = 30;                // act cycles a message stays up (scaled by PacingScheduler's pacing scale)
 
     private Button resetButton;
     private Button learnMoreButton;
@@ -38,30 +47,68 @@ public class GameBoard extends World
     private Die die;                                    
     private int dieRollValue;                           
     private final int DIE_TEXT_VERTICAL_OFFSET = 50;    
+    private final long FAST_FORWARD_NANOS_PER_ACT = 500_000_000L;   // how long one act cycle may spend fast-forwarding a CPU vs CPU game
 
-    private int state;
+    private GameManager gameManager; // the headless rules engine that this board displays
+    private CpuPlayer cpuPlayer;     // decides the moves for any player that isn't human
+
+    private CpuPlayer[] cpuPlayerOptions;   // the CPU players to choose from (shift-click the change mode button)
+    private String[] cpuPlayerNames;
+    private int cpuPlayerOptionIndex;
     
-    private GreenfootSound music = new GreenfootSound("retro-8bit-happy-adventure-videogame-music-246635.mp3");
+    private GreenfootSound music;   // shared by every GameBoard, loaded in the background by the AssetLoader
 
     private boolean readyToExitState;                   
-    private boolean starSpaceRollAgain;      
-    private int[] goalCountForPlayerIndex;
+    private PacingScheduler scheduler;  // paces messages and battles without freezing the act loop
+    private HudText hudText;            // every piece of on-screen text, only re-rendered when it changes
+    private int displayedGameModeKey = -1;
+    private boolean fastForward;        // if true, CPU vs CPU games are played out in the GameManager without showing each turn
+    private ReplayViewer replayViewer;  // plays back the newest game record while it isn't null ("r"), with the game on hold
     
     private boolean gameOver;
     private boolean gameStarted = false;
+    private boolean boardPrepared = false;  // the board is only built once the AssetLoader has everything ready
     
     private TitleScreen titleScreen;
 
     /* PUBLIC CONSTANTS for keeping track of the game's overall state */
-    public static final int BOARD_SETUP = 0;            
-    public static final int PLAYER1_ROLL_DIE = 1;       
-    public static final int PLAYER1_MOVE_RED = 2;      
-    public static final int PLAYER2_ROLL_DIE = 3;       
-    public static final int PLAYER2_MOVE_BLUE = 4;   
-    public static final int PLAYER1_WIN = 5;
-    public static final int PLAYER1_WIN2 = 7;
-    public static final int PLAYER2_WIN = 6;
-    public static final int PLAYER2_WIN2 = 8;              
+    public static final int BOARD_SETUP = GameManager.BOARD_SETUP;            
+    public static final int PLAYER1_ROLL_DIE = GameManager.PLAYER1_ROLL_DIE;       
+    public static final int PLAYER1_MOVE_RED = GameManager.PLAYER1_MOVE_RED;      
+    public static final int PLAYER2_ROLL_DIE = GameManager.PLAYER2_ROLL_DIE;       
+    public static final int PLAYER2_MOVE_BLUE = GameManager.PLAYER2_MOVE_BLUE;   
+    public static final int PLAYER1_WIN = GameManager.PLAYER1_WIN;
+    public static final int PLAYER1_WIN2 = GameManager.PLAYER1_WIN2;
+    public static final int PLAYER2_WIN = GameManager.PLAYER2_WIN;
+    public static final int PLAYER2_WIN2 = GameManager.PLAYER2_WIN2;
+
+    // die captions that can be shown every frame, built once so that showing them allocates nothing
+    private static final String[] CLICK_TO_ROLL_TEXT = new String[GameManager.NUMBER_OF_PLAYERS];
+    private static final String[][] ROLLS_TEXT = new String[GameManager.NUMBER_OF_PLAYERS][GameManager.BATTLE_DIE_SIDES + 1];
+    private static final String[][] SELECT_TO_MOVE_TEXT = new String[GameManager.NUMBER_OF_PLAYERS][GameManager.MOVEMENT_DIE_SIDES + 1];
+    private static final String[] ROLLS_AGAIN_TEXT = new String[GameManager.NUMBER_OF_PLAYERS];
+    private static final String[] UP_NEXT_TEXT = new String[GameManager.NUMBER_OF_PLAYERS];
+    private static final String NO_MOVES_TEXT = "No moves!";
+
+    static
+    {
+        for ( int playerIndex = 0; playerIndex < GameManager.NUMBER_OF_PLAYERS; playerIndex++ )
+        {
+            String playerNumberString = ( playerIndex == 0 ? "1" : "2" );
+            String playerPieceName = ( playerIndex == 0 ? "red" : "blue" );
+            CLICK_TO_ROLL_TEXT[playerIndex] = "\nPlayer " + playerNumberString + "\nclick to roll";
+            ROLLS_AGAIN_TEXT[playerIndex] = "\nPlayer " + playerNumberString + "\nrolls again!";
+            UP_NEXT_TEXT[playerIndex] = "\nPlayer " + playerNumberString + "\nup next";
+            for ( int dieRollValue = 1; dieRollValue <= GameManager.BATTLE_DIE_SIDES; dieRollValue++ )
+            {
+                ROLLS_TEXT[playerIndex][dieRollValue] = "\nPlayer " + playerNumberString + "\nrolls a " + dieRollValue;
+            } // end for
+            for ( int dieRollValue = 1; dieRollValue <= GameManager.MOVEMENT_DIE_SIDES; dieRollValue++ )
+            {
+                SELECT_TO_MOVE_TEXT[playerIndex][dieRollValue] = "\n\n\nSelect\n" + playerPieceName + "\nto move\n" + dieRollValue + (dieRollValue == 1 ? " space" : " spaces");
+            } // end for
+        } // end for
+    } // end static initializer              
 
     /* CONSTRUCTOR(S) */
     /**
@@ -70,45 +117,76 @@ public class GameBoard extends World
     public GameBoard() 
     {
         super(WIDTH, HEIGHT, 1, false);
+        AssetLoader.startLoading(); // images, sound and CPU players load in the background while the title screen shows
 
         isPlayerHuman = new boolean[]{ true, false }; // true = human, false = CPU
 
-        spaces = new Space[20];
+        spaces = new Space[GameManager.NUMBER_OF_SPACES];
 
-        playerPieces = new PlayerPiece[2][7]; // Always 2 players, with (normally) 7 pieces per player
-        state = BOARD_SETUP;
+        playerPieces = new PlayerPiece[2][GameManager.NUMBER_OF_PIECES_PER_PLAYER]; // Always 2 players, with (normally) 7 pieces per player
+        gameManager = new GameManager(); // every rule and all of the game state lives in here
+        cpuPlayerNames = new String[]{ "Search", "MCTS", "Random" }; // in the same order as AssetLoader.getCpuPlayerOptions()
+        cpuPlayerOptionIndex = 0;
 
         readyToExitState = false;
-        starSpaceRollAgain = false;
+        scheduler = new PacingScheduler();
+        hudText = new HudText( this );
         
         gameOver = false;
-        
-        goalCountForPlayerIndex = new int[2]; // set size of array to be 2 elements long 
-        goalCountForPlayerIndex[0] = 0; // at start of game, no reds in the goal
-        goalCountForPlayerIndex[1] = 0; // at start of game, no blues in the goal
 
-        redStartYCoords = new int[]{ HEIGHT - 210, HEIGHT - 180, HEIGHT - 150, HEIGHT - 210, HEIGHT - 180, HEIGHT - 150, HEIGHT - 210 };    
-        blueStartYCoords = new int[]{ 90, 120, 150, 87, 117, 147, 90 };
+        // each tier stands in its own column, one piece under the other (the rule variant decides how many of each)
+        redStartYCoords = new int[GameManager.NUMBER_OF_PIECES_PER_PLAYER];
+        blueStartYCoords = new int[GameManager.NUMBER_OF_PIECES_PER_PLAYER];
+        int[] slotForTier = new int[GameManager.MAX_PIECE_TIER + 1];
+        for ( int pieceIndex = 0; pieceIndex < GameManager.NUMBER_OF_PIECES_PER_PLAYER; pieceIndex++ )
+        {
+            int tier = GameManager.getPieceTier( pieceIndex );
+            int slot = slotForTier[tier]++;
+            redStartYCoords[pieceIndex] = HEIGHT - 210 + 30 * slot;
+            blueStartYCoords[pieceIndex] = ( tier == 2 ? 87 : 90 ) + 30 * slot;
+        } // end for
 
-        prepare();
-        
         titleScreen = new TitleScreen();
         addObject(titleScreen,getWidth()/2, getHeight()/2 );
+
+        if ( AssetLoader.isLoaded() ) // e.g. after resetWorld
+        {
+            prepareBoard();
+        } // end if
     } // end GameBoard no-arg constructor
 
     /* METHODS */
+    /**
+     * Builds the board behind the title screen once the AssetLoader is done (waiting for it if it isn't):
+     * takes the shared soundtrack and CPU players, adds every actor and keeps the title screen on top
+     */
+    private void prepareBoard()
+    {
+        AssetLoader.awaitLoaded();
+        music = AssetLoader.getMusic();
+        cpuPlayerOptions = AssetLoader.getCpuPlayerOptions();
+        cpuPlayer = cpuPlayerOptions[cpuPlayerOptionIndex]; // searches ahead for about one frame per move
+
+        prepare();
+
+        if ( !gameStarted ) // actors added later are drawn on top, so put the title screen back in front
+        {
+            removeObject(titleScreen);
+            addObject(titleScreen, getWidth()/2, getHeight()/2 );
+        } // end if
+        boardPrepared = true;
+    } // end method prepareBoard
+
     /**
      * Prepare the world for the start of the program.
      * That is: create the initial objects and add them to the world, along with additional HUD buttons
      */
     private void prepare()
     {
-        setBackground("starryGalaxy.jpg");
-
         // set reroll spaces
-        for ( int spaceIndex = 0; spaceIndex < 20; spaceIndex++ )
+        for ( int spaceIndex = 0; spaceIndex < GameManager.NUMBER_OF_SPACES; spaceIndex++ )
         {
-            if ( spaceIndex == 3 || spaceIndex == 7 || spaceIndex == 11 || spaceIndex == 15 || spaceIndex == 19  ) // star spaces (re-rolls)
+            if ( GameManager.isRerollSpaceIndex( spaceIndex ) ) // star spaces (re-rolls)
             {
                 spaces[spaceIndex] = new Space( true ); // is a star space
             } // end if
@@ -119,114 +197,73 @@ public class GameBoard extends World
         } // end for
 
         // add spaces to the board
-        addObject( spaces[0], 445, 400 );
-        addObject( spaces[1], 445, 485 );
-        addObject( spaces[2], 445, 570 );
-        addObject( spaces[3], 445, 655 );
-        addObject( spaces[4], 275, 400 );
-        addObject( spaces[5], 275, 485 );
-        addObject( spaces[6], 275, 570 );
-        addObject( spaces[7], 275, 655 );
-        addObject( spaces[8], 360, 655 );
-        addObject( spaces[9], 360, 570 );
-        addObject( spaces[10], 360, 485 );
-        addObject( spaces[11], 360, 400 );
-        addObject( spaces[12], 360, 315 );
-        addObject( spaces[13], 360, 230 );
-        addObject( spaces[14], 360, 145 );
-        addObject( spaces[15], 275, 145 );
-        addObject( spaces[16], 275, 60 );
-        addObject( spaces[17], 360, 60 );
-        addObject( spaces[18], 445, 60 );
-        addObject( spaces[19], 445, 145 );
+        placeSpace( 0, 445, 400 );
+        placeSpace( 1, 445, 485 );
+        placeSpace( 2, 445, 570 );
+        placeSpace( 3, 445, 655 );
+        placeSpace( 4, 275, 400 );
+        placeSpace( 5, 275, 485 );
+        placeSpace( 6, 275, 570 );
+        placeSpace( 7, 275, 655 );
+        placeSpace( 8, 360, 655 );
+        placeSpace( 9, 360, 570 );
+        placeSpace( 10, 360, 485 );
+        placeSpace( 11, 360, 400 );
+        placeSpace( 12, 360, 315 );
+        placeSpace( 13, 360, 230 );
+        placeSpace( 14, 360, 145 );
+        placeSpace( 15, 275, 145 );
+        placeSpace( 16, 275, 60 );
+        placeSpace( 17, 360, 60 );
+        placeSpace( 18, 445, 60 );
+        placeSpace( 19, 445, 145 );
 
         // naming spaces for my tangential learning component
         nameSpaces();
 
         // add wormholes to end of movement paths, they do nothing and are just aesthetic
-        addObject( new Wormhole(), 275, 230);
-        addObject( new Wormhole(), 445, 230);
+        // (with the static board baked, they are drawn into the background along with the spaces)
+        if ( BAKE_STATIC_BOARD )
+        {
+            setBackground( new GreenfootImage( getBakedBoardBackground( spaces ) ) ); // spaces and wormholes are painted once, not every frame
+        } // end if
+        else
+        {
+            setBackground( SpriteRegistry.getCopy(SpriteRegistry.BOARD_BACKGROUND_IMAGE) );
+            for ( int[] wormholeCoords : WORMHOLE_COORDS )
+            {
+                addObject( new Wormhole(), wormholeCoords[0], wormholeCoords[1] );
+            } // end for
+        } // end else
 
         // array for referencing different spaces on the board for both players movement paths
-        movementPathForPlayerIndex = new Space[2][20]; 
-
-        // movement path for red player, or player 1
-        movementPathForPlayerIndex[0][0] = spaces[0];
-        movementPathForPlayerIndex[0][1] = spaces[1]; 
-        movementPathForPlayerIndex[0][2] = spaces[2]; 
-        movementPathForPlayerIndex[0][3] = spaces[3]; 
-        movementPathForPlayerIndex[0][4] = spaces[8]; 
-        movementPathForPlayerIndex[0][5] = spaces[9]; 
-        movementPathForPlayerIndex[0][6] = spaces[10];
-        movementPathForPlayerIndex[0][7] = spaces[11];
-        movementPathForPlayerIndex[0][8] = spaces[12]; 
-        movementPathForPlayerIndex[0][9] = spaces[13]; 
-        movementPathForPlayerIndex[0][10] = spaces[14]; 
-        movementPathForPlayerIndex[0][11] = spaces[15]; 
-        movementPathForPlayerIndex[0][12] = spaces[16]; 
-        movementPathForPlayerIndex[0][13] = spaces[17];
-        movementPathForPlayerIndex[0][14] = spaces[18];
-        movementPathForPlayerIndex[0][15] = spaces[19];
-
-        // movement path for blue player, or player 2
-        movementPathForPlayerIndex[1][0] = spaces[4];
-        movementPathForPlayerIndex[1][1] = spaces[5]; 
-        movementPathForPlayerIndex[1][2] = spaces[6]; 
-        movementPathForPlayerIndex[1][3] = spaces[7]; 
-        movementPathForPlayerIndex[1][4] = spaces[8]; 
-        movementPathForPlayerIndex[1][5] = spaces[9]; 
-        movementPathForPlayerIndex[1][6] = spaces[10];
-        movementPathForPlayerIndex[1][7] = spaces[11];
-        movementPathForPlayerIndex[1][8] = spaces[12]; 
-        movementPathForPlayerIndex[1][9] = spaces[13]; 
-        movementPathForPlayerIndex[1][10] = spaces[14]; 
-        movementPathForPlayerIndex[1][11] = spaces[19]; 
-        movementPathForPlayerIndex[1][12] = spaces[18]; 
-        movementPathForPlayerIndex[1][13] = spaces[17];
-        movementPathForPlayerIndex[1][14] = spaces[16];
-        movementPathForPlayerIndex[1][15] = spaces[15];
-
-        // add red team pieces
-        // Tier 1 pieces (red)
-        for (int redIndex = 0; redIndex < 3; redIndex++) {
-            int redXcoord = (int)(0.75 * WIDTH);
-            int redYcoord = redStartYCoords[redIndex];
-            playerPieces[0][redIndex] = new PlayerPiece(0, redXcoord, redYcoord, 1);
-            addObject(playerPieces[0][redIndex], redXcoord, redYcoord);
-        }
-
-        // Tier 2 pieces (red)
-        for (int redIndex = 3; redIndex < 6; redIndex++) {
-            int redXcoord = (int)(0.8 * WIDTH);
-            int redYcoord = redStartYCoords[redIndex];
-            playerPieces[0][redIndex] = new PlayerPiece(0, redXcoord, redYcoord, 2);
-            addObject(playerPieces[0][redIndex], redXcoord, redYcoord);
-        }
-
-        // Tier 3 piece (red)
-        playerPieces[0][6] = new PlayerPiece(0, (int)(0.87 * WIDTH), redStartYCoords[6], 3);
-        addObject(playerPieces[0][6], (int)(0.87 * WIDTH), redStartYCoords[6]);
-
-        // add blue team pieces
-        // Tier 1 pieces (blue)
-        for (int blueIndex = 0; blueIndex < 3; blueIndex++) {
-            int blueXcoord = (int)(0.1 * WIDTH);
-            int blueYcoord = blueStartYCoords[blueIndex];
-            playerPieces[1][blueIndex] = new PlayerPiece(1, blueXcoord, blueYcoord, 1);
-            addObject(playerPieces[1][blueIndex], blueXcoord, blueYcoord);
-        }
-
-        // Tier 2 pieces (blue)
-        for (int blueIndex = 3; blueIndex < 6; blueIndex++) {
-            int blueXcoord = (int)(0.16 * WIDTH);
-            int blueYcoord = blueStartYCoords[blueIndex];
-            playerPieces[1][blueIndex] = new PlayerPiece(1, blueXcoord, blueYcoord, 2);
-            addObject(playerPieces[1][blueIndex], blueXcoord, blueYcoord);
-        }
-
-        // Tier 3 piece (blue)
-        playerPieces[1][6] = new PlayerPiece(1, (int)(0.23 * WIDTH), blueStartYCoords[6], 3);
-        addObject(playerPieces[1][6], (int)(0.23 * WIDTH), blueStartYCoords[6]);
+        // (the layout of each path comes from the GameManager, so the sprites always match the rules)
+        movementPathForPlayerIndex = new Space[2][GameManager.PATH_LENGTH]; 
+        for ( int playerIndex = 0; playerIndex < 2; playerIndex++ )
+        {
+            for ( int pathIndex = 0; pathIndex < GameManager.PATH_LENGTH; pathIndex++ )
+            {
+                movementPathForPlayerIndex[playerIndex][pathIndex] = spaces[ GameManager.getSpaceIndexForPlayerIndex( playerIndex, pathIndex ) ];
+            } // end INNER for
+        } // end OUTER for
+
+        // add red and blue team pieces, one column per tier (x is the fraction of the width, indexed by tier)
+        double[] redXFractionForTier = { 0, 0.75, 0.8, 0.87 };
+        double[] blueXFractionForTier = { 0, 0.1, 0.16, 0.23 };
+        for ( int pieceIndex = 0; pieceIndex < GameManager.NUMBER_OF_PIECES_PER_PLAYER; pieceIndex++ )
+        {
+            int tier = GameManager.getPieceTier( pieceIndex );
+
+            int redXcoord = (int)(redXFractionForTier[tier] * WIDTH);
+            int redYcoord = redStartYCoords[pieceIndex];
+            playerPieces[0][pieceIndex] = new PlayerPiece(0, redXcoord, redYcoord, tier);
+            addObject(playerPieces[0][pieceIndex], redXcoord, redYcoord);
+
+            int blueXcoord = (int)(blueXFractionForTier[tier] * WIDTH);
+            int blueYcoord = blueStartYCoords[pieceIndex];
+            playerPieces[1][pieceIndex] = new PlayerPiece(1, blueXcoord, blueYcoord, tier);
+            addObject(playerPieces[1][pieceIndex], blueXcoord, blueYcoord);
+        } // end for
 
         // naming all the blue and red pieces for my tangential learning component
         nameShips();
@@ -250,20 +287,114 @@ public class GameBoard extends World
 
         changeModeButton = new Button (Button.CHANGE_MODE_BUTTON);
         addObject(changeModeButton, 670 , HEIGHT - 50);
+
+        // fixed spots for the on-screen text
+        hudText.placeSlot( HudText.DIE_CAPTION, die.getX(), die.getY() + DIE_TEXT_VERTICAL_OFFSET );
+        hudText.placeSlot( HudText.GAME_MODE_LABEL, die.getX(), HEIGHT - 50 );
+        hudText.placeSlot( HudText.GAME_MODE, die.getX(), HEIGHT - 25 );
+        hudText.placeSlot( HudText.SPACE_NAME, WIDTH - 100, 15 );
+        hudText.placeSlot( HudText.BANNER, WIDTH / 2, HEIGHT / 2 );
+        hudText.placeSlot( HudText.BANNER_DETAIL, WIDTH / 2, HEIGHT / 2 + 50 );
+        hudText.placeSlot( HudText.NOTICE, WIDTH / 2, 15 );
     } // end method prepare
 
+    /**
+     * Puts a space at its spot on the board: records the location on the space, and adds it as an actor unless
+     * the static board is baked into the background
+     * 
+     * @param spaceIndex    the index (0 to 19) of the space
+     * @param xCoord        the X-coordinate of the center of the space
+     * @param yCoord        the Y-coordinate of the center of the space
+     */
+    private void placeSpace( int spaceIndex, int xCoord, int yCoord )
+    {
+        spaces[spaceIndex].setBoardLocation( xCoord, yCoord );
+        if ( !BAKE_STATIC_BOARD )
+        {
+            addObject( spaces[spaceIndex], xCoord, yCoord );
+        } // end if
+    } // end method placeSpace
+
+    /**
+     * Returns the static board (the starry background with every space, wormhole and, if BAKE_SPACE_NAMES is on,
+     * space name drawn onto it) as one image, building it the first time. None of those ever move, so drawing them
+     * once here means Greenfoot doesn't have to paint 22 extra actors every frame.
+     * 
+     * @param placedSpaces  the spaces, already named and placed (see placeSpace)
+     */
+    private static GreenfootImage getBakedBoardBackground( Space[] placedSpaces )
+    {
+        if ( bakedBoardBackground != null )
+        {
+            return bakedBoardBackground;
+        } // end if
+
+        GreenfootImage boardImage = SpriteRegistry.getCopy( SpriteRegistry.BOARD_BACKGROUND_IMAGE );
+        for ( Space space : placedSpaces )
+        {
+            GreenfootImage spaceImage = space.getImage();
+            boardImage.drawImage( spaceImage, space.getBoardXcoord() - spaceImage.getWidth() / 2, space.getBoardYcoord() - spaceImage.getHeight() / 2 );
+            if ( BAKE_SPACE_NAMES )
+            {
+                GreenfootImage nameImage = new GreenfootImage( space.getSpaceName(), 12, Color.WHITE, null );
+                boardImage.drawImage( nameImage, space.getBoardXcoord() - nameImage.getWidth() / 2, space.getBoardYcoord() + spaceImage.getHeight() / 2 );
+            } // end if
+        } // end for
+
+        GreenfootImage wormholeImage = SpriteRegistry.getImage( SpriteRegistry.WORMHOLE_IMAGE );
+        for ( int[] wormholeCoords : WORMHOLE_COORDS )
+        {
+            boardImage.drawImage( wormholeImage, wormholeCoords[0] - wormholeImage.getWidth() / 2, wormholeCoords[1] - wormholeImage.getHeight() / 2 );
+        } // end for
+
+        bakedBoardBackground = boardImage;
+        return bakedBoardBackground;
+    } // end method getBakedBoardBackground
+
     /**
      * Depending on the game's state, determines what the GameBoard does during
      * each frame or cycle of the `act` method
      */
     public void act()
     {
+        if ( !boardPrepared && AssetLoader.isLoaded() )
+        {
+            prepareBoard(); // everything finished loading while the title screen was up
+        } // end if
+
         startGame(); // checks to see if the game has started by clicking on the title screen
         if (gameStarted)
         {
             displayGameMode(); // we check and update the gamemode every act cycle to accurately display and change the gamemode at the player's will
-            
-            switch ( state ) 
+            checkForKeyboardShortcuts();
+            if ( replayViewer != null )
+            {
+                showReplay();
+                return; // the game (and anything it had queued on the scheduler) waits until the replay is closed
+            } // end if
+
+            scheduler.tick(); // runs whatever message, pause or battle step is due this act cycle
+            if (scheduler.isBusy())
+            {
+                return; // the current pause isn't over yet, but everything else (buttons, sprites) keeps running
+            } // end if
+
+            if ( isFastForwarding() )
+            {
+                fastForwardCpuVsCpuGame();
+                return; // the win (if the game is over) is displayed on the next `act` method call
+            } // end if
+
+            if ( gameManager.isGameOver() && readyToExitState )
+            {
+                // an Orbiter lost in a battle ends the game during the move, so the PLAYER?_MOVE case never gets to
+                // finish the turn; it is finished here instead (which records and saves it) before the win is shown
+                int movingPlayerIndex = gameManager.getLastBattleAttackerPlayerIndex();
+                makeAllPiecesMoveableAgainForPlayerIndex( movingPlayerIndex );
+                updateGameStateAfterTurnForPlayerIndex( movingPlayerIndex );
+            } // end if
+
+            switch ( gameManager.getState() ) 
             {
     
                 case PLAYER1_ROLL_DIE:
@@ -306,7 +437,7 @@ public class GameBoard extends World
                 case PLAYER1_WIN: // win condition for red team getting all pieces in goal
                     if(!gameOver)
                     {
-                        showText( "\nPlayer 1\nWINS!!", getWidth()/2, getHeight()/2 );
+                        hudText.show( HudText.BANNER, "\nPlayer 1\nWINS!!" );
                         resetButton = new Button(Button.RESET_BUTTON);
                         addObject(new Overlay(), WIDTH / 2 , 360);
                         addObject(resetButton, die.getX(), die.getY() - 100 );
@@ -318,7 +449,7 @@ public class GameBoard extends World
                 case PLAYER1_WIN2: // win condition for red team capturing the blue team's tier 3 piece
                     if(!gameOver)
                     {
-                        showText( "\nPlayer 1 WINS, \nthey have captured Player 2's Tier 3 piece!!", getWidth()/2, getHeight()/2 );
+                        hudText.show( HudText.BANNER, "\nPlayer 1 WINS, \nthey have captured Player 2's Tier 3 piece!!" );
                         resetButton = new Button(Button.RESET_BUTTON);
                         addObject(new Overlay(), WIDTH / 2, 360);
                         addObject(resetButton, die.getX(), die.getY() - 100 );
@@ -330,7 +461,7 @@ public class GameBoard extends World
                 case PLAYER2_WIN2: // win condition for blue team capturing the red team's tier 3 piece
                     if (!gameOver)
                     {
-                        showText( "\nPlayer 2 WINS, \nthey have captured Player 1's Tier 3 piece!!", getWidth()/2, getHeight()/2 );
+                        hudText.show( HudText.BANNER, "\nPlayer 2 WINS, \nthey have captured Player 1's Tier 3 piece!!" );
                         resetButton = new Button(Button.RESET_BUTTON);
                         addObject(new Overlay(), WIDTH / 2, 360);
                         addObject(resetButton, die.getX(), die.getY() - 100 );
@@ -342,7 +473,7 @@ public class GameBoard extends World
                 case PLAYER2_WIN: // win condition for blue team getting all pieces in goal
                     if (!gameOver)
                     {
-                        showText( "\nPlayer 2\nWINS!!", getWidth()/2, getHeight()/2 );
+                        hudText.show( HudText.BANNER, "\nPlayer 2\nWINS!!" );
                         resetButton = new Button(Button.RESET_BUTTON);
                         addObject( new Overlay(), WIDTH / 2, 360);
                         addObject(resetButton, die.getX(), die.getY() - 100 );
@@ -371,7 +502,10 @@ public class GameBoard extends World
      */
     public void stopMusic()
     {
-        music.stop();
+        if ( music != null ) // null until the board has been prepared
+        {
+            music.stop();
+        } // end if
     } // end method stopMusic
 
     /**
@@ -383,164 +517,52 @@ public class GameBoard extends World
      */
     public void determineDieRollValueForPlayerIndex( int playerIndex )
     {
-        // Determine player number (not index), for use in string expressions later in this method.
-        String playerNumberString = ( playerIndex == 0 ? "1" : "2" );
-
         // NOTE: Using a "guard condition" to avoid the need for nesting if-statements
         if ( isPlayerHuman[playerIndex] && !Greenfoot.mouseClicked(die) )
         {
-            showText( "\nPlayer " + playerNumberString + "\nclick to roll", die.getX(), die.getY() + DIE_TEXT_VERTICAL_OFFSET );
+            hudText.show( HudText.DIE_CAPTION, CLICK_TO_ROLL_TEXT[playerIndex] ); // the same string every frame, so only rendered once
             return; // skip remaining statements and return to this method's caller
         } // end if
         Greenfoot.playSound("diceRoll.mp3");
-        dieRollValue = (Greenfoot.getRandomNumber(3) + 1); // rolls a 1 to 3, inclusively
+        dieRollValue = gameManager.rollMovementDie(); // rolls a 1 to MOVEMENT_DIE_SIDES, inclusively (this also advances the game's state to the move)
 
-        if (dieRollValue == 1)
-        {
-            this.die.setImage( new GreenfootImage("dieWhite_border1.png") );
-        } // end if
-        else if (dieRollValue == 2)
-        {
-            this.die.setImage( new GreenfootImage("dieWhite_border2.png") );
-        } // end else if
-        else
-        {
-            this.die.setImage( new GreenfootImage("dieWhite_border3.png") );
-        } // end else
+        this.die.setImage( SpriteRegistry.getDieImage(dieRollValue) ); // already decoded, so rolling does no image I/O
 
-        showText( "\nPlayer " + playerNumberString + "\nrolls a " + dieRollValue, die.getX(), die.getY() + DIE_TEXT_VERTICAL_OFFSET );
-        Greenfoot.delay(DELAY_LENGTH); // allow time to view on-screen message
-
-        // this was needed for force advancing the state, it fixed a bug where the game did not allow players to click the die and move a piece after.
-        if (playerIndex == 0)
-        {
-            state = PLAYER1_MOVE_RED;
-        } //end if
-        else
-        {
-            state = PLAYER2_MOVE_BLUE;
-        } // end else
+        hudText.show( HudText.DIE_CAPTION, ROLLS_TEXT[playerIndex][dieRollValue] );
+        scheduler.pause(DELAY_LENGTH); // allow time to view on-screen message (without freezing the game)
     } // end method determineDieRollValueForPlayerIndex
 
     /**
-     * Determines the die roll for the current player. If the player is human,
-     * then the human player clicks on the die object to roll the die; otherwise,
-     * the die is automatically rolled by the CPU. This is similiar but has key differences from the previous
-     * determine die roll method. To keep the battle die logic seperate and clear, it has its own
+     * Shows one of the battle die rolls that the GameManager made. This is similiar but has key differences from
+     * the previous die roll method. To keep the battle die logic seperate and clear, it has its own
      * method here for battles. Additionally, this method uses a "6-sided die".
      * 
-     * @param playerIndex  the index of the player rolling the die
+     * @param playerIndex           the index of the player rolling the die
+     * @param dieBattleRollValue    the value (1 to BATTLE_DIE_SIDES) that was rolled
      */
-    public int determineDieRollBattle( int playerIndex )
+    public void displayDieRollBattle( int playerIndex, int dieBattleRollValue )
     {
-        
-        // Determine player number (not index), for use in string expressions later in this method.
-        String playerNumberString = ( playerIndex == 0 ? "1" : "2" );
-        int dieBattleRollValue = 0; // initial die roll value  compare
         Greenfoot.playSound("diceRoll.mp3");
-        dieBattleRollValue = (Greenfoot.getRandomNumber(6) + 1); // rolls a 1 to 6, inclusively. automatic for player and cpu to save time and seemless battles
-
-        switch (dieBattleRollValue) 
-        {
-            case 1:
-                this.die.setImage(new GreenfootImage("dieWhite_border1.png"));
-                break;
-            case 2:
-                this.die.setImage(new GreenfootImage("dieWhite_border2.png"));
-                break;
-            case 3:
-                this.die.setImage(new GreenfootImage("dieWhite_border3.png"));
-                break;
-            case 4:
-                this.die.setImage(new GreenfootImage("dieWhite_border4.png"));
-                break;
-            case 5:
-                this.die.setImage(new GreenfootImage("dieWhite_border5.png"));
-                break;
-            default:
-                this.die.setImage(new GreenfootImage("dieWhite_border6.png"));
-                break;
-        } // end switch
-
-        showText( "\nPlayer " + playerNumberString + "\nrolls a " + dieBattleRollValue, die.getX(), die.getY() + DIE_TEXT_VERTICAL_OFFSET );
-        Greenfoot.delay(DELAY_LENGTH); // allow time to view on-screen message
-        return dieBattleRollValue;
-    } // end method determineDieRollBattle
+
+        this.die.setImage( SpriteRegistry.getDieImage(dieBattleRollValue) );
+
+        hudText.show( HudText.DIE_CAPTION, ROLLS_TEXT[playerIndex][dieBattleRollValue] );
+        scheduler.pause(DELAY_LENGTH); // allow time to view on-screen message (without freezing the game)
+    } // end method displayDieRollBattle
 
     /**
-     * Routine for determining which reds are moveable
+     * Copies which pieces are moveable (and where they would land) from the GameManager onto the
+     * player's PlayerPiece sprites, so they can fade out the pieces that can't move
      * 
      * @param playerIndex   index of the player whose turn is currently active
      */
     public void determineWhichPiecesAreMoveableForPlayerIndex( int playerIndex ) 
     {
-        // first check to see which of this player's pieces are moveable 
-        // for the given die roll value 
         for ( int playerPieceIndex = 0; playerPieceIndex < playerPieces[playerIndex].length; playerPieceIndex++ ) 
         {    
-            // determine index of opposing player using simple arithmetic (no if-statement needed!)
-            int opposingPlayerIndex = 1 - playerIndex; // if playerIndex = 1, opposingPlayerIndex = 1 - 1 = 0
-                                                       // if playerIndex = 0, opposingPlayerIndex = 1 - 0 = 1
-
-            playerPieces[playerIndex][playerPieceIndex].setMoveable( false ); // "default" state
-
-            // call a "getter" method to retrieve the player piece's current position on the game board 
-            int currentPlayerPieceGameBoardLocationIndex = 
-                playerPieces[playerIndex][playerPieceIndex].getGameBoardLocationIndex();
-
-            // Here, we "look ahead" by die roll value to determine "target" array index for this piece
-            int playerPieceTargetGameBoardLocationIndex = currentPlayerPieceGameBoardLocationIndex + dieRollValue;
-
-            // if the player piece is ALREADY currently in the goal zone, then it shouldn't be moveable
-            if ( currentPlayerPieceGameBoardLocationIndex == 16 )
-            {
-                playerPieces[playerIndex][playerPieceIndex].setMoveable( false );
-                continue; // we know this piece is NOT moveable so we can skip the remaining
-                          // statements in this iteration 
-            } // end if
-
-            // if the target space IS the goal, then this piece IS moveable
-            if ( playerPieceTargetGameBoardLocationIndex == 16 ) 
-            {
-                playerPieces[playerIndex][playerPieceIndex].setMoveable( true );
-                playerPieces[playerIndex][playerPieceIndex].setTargetGameBoardLocationIndex(playerPieceTargetGameBoardLocationIndex);
-                continue; // we know this piece IS moveable AND we know it's NOT in the start zone,
-                          // so we skip remaining statements in `for` loop 
-                          // BUT we will continue w/next iteration so we can determine if any other pieces are moveable
-            } // end if
-
-            // if the target space for this piece is BEYOND the goal (i.e., if die roll is too high to exactly "land on" the goal)
-            // then this piece is NOT moveable
-            if (playerPieceTargetGameBoardLocationIndex > 16 ) 
-            {
-                playerPieces[playerIndex][playerPieceIndex].setMoveable( false );
-                continue; // we know this piece is NOT moveable, so we 
-                          // skip remaining statements in `for` loop but continue w/next iteration
-            } // end if
-
-            // Check to see if the target space is occupied by one of the current player's pieces,
-            // if so, then we CANNOT move to that space
-            if ( movementPathForPlayerIndex[playerIndex][ playerPieceTargetGameBoardLocationIndex ].isOccupiedByPieceForPlayerIndex(playerIndex) ) 
-            {
-                playerPieces[playerIndex][playerPieceIndex].setMoveable( false );
-                continue; // we know this piece is NOT moveable, so we 
-                          // skip remaining statements in `for` loop but continue w/next iteration
-            } // end if
-
-            // Check to see if the target space meets both of these conditions:
-            // 1) is occupied by one of the OPPOSING player's pieces
-            // AND
-            // 2) is NOT a safe space
-            // ...if BOTH conditions are true, then this piece CAN be moved to that space
-            if ( movementPathForPlayerIndex[playerIndex][ playerPieceTargetGameBoardLocationIndex ].isOccupiedByPieceForPlayerIndex(opposingPlayerIndex))  
-            {
-                playerPieces[playerIndex][playerPieceIndex].setMoveable( true );
-                playerPieces[playerIndex][playerPieceIndex].setTargetGameBoardLocationIndex(playerPieceTargetGameBoardLocationIndex);
-            } // end if
-
-            // otherwise, if we made it this far, we assume that NOTHING is preventing this piece from being moveable
-            playerPieces[playerIndex][playerPieceIndex].setMoveable( true );
-            playerPieces[playerIndex][playerPieceIndex].setTargetGameBoardLocationIndex(playerPieceTargetGameBoardLocationIndex);
+            PlayerPiece currentPlayerPiece = playerPieces[playerIndex][playerPieceIndex];
+            currentPlayerPiece.setMoveable( gameManager.isMoveable( playerIndex, playerPieceIndex ) );
+            currentPlayerPiece.setTargetGameBoardLocationIndex( gameManager.getTargetGameBoardLocationIndex( playerIndex, playerPieceIndex ) );
         } // end for
     } // end method determineWhichPiecesAreMoveableForPlayerIndex
 
@@ -551,169 +573,100 @@ public class GameBoard extends World
      */
     public void determineMoveForPlayerIndex( int playerIndex )
     {
-        int countOfPlayerPiecesThatAreNotMoveable = 0;
-
         // First, check to see if there are actually any moves to make
-        for ( int playerPieceIndex = 0; playerPieceIndex < NUMBER_OF_PIECES_PER_PLAYER; playerPieceIndex++ )
+        if ( !gameManager.hasMoveablePiece() )
         {
-            PlayerPiece currentPlayerPieceToCheck = playerPieces[playerIndex][playerPieceIndex];
-
-            if ( !currentPlayerPieceToCheck.isMoveable() ) 
-            {
-                countOfPlayerPiecesThatAreNotMoveable++;   
-
-                if ( countOfPlayerPiecesThatAreNotMoveable == NUMBER_OF_PIECES_PER_PLAYER )
-                {
-                    showText( "No moves!", die.getX(), die.getY() + DIE_TEXT_VERTICAL_OFFSET );
-                    Greenfoot.delay(DELAY_LENGTH); 
-                    readyToExitState = true;
-                    return; // terminate method (skipping all statements below) and return to method caller
-                } // end INNER if
+            hudText.show( HudText.DIE_CAPTION, NO_MOVES_TEXT );
+            scheduler.pause(DELAY_LENGTH);
+            readyToExitState = true;
+            return; // terminate method (skipping all statements below) and return to method caller
+        } // end if
 
-            } // end OUTER if 
-        } // end for
+        // If you've gotten this far, then there is at least one moveable piece
+        hudText.show( HudText.DIE_CAPTION, SELECT_TO_MOVE_TEXT[playerIndex][dieRollValue] ); // precomputed, so waiting for a click allocates nothing
 
-        // If you've gotten this far, then there is at least one moveable piece,
-        // so we loop again through the moveable pieces to see which will be moved
-        for ( int playerPieceIndex = 0; playerPieceIndex < NUMBER_OF_PIECES_PER_PLAYER; playerPieceIndex++ )
+        if ( isPlayerHuman[playerIndex] )
         {
-            PlayerPiece currentPlayerPieceToCheck = playerPieces[playerIndex][playerPieceIndex];
-
-            if ( currentPlayerPieceToCheck.isMoveable() )
+            for ( PlayerPiece currentPlayerPieceToCheck : playerPieces[playerIndex] )
             {
-                String playerPieceName = playerIndex == 0 ? "red" : "blue";
-                showText( "\n\n\nSelect\n" + playerPieceName + "\nto move\n" + dieRollValue + (dieRollValue == 1 ? " space" : " spaces"), 
-                         die.getX(), die.getY() + DIE_TEXT_VERTICAL_OFFSET );
-
-                if ( isPlayerHuman[playerIndex] && Greenfoot.mouseClicked(currentPlayerPieceToCheck) ) 
+                if ( currentPlayerPieceToCheck.isMoveable() && Greenfoot.mouseClicked(currentPlayerPieceToCheck) ) 
                 {                                                                          
                     handleSelectedPieceForPlayerIndex( playerIndex, currentPlayerPieceToCheck );
                     readyToExitState = true; // now that a piece is selected (here, by the human player), the game will update its state 
                     return;                  // move has been made, so we exit the method early and return to method caller
+                } // end if
+            } // end for
+            return; // keep waiting for the human player to click on a moveable piece
+        } // end if
 
-                } // end inner if 
-
-                // if we've gotten to this point in the code, then we allow the CPU to determine which piece to move
-                // (Specifically, we'll use a random number generator to simulate a 30% chance of the 
-                //  CPU "mouse-clicking" on THIS piece -- it's not "smart" AI, but it works well enough)
-                if ( !isPlayerHuman[playerIndex] && Greenfoot.getRandomNumber(100) < 30 ) 
-                {
-                    Greenfoot.delay(DELAY_LENGTH);
-
-                    showText( "\n\nPlayer "+ (playerIndex + 1) + "\nmoves\n" + " a " + (playerPieces[playerIndex][playerPieceIndex].getShipTierName()) + " ship!", die.getX(), die.getY() + DIE_TEXT_VERTICAL_OFFSET );
-                    Greenfoot.delay(DELAY_LENGTH);
-
-                    handleSelectedPieceForPlayerIndex( playerIndex, currentPlayerPieceToCheck );
+        // if we've gotten to this point in the code, then we allow the CPU to determine which piece to move
+        int selectedPieceIndex = cpuPlayer.selectPieceIndex( gameManager );
+        PlayerPiece selectedPlayerPiece = playerPieces[playerIndex][selectedPieceIndex];
 
-                    readyToExitState = true; // now that a piece is selected (here, by the CPU), the game will update its state 
-                    return;                  // move has been made, so we exit the method early and return to method caller
+        scheduler.schedule( DELAY_LENGTH, () -> hudText.show( HudText.DIE_CAPTION, "\n\nPlayer "+ (playerIndex + 1) + "\nmoves\n" + " a " + (selectedPlayerPiece.getShipTierName()) + " ship!" ) );
+        scheduler.schedule( DELAY_LENGTH, () -> handleSelectedPieceForPlayerIndex( playerIndex, selectedPlayerPiece ) );
 
-                } // end inner if 
-            } // end outer if
-        } // end for
+        readyToExitState = true; // now that a piece is selected (here, by the CPU), the game will update its state once the scheduler is done 
     } // end method determineMoveForPlayerIndex
 
     /**
-     * Updates the given player piece's location index along the movement path for the given playerIndex
+     * Has the GameManager move the given player piece along the movement path for the given playerIndex,
+     * then moves the piece's sprite (and replays the battle, if there was one) to match
      * 
      * @param playerIndex           the index of the player moving the selected piece
      * @param selectedPlayerPiece   a reference to the player's selected piece
      */
     public void handleSelectedPieceForPlayerIndex( int playerIndex, PlayerPiece selectedPlayerPiece )
     {
-        if ( selectedPlayerPiece.getTargetGameBoardLocationIndex() >= 0 
-             && selectedPlayerPiece.getTargetGameBoardLocationIndex() < 16 ) 
+        int selectedPieceIndex = getPieceIndexForPlayerIndex( playerIndex, selectedPlayerPiece );
+        int targetGameBoardLocationIndex = gameManager.getTargetGameBoardLocationIndex( playerIndex, selectedPieceIndex );
+        int goalCountBeforeMove = gameManager.getGoalCountForPlayerIndex( playerIndex );
+
+        gameManager.setInstantBattles( !isPlayerHuman[0] && !isPlayerHuman[1] ); // nobody needs to watch CPU vs CPU dice
+        gameManager.movePiece( selectedPieceIndex ); // all of the rules (including any battle) are applied here
+
+        if ( targetGameBoardLocationIndex < GameManager.GOAL_ZONE_INDEX ) 
         {
             moveSelectedPieceOntoTargetSpaceForPlayerIndex( playerIndex, selectedPlayerPiece );
         } // end if
-        else if ( selectedPlayerPiece.getTargetGameBoardLocationIndex() == 16 ) 
+        else 
         { 
-            moveSelectedPieceIntoGoalZoneForPlayerIndex( playerIndex, selectedPlayerPiece );
-        } // end else if
+            moveSelectedPieceIntoGoalZoneForPlayerIndex( playerIndex, selectedPlayerPiece, goalCountBeforeMove );
+        } // end else
 
-        // since we have now moved the player piece's location on the screen, let's first update
-        // the status of the Space it is LEAVING so that it is NO LONGER OCCUPIED by that player...
-        if ( selectedPlayerPiece.getGameBoardLocationIndex() >= 0 ) 
+        if ( gameManager.wasLastMoveBattle() )
         {
-            movementPathForPlayerIndex[ playerIndex ][ selectedPlayerPiece.getGameBoardLocationIndex() ].setOccupiedByPieceForPlayerIndex(playerIndex, false);
+            PlayerPiece defendingPiece = playerPieces[ 1 - playerIndex ][ gameManager.getLastBattleDefenderPieceIndex() ];
+            determineBattleWinner( selectedPlayerPiece, defendingPiece ); // replays the battle and resets the losing piece's sprite
         } // end if
 
-        int currentSpaceIndex = selectedPlayerPiece.getTargetGameBoardLocationIndex();
-
-        // ...and finally, we UPDATE the selected player piece's Space location to be whatever its TARGET location is 
-        selectedPlayerPiece.setGameBoardLocationIndex( selectedPlayerPiece.getTargetGameBoardLocationIndex() );
+        // ...and finally (once any battle has been replayed), we UPDATE the selected player piece's location to match the GameManager
+        scheduler.then( () ->
+        {
+            selectedPlayerPiece.setGameBoardLocationIndex( gameManager.getGameBoardLocationIndex( playerIndex, selectedPieceIndex ) );
         
-        // displays the name of the planet or star in the top right of the screen for tangential learning component
-        displaySpaceName(spaces[currentSpaceIndex]);
+            // displays the name of the planet or star in the top right of the screen for tangential learning component
+            if ( targetGameBoardLocationIndex < GameManager.GOAL_ZONE_INDEX )
+            {
+                displaySpaceName( movementPathForPlayerIndex[playerIndex][targetGameBoardLocationIndex] );
+            } // end if
+        } );
     } // end method handleSelectedPieceForPlayerIndex
 
     /**
      * "Helper" method (called by handleSelectedPieceForPlayerIndex) for moving a
-     * piece into a target space that is NOT the goal
+     * piece's SPRITE onto a target space that is NOT the goal
      * 
      * @param playerIndex           the index of the player moving a piece into the piece's target space 
      * @param selectedPlayerPiece   a reference to the player's selected piece
      */
     public void moveSelectedPieceOntoTargetSpaceForPlayerIndex( int playerIndex, PlayerPiece selectedPlayerPiece )
     {
-        int opposingPlayerIndex = 1 - playerIndex; // if playerIndex = 1, opposingPlayerIndex = 1 - 1 = 0
-                                                   // if playerIndex = 0, opposingPlayerIndex = 1 - 0 = 1
-
         // move the playerPiece SPRITE to its new X- and Y- locations on the screen
-        selectedPlayerPiece.setLocation(movementPathForPlayerIndex[ playerIndex ][ selectedPlayerPiece.getTargetGameBoardLocationIndex() ].getX(), 
-                                        movementPathForPlayerIndex[ playerIndex ][ selectedPlayerPiece.getTargetGameBoardLocationIndex() ].getY() );
-
-        // update the "occupied" state for the target space where the selected player piece is being moved if it is not occupied already
-        if ( movementPathForPlayerIndex[ playerIndex ][ selectedPlayerPiece.getTargetGameBoardLocationIndex() ].isOccupiedByPieceForPlayerIndex(opposingPlayerIndex) == false)
-        {
-            movementPathForPlayerIndex[ playerIndex ][ selectedPlayerPiece.getTargetGameBoardLocationIndex() ].setOccupiedByPieceForPlayerIndex(playerIndex, true);
-        } // end if
-
-        // if the target space is a reroll space, mark for rolling again when the turn is over
-        if ( movementPathForPlayerIndex[ playerIndex ][ selectedPlayerPiece.getTargetGameBoardLocationIndex() ].isRerollSpace() )
-        {
-            starSpaceRollAgain = true;
-        } // end if
-
-        // if this space is occupied by a piece belonging to the OPPOSING player, check for winner of the battle using another method and reset the captured piece to starting zone
-        if ( movementPathForPlayerIndex[ playerIndex ][ selectedPlayerPiece.getTargetGameBoardLocationIndex() ].isOccupiedByPieceForPlayerIndex(opposingPlayerIndex) ) 
-        {
-            resetCapturedPieceOnBoardAndReplaceWithSelectedPieceForPlayerIndex( playerIndex, selectedPlayerPiece );
-        } // end if
+        selectedPlayerPiece.setLocation(movementPathForPlayerIndex[ playerIndex ][ selectedPlayerPiece.getTargetGameBoardLocationIndex() ].getBoardXcoord(), 
+                                        movementPathForPlayerIndex[ playerIndex ][ selectedPlayerPiece.getTargetGameBoardLocationIndex() ].getBoardYcoord() );
     } // end method moveSelectedPieceOntoTargetSpaceForPlayerIndex
 
-    /**
-     * "Helper" method (here called by `moveSelectedPieceOntoTargetSpaceForPlayerIndex`) 
-     * for handling the capture of an opposing player's piece 
-     * 
-     * @param playerIndex           the index of the player moving a piece into that piece's target space 
-     * @param selectedPlayerPiece   a reference to the player's selected piece
-     */
-
-    public void resetCapturedPieceOnBoardAndReplaceWithSelectedPieceForPlayerIndex( int playerIndex, PlayerPiece selectedPlayerPiece )
-    {
-        int opposingPlayerIndex = 1 - playerIndex; // if playerIndex = 1, opposingPlayerIndex = 1 - 1 = 0
-                                                   // if playerIndex = 0, opposingPlayerIndex = 1 - 0 = 1
-
-        for ( PlayerPiece currentOpponentPieceToCheck : playerPieces[opposingPlayerIndex] ) { 
-
-            // if the captured opponent's piece is located along its board space movement path 
-            // (index 0 to 15) then move it back to location "index" -1 (starting zone)
-            // AND also move its SPRITE back to its original X- and Y-coordinate locations in the world
-            if ( currentOpponentPieceToCheck.getGameBoardLocationIndex() == -1 ||  currentOpponentPieceToCheck.getGameBoardLocationIndex() == 16 )
-            {
-                continue;
-            } // end if   
-
-            if ( movementPathForPlayerIndex[opposingPlayerIndex][currentOpponentPieceToCheck.getGameBoardLocationIndex()]
-                 == movementPathForPlayerIndex[playerIndex][selectedPlayerPiece.getTargetGameBoardLocationIndex()]  ) 
-            {
-                determineBattleWinner(selectedPlayerPiece, currentOpponentPieceToCheck); // determines the winner and loser of the battle and resets the losing piece
-                checkTier3PieceHasLost(); // checks to see if the piece that lost was a tier 3 piece, if so switches state to a win condition and ends the game
-            } // end if
-        } // end for    
-    } // end method resetCapturedPieceOnBoardAndReplaceWithSelectedPieceForPlayerIndex
-
     /**
      * "Helper" method (here called by handleSelectedPieceForPlayerIndex) to move 
      * the selected playerPiece's SPRITE into the goal zone.
@@ -722,20 +675,21 @@ public class GameBoard extends World
      * 
      * Actual X- and Y-coordinates of each player's piece in the goal zone are each  
      * computed as a linear function of how many of that player's pieces are already 
-     * in the goal zone (i.e., goalCountForPlayer[playerIndex] )
+     * in the goal zone
      * 
      * @param playerIndex           the index of the player moving a piece into the goal zone
      * @param selectedPlayerPiece   a reference to the player's selected piece
+     * @param goalCount             how many of this player's pieces were already in the goal zone
      */
-    public void moveSelectedPieceIntoGoalZoneForPlayerIndex( int playerIndex, PlayerPiece selectedPlayerPiece )
+    public void moveSelectedPieceIntoGoalZoneForPlayerIndex( int playerIndex, PlayerPiece selectedPlayerPiece, int goalCount )
     {
         if ( playerIndex == 0 ) // if it's red...
         {
-            selectedPlayerPiece.setLocation( (int)((0.75 + 0.02*goalCountForPlayerIndex[0]) * WIDTH), 20*goalCountForPlayerIndex[0] + 60 );
+            selectedPlayerPiece.setLocation( (int)((0.75 + 0.02*goalCount) * WIDTH), 20*goalCount + 60 );
         } // end if
         else // otherwise, if it's blue
         { 
-            selectedPlayerPiece.setLocation( (int)((0.125 + 0.02*goalCountForPlayerIndex[1]) * WIDTH), HEIGHT - 200 + 20 * goalCountForPlayerIndex[1] );
+            selectedPlayerPiece.setLocation( (int)((0.125 + 0.02*goalCount) * WIDTH), HEIGHT - 200 + 20 * goalCount );
         } // end else        
     } // end method moveSelectedPieceIntoGoalZoneForPlayerIndex
 
@@ -754,96 +708,40 @@ public class GameBoard extends World
     } // end method makeAllPiecesMoveableAgainForPlayerIndex
 
     /**
-     * Updates the game state (and checks for a possible win condition) after the player
-     * (specified by `playerIndex`) has just completed their turn
+     * Has the GameManager update the game state (and check for a possible win condition) after the player
+     * (specified by `playerIndex`) has just completed their turn, then tells the players who goes next
      * 
      * @param playerIndex   the index of the player that has just completed their turn
      */
     public void updateGameStateAfterTurnForPlayerIndex( int playerIndex )
     {
-        switch ( playerIndex ) {
-            case 0:
-                updateGoalCountForPlayerIndex(0);
-
-                if ( goalCountForPlayerIndex[0] == NUMBER_OF_PIECES_PER_PLAYER ) 
-                {
-                    state = PLAYER1_WIN; // update state for next `act` method call
-                } // end if
-                else if (starSpaceRollAgain) 
-                {
-                    showText( "\nPlayer 1\nrolls again!", die.getX(), die.getY() + DIE_TEXT_VERTICAL_OFFSET );
-                    starSpaceRollAgain = false; // reset for next turn
-                    Greenfoot.delay(DELAY_LENGTH);
-                    readyToExitState = false; // reset for next turn
-                    state = PLAYER1_ROLL_DIE; // update state for next `act` method call
-
-                } // end else if
-                else 
-                { 
-                    // player 1 (index 0)'s turn is finished, so update game state for player 2's turn
-                    showText( "\nPlayer 2\nup next", die.getX(), die.getY() + DIE_TEXT_VERTICAL_OFFSET );
-                    Greenfoot.delay(DELAY_LENGTH);
-                    readyToExitState = false; // reset for next turn
-                    state = PLAYER2_ROLL_DIE; // update state for next `act` method call
-
-                } // end else
-                break;
-
-            case 1:
-                updateGoalCountForPlayerIndex(1);
-
-                if ( goalCountForPlayerIndex[1] == NUMBER_OF_PIECES_PER_PLAYER ) 
-                {
-                    state = PLAYER2_WIN; // update state for next `act` method call
-                } // end if
-                else if (starSpaceRollAgain) 
-                {
-                    showText( "\nPlayer 2\nrolls again!", die.getX(), die.getY() + DIE_TEXT_VERTICAL_OFFSET );
-                    starSpaceRollAgain = false; // reset for next turn
-                    Greenfoot.delay(DELAY_LENGTH);
-                    readyToExitState = false; // reset for next turn
-                    state = PLAYER2_ROLL_DIE; // update state for next `act` method call
-
-                }  // end else if
-                else 
-                { 
-                    // player 1 (index 0)'s turn is finished, so update game state for player 2's turn
-                    showText( "\nPlayer 1\nup next", die.getX(), die.getY() + DIE_TEXT_VERTICAL_OFFSET );
-                    Greenfoot.delay(DELAY_LENGTH);
-                    readyToExitState = false; // reset for next turn
-                    state = PLAYER1_ROLL_DIE; // update state for next `act` method call
-
-                } // end else
-                break;
-
-            default:
-                break;
-        } // end switch
-    } // end method updateGameStateAfterTurnForPlayerIndex
+        gameManager.finishTurn();
+        readyToExitState = false; // reset for next turn
+        hudText.clear( HudText.NOTICE );
+        saveGame( false ); // every finished turn is saved, so the game survives the scenario being closed
 
-    /**
-     * For the given playerIndex, checks to see how many of that player's pieces have been 
-     * moved into that goal zone at the end of that player's movement path
-     * 
-     * @param playerIndex   the index of the player whose pieces are being checked to see if they're in the goal zone
-     */
-    public void updateGoalCountForPlayerIndex( int playerIndex )
-    {
-        goalCountForPlayerIndex[playerIndex] = 0; // resetting for purpose of using 
-                                                  // loop to re-compute goal count
-  
-        for ( PlayerPiece currentPlayerPieceToCheck : playerPieces[playerIndex] )
+        if ( gameManager.isGameOver() ) 
         {
-            if ( currentPlayerPieceToCheck.getGameBoardLocationIndex() == 16 ) 
-            {
-                goalCountForPlayerIndex[playerIndex]++;
-            } // end if
-        } // end for 
-    } // end method updateGoalCountForPlayerIndex
+            return; // the win is displayed on the next `act` method call
+        } // end if
+        else if ( gameManager.getCurrentPlayerIndex() == playerIndex ) // the player landed on a star
+        {
+            hudText.show( HudText.DIE_CAPTION, ROLLS_AGAIN_TEXT[playerIndex] );
+            scheduler.pause(DELAY_LENGTH);
+        } // end else if
+        else 
+        { 
+            // this player's turn is finished, so tell the other player it's their turn
+            hudText.show( HudText.DIE_CAPTION, UP_NEXT_TEXT[1 - playerIndex] );
+            scheduler.pause(DELAY_LENGTH);
+        } // end else
+    } // end method updateGameStateAfterTurnForPlayerIndex
 
     /**
-     * Determines winner of a battle and sets appropriate win/loss counters for each piece.
-     * Additionally resets the piece to the starting zone when captured. Main battle logic.
+     * Replays the battle the GameManager just resolved: shows the attacker's exact odds, each die the two pieces
+     * rolled, who won, and sends the losing piece's sprite back to its starting zone. The win/loss counters on each
+     * piece are updated too. An instant battle (CPU vs CPU) skips the dice and all of the delays. Everything is
+     * queued on the PacingScheduler, so it plays out over the next act cycles rather than freezing the game.
      * 
      * @param attackingPiece    identifies which piece from which player index is the attacking piece in the battle
      * @param defendingPiece    identifies which piece from which player index is the defending piece in the battle
@@ -855,106 +753,97 @@ public class GameBoard extends World
         int attackerRolls = attackingPiece.getPieceTier();
         int defenderRolls = defendingPiece.getPieceTier();
 
-        int attackerHighestRoll = 0;
-        int defenderHighestRoll = 0;
+        boolean instantBattle = gameManager.isInstantBattles();
 
-        showText("Battle: Player " + (attackerPlayerIndex + 1) + " vs Player " + (defenderPlayerIndex + 1), getWidth()/2, getHeight()/2);
-        Greenfoot.delay(100);
+        hudText.show(HudText.BANNER, "Battle: Player " + (attackerPlayerIndex + 1) + " vs Player " + (defenderPlayerIndex + 1));
+        hudText.show(HudText.BANNER_DETAIL, "Player " + (attackerPlayerIndex + 1) + " has a " + BattleOdds.getAttackerWinPercentText(attackerRolls, defenderRolls) + " chance to win");
 
-        for (int i = 0; i < attackerRolls; i++)
+        if (!instantBattle)
         {
-            int currentAttackerRoll = determineDieRollBattle(attackerPlayerIndex);
-            Greenfoot.delay(50);
-            if (currentAttackerRoll > attackerHighestRoll)
+            scheduler.pause(100);
+
+            for (int i = 0; i < attackerRolls; i++)
             {
-                attackerHighestRoll = currentAttackerRoll; 
-            } // end if
-        } // end for
+                int attackerRoll = gameManager.getLastBattleAttackerRoll(i);
+                scheduler.then(() -> displayDieRollBattle(attackerPlayerIndex, attackerRoll));
+                scheduler.pause(50);
+            } // end for
 
-        Greenfoot.delay(100);
+            scheduler.pause(100);
 
-        for (int i = 0; i < defenderRolls; i++)
-        {
-            int currentDefenderRoll = determineDieRollBattle(defenderPlayerIndex);
-            Greenfoot.delay(50);
-            if (currentDefenderRoll > defenderHighestRoll)
+            for (int i = 0; i < defenderRolls; i++)
             {
-                defenderHighestRoll = currentDefenderRoll; 
-            } // end if
-        } // end for
+                int defenderRoll = gameManager.getLastBattleDefenderRoll(i);
+                scheduler.then(() -> displayDieRollBattle(defenderPlayerIndex, defenderRoll));
+                scheduler.pause(50);
+            } // end for
+        } // end if
+
+        scheduler.then(() -> showBattleWinner(attackingPiece, defendingPiece));
+
+        // Clear the text after the battle
+        if (!instantBattle)
+        {
+            scheduler.pause(200);
+        } // end if
+        scheduler.then(() ->
+        {
+            hudText.clear(HudText.BANNER);
+            hudText.clear(HudText.BANNER_DETAIL);
+        });
+    } // end method determineBattleWinner
+
+    /**
+     * Shows the winner of the battle the GameManager just resolved, sends the loser's sprite back to its
+     * starting zone and updates both pieces' win/loss counters
+     * 
+     * @param attackingPiece    the attacking piece in the battle
+     * @param defendingPiece    the defending piece in the battle
+     */
+    private void showBattleWinner(PlayerPiece attackingPiece, PlayerPiece defendingPiece)
+    {
+        int attackerPlayerIndex = attackingPiece.getPlayerIndex();
+        int defenderPlayerIndex = defendingPiece.getPlayerIndex();
 
-        // Determines the winner of a battle
-        if (attackerHighestRoll > defenderHighestRoll) //if attacker wins this occurs
+        if (gameManager.wasLastBattleWonByAttacker()) //if attacker wins this occurs
         {
-            showText("Player " + (attackerPlayerIndex + 1) + " wins the battle!", die.getX(), die.getY() + DIE_TEXT_VERTICAL_OFFSET);
+            hudText.show(HudText.DIE_CAPTION, "Player " + (attackerPlayerIndex + 1) + " wins the battle!");
             Greenfoot.playSound("blaster-2-81267.mp3");
-            movementPathForPlayerIndex[attackerPlayerIndex][attackingPiece.getTargetGameBoardLocationIndex()].setOccupiedByPieceForPlayerIndex(attackerPlayerIndex, true); // manual resets of space occupation was required due to a bug
-            movementPathForPlayerIndex[defenderPlayerIndex][defendingPiece.getGameBoardLocationIndex()].setOccupiedByPieceForPlayerIndex(defenderPlayerIndex, false);
             defendingPiece.setLocation(defendingPiece.getOriginalXcoord(), defendingPiece.getOriginalYcoord());
-            defendingPiece.setGameBoardLocationIndex(-1); // manual resets for location indexes required because of a bug
-            defendingPiece.setTargetGameBoardLocationIndex(0);
+            defendingPiece.setGameBoardLocationIndex(GameManager.START_ZONE_INDEX);
             attackingPiece.incrementWins();
             defendingPiece.incrementLosses();
         } // end if
         else // if defending piece wins or a tie occurs (favoring the defending piece in the event of a tie) 
         {
-            showText("Player " + (defenderPlayerIndex + 1) + " wins the battle!", die.getX(), die.getY() + DIE_TEXT_VERTICAL_OFFSET);
+            hudText.show(HudText.DIE_CAPTION, "Player " + (defenderPlayerIndex + 1) + " wins the battle!");
             Greenfoot.playSound("blaster-2-81267.mp3");
-            movementPathForPlayerIndex[defenderPlayerIndex][defendingPiece.getGameBoardLocationIndex()].setOccupiedByPieceForPlayerIndex(defenderPlayerIndex, true); // manual resets of space occupation was required due to a bug
-            movementPathForPlayerIndex[attackerPlayerIndex][attackingPiece.getTargetGameBoardLocationIndex()].setOccupiedByPieceForPlayerIndex(attackerPlayerIndex, false);
-            movementPathForPlayerIndex[attackerPlayerIndex][attackingPiece.getGameBoardLocationIndex()].setOccupiedByPieceForPlayerIndex(attackerPlayerIndex, false);
             attackingPiece.setLocation(attackingPiece.getOriginalXcoord(), attackingPiece.getOriginalYcoord());
-            attackingPiece.setGameBoardLocationIndex(-1); // manual resets for location indexes required because of a bug
-            attackingPiece.setTargetGameBoardLocationIndex(0);
+            attackingPiece.setGameBoardLocationIndex(GameManager.START_ZONE_INDEX);
             defendingPiece.incrementWins();
             attackingPiece.incrementLosses();
         } // end else
+    } // end method showBattleWinner
 
-        // Clear the text after the battle
-        Greenfoot.delay(200);
-        showText("", getWidth()/2, getHeight()/2);
-        showText("", getWidth()/2, getHeight()/2 + 50);
-        showText("", getWidth()/2, getHeight()/2 + 100);
-    } // end method determineBattleWinner
-    
     /**
-     * Checks to see if a tier 3 piece has been lost, if so manually sets condition to switch state for the win of the opposing player
+     * Finds which index (0 to 6) the given piece has in its player's array of pieces, which is the
+     * same index the GameManager uses for that piece
+     * 
+     * @param playerIndex   the index of the player that owns the piece
+     * @param playerPiece   a reference to the piece
+     * @return the index of the piece, or -1 if it isn't one of this player's pieces
      */
-    public void checkTier3PieceHasLost()
+    public int getPieceIndexForPlayerIndex( int playerIndex, PlayerPiece playerPiece )
     {
-        boolean player1Tier3Lost = false;
-        boolean player2Tier3Lost = false;
-
-        // Check if tier 3 piece for player 1 has lost
-        for (PlayerPiece piece : playerPieces[0]) 
-        {
-            if (piece.getPieceTier() == 3 && piece.getLosses() > 0) 
-            {
-                player1Tier3Lost = true;
-                break;
-            } // end if
-        } // end for
-
-        // Check if tier 3 piece for player 2 has lost
-        for (PlayerPiece piece : playerPieces[1]) 
+        for ( int playerPieceIndex = 0; playerPieceIndex < NUMBER_OF_PIECES_PER_PLAYER; playerPieceIndex++ )
         {
-            if (piece.getPieceTier() == 3 && piece.getLosses() > 0) 
+            if ( playerPieces[playerIndex][playerPieceIndex] == playerPiece )
             {
-                player2Tier3Lost = true;
-                break;
+                return playerPieceIndex;
             } // end if
         } // end for
-
-        // Set win condition
-        if (player1Tier3Lost) 
-        {
-            state = PLAYER2_WIN2;
-        } // end if 
-        else if (player2Tier3Lost) 
-        {
-            state = PLAYER1_WIN2;
-        } // end else if
-    } // end method checkTier3PieceHasLost
+        return -1;
+    } // end method getPieceIndexForPlayerIndex
 
     /**
      * Names the planets and stars after initialization of each space
@@ -990,7 +879,7 @@ public class GameBoard extends World
      */
     public void displaySpaceName(Space landedSpace)
     {
-        showText(landedSpace.getSpaceName(), WIDTH - 100, 15);
+        hudText.show(HudText.SPACE_NAME, landedSpace.getSpaceName());
     } // end method displaySpaceName
 
     /**
@@ -1009,30 +898,42 @@ public class GameBoard extends World
      */
     public void nameShips()
     {
-        // red pieces names
-        playerPieces[0][0].setShipTierName("red Sputnik");
-        playerPieces[0][1].setShipTierName("red Sputnik");
-        playerPieces[0][2].setShipTierName("red Sputnik");
-        playerPieces[0][3].setShipTierName("red Galileo");
-        playerPieces[0][4].setShipTierName("red Galileo");
-        playerPieces[0][5].setShipTierName("red Galileo");
-        playerPieces[0][6].setShipTierName("red Orbiter");
-
-        // blue pieces names
-        playerPieces[1][0].setShipTierName("blue Sputnik");
-        playerPieces[1][1].setShipTierName("blue Sputnik");
-        playerPieces[1][2].setShipTierName("blue Sputnik");
-        playerPieces[1][3].setShipTierName("blue Galileo");
-        playerPieces[1][4].setShipTierName("blue Galileo");
-        playerPieces[1][5].setShipTierName("blue Galileo");
-        playerPieces[1][6].setShipTierName("blue Orbiter");
+        String[] shipNameForTier = { "", "Sputnik", "Galileo", "Orbiter" };
+        for ( int pieceIndex = 0; pieceIndex < GameManager.NUMBER_OF_PIECES_PER_PLAYER; pieceIndex++ )
+        {
+            String shipName = shipNameForTier[ GameManager.getPieceTier( pieceIndex ) ];
+            playerPieces[0][pieceIndex].setShipTierName("red " + shipName);
+            playerPieces[1][pieceIndex].setShipTierName("blue " + shipName);
+        } // end for
     } // end method nameShips
 
+    /**
+     * Getter for the on-screen text slots (for actors that draw their own text at the same spots)
+     */
+    public HudText getHudText()
+    {
+        return hudText;
+    } // end method getHudText
+
     /**
      * Resets the world for a new game
      */
     public void resetWorld()
     {
+        GameRecordWriter gameRecordWriter = gameManager.getGameRecordWriter();
+        if ( gameRecordWriter != null )
+        {
+            gameRecordWriter.close(); // an unfinished game's record stops at its last turn
+        } // end if
+        try
+        {
+            Files.deleteIfExists( Paths.get( SavedGame.DEFAULT_FILE_NAME ) ); // a reset asks for a new game, so don't resume this one
+        } // end try
+        catch ( IOException exception )
+        {
+            System.err.println( "Could not delete the saved game: " + exception.getMessage() );
+        } // end catch
+        stopMusic(); // the soundtrack is shared with the next GameBoard
         Greenfoot.setWorld(new GameBoard());
     } // end method resetWorld
     
@@ -1041,9 +942,10 @@ public class GameBoard extends World
      */
     public String getGameModeDescription()
     {
+        String cpuPlayerName = cpuPlayerNames[cpuPlayerOptionIndex];
         if (!isPlayerHuman[0] && !isPlayerHuman[1])
         {
-            return "CPU vs CPU";
+            return "CPU vs CPU (" + cpuPlayerName + ( fastForward ? ", fast-forward)" : ")" );
         } // end if
         else if (isPlayerHuman[0] && isPlayerHuman[1])
         {
@@ -1051,7 +953,7 @@ public class GameBoard extends World
         } // end else if
         else if (isPlayerHuman[0] && !isPlayerHuman[1])
         {
-            return "Human vs CPU";
+            return "Human vs CPU (" + cpuPlayerName + ")";
         } // end else if
         else
         {
@@ -1060,14 +962,356 @@ public class GameBoard extends World
     } // end method getGameModeDescription
     
     /**
-     * Displays the current gamemode determined by a different method
+     * Displays the current gamemode determined by a different method (only building the description again
+     * when the mode, the CPU player or fast-forward has changed)
      */
     public void displayGameMode()
     {
-        String gameMode = getGameModeDescription();
-        showText(gameMode, die.getX(), HEIGHT - 25 );
+        int gameModeKey = ( isPlayerHuman[0] ? 1 : 0 ) | ( isPlayerHuman[1] ? 2 : 0 ) | ( fastForward ? 4 : 0 ) | ( cpuPlayerOptionIndex << 3 );
+        if ( gameModeKey != displayedGameModeKey )
+        {
+            hudText.show( HudText.GAME_MODE, getGameModeDescription() );
+            displayedGameModeKey = gameModeKey;
+        } // end if
     } // end method displayGameMode
 
+    /**
+     * Handles the keyboard shortcuts: "f" toggles fast play, where every pause, message and battle replay is
+     * skipped (pacing scale 0) or played at normal speed again (pacing scale 1), "g" toggles fast-forwarding
+     * CPU vs CPU games, "r" opens (or closes) the replay of the newest game record, "s" saves the game and "l"
+     * loads the saved game. While a replay is showing, the other keys control it (see ReplayViewer).
+     */
+    public void checkForKeyboardShortcuts()
+    {
+        String key = Greenfoot.getKey(); // can only be read once per act cycle
+        if ( "r".equals( key ) )
+        {
+            toggleReplay();
+        } // end if
+        else if ( replayViewer != null )
+        {
+            replayViewer.handleKey( key );
+        } // end else if
+        else if ( "s".equals( key ) )
+        {
+            saveGame( true );
+        } // end else if
+        else if ( "l".equals( key ) )
+        {
+            SavedGame savedGame = readSavedGame();
+            if ( savedGame == null )
+            {
+                hudText.show( HudText.NOTICE, "No saved game to load" );
+            } // end if
+            else
+            {
+                loadGame( savedGame );
+            } // end else
+        } // end else if
+        else if ( "f".equals( key ) )
+        {
+            PacingScheduler.setPacingScale( ( PacingScheduler.getPacingScale() == 0.0 ) ? 1.0 : 0.0 );
+        } // end else if
+        else if ( "g".equals( key ) )
+        {
+            fastForward = !fastForward;
+        } // end else if
+    } // end method checkForKeyboardShortcuts
+
+    /**
+     * Checks whether this act cycle should fast-forward the game: fast-forward is on, both players are CPUs and
+     * a turn hasn't been started yet (the board only hands the game over to the GameManager between turns)
+     */
+    public boolean isFastForwarding()
+    {
+        int state = gameManager.getState();
+        return fastForward && !isPlayerHuman[0] && !isPlayerHuman[1] 
+               && ( state == PLAYER1_ROLL_DIE || state == PLAYER2_ROLL_DIE );
+    } // end method isFastForwarding
+
+    /**
+     * Plays CPU vs CPU turns straight in the GameManager (no messages, no sprites, instant battles) until the
+     * game is over or this act cycle has used up FAST_FORWARD_NANOS_PER_ACT, then moves every sprite to where
+     * the GameManager says it is. With the random CPU a whole game takes one act cycle; the searching CPUs
+     * think for about a frame per move, so they take a few.
+     */
+    public void fastForwardCpuVsCpuGame()
+    {
+        long deadlineNanos = System.nanoTime() + FAST_FORWARD_NANOS_PER_ACT;
+        gameManager.setInstantBattles( true );
+        do
+        {
+            gameManager.playCpuTurn( cpuPlayer );
+        } while ( !gameManager.isGameOver() && System.nanoTime() < deadlineNanos );
+
+        syncPieceSpritesWithGameManager();
+        hudText.clear( HudText.DIE_CAPTION );
+        saveGame( false );
+    } // end method fastForwardCpuVsCpuGame
+
+    /**
+     * Moves every piece's sprite to the location the GameManager has for it and copies over its battle record,
+     * after any number of turns were played without the board (pieces in the goal zone are stacked in piece order)
+     */
+    public void syncPieceSpritesWithGameManager()
+    {
+        for ( int playerIndex = 0; playerIndex < GameManager.NUMBER_OF_PLAYERS; playerIndex++ )
+        {
+            int goalCount = 0;
+            for ( int playerPieceIndex = 0; playerPieceIndex < NUMBER_OF_PIECES_PER_PLAYER; playerPieceIndex++ )
+            {
+                PlayerPiece currentPlayerPiece = playerPieces[playerIndex][playerPieceIndex];
+                int gameBoardLocationIndex = gameManager.getGameBoardLocationIndex( playerIndex, playerPieceIndex );
+                placePieceSprite( currentPlayerPiece, gameBoardLocationIndex, goalCount );
+                if ( gameBoardLocationIndex == GameManager.GOAL_ZONE_INDEX )
+                {
+                    goalCount++;
+                } // end if
+
+                currentPlayerPiece.setMoveable( true );
+                currentPlayerPiece.setWins( gameManager.getWins( playerIndex, playerPieceIndex ) );
+                currentPlayerPiece.setLosses( gameManager.getLosses( playerIndex, playerPieceIndex ) );
+            } // end INNER for
+        } // end OUTER for
+    } // end method syncPieceSpritesWithGameManager
+
+    /**
+     * Moves every piece's sprite to the location a game record has for it at the turn it is seeked to, and
+     * copies over its battle record (like syncPieceSpritesWithGameManager, for a replay)
+     *
+     * @param record    the game record being played back
+     */
+    public void syncPieceSpritesWithGameRecord( GameRecord record )
+    {
+        for ( int playerIndex = 0; playerIndex < GameManager.NUMBER_OF_PLAYERS; playerIndex++ )
+        {
+            int goalCount = 0;
+            for ( int playerPieceIndex = 0; playerPieceIndex < NUMBER_OF_PIECES_PER_PLAYER; playerPieceIndex++ )
+            {
+                PlayerPiece currentPlayerPiece = playerPieces[playerIndex][playerPieceIndex];
+                int gameBoardLocationIndex = record.getGameBoardLocationIndex( playerIndex, playerPieceIndex );
+                placePieceSprite( currentPlayerPiece, gameBoardLocationIndex, goalCount );
+                if ( gameBoardLocationIndex == GameManager.GOAL_ZONE_INDEX )
+                {
+                    goalCount++;
+                } // end if
+
+                currentPlayerPiece.setMoveable( true );
+                currentPlayerPiece.setWins( record.getWins( playerIndex, playerPieceIndex ) );
+                currentPlayerPiece.setLosses( record.getLosses( playerIndex, playerPieceIndex ) );
+            } // end INNER for
+        } // end OUTER for
+    } // end method syncPieceSpritesWithGameRecord
+
+    /**
+     * Puts a piece's sprite at a location: its spot in the starting zone, its space on the path, or its place in
+     * the goal zone
+     *
+     * @param playerPiece               the piece to move
+     * @param gameBoardLocationIndex    where it is (-1 = start zone, 16 = goal zone)
+     * @param goalCount                 how many of its player's pieces are stacked in the goal zone before it
+     */
+    private void placePieceSprite( PlayerPiece playerPiece, int gameBoardLocationIndex, int goalCount )
+    {
+        if ( gameBoardLocationIndex == GameManager.START_ZONE_INDEX )
+        {
+            playerPiece.setLocation( playerPiece.getOriginalXcoord(), playerPiece.getOriginalYcoord() );
+        } // end if
+        else if ( gameBoardLocationIndex == GameManager.GOAL_ZONE_INDEX )
+        {
+            moveSelectedPieceIntoGoalZoneForPlayerIndex( playerPiece.getPlayerIndex(), playerPiece, goalCount );
+        } // end else if
+        else
+        {
+            Space space = movementPathForPlayerIndex[playerPiece.getPlayerIndex()][gameBoardLocationIndex];
+            playerPiece.setLocation( space.getBoardXcoord(), space.getBoardYcoord() );
+        } // end else
+        playerPiece.setGameBoardLocationIndex( gameBoardLocationIndex );
+    } // end method placePieceSprite
+
+    /**
+     * Opens the replay of the newest game record (the game being played is recorded too, up to its last turn),
+     * or closes the replay and puts the board back the way the game left it. A finished game's win screen is
+     * taken down for the replay and shown again afterwards. A replay can't be opened while a move or battle is
+     * still being shown.
+     */
+    public void toggleReplay()
+    {
+        if ( replayViewer != null )
+        {
+            replayViewer = null;
+            syncPieceSpritesWithGameManager();
+            die.setImage( SpriteRegistry.getDieImage( gameManager.getDieRollValue() ) );
+            hudText.clear( HudText.NOTICE );
+            hudText.clear( HudText.DIE_CAPTION );
+            return;
+        } // end if
+        if ( scheduler.isBusy() )
+        {
+            // a move or battle is still being shown, and its queued steps would be applied on top of the
+            // GameManager's counts that closing the replay copies onto the sprites
+            hudText.show( HudText.NOTICE, "Replays can be watched between moves" );
+            return;
+        } // end if
+
+        GameRecordWriter gameRecordWriter = gameManager.getGameRecordWriter();
+        if ( gameRecordWriter != null )
+        {
+            gameRecordWriter.flush(); // so the replay includes every turn played so far
+        } // end if
+        replayViewer = ReplayViewer.openNewest();
+        if ( replayViewer == null )
+        {
+            hudText.show( HudText.NOTICE, "No game record to replay" );
+            return;
+        } // end if
+
+        takeDownWinScreen(); // `act` puts it back up once the replay is closed
+    } // end method toggleReplay
+
+    /**
+     * Takes down the win screen (the overlay, the reset button and the banner), if it is up, so `act` shows it
+     * again for whatever game the GameManager then holds
+     */
+    private void takeDownWinScreen()
+    {
+        if ( gameOver )
+        {
+            removeObjects( getObjects( Overlay.class ) );
+            removeObject( resetButton );
+            hudText.clear( HudText.BANNER );
+            gameOver = false;
+        } // end if
+    } // end method takeDownWinScreen
+
+    /**
+     * Saves the game to SavedGame.DEFAULT_FILE_NAME. A game can only be saved between turns (while a player
+     * has to roll, or once it is over); in the middle of a turn nothing is saved.
+     *
+     * @param showNotice    true to tell the player whether the game was saved (a save by the "s" key)
+     * @return true if the game was saved
+     */
+    public boolean saveGame( boolean showNotice )
+    {
+        int state = gameManager.getState();
+        if ( state == PLAYER1_MOVE_RED || state == PLAYER2_MOVE_BLUE || scheduler.isBusy() )
+        {
+            if ( showNotice )
+            {
+                hudText.show( HudText.NOTICE, "Games are saved between turns" );
+            } // end if
+            return false;
+        } // end if
+        try
+        {
+            SavedGame.capture( gameManager, isPlayerHuman, cpuPlayerOptionIndex ).write( Paths.get( SavedGame.DEFAULT_FILE_NAME ) );
+        } // end try
+        catch ( IOException exception )
+        {
+            System.err.println( "Could not save the game: " + exception.getMessage() );
+            if ( showNotice )
+            {
+                hudText.show( HudText.NOTICE, "Could not save the game" );
+            } // end if
+            return false;
+        } // end catch
+        if ( showNotice )
+        {
+            hudText.show( HudText.NOTICE, "Game saved" );
+        } // end if
+        return true;
+    } // end method saveGame
+
+    /**
+     * Reads the game saved in SavedGame.DEFAULT_FILE_NAME
+     *
+     * @return the saved game, or null if there is none (or it can't be read)
+     */
+    public SavedGame readSavedGame()
+    {
+        Path savePath = Paths.get( SavedGame.DEFAULT_FILE_NAME );
+        if ( !Files.exists( savePath ) )
+        {
+            return null;
+        } // end if
+        try
+        {
+            return SavedGame.read( savePath );
+        } // end try
+        catch ( IOException exception )
+        {
+            System.err.println( "Could not read the saved game: " + exception.getMessage() );
+            return null;
+        } // end catch
+    } // end method readSavedGame
+
+    /**
+     * Loads a saved game into this board: the GameManager is restored and the existing piece sprites, die and
+     * text are put back to match (no new world or actors are created). Whatever the current turn had queued is
+     * dropped, and a new game record is started from the loaded position.
+     *
+     * @param savedGame     the game to load
+     */
+    public void loadGame( SavedGame savedGame )
+    {
+        try
+        {
+            savedGame.restoreInto( gameManager );
+        } // end try
+        catch ( IllegalArgumentException exception )
+        {
+            System.err.println( "Could not load the saved game: " + exception.getMessage() );
+            hudText.show( HudText.NOTICE, "The saved game is damaged" );
+            return;
+        } // end catch
+
+        scheduler.clear();
+        readyToExitState = false;
+        takeDownWinScreen();
+        for ( int playerIndex = 0; playerIndex < GameManager.NUMBER_OF_PLAYERS; playerIndex++ )
+        {
+            isPlayerHuman[playerIndex] = savedGame.isPlayerHuman( playerIndex );
+        } // end for
+        cpuPlayerOptionIndex = savedGame.getCpuPlayerOptionIndex(); // range-checked by SavedGame.read
+        cpuPlayer = cpuPlayerOptions[cpuPlayerOptionIndex];
+
+        syncPieceSpritesWithGameManager();
+        die.setImage( SpriteRegistry.getDieImage( 0 ) );
+        hudText.clear( HudText.DIE_CAPTION );
+        hudText.clear( HudText.SPACE_NAME );
+        hudText.clear( HudText.BANNER );
+        hudText.clear( HudText.BANNER_DETAIL );
+        hudText.show( HudText.NOTICE, "Game loaded" );
+
+        GameRecordWriter gameRecordWriter = gameManager.getGameRecordWriter();
+        if ( gameRecordWriter != null )
+        {
+            gameRecordWriter.close();
+            gameManager.setGameRecordWriter( null );
+        } // end if
+        if ( !gameManager.isGameOver() )
+        {
+            startRecording();
+        } // end if
+    } // end method loadGame
+
+    /**
+     * Moves the replay on by one act cycle and, if that changed what should be showing, moves the sprites and
+     * shows the turn's die roll and what happened in it
+     */
+    public void showReplay()
+    {
+        if ( !replayViewer.act() )
+        {
+            return;
+        } // end if
+        GameRecord record = replayViewer.getRecord();
+        syncPieceSpritesWithGameRecord( record );
+        die.setImage( SpriteRegistry.getDieImage( record.getLastDieRollValue() ) );
+        hudText.show( HudText.DIE_CAPTION, replayViewer.getCaption() );
+        hudText.show( HudText.NOTICE, record.describeLastTurn() );
+    } // end method showReplay
+
     /**
      * Cycles game mode between various human and cpu controlled players
      */
@@ -1088,6 +1332,15 @@ public class GameBoard extends World
         } // end else if
     } // end method cycleGameMode
     
+    /**
+     * Switches the CPU players to the next kind of CPU (search, Monte Carlo Tree Search, random)
+     */
+    public void cycleCpuPlayer()
+    {
+        cpuPlayerOptionIndex = (cpuPlayerOptionIndex + 1) % cpuPlayerOptions.length;
+        cpuPlayer = cpuPlayerOptions[cpuPlayerOptionIndex];
+    } // end method cycleCpuPlayer
+
     /**
      * Checks to see if the player has clicked on the title screen in order to start the game
      */
@@ -1095,11 +1348,40 @@ public class GameBoard extends World
     {
         if (Greenfoot.mouseClicked(titleScreen))
         {
+            if ( !boardPrepared )
+            {
+                prepareBoard(); // only waits if the AssetLoader hasn't finished yet
+            } // end if
             removeObject(titleScreen);
             gameStarted = true;
-            state = PLAYER1_ROLL_DIE;
-            showText("Current Mode:", die.getX(), HEIGHT - 50);
+            hudText.show(HudText.GAME_MODE_LABEL, "Current Mode:");
             playMusic();
+
+            SavedGame savedGame = readSavedGame();
+            if ( savedGame != null && !savedGame.isGameOver() )
+            {
+                loadGame( savedGame ); // pick up where the last session left off (this starts its recording too)
+            } // end if
+            else
+            {
+                startRecording();
+            } // end else
         } // end if
     } // end method startGame
+
+    /**
+     * Records the game that is starting to a new file in the records folder, so it can be replayed later
+     * (the game is played unrecorded if the file can't be created)
+     */
+    public void startRecording()
+    {
+        try
+        {
+            gameManager.setGameRecordWriter( GameRecordWriter.create( Paths.get( GameRecord.RECORDS_FOLDER ) ) );
+        } // end try
+        catch ( IOException exception )
+        {
+            System.err.println( "Not recording this game: " + exception.getMessage() );
+        } // end catch
+    } // end method startRecording
 } // end class GameBoard
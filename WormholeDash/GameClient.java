@@ -0,0 +1,387 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * A test client for the GameServer that plays over the loopback interface: it opens a number of idle sessions
+ * (connections that never send a command, like players sitting in a lobby) and, while they stay connected, plays
+ * whole matches with random moves -- half of them against a CPU player and half of them human vs human, with the
+ * client in both seats -- timing every move from sending MOVE to receiving its MOVED. At the end every idle
+ * session is pinged, to show the server kept all of them, and the server's own STATS are printed.
+ *
+ * With no host given it starts a GameServer in the same process on a free port, journaling its matches to a
+ * temporary folder that is deleted at the end (so the times include the journal). To test many thousands of idle
+ * sessions, run the server on its own (`java GameServer`) so the client and server don't share one process's
+ * file descriptor limit.
+ *
+ * Run it from the scenario folder with `java GameClient [matches] [idleSessions] [cpuPlayer] [host] [port]`.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public final class GameClient
+{
+    /* FIELDS */
+    private final String host;
+    private final int port;
+    private final SplittableRandom random;
+    private long[] moveNanos = new long[1024];
+    private int moveCount;
+
+    /* CONSTRUCTORS */
+    /**
+     * Initializes a client for a server
+     *
+     * @param host  the server's host name or address
+     * @param port  the server's port
+     * @param seed  the seed of the random moves
+     */
+    public GameClient( String host, int port, long seed )
+    {
+        this.host = host;
+        this.port = port;
+        random = new SplittableRandom( seed );
+    } // end GameClient 3-arg constructor
+
+    /* METHODS */
+    /**
+     * Plays the matches with the idle sessions connected and prints the report
+     *
+     * @param args  optionally the number of matches (default 100), of idle sessions (default 1000), the CPU
+     *              player to play against (default Random), and the server's host and port (default: a server
+     *              started in this process)
+     */
+    public static void main( String[] args ) throws IOException, InterruptedException
+    {
+        int numberOfMatches = ( args.length > 0 ) ? Integer.parseInt( args[0] ) : 100;
+        int numberOfIdleSessions = ( args.length > 1 ) ? Integer.parseInt( args[1] ) : 1000;
+        String cpuPlayerName = ( args.length > 2 ) ? args[2] : "Random";
+
+        GameServer localServer = null;
+        Thread localServerThread = null;
+        Path localJournalFolder = null;
+        String host;
+        int port;
+        if ( args.length > 3 )
+        {
+            host = args[3];
+            port = ( args.length > 4 ) ? Integer.parseInt( args[4] ) : GameServer.DEFAULT_PORT;
+        } // end if
+        else
+        {
+            localJournalFolder = Files.createTempDirectory( "wormholedash-journal" );
+            localServer = new GameServer( 0, Runtime.getRuntime().availableProcessors(), GameServer.DEFAULT_CPU_TIME_BUDGET_NANOS, localJournalFolder );
+            localServerThread = new Thread( localServer, "GameServer loop" );
+            localServerThread.start();
+            host = InetAddress.getLoopbackAddress().getHostAddress();
+            port = localServer.getPort();
+        } // end else
+
+        GameClient client = new GameClient( host, port, System.nanoTime() );
+        List<Socket> idleSessions = client.openIdleSessions( numberOfIdleSessions );
+        System.out.println( idleSessions.size() + " idle sessions connected to " + host + ":" + port );
+
+        long startNanos = System.nanoTime();
+        int[] winsForSeat = new int[GameManager.NUMBER_OF_PLAYERS];
+        for ( int matchIndex = 0; matchIndex < numberOfMatches; matchIndex++ )
+        {
+            int winnerPlayerIndex = ( matchIndex % 2 == 0 ) ? client.playCpuMatch( cpuPlayerName ) : client.playHumanMatch();
+            winsForSeat[winnerPlayerIndex]++;
+        } // end for
+        double seconds = ( System.nanoTime() - startNanos ) / 1e9;
+
+        System.out.println( String.format( Locale.ROOT, "%d matches (%d vs %s, %d human vs human) in %.2f s, red won %d, blue won %d",
+                                           numberOfMatches, ( numberOfMatches + 1 ) / 2, cpuPlayerName, numberOfMatches / 2, seconds,
+                                           winsForSeat[0], winsForSeat[1] ) );
+        System.out.println( client.getMoveLatencyReport() );
+        System.out.println( client.pingIdleSessions( idleSessions ) + " of " + idleSessions.size() + " idle sessions answered PING" );
+        System.out.println( client.getServerStats() );
+
+        for ( Socket socket : idleSessions )
+        {
+            socket.close();
+        } // end for
+        if ( localServer != null )
+        {
+            localServer.close();
+            localServerThread.join();
+            try ( DirectoryStream<Path> segments = Files.newDirectoryStream( localJournalFolder ) )
+            {
+                for ( Path segment : segments )
+                {
+                    Files.delete( segment );
+                } // end for
+            } // end try
+            Files.delete( localJournalFolder );
+        } // end if
+    } // end method main
+
+    /**
+     * Opens connections that send nothing, stopping early (with a message) if the system runs out of sockets
+     *
+     * @param numberOfSessions  how many to open
+     * @return the open connections
+     */
+    public List<Socket> openIdleSessions( int numberOfSessions )
+    {
+        List<Socket> sessions = new ArrayList<>( numberOfSessions );
+        for ( int sessionIndex = 0; sessionIndex < numberOfSessions; sessionIndex++ )
+        {
+            try
+            {
+                sessions.add( new Socket( host, port ) );
+            } // end try
+            catch ( IOException exception )
+            {
+                System.err.println( "Could only open " + sessionIndex + " idle sessions: " + exception.getMessage() );
+                break;
+            } // end catch
+        } // end for
+        return sessions;
+    } // end method openIdleSessions
+
+    /**
+     * Sends PING on every idle session and counts the ones that answer PONG
+     */
+    public int pingIdleSessions( List<Socket> sessions )
+    {
+        byte[] ping = "PING\n".getBytes( StandardCharsets.US_ASCII );
+        byte[] expected = "PONG\n".getBytes( StandardCharsets.US_ASCII );
+        int answered = 0;
+        for ( Socket socket : sessions )
+        {
+            try
+            {
+                socket.getOutputStream().write( ping );
+                byte[] reply = socket.getInputStream().readNBytes( expected.length );
+                answered += Arrays.equals( reply, expected ) ? 1 : 0;
+            } // end try
+            catch ( IOException exception )
+            {
+                // a session that doesn't answer just isn't counted
+            } // end catch
+        } // end for
+        return answered;
+    } // end method pingIdleSessions
+
+    /**
+     * Plays one match as red against a CPU player, picking a random moveable piece every turn
+     *
+     * @param cpuPlayerName     one of GameServer.CPU_PLAYER_NAMES
+     * @return the index of the winning player
+     */
+    public int playCpuMatch( String cpuPlayerName ) throws IOException
+    {
+        try ( Connection red = new Connection( host, port ) )
+        {
+            red.send( "NEW CPU " + cpuPlayerName );
+            expect( red.readLine(), "MATCH" );
+            expect( red.readLine(), "START" );
+            while ( true )
+            {
+                String[] event = red.readLine().split( " " );
+                if ( event[0].equals( "OVER" ) )
+                {
+                    return getWinnerPlayerIndex( event );
+                } // end if
+                if ( event[0].equals( "ROLL" ) && event[1].equals( "1" ) && !event[3].equals( "-" ) )
+                {
+                    long startNanos = System.nanoTime();
+                    red.send( "MOVE " + pickPiece( event[3] ) );
+                    expect( red.readLine(), "MOVED" );
+                    recordMove( System.nanoTime() - startNanos );
+                } // end if
+            } // end while
+        } // end try
+    } // end method playCpuMatch
+
+    /**
+     * Plays one human vs human match with the client in both seats, picking a random moveable piece every turn.
+     * Every event goes to both seats, so each one is read from both connections and checked to be the same.
+     *
+     * @return the index of the winning player
+     */
+    public int playHumanMatch() throws IOException
+    {
+        try ( Connection red = new Connection( host, port ); Connection blue = new Connection( host, port ) )
+        {
+            red.send( "NEW HUMAN" );
+            String[] match = expect( red.readLine(), "MATCH" );
+            blue.send( "JOIN " + match[1] );
+            expect( blue.readLine(), "MATCH" );
+            Connection[] connectionForSeat = { red, blue };
+            long startNanos = 0;
+            while ( true )
+            {
+                String line = red.readLine();
+                if ( !line.equals( blue.readLine() ) )
+                {
+                    throw new IOException( "the two seats were told different things: " + line );
+                } // end if
+                String[] event = line.split( " " );
+                if ( event[0].equals( "OVER" ) )
+                {
+                    return getWinnerPlayerIndex( event );
+                } // end if
+                if ( event[0].equals( "MOVED" ) )
+                {
+                    recordMove( System.nanoTime() - startNanos );
+                } // end if
+                else if ( event[0].equals( "ROLL" ) && !event[3].equals( "-" ) )
+                {
+                    startNanos = System.nanoTime();
+                    connectionForSeat[ Integer.parseInt( event[1] ) - 1 ].send( "MOVE " + pickPiece( event[3] ) );
+                } // end else if
+            } // end while
+        } // end try
+    } // end method playHumanMatch
+
+    /**
+     * Picks one of the pieces a ROLL listed
+     */
+    private String pickPiece( String moveablePieces )
+    {
+        String[] pieces = moveablePieces.split( "," );
+        return pieces[ random.nextInt( pieces.length ) ];
+    } // end method pickPiece
+
+    /**
+     * Checks that a line is the event expected
+     *
+     * @return the line split into words
+     * @throws IOException if it is another event (e.g. an ERROR)
+     */
+    private static String[] expect( String line, String event ) throws IOException
+    {
+        String[] words = line.split( " " );
+        if ( !words[0].equals( event ) )
+        {
+            throw new IOException( "expected " + event + ", got " + line );
+        } // end if
+        return words;
+    } // end method expect
+
+    /**
+     * Reads the winner from an OVER event
+     *
+     * @throws IOException if the server gave up on the match (OVER 0 ERROR)
+     */
+    private static int getWinnerPlayerIndex( String[] event ) throws IOException
+    {
+        int winnerSeat = Integer.parseInt( event[1] );
+        if ( winnerSeat < 1 )
+        {
+            throw new IOException( "the server gave up on the match: " + String.join( " ", event ) );
+        } // end if
+        return winnerSeat - 1;
+    } // end method getWinnerPlayerIndex
+
+    /**
+     * Keeps one move's round trip time
+     */
+    private void recordMove( long nanos )
+    {
+        if ( moveCount == moveNanos.length )
+        {
+            moveNanos = Arrays.copyOf( moveNanos, 2 * moveCount );
+        } // end if
+        moveNanos[moveCount++] = nanos;
+    } // end method recordMove
+
+    /**
+     * Describes the moves' round trip times (MOVE sent to MOVED received)
+     */
+    public String getMoveLatencyReport()
+    {
+        if ( moveCount == 0 )
+        {
+            return "no moves played";
+        } // end if
+        long[] sorted = Arrays.copyOf( moveNanos, moveCount );
+        Arrays.sort( sorted );
+        return String.format( Locale.ROOT, "%d moves, round trip in microseconds: median %.1f, 90%% %.1f, 99%% %.1f, max %.1f",
+                              moveCount, sorted[moveCount / 2] / 1000.0, sorted[(int)( moveCount * 0.9 )] / 1000.0,
+                              sorted[(int)( moveCount * 0.99 )] / 1000.0, sorted[moveCount - 1] / 1000.0 );
+    } // end method getMoveLatencyReport
+
+    /**
+     * Asks the server for its STATS line
+     */
+    public String getServerStats() throws IOException
+    {
+        try ( Connection connection = new Connection( host, port ) )
+        {
+            connection.send( "STATS" );
+            return connection.readLine();
+        } // end try
+    } // end method getServerStats
+
+    /**
+     * One connection to the server, read and written a line at a time
+     */
+    private static final class Connection implements Closeable
+    {
+        private final Socket socket;
+        private final BufferedReader input;
+        private final OutputStream output;
+
+        /**
+         * Connects to the server
+         */
+        Connection( String host, int port ) throws IOException
+        {
+            socket = new Socket( host, port );
+            socket.setTcpNoDelay( true );
+            InputStream inputStream = socket.getInputStream();
+            input = new BufferedReader( new InputStreamReader( inputStream, StandardCharsets.US_ASCII ) );
+            output = socket.getOutputStream();
+        } // end Connection 2-arg constructor
+
+        /**
+         * Sends one command line
+         */
+        void send( String line ) throws IOException
+        {
+            output.write( ( line + "\n" ).getBytes( StandardCharsets.US_ASCII ) );
+            output.flush();
+        } // end method send
+
+        /**
+         * Reads the next line from the server
+         *
+         * @throws IOException if the server closed the connection
+         */
+        String readLine() throws IOException
+        {
+            String line = input.readLine();
+            if ( line == null )
+            {
+                throw new IOException( "the server closed the connection" );
+            } // end if
+            return line;
+        } // end method readLine
+
+        /**
+         * Closes the connection
+         */
+        @Override
+        public void close() throws IOException
+        {
+            socket.close();
+        } // end method close
+    } // end class Connection
+} // end class GameClient
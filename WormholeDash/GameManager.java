@@ -1,30 +1,940 @@
-/**
- * Write a description of class GameManager here.
- * 
- * @author (your name) 
- * @version (a version number or a date)
- */
-public class GameManager  
-{
-    // instance variables - replace the example below with your own
-    private int x;
-
-    /**
-     * Constructor for objects of class GameManager
-     */
-    public GameManager()
-    {
-    }
-
-    /**
-     * An example of a method - replace this comment with your own
-     * 
-     * @param  y   a sample parameter for a method
-     * @return     the sum of x and y 
-     */
-    public int sampleMethod(int y)
-    {
-        // put your code here
-        return x + y;
-    }
-}
+import java.util.Arrays;
+
+/**
+ * The GameManager is the headless rules engine for Wormhole Dash. It owns the complete game state (piece locations,
+ * tiers, goal counts, whose turn it is, etc.) and applies every game rule -- movement die, star rerolls, tier battles and
+ * both win conditions -- without touching Greenfoot at all. That means a full game can be played without a World
+ * (e.g. CPU vs CPU batches for tuning the rules), while the GameBoard acts as a thin view on top of it that only moves
+ * sprites and shows text.
+ *
+ * The rules in force (the pieces, the dice, the stars and the routes) come from the active RuleVariant, whose
+ * compiled tables are copied into the static final fields below when the class loads.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public class GameManager
+{
+    /* PUBLIC CONSTANTS for the board layout */
+    public static final int NUMBER_OF_PLAYERS = 2;
+    public static final int MAX_PIECES_PER_PLAYER = 7;  // the most pieces any rule variant can give a player
+    public static final int NUMBER_OF_SPACES = 20;
+    public static final int PATH_LENGTH = 16;           // path indices 0 to 15 are spaces on the board
+    public static final int START_ZONE_INDEX = -1;      // "location index" of a piece that is still in the starting zone
+    public static final int GOAL_ZONE_INDEX = 16;       // "location index" of a piece that has made it to the goal zone (wormhole)
+    public static final int MAX_PIECE_TIER = 3;
+
+    /* PUBLIC CONSTANTS set by the active rule variant (7 pieces, a 3-sided movement die and 6-sided battle dice in the standard rules) */
+    public static final int NUMBER_OF_PIECES_PER_PLAYER = RuleVariant.ACTIVE.getNumberOfPieces();
+    public static final int MOVEMENT_DIE_SIDES = RuleVariant.ACTIVE.getMovementDieSides();     // the movement die rolls 1 to MOVEMENT_DIE_SIDES
+    public static final int BATTLE_DIE_SIDES = RuleVariant.ACTIVE.getBattleDieSides();
+
+    /* PUBLIC CONSTANTS for keeping track of the game's overall state (the GameBoard uses these same values) */
+    public static final int BOARD_SETUP = 0;
+    public static final int PLAYER1_ROLL_DIE = 1;
+    public static final int PLAYER1_MOVE_RED = 2;
+    public static final int PLAYER2_ROLL_DIE = 3;
+    public static final int PLAYER2_MOVE_BLUE = 4;
+    public static final int PLAYER1_WIN = 5;
+    public static final int PLAYER2_WIN = 6;
+    public static final int PLAYER1_WIN2 = 7;
+    public static final int PLAYER2_WIN2 = 8;
+
+    // the tier of each piece, in the same order the GameBoard lays them out (3 Sputniks, 3 Galileos, 1 Orbiter)
+    private static final int[] PIECE_TIER_FOR_PIECE_INDEX = RuleVariant.ACTIVE.getPieceTiers();
+
+    // which of the 20 board spaces each player's movement path runs through (the GameBoard lays its sprites out from this)
+    private static final int[][] SPACE_INDEX_FOR_PLAYER_INDEX_AND_PATH_INDEX = RuleVariant.ACTIVE.getRoutes();
+
+    // which of the 20 board spaces are stars (reroll spaces)
+    private static final boolean[] IS_REROLL_SPACE_INDEX = RuleVariant.ACTIVE.getStarSpaces();
+
+    /* FIELDS */
+    private BoardState boardState;                  // occupancy, tiers, start/goal counts, state, die roll and reroll flag
+
+    // piece identity isn't part of the packed board state, so it's tracked here for the view and the battle counters
+    private int[][] gameBoardLocationIndex;         // [playerIndex][pieceIndex], -1 = start zone, 16 = goal zone
+    private int[][] pieceIndexAtPathIndex;          // [playerIndex][pathIndex], -1 if that player has no piece there
+    private int[][] targetGameBoardLocationIndex;   // [playerIndex][pieceIndex], only meaningful while the piece is moveable
+    private boolean[][] moveable;                   // [playerIndex][pieceIndex]
+    private int[][] wins;
+    private int[][] losses;
+
+    private boolean moveMade;                       // true once the current player has moved (or has no moves) this roll
+    private boolean instantBattles;                 // if true, a battle is one draw against its exact odds, with no dice to replay
+    private int lastMovedPieceIndex;                // the piece moved this roll, or -1 if none has been
+    private boolean turnRecorded;                   // true once this roll's turn has gone to the game record
+    private GameRecordWriter gameRecordWriter;      // records every finished turn, or null if the game isn't recorded
+
+    private DiceSource diceSource;
+
+    // record of the most recent battle so a view can replay it (the dice are rolled in here, not by the view)
+    private boolean lastMoveWasBattle;
+    private int lastBattleAttackerPlayerIndex;
+    private int lastBattleAttackerPieceIndex;
+    private int lastBattleDefenderPlayerIndex;
+    private int lastBattleDefenderPieceIndex;
+    private int[] lastBattleAttackerRolls;
+    private int[] lastBattleDefenderRolls;
+    private boolean lastBattleWonByAttacker;
+
+    /* CONSTRUCTORS */
+    /**
+     * Initializes a new game whose dice come from a fresh seed (see getDiceSource to find it out)
+     */
+    public GameManager()
+    {
+        this( new SplittableDiceSource() );
+    } // end GameManager no-arg constructor
+
+    /**
+     * Initializes a new game whose dice come from the given seed, so the same seed always plays out the same game
+     *
+     * @param seed  the seed for this game's dice
+     */
+    public GameManager( long seed )
+    {
+        this( new SplittableDiceSource( seed ) );
+    } // end GameManager 1-arg constructor
+
+    /**
+     * Initializes a new game whose dice come from the given source
+     *
+     * @param diceSource    the source of every die roll and random CPU decision in this game
+     */
+    public GameManager( DiceSource diceSource )
+    {
+        this.diceSource = diceSource;
+
+        gameBoardLocationIndex = new int[NUMBER_OF_PLAYERS][NUMBER_OF_PIECES_PER_PLAYER];
+        targetGameBoardLocationIndex = new int[NUMBER_OF_PLAYERS][NUMBER_OF_PIECES_PER_PLAYER];
+        moveable = new boolean[NUMBER_OF_PLAYERS][NUMBER_OF_PIECES_PER_PLAYER];
+        wins = new int[NUMBER_OF_PLAYERS][NUMBER_OF_PIECES_PER_PLAYER];
+        losses = new int[NUMBER_OF_PLAYERS][NUMBER_OF_PIECES_PER_PLAYER];
+
+        pieceIndexAtPathIndex = new int[NUMBER_OF_PLAYERS][PATH_LENGTH];
+
+        lastBattleAttackerRolls = new int[MAX_PIECE_TIER];
+        lastBattleDefenderRolls = new int[MAX_PIECE_TIER];
+
+        newGame();
+    } // end GameManager 1-arg constructor
+
+    /* METHODS */
+    /**
+     * Puts every piece back into its starting zone and gives the first turn to player 1
+     */
+    public void newGame()
+    {
+        for ( int playerIndex = 0; playerIndex < NUMBER_OF_PLAYERS; playerIndex++ )
+        {
+            for ( int pieceIndex = 0; pieceIndex < NUMBER_OF_PIECES_PER_PLAYER; pieceIndex++ )
+            {
+                gameBoardLocationIndex[playerIndex][pieceIndex] = START_ZONE_INDEX;
+                targetGameBoardLocationIndex[playerIndex][pieceIndex] = START_ZONE_INDEX;
+                moveable[playerIndex][pieceIndex] = true;
+                wins[playerIndex][pieceIndex] = 0;
+                losses[playerIndex][pieceIndex] = 0;
+            } // end INNER for
+            for ( int pathIndex = 0; pathIndex < PATH_LENGTH; pathIndex++ )
+            {
+                pieceIndexAtPathIndex[playerIndex][pathIndex] = -1;
+            } // end INNER for
+        } // end OUTER for
+
+        boardState = BoardState.newGame();
+        moveMade = false;
+        lastMovedPieceIndex = -1;
+        lastMoveWasBattle = false;
+    } // end method newGame
+
+    /**
+     * Puts the game back into a position between turns, e.g. from a SavedGame: every piece's location and battle
+     * record, whose roll it is (or who has won) and the star reroll flag. The start and goal zones are rebuilt
+     * from the locations.
+     *
+     * @param state                     a state between turns: PLAYER1_ROLL_DIE, PLAYER2_ROLL_DIE or a win state
+     * @param rerollPending             the star reroll flag
+     * @param gameBoardLocationIndex    every piece's location, [playerIndex][pieceIndex] (-1 = start zone, 16 = goal zone)
+     * @param wins                      every piece's battle wins, [playerIndex][pieceIndex]
+     * @param losses                    every piece's battle losses, [playerIndex][pieceIndex]
+     * @throws IllegalArgumentException if the state isn't between turns, or two pieces share a space (two of a
+     *                                  player's own, or one of each player's on the shared lane); the game is
+     *                                  left as it was
+     */
+    public void restore( int state, boolean rerollPending, int[][] gameBoardLocationIndex, int[][] wins, int[][] losses )
+    {
+        if ( state != PLAYER1_ROLL_DIE && state != PLAYER2_ROLL_DIE && ( state < PLAYER1_WIN || state > PLAYER2_WIN2 ) )
+        {
+            throw new IllegalArgumentException( "a game can only be restored between turns, not in state " + state );
+        } // end if
+
+        // the whole position is checked before anything is changed, so a rejected one leaves this game as it was
+        boolean[] spaceTaken = new boolean[NUMBER_OF_SPACES];
+        for ( int playerIndex = 0; playerIndex < NUMBER_OF_PLAYERS; playerIndex++ )
+        {
+            for ( int pieceIndex = 0; pieceIndex < NUMBER_OF_PIECES_PER_PLAYER; pieceIndex++ )
+            {
+                int locationIndex = gameBoardLocationIndex[playerIndex][pieceIndex];
+                if ( locationIndex < START_ZONE_INDEX || locationIndex > GOAL_ZONE_INDEX )
+                {
+                    throw new IllegalArgumentException( "piece " + pieceIndex + " of player " + ( playerIndex + 1 ) + " has no location " + locationIndex );
+                } // end if
+                if ( locationIndex == START_ZONE_INDEX || locationIndex == GOAL_ZONE_INDEX )
+                {
+                    continue;
+                } // end if
+                int spaceIndex = getSpaceIndexForPlayerIndex( playerIndex, locationIndex );
+                if ( spaceTaken[spaceIndex] )
+                {
+                    // a player's own pieces never share a space, and moving onto an opposing piece always starts a battle
+                    throw new IllegalArgumentException( "two pieces are on space " + spaceIndex );
+                } // end if
+                spaceTaken[spaceIndex] = true;
+            } // end INNER for
+        } // end OUTER for
+
+        newGame();
+        for ( int playerIndex = 0; playerIndex < NUMBER_OF_PLAYERS; playerIndex++ )
+        {
+            for ( int pieceIndex = 0; pieceIndex < NUMBER_OF_PIECES_PER_PLAYER; pieceIndex++ )
+            {
+                int locationIndex = gameBoardLocationIndex[playerIndex][pieceIndex];
+                removePieceFromBoard( playerIndex, pieceIndex ); // out of the starting zone newGame put it in
+                if ( locationIndex == GOAL_ZONE_INDEX )
+                {
+                    this.gameBoardLocationIndex[playerIndex][pieceIndex] = GOAL_ZONE_INDEX;
+                    boardState.addToGoalZone( playerIndex );
+                } // end if
+                else
+                {
+                    placePieceOnBoard( playerIndex, pieceIndex, locationIndex );
+                } // end else
+                this.wins[playerIndex][pieceIndex] = wins[playerIndex][pieceIndex];
+                this.losses[playerIndex][pieceIndex] = losses[playerIndex][pieceIndex];
+            } // end INNER for
+        } // end OUTER for
+
+        boardState.setState( state );
+        boardState.setRerollPending( rerollPending );
+    } // end method restore
+
+    /**
+     * Rolls the movement die for the player whose turn it is, then works out which of their pieces can move
+     *
+     * @return the value rolled (1 to MOVEMENT_DIE_SIDES)
+     */
+    public int rollMovementDie()
+    {
+        return applyMovementDieRoll( diceSource.rollMovementDie() );
+    } // end method rollMovementDie
+
+    /**
+     * Uses the given value as the movement die roll for the player whose turn it is (e.g. when replaying a game),
+     * then works out which of their pieces can move
+     *
+     * @param value     the movement die value (1 to MOVEMENT_DIE_SIDES)
+     * @return the value that was applied
+     */
+    public int applyMovementDieRoll( int value )
+    {
+        int state = boardState.getState();
+        if ( state != PLAYER1_ROLL_DIE && state != PLAYER2_ROLL_DIE )
+        {
+            throw new IllegalStateException( "The die can only be rolled at the start of a turn (state " + state + ")" );
+        } // end if
+
+        boardState.setDieRollValue( value );
+        boardState.setState( ( state == PLAYER1_ROLL_DIE ) ? PLAYER1_MOVE_RED : PLAYER2_MOVE_BLUE );
+        moveMade = false;
+        lastMovedPieceIndex = -1;
+        turnRecorded = false;
+        lastMoveWasBattle = false;
+        determineWhichPiecesAreMoveableForPlayerIndex( getCurrentPlayerIndex() );
+        return value;
+    } // end method applyMovementDieRoll
+
+    /**
+     * Routine for determining which of the given player's pieces are moveable for the current die roll value
+     * (and where each one would end up).
+     *
+     * @param playerIndex   index of the player whose turn is currently active
+     */
+    public void determineWhichPiecesAreMoveableForPlayerIndex( int playerIndex )
+    {
+        int dieRollValue = boardState.getDieRollValue();
+
+        // one table lookup gives every legal source for this roll (see MoveTable for the rules it encodes)
+        int legalSourceMask = MoveTable.getLegalSourceMask( boardState.getOccupancy(), playerIndex, dieRollValue );
+
+        for ( int pieceIndex = 0; pieceIndex < NUMBER_OF_PIECES_PER_PLAYER; pieceIndex++ )
+        {
+            int currentLocationIndex = gameBoardLocationIndex[playerIndex][pieceIndex];
+
+            // pieces in the goal zone have no source bit, so they are never moveable
+            moveable[playerIndex][pieceIndex] = currentLocationIndex != GOAL_ZONE_INDEX
+                                                && ( legalSourceMask & MoveTable.getSourceBit( currentLocationIndex ) ) != 0;
+            if ( moveable[playerIndex][pieceIndex] )
+            {
+                targetGameBoardLocationIndex[playerIndex][pieceIndex] = currentLocationIndex + dieRollValue; // "look ahead" by the die roll value
+            } // end if
+        } // end for
+    } // end method determineWhichPiecesAreMoveableForPlayerIndex
+
+    /**
+     * Returns true if the player whose turn it is has at least one moveable piece for the current die roll
+     */
+    public boolean hasMoveablePiece()
+    {
+        int playerIndex = getCurrentPlayerIndex();
+        for ( int pieceIndex = 0; pieceIndex < NUMBER_OF_PIECES_PER_PLAYER; pieceIndex++ )
+        {
+            if ( moveable[playerIndex][pieceIndex] )
+            {
+                return true;
+            } // end if
+        } // end for
+        return false;
+    } // end method hasMoveablePiece
+
+    /**
+     * Moves the given piece of the player whose turn it is to its target location, fighting a battle first
+     * if an opposing piece is sitting on the target space.
+     *
+     * @param pieceIndex    the index (0 to 6) of the piece to move
+     */
+    public void movePiece( int pieceIndex )
+    {
+        int state = boardState.getState();
+        int playerIndex = getCurrentPlayerIndex();
+        if ( state != PLAYER1_MOVE_RED && state != PLAYER2_MOVE_BLUE || moveMade )
+        {
+            throw new IllegalStateException( "No move is expected right now (state " + state + ")" );
+        } // end if
+        if ( !moveable[playerIndex][pieceIndex] )
+        {
+            throw new IllegalArgumentException( "Piece " + pieceIndex + " of player " + ( playerIndex + 1 ) + " can't move " + boardState.getDieRollValue() );
+        } // end if
+
+        int currentLocationIndex = gameBoardLocationIndex[playerIndex][pieceIndex];
+        int targetLocationIndex = targetGameBoardLocationIndex[playerIndex][pieceIndex];
+
+        // the piece LEAVES its current square (or its starting zone)
+        removePieceFromBoard( playerIndex, pieceIndex );
+
+        moveMade = true;
+        lastMovedPieceIndex = pieceIndex;
+        lastMoveWasBattle = false;
+
+        if ( targetLocationIndex == GOAL_ZONE_INDEX )
+        {
+            gameBoardLocationIndex[playerIndex][pieceIndex] = GOAL_ZONE_INDEX;
+            boardState.addToGoalZone( playerIndex );
+            return;
+        } // end if
+
+        // if the target space is a reroll space, mark for rolling again when the turn is over
+        if ( isRerollSpaceIndex( getSpaceIndexForPlayerIndex( playerIndex, targetLocationIndex ) ) )
+        {
+            boardState.setRerollPending( true );
+        } // end if
+
+        // if the target space is occupied by an OPPOSING piece, the two pieces battle for it
+        int opposingPathIndex = BoardState.mirrorPathIndex( playerIndex, targetLocationIndex );
+        if ( opposingPathIndex >= 0 && pieceIndexAtPathIndex[1 - playerIndex][opposingPathIndex] >= 0 )
+        {
+            int defenderPieceIndex = pieceIndexAtPathIndex[1 - playerIndex][opposingPathIndex];
+            if ( !determineBattleWinner( playerIndex, pieceIndex, defenderPieceIndex ) )
+            {
+                return; // the attacker lost and has already been sent back to its starting zone
+            } // end if
+        } // end if
+
+        placePieceOnBoard( playerIndex, pieceIndex, targetLocationIndex );
+    } // end method movePiece
+
+    /**
+     * Battle logic: each piece rolls a number of battle dice equal to its tier, and the highest single roll wins
+     * (favoring the defending piece in the event of a tie). The loser is sent back to its starting zone and the
+     * win/loss counters are updated. If an Orbiter (tier 3) piece loses, its player loses the game.
+     * With instant battles on, the winner is decided by a single draw against the exact odds instead (see
+     * BattleOdds), which has the same chances but leaves no dice for a view to replay.
+     *
+     * @param attackerPlayerIndex   the index of the player whose piece is attacking
+     * @param attackerPieceIndex    the index of the attacking piece
+     * @param defenderPieceIndex    the index of the defending (opposing) piece
+     * @return true if the attacker won the battle
+     */
+    private boolean determineBattleWinner( int attackerPlayerIndex, int attackerPieceIndex, int defenderPieceIndex )
+    {
+        int defenderPlayerIndex = 1 - attackerPlayerIndex;
+        int attackerRolls = getPieceTier( attackerPieceIndex );
+        int defenderRolls = getPieceTier( defenderPieceIndex );
+
+        boolean attackerWins;
+        if ( instantBattles )
+        {
+            Arrays.fill( lastBattleAttackerRolls, 0 );
+            Arrays.fill( lastBattleDefenderRolls, 0 );
+            attackerWins = diceSource.nextDouble() < BattleOdds.getAttackerWinProbability( attackerRolls, defenderRolls );
+        } // end if
+        else
+        {
+            attackerWins = rollBattleDice( diceSource, attackerRolls, defenderRolls, lastBattleAttackerRolls, lastBattleDefenderRolls );
+        } // end else
+
+        lastMoveWasBattle = true;
+        lastBattleAttackerPlayerIndex = attackerPlayerIndex;
+        lastBattleAttackerPieceIndex = attackerPieceIndex;
+        lastBattleDefenderPlayerIndex = defenderPlayerIndex;
+        lastBattleDefenderPieceIndex = defenderPieceIndex;
+        lastBattleWonByAttacker = attackerWins;
+
+        if ( attackerWins )
+        {
+            removePieceFromBoard( defenderPlayerIndex, defenderPieceIndex );
+            placePieceOnBoard( defenderPlayerIndex, defenderPieceIndex, START_ZONE_INDEX );
+            wins[attackerPlayerIndex][attackerPieceIndex]++;
+            losses[defenderPlayerIndex][defenderPieceIndex]++;
+            checkTier3PieceHasLost( defenderPlayerIndex, defenderPieceIndex );
+        } // end if
+        else
+        {
+            placePieceOnBoard( attackerPlayerIndex, attackerPieceIndex, START_ZONE_INDEX );
+            wins[defenderPlayerIndex][defenderPieceIndex]++;
+            losses[attackerPlayerIndex][attackerPieceIndex]++;
+            checkTier3PieceHasLost( attackerPlayerIndex, attackerPieceIndex );
+        } // end else
+
+        return attackerWins;
+    } // end method determineBattleWinner
+
+    /**
+     * Rolls the dice for a battle: each piece rolls a number of battle dice equal to its tier, and the highest
+     * single roll wins (ties go to the defender)
+     *
+     * @param diceSource        where the rolls come from
+     * @param attackerRolls     how many dice the attacker rolls (its tier)
+     * @param defenderRolls     how many dice the defender rolls (its tier)
+     * @param attackerRollsOut  filled with the attacker's rolls
+     * @param defenderRollsOut  filled with the defender's rolls
+     * @return true if the attacker won
+     */
+    public static boolean rollBattleDice( DiceSource diceSource, int attackerRolls, int defenderRolls, int[] attackerRollsOut, int[] defenderRollsOut )
+    {
+        int attackerHighestRoll = 0;
+        for ( int rollIndex = 0; rollIndex < attackerRolls; rollIndex++ )
+        {
+            attackerRollsOut[rollIndex] = diceSource.rollBattleDie();
+            attackerHighestRoll = Math.max( attackerHighestRoll, attackerRollsOut[rollIndex] );
+        } // end for
+
+        int defenderHighestRoll = 0;
+        for ( int rollIndex = 0; rollIndex < defenderRolls; rollIndex++ )
+        {
+            defenderRollsOut[rollIndex] = diceSource.rollBattleDie();
+            defenderHighestRoll = Math.max( defenderHighestRoll, defenderRollsOut[rollIndex] );
+        } // end for
+
+        return attackerHighestRoll > defenderHighestRoll; // ties go to the defender
+    } // end method rollBattleDice
+
+    /**
+     * Checks to see if the piece that just lost a battle was a tier 3 piece, if so the opposing player wins the game
+     *
+     * @param losingPlayerIndex     the index of the player whose piece lost the battle
+     * @param losingPieceIndex      the index of the piece that lost the battle
+     */
+    private void checkTier3PieceHasLost( int losingPlayerIndex, int losingPieceIndex )
+    {
+        if ( getPieceTier( losingPieceIndex ) == MAX_PIECE_TIER )
+        {
+            boardState.setState( ( losingPlayerIndex == 0 ) ? PLAYER2_WIN2 : PLAYER1_WIN2 );
+        } // end if
+    } // end method checkTier3PieceHasLost
+
+    /**
+     * Updates the game state (and checks for a possible win condition) after the player whose turn it is
+     * has moved a piece, or found that they had no moves. This is where star rerolls and the hand-off
+     * to the other player happen.
+     */
+    public void finishTurn()
+    {
+        if ( isGameOver() )
+        {
+            recordTurn( boardState.getDieRollValue(), boardState.isRerollPending() );
+            return; // an Orbiter was lost during the move, so there is no next turn
+        } // end if
+        int state = boardState.getState();
+        if ( state != PLAYER1_MOVE_RED && state != PLAYER2_MOVE_BLUE )
+        {
+            throw new IllegalStateException( "There is no turn to finish (state " + state + ")" );
+        } // end if
+        if ( !moveMade && hasMoveablePiece() )
+        {
+            throw new IllegalStateException( "Player " + ( getCurrentPlayerIndex() + 1 ) + " still has to move a piece" );
+        } // end if
+
+        int playerIndex = getCurrentPlayerIndex();
+        int dieRollValue = boardState.getDieRollValue();
+        boolean landedOnStar = boardState.isRerollPending();
+        moveMade = false;
+        boardState.finishTurn(); // win check, star reroll or hand-off to the other player
+
+        makeAllPiecesMoveableAgainForPlayerIndex( playerIndex );
+        recordTurn( dieRollValue, landedOnStar );
+    } // end method finishTurn
+
+    /**
+     * Hands the turn just finished to the game record, if the game is being recorded (only once per roll)
+     *
+     * @param dieRollValue  the turn's movement die roll
+     * @param landedOnStar  true if the moved piece landed on a star
+     */
+    private void recordTurn( int dieRollValue, boolean landedOnStar )
+    {
+        if ( gameRecordWriter != null && !turnRecorded )
+        {
+            turnRecorded = true;
+            gameRecordWriter.recordTurn( this, dieRollValue, landedOnStar );
+        } // end if
+    } // end method recordTurn
+
+    /**
+     * Starts recording every turn of this game from the current position, which must be between turns
+     * (or stops recording, given null)
+     *
+     * @param gameRecordWriter  the record to append the turns to, or null
+     */
+    public void setGameRecordWriter( GameRecordWriter gameRecordWriter )
+    {
+        this.gameRecordWriter = gameRecordWriter;
+        if ( gameRecordWriter != null )
+        {
+            gameRecordWriter.recordStart( this );
+        } // end if
+    } // end method setGameRecordWriter
+
+    /**
+     * Getter for the game record being written, or null if the game isn't recorded
+     */
+    public GameRecordWriter getGameRecordWriter()
+    {
+        return gameRecordWriter;
+    } // end method getGameRecordWriter
+
+    /**
+     * "Turns on" (makes moveable) all of the pieces for the given player at the conclusion of that player's turn
+     *
+     * @param playerIndex   the index of the player that is completing their turn
+     */
+    private void makeAllPiecesMoveableAgainForPlayerIndex( int playerIndex )
+    {
+        for ( int pieceIndex = 0; pieceIndex < NUMBER_OF_PIECES_PER_PLAYER; pieceIndex++ )
+        {
+            moveable[playerIndex][pieceIndex] = true;
+        } // end for
+    } // end method makeAllPiecesMoveableAgainForPlayerIndex
+
+    /**
+     * The original CPU "AI": walks the moveable pieces in order and picks each one with a 30% chance,
+     * going around again until one is picked (the GameBoard used to do this once per `act` frame).
+     *
+     * @return the index of the piece the CPU wants to move, or -1 if no piece is moveable
+     */
+    public int selectRandomCpuPieceIndex()
+    {
+        if ( !hasMoveablePiece() )
+        {
+            return -1;
+        } // end if
+
+        int playerIndex = getCurrentPlayerIndex();
+        while ( true )
+        {
+            for ( int pieceIndex = 0; pieceIndex < NUMBER_OF_PIECES_PER_PLAYER; pieceIndex++ )
+            {
+                if ( moveable[playerIndex][pieceIndex] && diceSource.nextInt( 100 ) < 30 )
+                {
+                    return pieceIndex;
+                } // end if
+            } // end for
+        } // end while
+    } // end method selectRandomCpuPieceIndex
+
+    /**
+     * Plays one whole turn (roll, move, hand-off) for the player whose turn it is, using the original random CPU
+     */
+    public void playCpuTurn()
+    {
+        playCpuTurn( null );
+    } // end method playCpuTurn
+
+    /**
+     * Plays one whole turn (roll, move, hand-off) for the player whose turn it is, letting the given CPU player pick the piece
+     *
+     * @param cpuPlayer     the CPU player that picks the piece (null for the original random CPU)
+     */
+    public void playCpuTurn( CpuPlayer cpuPlayer )
+    {
+        rollMovementDie();
+        int pieceIndex = ( cpuPlayer == null ) ? selectRandomCpuPieceIndex() : cpuPlayer.selectPieceIndex( this );
+        if ( pieceIndex >= 0 )
+        {
+            movePiece( pieceIndex );
+        } // end if
+        finishTurn();
+    } // end method playCpuTurn
+
+    /**
+     * Plays a complete CPU vs CPU game from the current position, with no delays and no Greenfoot
+     *
+     * @return the final (win) state of the game, e.g. PLAYER1_WIN or PLAYER2_WIN2
+     */
+    public int playCpuVsCpuGame()
+    {
+        return playCpuVsCpuGame( null, null );
+    } // end method playCpuVsCpuGame
+
+    /**
+     * Plays a complete game between two CPU players from the current position, with no delays and no Greenfoot
+     *
+     * @param redCpuPlayer      the CPU player for player 1 (null for the original random CPU)
+     * @param blueCpuPlayer     the CPU player for player 2 (null for the original random CPU)
+     * @return the final (win) state of the game, e.g. PLAYER1_WIN or PLAYER2_WIN2
+     */
+    public int playCpuVsCpuGame( CpuPlayer redCpuPlayer, CpuPlayer blueCpuPlayer )
+    {
+        while ( !isGameOver() )
+        {
+            playCpuTurn( getCurrentPlayerIndex() == 0 ? redCpuPlayer : blueCpuPlayer );
+        } // end while
+        return boardState.getState();
+    } // end method playCpuVsCpuGame
+
+    /**
+     * Finds which of the given player's pieces is at the given location. A CPU search only knows locations and
+     * tiers, so this turns its choice back into a piece; in the starting zone the lowest-index piece of that tier is used.
+     *
+     * @param playerIndex       the index of the player
+     * @param locationIndex     START_ZONE_INDEX or a path index (0 to 15)
+     * @param tier              the tier of the piece (only needed for the starting zone)
+     * @return the index of the piece, or -1 if there is no such piece
+     */
+    public int getPieceIndexAtLocation( int playerIndex, int locationIndex, int tier )
+    {
+        if ( locationIndex != START_ZONE_INDEX )
+        {
+            return pieceIndexAtPathIndex[playerIndex][locationIndex];
+        } // end if
+        for ( int pieceIndex = 0; pieceIndex < NUMBER_OF_PIECES_PER_PLAYER; pieceIndex++ )
+        {
+            if ( gameBoardLocationIndex[playerIndex][pieceIndex] == START_ZONE_INDEX && getPieceTier( pieceIndex ) == tier )
+            {
+                return pieceIndex;
+            } // end if
+        } // end for
+        return -1;
+    } // end method getPieceIndexAtLocation
+
+    /**
+     * Puts the given piece at the given location (a path index or the starting zone), updating both
+     * the packed board state and the piece identity arrays
+     *
+     * @param playerIndex               the index of the player that owns the piece
+     * @param pieceIndex                the index of the piece
+     * @param locationIndex             the path index (0 to 15) or START_ZONE_INDEX
+     */
+    private void placePieceOnBoard( int playerIndex, int pieceIndex, int locationIndex )
+    {
+        gameBoardLocationIndex[playerIndex][pieceIndex] = locationIndex;
+        if ( locationIndex == START_ZONE_INDEX )
+        {
+            boardState.addToStartZone( playerIndex, getPieceTier( pieceIndex ) );
+        } // end if
+        else
+        {
+            boardState.placePiece( playerIndex, locationIndex, getPieceTier( pieceIndex ) );
+            pieceIndexAtPathIndex[playerIndex][locationIndex] = pieceIndex;
+        } // end else
+    } // end method placePieceOnBoard
+
+    /**
+     * Takes the given piece off its current square (or out of its starting zone) in both the packed board
+     * state and the piece identity arrays
+     *
+     * @param playerIndex   the index of the player that owns the piece
+     * @param pieceIndex    the index of the piece
+     */
+    private void removePieceFromBoard( int playerIndex, int pieceIndex )
+    {
+        int locationIndex = gameBoardLocationIndex[playerIndex][pieceIndex];
+        if ( locationIndex == START_ZONE_INDEX )
+        {
+            boardState.removeFromStartZone( playerIndex, getPieceTier( pieceIndex ) );
+        } // end if
+        else
+        {
+            boardState.removePiece( playerIndex, locationIndex );
+            pieceIndexAtPathIndex[playerIndex][locationIndex] = -1;
+        } // end else
+    } // end method removePieceFromBoard
+
+    /**
+     * Converts a location along a player's movement path into the index of the board space it sits on
+     *
+     * @param playerIndex   the index of the player whose movement path is used
+     * @param pathIndex     the location along the movement path (0 to 15)
+     * @return the index (0 to 19) of the board space
+     */
+    public static int getSpaceIndexForPlayerIndex( int playerIndex, int pathIndex )
+    {
+        return SPACE_INDEX_FOR_PLAYER_INDEX_AND_PATH_INDEX[playerIndex][pathIndex];
+    } // end method getSpaceIndexForPlayerIndex
+
+    /**
+     * Returns true if the board space with the given index is a star (reroll) space
+     *
+     * @param spaceIndex    the index (0 to 19) of the board space
+     */
+    public static boolean isRerollSpaceIndex( int spaceIndex )
+    {
+        return IS_REROLL_SPACE_INDEX[spaceIndex];
+    } // end method isRerollSpaceIndex
+
+    /**
+     * Getter for the tier (1 to 3) of the piece with the given index; both players use the same layout
+     *
+     * @param pieceIndex    the index (0 to 6) of the piece
+     */
+    public static int getPieceTier( int pieceIndex )
+    {
+        return PIECE_TIER_FOR_PIECE_INDEX[pieceIndex];
+    } // end method getPieceTier
+
+    /**
+     * Getter for the source of this game's dice (its seed replays the game's rolls)
+     */
+    public DiceSource getDiceSource()
+    {
+        return diceSource;
+    } // end method getDiceSource
+
+    /**
+     * Returns the index of the player whose turn it currently is (0 = red, 1 = blue)
+     */
+    public int getCurrentPlayerIndex()
+    {
+        return boardState.getCurrentPlayerIndex();
+    } // end method getCurrentPlayerIndex
+
+    /**
+     * Returns true once either player has won
+     */
+    public boolean isGameOver()
+    {
+        return boardState.isGameOver();
+    } // end method isGameOver
+
+    /**
+     * Returns the index of the winning player, or -1 if the game isn't over yet
+     */
+    public int getWinnerPlayerIndex()
+    {
+        int state = boardState.getState();
+        if ( state == PLAYER1_WIN || state == PLAYER1_WIN2 )
+        {
+            return 0;
+        } // end if
+        if ( state == PLAYER2_WIN || state == PLAYER2_WIN2 )
+        {
+            return 1;
+        } // end if
+        return -1;
+    } // end method getWinnerPlayerIndex
+
+    /**
+     * Returns a copy of the packed board state, e.g. for a CPU player to search from
+     */
+    public BoardState getBoardState()
+    {
+        return new BoardState( boardState );
+    } // end method getBoardState
+
+    /**
+     * Getter for the current game state (one of the state constants above)
+     */
+    public int getState()
+    {
+        return boardState.getState();
+    } // end method getState
+
+    /**
+     * Getter for the most recent movement die roll
+     */
+    public int getDieRollValue()
+    {
+        return boardState.getDieRollValue();
+    } // end method getDieRollValue
+
+    /**
+     * Returns true if the current player landed on a star this turn and will roll again
+     */
+    public boolean isStarSpaceRollAgain()
+    {
+        return boardState.isRerollPending();
+    } // end method isStarSpaceRollAgain
+
+    /**
+     * Returns true if the current player has already moved (or has been found to have no moves) for this roll
+     */
+    public boolean isMoveMade()
+    {
+        return moveMade;
+    } // end method isMoveMade
+
+    /**
+     * Getter for a piece's location along its player's movement path (-1 = start zone, 16 = goal zone)
+     */
+    public int getGameBoardLocationIndex( int playerIndex, int pieceIndex )
+    {
+        return gameBoardLocationIndex[playerIndex][pieceIndex];
+    } // end method getGameBoardLocationIndex
+
+    /**
+     * Getter for where a moveable piece would land with the current die roll
+     */
+    public int getTargetGameBoardLocationIndex( int playerIndex, int pieceIndex )
+    {
+        return targetGameBoardLocationIndex[playerIndex][pieceIndex];
+    } // end method getTargetGameBoardLocationIndex
+
+    /**
+     * Returns true if the given piece may be moved with the current die roll
+     */
+    public boolean isMoveable( int playerIndex, int pieceIndex )
+    {
+        return moveable[playerIndex][pieceIndex];
+    } // end method isMoveable
+
+    /**
+     * Getter for how many of the given player's pieces are in the goal zone
+     */
+    public int getGoalCountForPlayerIndex( int playerIndex )
+    {
+        return boardState.getGoalCountForPlayerIndex( playerIndex );
+    } // end method getGoalCountForPlayerIndex
+
+    /**
+     * Getter for a piece's number of battle wins
+     */
+    public int getWins( int playerIndex, int pieceIndex )
+    {
+        return wins[playerIndex][pieceIndex];
+    } // end method getWins
+
+    /**
+     * Getter for a piece's number of battle losses
+     */
+    public int getLosses( int playerIndex, int pieceIndex )
+    {
+        return losses[playerIndex][pieceIndex];
+    } // end method getLosses
+
+    /**
+     * Turns instant battles on or off: when on, each battle is settled by one random draw against its exact odds,
+     * so a view has no dice to replay (handy for CPU vs CPU games and simulations)
+     *
+     * @param instantBattles    true for instant battles, false to roll the battle dice
+     */
+    public void setInstantBattles( boolean instantBattles )
+    {
+        this.instantBattles = instantBattles;
+    } // end method setInstantBattles
+
+    /**
+     * Getter for whether battles are settled instantly (see setInstantBattles)
+     */
+    public boolean isInstantBattles()
+    {
+        return instantBattles;
+    } // end method isInstantBattles
+
+    /**
+     * Returns the piece moved since the last roll, or -1 if none has been (no moves, or not moved yet)
+     */
+    public int getLastMovedPieceIndex()
+    {
+        return lastMovedPieceIndex;
+    } // end method getLastMovedPieceIndex
+
+    /**
+     * Returns true if the most recent move started a battle (the getters below then describe that battle)
+     */
+    public boolean wasLastMoveBattle()
+    {
+        return lastMoveWasBattle;
+    } // end method wasLastMoveBattle
+
+    /**
+     * Getter for the index of the player who attacked in the most recent battle
+     */
+    public int getLastBattleAttackerPlayerIndex()
+    {
+        return lastBattleAttackerPlayerIndex;
+    } // end method getLastBattleAttackerPlayerIndex
+
+    /**
+     * Getter for the index of the piece that attacked in the most recent battle
+     */
+    public int getLastBattleAttackerPieceIndex()
+    {
+        return lastBattleAttackerPieceIndex;
+    } // end method getLastBattleAttackerPieceIndex
+
+    /**
+     * Getter for the index of the player who defended in the most recent battle
+     */
+    public int getLastBattleDefenderPlayerIndex()
+    {
+        return lastBattleDefenderPlayerIndex;
+    } // end method getLastBattleDefenderPlayerIndex
+
+    /**
+     * Getter for the index of the piece that defended in the most recent battle
+     */
+    public int getLastBattleDefenderPieceIndex()
+    {
+        return lastBattleDefenderPieceIndex;
+    } // end method getLastBattleDefenderPieceIndex
+
+    /**
+     * Getter for one of the attacker's dice in the most recent battle (the attacker rolled as many dice as its tier),
+     * or 0 if the battle was instant
+     *
+     * @param rollIndex     which of the attacker's rolls (0 up to its tier - 1)
+     */
+    public int getLastBattleAttackerRoll( int rollIndex )
+    {
+        return lastBattleAttackerRolls[rollIndex];
+    } // end method getLastBattleAttackerRoll
+
+    /**
+     * Getter for one of the defender's dice in the most recent battle (the defender rolled as many dice as its tier),
+     * or 0 if the battle was instant
+     *
+     * @param rollIndex     which of the defender's rolls (0 up to its tier - 1)
+     */
+    public int getLastBattleDefenderRoll( int rollIndex )
+    {
+        return lastBattleDefenderRolls[rollIndex];
+    } // end method getLastBattleDefenderRoll
+
+    /**
+     * Returns true if the attacker won the most recent battle (ties go to the defender)
+     */
+    public boolean wasLastBattleWonByAttacker()
+    {
+        return lastBattleWonByAttacker;
+    } // end method wasLastBattleWonByAttacker
+} // end class GameManager
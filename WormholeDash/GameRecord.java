@@ -0,0 +1,542 @@
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * A recorded game, read back from a file written by the GameRecordWriter, that can be looked at as of any turn.
+ * Every turn is stored as what happened (the roll, the piece that moved, the battle dice and whether it landed on a
+ * star), so a turn is replayed by moving the pieces it names -- the rules never run again and no die is re-rolled,
+ * which is what makes a record trustworthy when a game is disputed.
+ *
+ * Every KEYFRAME_INTERVAL turns the writer also stores a keyframe: the whole position (every piece's location and
+ * battle record). Jumping to a turn starts from the keyframe at or before it and replays at most
+ * KEYFRAME_INTERVAL - 1 turns, so seeking costs the same wherever in the game the turn is.
+ *
+ * File layout (big-endian):
+ *   int     MAGIC
+ *   byte    FORMAT_VERSION
+ *   byte    keyframe interval (K)
+ *   int     the fingerprint of the RuleVariant the game was played under (a record only replays under the same rules)
+ *   long    when the recording started (milliseconds since 1970)
+ *   long    the seed of the game's DiceSource (a game played from it with the recorded moves rolls the same dice,
+ *           if the record starts at the beginning of the game)
+ *   then a stream of records, each starting with a tag byte:
+ *     turn        1 byte: bits 0-1 the die roll - 1, bits 2-4 the moved piece index + 1 (0 = no move), bit 5 a battle
+ *                 follows, bit 6 landed on a star (bit 7 is always 0)
+ *       battle    3 more bytes: bits 0-8 the attacker's dice, bits 9-17 the defender's dice (3 bits per die,
+ *                 0 = not rolled, all 0 for an instant battle), bit 23 the attacker won
+ *     KEYFRAME    the state, then every piece's location, wins and losses (one byte each, player 1 first),
+ *                 written before turn 0 and after every K turns
+ *     END         the final (win) state
+ * A record without an END (the game was abandoned, or is still being written) can still be replayed up to its
+ * last complete turn.
+ *
+ * Run it from the scenario folder with `java GameRecord [recordFile]` to print a record turn by turn (the newest
+ * record in the records folder by default).
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public final class GameRecord
+{
+    /* PUBLIC CONSTANTS */
+    public static final int MAGIC = 0x57444752;   // "WDGR"
+    public static final int FORMAT_VERSION = 3;
+    public static final int HEADER_BYTES = 26;
+    public static final int KEYFRAME_INTERVAL = 32;
+    public static final String RECORDS_FOLDER = "records";
+    public static final String FILE_EXTENSION = ".wdgr";
+
+    public static final int KEYFRAME_TAG = 0x80;
+    public static final int END_TAG = 0x81;
+    public static final int TURN_BATTLE_BIT = 1 << 5;
+    public static final int TURN_STAR_BIT = 1 << 6;
+    public static final int BATTLE_BYTES = 3;
+    public static final int BATTLE_ATTACKER_WON_BIT = 1 << 23;
+    public static final int BITS_PER_BATTLE_DIE = 3;
+    public static final int KEYFRAME_BYTES = 2 + 3 * GameManager.NUMBER_OF_PLAYERS * GameManager.NUMBER_OF_PIECES_PER_PLAYER;
+    public static final int END_BYTES = 2;
+
+    /* FIELDS */
+    private final byte[] bytes;
+    private final int keyframeInterval;
+    private final long startTimeMillis;
+    private final long seed;
+    private final int[] keyframeOffsets;    // where keyframe k (the position before turn k * keyframeInterval) starts
+    private final int turnCount;
+    private final int finalState;           // the win state, or -1 if the record has no END
+
+    // the position the record has been seeked to: before turn `turn` is played
+    private int turn;
+    private int nextRecordOffset;
+    private int state;
+    private final int[][] gameBoardLocationIndex;
+    private final int[][] wins;
+    private final int[][] losses;
+
+    // what happened in the turn just before that position (die roll 0 if it isn't known, e.g. right after a keyframe)
+    private int lastPlayerIndex;
+    private int lastDieRollValue;
+    private int lastMovedPieceIndex;
+    private boolean lastTurnLandedOnStar;
+    private boolean lastTurnWasBattle;
+    private boolean lastBattleWonByAttacker;
+    private int lastBattleDefenderPieceIndex;
+    private final int[] lastBattleAttackerRolls;
+    private final int[] lastBattleDefenderRolls;
+
+    /* CONSTRUCTORS */
+    /**
+     * Initializes a record from its bytes and the index built by read, at turn 0
+     */
+    private GameRecord( byte[] bytes, int keyframeInterval, long startTimeMillis, long seed, int[] keyframeOffsets, int turnCount, int finalState )
+    {
+        this.bytes = bytes;
+        this.keyframeInterval = keyframeInterval;
+        this.startTimeMillis = startTimeMillis;
+        this.seed = seed;
+        this.keyframeOffsets = keyframeOffsets;
+        this.turnCount = turnCount;
+        this.finalState = finalState;
+
+        gameBoardLocationIndex = new int[GameManager.NUMBER_OF_PLAYERS][GameManager.NUMBER_OF_PIECES_PER_PLAYER];
+        wins = new int[GameManager.NUMBER_OF_PLAYERS][GameManager.NUMBER_OF_PIECES_PER_PLAYER];
+        losses = new int[GameManager.NUMBER_OF_PLAYERS][GameManager.NUMBER_OF_PIECES_PER_PLAYER];
+        lastBattleAttackerRolls = new int[GameManager.MAX_PIECE_TIER];
+        lastBattleDefenderRolls = new int[GameManager.MAX_PIECE_TIER];
+        loadKeyframe( 0 );
+    } // end GameRecord 7-arg constructor
+
+    /* METHODS */
+    /**
+     * Prints a record turn by turn
+     *
+     * @param args  optionally the record file (the newest record in RECORDS_FOLDER by default)
+     */
+    public static void main( String[] args ) throws IOException
+    {
+        Path path = ( args.length > 0 ) ? Paths.get( args[0] ) : findNewest( Paths.get( RECORDS_FOLDER ) );
+        if ( path == null )
+        {
+            System.err.println( "No game records in " + RECORDS_FOLDER );
+            return;
+        } // end if
+
+        GameRecord record = read( path );
+        System.out.println( path + ": " + record.getTurnCount() + " turns, " + Files.size( path ) + " bytes, "
+                            + ( record.isFinished() ? "final state " + record.getFinalState() : "unfinished" ) + ", seed " + record.getSeed() );
+        for ( int turn = 1; turn <= record.getTurnCount(); turn++ )
+        {
+            record.seek( turn );
+            System.out.println( "turn " + turn + ": " + record.describeLastTurn() );
+        } // end for
+    } // end method main
+
+    /**
+     * Reads a record file and indexes its keyframes
+     *
+     * @param path  a file written by the GameRecordWriter
+     * @throws IOException if the file can't be read or isn't a game record
+     */
+    public static GameRecord read( Path path ) throws IOException
+    {
+        byte[] bytes = Files.readAllBytes( path );
+        if ( bytes.length < HEADER_BYTES + KEYFRAME_BYTES || readInt( bytes, 0 ) != MAGIC || bytes[4] != FORMAT_VERSION )
+        {
+            throw new IOException( path + " is not a version " + FORMAT_VERSION + " Wormhole Dash game record" );
+        } // end if
+        int keyframeInterval = bytes[5];
+        if ( keyframeInterval < 1 )
+        {
+            throw new IOException( path + " has a bad keyframe interval (" + keyframeInterval + ")" );
+        } // end if
+        int rulesFingerprint = readInt( bytes, 6 );
+        if ( rulesFingerprint != RuleVariant.ACTIVE.getFingerprint() )
+        {
+            throw new IOException( path + " was recorded under other rules than " + RuleVariant.ACTIVE.getName() );
+        } // end if
+        long startTimeMillis = readLong( bytes, 10 );
+        long seed = readLong( bytes, 18 );
+
+        // one pass over the records finds the keyframes and counts the turns
+        int[] keyframeOffsets = new int[16];
+        int keyframeCount = 0;
+        int turnCount = 0;
+        int finalState = -1;
+        int offset = HEADER_BYTES;
+        while ( offset < bytes.length )
+        {
+            int tag = bytes[offset] & 0xFF;
+            int recordBytes = ( tag == KEYFRAME_TAG ) ? KEYFRAME_BYTES
+                              : ( tag == END_TAG ) ? END_BYTES
+                              : 1 + ( ( tag & TURN_BATTLE_BIT ) != 0 ? BATTLE_BYTES : 0 );
+            if ( offset + recordBytes > bytes.length )
+            {
+                break; // the writer was stopped part-way through this record
+            } // end if
+
+            if ( tag == KEYFRAME_TAG )
+            {
+                if ( turnCount != keyframeCount * keyframeInterval )
+                {
+                    throw new IOException( path + " has a keyframe at turn " + turnCount + ", expected turn " + keyframeCount * keyframeInterval );
+                } // end if
+                if ( keyframeCount == keyframeOffsets.length )
+                {
+                    keyframeOffsets = Arrays.copyOf( keyframeOffsets, 2 * keyframeCount );
+                } // end if
+                keyframeOffsets[keyframeCount++] = offset;
+            } // end if
+            else if ( tag == END_TAG )
+            {
+                finalState = bytes[offset + 1];
+                break;
+            } // end else if
+            else if ( tag < KEYFRAME_TAG )
+            {
+                if ( keyframeCount == 0 )
+                {
+                    throw new IOException( path + " has a turn before its first keyframe" );
+                } // end if
+                turnCount++;
+            } // end else if
+            else
+            {
+                throw new IOException( path + " has an unknown record tag " + tag + " at byte " + offset );
+            } // end else
+            offset += recordBytes;
+        } // end while
+
+        if ( keyframeCount == 0 )
+        {
+            throw new IOException( path + " has no keyframes" );
+        } // end if
+        return new GameRecord( bytes, keyframeInterval, startTimeMillis, seed, Arrays.copyOf( keyframeOffsets, keyframeCount ), turnCount, finalState );
+    } // end method read
+
+    /**
+     * Finds the most recently written record in a folder
+     *
+     * @param folder    the folder to look in (usually RECORDS_FOLDER)
+     * @return the newest record file, or null if there are none (or no such folder)
+     */
+    public static Path findNewest( Path folder ) throws IOException
+    {
+        if ( !Files.isDirectory( folder ) )
+        {
+            return null;
+        } // end if
+        Path newestPath = null;
+        try ( DirectoryStream<Path> paths = Files.newDirectoryStream( folder, "*" + FILE_EXTENSION ) )
+        {
+            for ( Path path : paths )
+            {
+                // the file names start with the date and time, so the newest is the last in name order
+                if ( newestPath == null || path.getFileName().toString().compareTo( newestPath.getFileName().toString() ) > 0 )
+                {
+                    newestPath = path;
+                } // end if
+            } // end for
+        } // end try
+        return newestPath;
+    } // end method findNewest
+
+    /**
+     * Moves the record to the position before the given turn is played (turn 0 is the start of the recording,
+     * getTurnCount() the end). Seeking forward by less than a keyframe interval replays the turns in between;
+     * anything else starts again from the keyframe at or before the turn.
+     *
+     * @param targetTurn    0 to getTurnCount()
+     */
+    public void seek( int targetTurn )
+    {
+        if ( targetTurn < 0 || targetTurn > turnCount )
+        {
+            throw new IllegalArgumentException( "a turn must be 0 to " + turnCount + ", got " + targetTurn );
+        } // end if
+        if ( targetTurn < turn || targetTurn - turn >= keyframeInterval )
+        {
+            // the last turn of a game that ends on a keyframe turn has an END instead of a keyframe after it
+            loadKeyframe( Math.min( targetTurn / keyframeInterval, keyframeOffsets.length - 1 ) );
+        } // end if
+        while ( turn < targetTurn )
+        {
+            playNextTurn();
+        } // end while
+    } // end method seek
+
+    /**
+     * Sets the position to keyframe k (before turn k * keyframeInterval)
+     */
+    private void loadKeyframe( int keyframeIndex )
+    {
+        int offset = keyframeOffsets[keyframeIndex] + 1;
+        state = bytes[offset++];
+        for ( int[][] values : new int[][][]{ gameBoardLocationIndex, wins, losses } )
+        {
+            for ( int playerIndex = 0; playerIndex < GameManager.NUMBER_OF_PLAYERS; playerIndex++ )
+            {
+                for ( int pieceIndex = 0; pieceIndex < GameManager.NUMBER_OF_PIECES_PER_PLAYER; pieceIndex++ )
+                {
+                    values[playerIndex][pieceIndex] = bytes[offset++];
+                } // end INNER for
+            } // end MIDDLE for
+        } // end OUTER for
+
+        turn = keyframeIndex * keyframeInterval;
+        nextRecordOffset = offset;
+        lastDieRollValue = 0;
+        lastMovedPieceIndex = -1;
+        lastTurnLandedOnStar = false;
+        lastTurnWasBattle = false;
+    } // end method loadKeyframe
+
+    /**
+     * Replays the next turn from its record: moves the piece it names, and settles its battle as recorded
+     */
+    private void playNextTurn()
+    {
+        int offset = nextRecordOffset;
+        while ( ( bytes[offset] & 0xFF ) == KEYFRAME_TAG )
+        {
+            offset += KEYFRAME_BYTES; // the position already matches it
+        } // end while
+
+        int turnByte = bytes[offset++];
+        int playerIndex = getCurrentPlayerIndex();
+        lastPlayerIndex = playerIndex;
+        lastDieRollValue = ( turnByte & 0x3 ) + 1;
+        lastMovedPieceIndex = ( ( turnByte >> 2 ) & 0x7 ) - 1;
+        lastTurnLandedOnStar = ( turnByte & TURN_STAR_BIT ) != 0;
+        lastTurnWasBattle = ( turnByte & TURN_BATTLE_BIT ) != 0;
+
+        if ( lastMovedPieceIndex >= 0 )
+        {
+            int targetLocationIndex = gameBoardLocationIndex[playerIndex][lastMovedPieceIndex] + lastDieRollValue;
+            gameBoardLocationIndex[playerIndex][lastMovedPieceIndex] = targetLocationIndex;
+            if ( lastTurnWasBattle )
+            {
+                int battle = ( ( bytes[offset] & 0xFF ) << 16 ) | ( ( bytes[offset + 1] & 0xFF ) << 8 ) | ( bytes[offset + 2] & 0xFF );
+                offset += BATTLE_BYTES;
+                playBattle( playerIndex, targetLocationIndex, battle );
+            } // end if
+        } // end if
+        nextRecordOffset = offset;
+        turn++;
+
+        if ( turn == turnCount && finalState >= 0 )
+        {
+            state = finalState;
+        } // end if
+        else if ( !lastTurnLandedOnStar )
+        {
+            state = ( playerIndex == 0 ) ? GameManager.PLAYER2_ROLL_DIE : GameManager.PLAYER1_ROLL_DIE;
+        } // end else if
+    } // end method playNextTurn
+
+    /**
+     * Settles a recorded battle on the given square: the loser goes back to its starting zone and both pieces'
+     * battle records are updated
+     */
+    private void playBattle( int attackerPlayerIndex, int targetLocationIndex, int battle )
+    {
+        int defenderPlayerIndex = 1 - attackerPlayerIndex;
+        int defenderLocationIndex = BoardState.mirrorPathIndex( attackerPlayerIndex, targetLocationIndex );
+        lastBattleDefenderPieceIndex = -1;
+        for ( int pieceIndex = 0; pieceIndex < GameManager.NUMBER_OF_PIECES_PER_PLAYER; pieceIndex++ )
+        {
+            if ( gameBoardLocationIndex[defenderPlayerIndex][pieceIndex] == defenderLocationIndex )
+            {
+                lastBattleDefenderPieceIndex = pieceIndex;
+            } // end if
+        } // end for
+        if ( lastBattleDefenderPieceIndex < 0 )
+        {
+            throw new IllegalStateException( "turn " + ( turn + 1 ) + " records a battle on an empty square" );
+        } // end if
+
+        for ( int rollIndex = 0; rollIndex < GameManager.MAX_PIECE_TIER; rollIndex++ )
+        {
+            lastBattleAttackerRolls[rollIndex] = ( battle >> ( rollIndex * BITS_PER_BATTLE_DIE ) ) & 0x7;
+            lastBattleDefenderRolls[rollIndex] = ( battle >> ( ( GameManager.MAX_PIECE_TIER + rollIndex ) * BITS_PER_BATTLE_DIE ) ) & 0x7;
+        } // end for
+        lastBattleWonByAttacker = ( battle & BATTLE_ATTACKER_WON_BIT ) != 0;
+
+        int attackerPieceIndex = lastMovedPieceIndex;
+        if ( lastBattleWonByAttacker )
+        {
+            gameBoardLocationIndex[defenderPlayerIndex][lastBattleDefenderPieceIndex] = GameManager.START_ZONE_INDEX;
+            wins[attackerPlayerIndex][attackerPieceIndex]++;
+            losses[defenderPlayerIndex][lastBattleDefenderPieceIndex]++;
+        } // end if
+        else
+        {
+            gameBoardLocationIndex[attackerPlayerIndex][attackerPieceIndex] = GameManager.START_ZONE_INDEX;
+            wins[defenderPlayerIndex][lastBattleDefenderPieceIndex]++;
+            losses[attackerPlayerIndex][attackerPieceIndex]++;
+        } // end else
+    } // end method playBattle
+
+    /**
+     * Describes the turn just before the current position, e.g. "Player 1 rolls 2, moves piece 3 and wins a
+     * battle (5 vs 4 2)"
+     */
+    public String describeLastTurn()
+    {
+        if ( lastDieRollValue == 0 )
+        {
+            return "";
+        } // end if
+        StringBuilder description = new StringBuilder( "Player " ).append( lastPlayerIndex + 1 ).append( " rolls " ).append( lastDieRollValue );
+        if ( lastMovedPieceIndex < 0 )
+        {
+            return description.append( ", no moves" ).toString();
+        } // end if
+        description.append( ", moves piece " ).append( lastMovedPieceIndex + 1 );
+        if ( lastTurnWasBattle )
+        {
+            description.append( lastBattleWonByAttacker ? " and wins a battle" : " and loses a battle" );
+            if ( lastBattleAttackerRolls[0] != 0 ) // an instant battle has no dice
+            {
+                description.append( " (" ).append( describeRolls( lastBattleAttackerRolls ) ).append( " vs " ).append( describeRolls( lastBattleDefenderRolls ) ).append( ")" );
+            } // end if
+        } // end if
+        if ( lastTurnLandedOnStar )
+        {
+            description.append( ", lands on a star" );
+        } // end if
+        return description.toString();
+    } // end method describeLastTurn
+
+    /**
+     * Lists the dice that were rolled, e.g. "5 4"
+     */
+    private static String describeRolls( int[] rolls )
+    {
+        StringBuilder description = new StringBuilder();
+        for ( int roll : rolls )
+        {
+            if ( roll != 0 )
+            {
+                description.append( description.length() == 0 ? "" : " " ).append( roll );
+            } // end if
+        } // end for
+        return description.toString();
+    } // end method describeRolls
+
+    /**
+     * Reads a big-endian int
+     */
+    private static int readInt( byte[] bytes, int offset )
+    {
+        return ( ( bytes[offset] & 0xFF ) << 24 ) | ( ( bytes[offset + 1] & 0xFF ) << 16 ) | ( ( bytes[offset + 2] & 0xFF ) << 8 ) | ( bytes[offset + 3] & 0xFF );
+    } // end method readInt
+
+    /**
+     * Reads a big-endian long
+     */
+    private static long readLong( byte[] bytes, int offset )
+    {
+        return ( (long) readInt( bytes, offset ) << 32 ) | ( readInt( bytes, offset + 4 ) & 0xFFFFFFFFL );
+    } // end method readLong
+
+    /**
+     * Returns the index of the player to move at the current position
+     */
+    public int getCurrentPlayerIndex()
+    {
+        return ( state == GameManager.PLAYER2_ROLL_DIE || state == GameManager.PLAYER2_MOVE_BLUE ) ? 1 : 0;
+    } // end method getCurrentPlayerIndex
+
+    /**
+     * Getter for the movement die roll of the turn just before the current position (0 right after a keyframe,
+     * where it isn't known)
+     */
+    public int getLastDieRollValue()
+    {
+        return lastDieRollValue;
+    } // end method getLastDieRollValue
+
+    /**
+     * Getter for the number of turns played at the current position
+     */
+    public int getTurn()
+    {
+        return turn;
+    } // end method getTurn
+
+    /**
+     * Getter for the number of complete turns in the record
+     */
+    public int getTurnCount()
+    {
+        return turnCount;
+    } // end method getTurnCount
+
+    /**
+     * Checks whether the record goes all the way to the end of the game
+     */
+    public boolean isFinished()
+    {
+        return finalState >= 0;
+    } // end method isFinished
+
+    /**
+     * Getter for the game's final (win) state, or -1 if the record is unfinished
+     */
+    public int getFinalState()
+    {
+        return finalState;
+    } // end method getFinalState
+
+    /**
+     * Getter for the game state at the current position (whose roll it is, or who has won)
+     */
+    public int getState()
+    {
+        return state;
+    } // end method getState
+
+    /**
+     * Getter for when the recording started, in milliseconds since 1970
+     */
+    public long getStartTimeMillis()
+    {
+        return startTimeMillis;
+    } // end method getStartTimeMillis
+
+    /**
+     * Getter for the seed of the recorded game's DiceSource
+     */
+    public long getSeed()
+    {
+        return seed;
+    } // end method getSeed
+
+    /**
+     * Getter for a piece's location at the current position (-1 = start zone, 16 = goal zone)
+     */
+    public int getGameBoardLocationIndex( int playerIndex, int pieceIndex )
+    {
+        return gameBoardLocationIndex[playerIndex][pieceIndex];
+    } // end method getGameBoardLocationIndex
+
+    /**
+     * Getter for how many battles a piece has won by the current position
+     */
+    public int getWins( int playerIndex, int pieceIndex )
+    {
+        return wins[playerIndex][pieceIndex];
+    } // end method getWins
+
+    /**
+     * Getter for how many battles a piece has lost by the current position
+     */
+    public int getLosses( int playerIndex, int pieceIndex )
+    {
+        return losses[playerIndex][pieceIndex];
+    } // end method getLosses
+} // end class GameRecord
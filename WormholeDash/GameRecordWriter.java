@@ -0,0 +1,269 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes a game record (see GameRecord for the format) as the game is played: the GameManager hands it every
+ * finished turn, which is appended to a buffered stream straight away, so recording costs a byte or four per turn
+ * and never holds up a move. The stream is flushed at every keyframe and at the end of the game, so even a game
+ * that is abandoned (or a scenario that is closed) leaves a record that can be replayed up to the last keyframe.
+ *
+ * Recording must never break the game it records, so an IOException stops the recording (it is reported once on
+ * System.err and kept for getFailure) instead of being thrown into the GameManager.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public final class GameRecordWriter implements Closeable
+{
+    /* PRIVATE CONSTANTS */
+    private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern( "'game-'yyyyMMdd-HHmmss-SSS" );
+
+    /* FIELDS */
+    private final DataOutputStream output;
+    private final int keyframeInterval;
+    private int turnCount;
+    private boolean started;
+    private boolean finished;
+    private IOException failure;
+
+    /* CONSTRUCTORS */
+    /**
+     * Initializes a writer (the header is written by recordStart, once the game's seed is known)
+     *
+     * @param output            where the record goes (it is buffered here, so it needn't be)
+     * @param keyframeInterval  how many turns apart the keyframes are (1 to 127)
+     */
+    public GameRecordWriter( OutputStream output, int keyframeInterval )
+    {
+        if ( keyframeInterval < 1 || keyframeInterval > Byte.MAX_VALUE )
+        {
+            throw new IllegalArgumentException( "the keyframe interval must be 1 to " + Byte.MAX_VALUE + ", got " + keyframeInterval );
+        } // end if
+        this.output = new DataOutputStream( new BufferedOutputStream( output ) );
+        this.keyframeInterval = keyframeInterval;
+    } // end GameRecordWriter 2-arg constructor
+
+    /* METHODS */
+    /**
+     * Creates a new record file in a folder (creating the folder if needed), named after the current date and time
+     *
+     * @param folder    where to put the record, usually GameRecord.RECORDS_FOLDER
+     * @throws IOException if the file can't be created
+     */
+    public static GameRecordWriter create( Path folder ) throws IOException
+    {
+        Files.createDirectories( folder );
+        Path path = folder.resolve( LocalDateTime.now().format( FILE_NAME_FORMAT ) + GameRecord.FILE_EXTENSION );
+        return new GameRecordWriter( Files.newOutputStream( path ), GameRecord.KEYFRAME_INTERVAL );
+    } // end method create
+
+    /**
+     * Starts the record from the GameManager's current position, which must be between turns: writes the header
+     * (with the rules and the seed of the game's dice) and the first keyframe. The GameManager calls this when the writer is
+     * attached to it.
+     */
+    public void recordStart( GameManager gameManager )
+    {
+        int state = gameManager.getState();
+        if ( state != GameManager.PLAYER1_ROLL_DIE && state != GameManager.PLAYER2_ROLL_DIE )
+        {
+            throw new IllegalStateException( "a record can only start between turns (state " + state + ")" );
+        } // end if
+        if ( started )
+        {
+            throw new IllegalStateException( "this record has already started" );
+        } // end if
+        started = true;
+        try
+        {
+            output.writeInt( GameRecord.MAGIC );
+            output.writeByte( GameRecord.FORMAT_VERSION );
+            output.writeByte( keyframeInterval );
+            output.writeInt( RuleVariant.ACTIVE.getFingerprint() );
+            output.writeLong( System.currentTimeMillis() );
+            output.writeLong( gameManager.getDiceSource().getSeed() );
+        } // end try
+        catch ( IOException exception )
+        {
+            fail( exception );
+            return;
+        } // end catch
+        writeKeyframe( gameManager );
+    } // end method recordStart
+
+    /**
+     * Appends a finished turn (the GameManager calls this after the hand-off to the next player, so it passes
+     * the roll and the star landing, which the hand-off clears). Writes a keyframe every keyframeInterval turns,
+     * and the END once the game is over.
+     *
+     * @param gameManager   the game, with the turn's move (and battle) still available from it
+     * @param dieRollValue  the movement die roll of the turn
+     * @param landedOnStar  true if the moved piece landed on a star
+     */
+    public void recordTurn( GameManager gameManager, int dieRollValue, boolean landedOnStar )
+    {
+        if ( !started || finished || failure != null )
+        {
+            return;
+        } // end if
+
+        int movedPieceIndex = gameManager.getLastMovedPieceIndex();
+        boolean battle = movedPieceIndex >= 0 && gameManager.wasLastMoveBattle();
+        int turnByte = ( dieRollValue - 1 ) | ( ( movedPieceIndex + 1 ) << 2 )
+                       | ( battle ? GameRecord.TURN_BATTLE_BIT : 0 ) | ( landedOnStar ? GameRecord.TURN_STAR_BIT : 0 );
+        try
+        {
+            output.writeByte( turnByte );
+            if ( battle )
+            {
+                int battleBits = gameManager.wasLastBattleWonByAttacker() ? GameRecord.BATTLE_ATTACKER_WON_BIT : 0;
+                // only each piece's tier of dice were rolled (the rest of the last battle's rolls are from older battles)
+                for ( int rollIndex = 0; rollIndex < GameManager.getPieceTier( gameManager.getLastBattleAttackerPieceIndex() ); rollIndex++ )
+                {
+                    battleBits |= gameManager.getLastBattleAttackerRoll( rollIndex ) << ( rollIndex * GameRecord.BITS_PER_BATTLE_DIE );
+                } // end for
+                for ( int rollIndex = 0; rollIndex < GameManager.getPieceTier( gameManager.getLastBattleDefenderPieceIndex() ); rollIndex++ )
+                {
+                    battleBits |= gameManager.getLastBattleDefenderRoll( rollIndex ) << ( ( GameManager.MAX_PIECE_TIER + rollIndex ) * GameRecord.BITS_PER_BATTLE_DIE );
+                } // end for
+                output.writeByte( battleBits >> 16 );
+                output.writeShort( battleBits );
+            } // end if
+        } // end try
+        catch ( IOException exception )
+        {
+            fail( exception );
+            return;
+        } // end catch
+        turnCount++;
+
+        if ( gameManager.isGameOver() )
+        {
+            finished = true;
+            try
+            {
+                output.writeByte( GameRecord.END_TAG );
+                output.writeByte( gameManager.getState() );
+                output.flush();
+            } // end try
+            catch ( IOException exception )
+            {
+                fail( exception );
+            } // end catch
+        } // end if
+        else if ( turnCount % keyframeInterval == 0 )
+        {
+            writeKeyframe( gameManager );
+        } // end else if
+    } // end method recordTurn
+
+    /**
+     * Writes the GameManager's whole position as a keyframe, and flushes everything so far to the file
+     */
+    private void writeKeyframe( GameManager gameManager )
+    {
+        try
+        {
+            output.writeByte( GameRecord.KEYFRAME_TAG );
+            output.writeByte( gameManager.getState() );
+            for ( int playerIndex = 0; playerIndex < GameManager.NUMBER_OF_PLAYERS; playerIndex++ )
+            {
+                for ( int pieceIndex = 0; pieceIndex < GameManager.NUMBER_OF_PIECES_PER_PLAYER; pieceIndex++ )
+                {
+                    output.writeByte( gameManager.getGameBoardLocationIndex( playerIndex, pieceIndex ) );
+                } // end INNER for
+            } // end OUTER for
+            for ( int playerIndex = 0; playerIndex < GameManager.NUMBER_OF_PLAYERS; playerIndex++ )
+            {
+                for ( int pieceIndex = 0; pieceIndex < GameManager.NUMBER_OF_PIECES_PER_PLAYER; pieceIndex++ )
+                {
+                    output.writeByte( Math.min( gameManager.getWins( playerIndex, pieceIndex ), Byte.MAX_VALUE ) );
+                } // end INNER for
+            } // end OUTER for
+            for ( int playerIndex = 0; playerIndex < GameManager.NUMBER_OF_PLAYERS; playerIndex++ )
+            {
+                for ( int pieceIndex = 0; pieceIndex < GameManager.NUMBER_OF_PIECES_PER_PLAYER; pieceIndex++ )
+                {
+                    output.writeByte( Math.min( gameManager.getLosses( playerIndex, pieceIndex ), Byte.MAX_VALUE ) );
+                } // end INNER for
+            } // end OUTER for
+            output.flush();
+        } // end try
+        catch ( IOException exception )
+        {
+            fail( exception );
+        } // end catch
+    } // end method writeKeyframe
+
+    /**
+     * Stops the recording after a write failed
+     */
+    private void fail( IOException exception )
+    {
+        failure = exception;
+        System.err.println( "Stopped recording the game: " + exception.getMessage() );
+    } // end method fail
+
+    /**
+     * Writes out every buffered turn, so the record can be read while the game goes on
+     */
+    public void flush()
+    {
+        if ( failure != null )
+        {
+            return;
+        } // end if
+        try
+        {
+            output.flush();
+        } // end try
+        catch ( IOException exception )
+        {
+            fail( exception );
+        } // end catch
+    } // end method flush
+
+    /**
+     * Writes out every buffered turn and closes the file. A record closed before the game is over has no END,
+     * and is replayed up to its last turn.
+     */
+    @Override
+    public void close()
+    {
+        finished = true;
+        try
+        {
+            output.close();
+        } // end try
+        catch ( IOException exception )
+        {
+            if ( failure == null )
+            {
+                fail( exception );
+            } // end if
+        } // end catch
+    } // end method close
+
+    /**
+     * Getter for the number of turns recorded so far
+     */
+    public int getTurnCount()
+    {
+        return turnCount;
+    } // end method getTurnCount
+
+    /**
+     * Getter for the IOException that stopped the recording, or null if it is still going
+     */
+    public IOException getFailure()
+    {
+        return failure;
+    } // end method getFailure
+} // end class GameRecordWriter
@@ -0,0 +1,1085 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A standalone server that hosts any number of Wormhole Dash matches at once over TCP, human vs human or human vs
+ * CPU, on top of the same GameManager rules as the Greenfoot game.
+ *
+ * Every connection and every match lives on one event loop thread: a Selector wakes it up when a client sends
+ * something, the command is handled straight away (a move is a few microseconds of GameManager work) and the
+ * replies are written without blocking. An idle session costs a socket and a small object, no thread, so one
+ * server holds tens of thousands of them. Only the CPU players think off the loop, on a small pool of worker
+ * threads (each with its own instance of every CPU player, since the searching ones keep per-search state); a
+ * finished CPU move is handed back to the loop, so the game state is only ever touched by one thread.
+ *
+ * Every roll, move, battle and result of a started match is appended to a MatchJournal as it happens. If the
+ * server crashes, starting it again with the same journal folder rebuilds every match that was still being played:
+ * CPU seats carry on by themselves, and the human players take their seats back with REJOIN.
+ *
+ * The protocol is plain text, one command or event per line (ASCII, ending in \n). A client sends:
+ *   NEW CPU [Search|MCTS|Random]   start a match against a CPU player (Search by default), playing red
+ *   NEW HUMAN                      open a match and wait for an opponent, playing red
+ *   JOIN [matchId]                 join an open match (the oldest one by default), playing blue
+ *   REJOIN matchId seat            take back a human seat of a match recovered from the journal after a restart
+ *                                  (answered with MATCH, then BOARD, then the ROLL waiting for a move, if any)
+ *   MOVE pieceIndex                move one of the pieces the last ROLL listed
+ *   BOARD                          ask for the whole position
+ *   LEAVE                          leave the match (the opponent wins by forfeit)
+ *   STATS                          ask for the server's counters
+ *   PING, QUIT
+ * and gets back:
+ *   MATCH matchId seat [WAITING]   the match and seat (1 = red, 2 = blue) it is playing
+ *   START matchId                  both seats are taken; the first ROLL follows
+ *   ROLL seat value pieces         the server rolled for the seat; pieces lists the moveable piece indices
+ *                                  (comma separated, - for none, in which case the turn passes by itself)
+ *   MOVED seat pieceIndex location [BATTLE defenderPieceIndex WON|LOST] [STAR]
+ *   BOARD state redLocations blueLocations   (locations comma separated, -1 = start zone, 16 = goal zone)
+ *   OVER winnerSeat GOAL|ORBITER|FORFEIT
+ *   OVER 0 ERROR                   the server couldn't journal the match, so it gave up on it (a restart brings it
+ *                                  back from its last journaled event, for REJOIN)
+ *   STATS sessions n matches n commands n meanMicros x maxMicros x
+ *   PONG, BYE, ERROR message
+ * Every event of a match goes to both seats, in the same order.
+ *
+ * Run it from the scenario folder with `java GameServer [port] [cpuThreads] [msPerCpuMove] [journalFolder]`, and
+ * try it with GameClient.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public final class GameServer implements Runnable, Closeable
+{
+    /* PUBLIC CONSTANTS */
+    public static final int DEFAULT_PORT = 7478;
+    public static final int MAX_LINE_LENGTH = 256;
+    public static final long DEFAULT_CPU_TIME_BUDGET_NANOS = 50_000_000L;
+    public static final String[] CPU_PLAYER_NAMES = { "Search", "MCTS", "Random" };
+    public static final String DEFAULT_JOURNAL_FOLDER = "journal";
+
+    /* PRIVATE CONSTANTS */
+    private static final int READ_BUFFER_BYTES = 4096;          // one buffer for every read, since only the loop reads
+    private static final int MAX_PENDING_OUTPUT_BYTES = 64 * 1024;  // a client that stops reading is dropped
+    private static final int SEARCH_TABLE_MEGABYTES = 4;
+
+    /* FIELDS */
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final ExecutorService cpuExecutor;
+    private final ThreadLocal<CpuPlayer[]> cpuPlayersForThread;
+    private final MatchJournal journal;     // null when the matches aren't journaled
+    private final Queue<Runnable> loopTasks = new ConcurrentLinkedQueue<>();   // work handed to the loop by the CPU threads
+    private final ByteBuffer readBuffer = ByteBuffer.allocate( READ_BUFFER_BYTES );
+    private final Map<Integer, Match> matches = new HashMap<>();
+    private final Map<Integer, Match> openMatches = new LinkedHashMap<>();   // waiting for a second human, oldest first
+    private final ArrayDeque<Session> sessionsToFlush = new ArrayDeque<>();   // sessions with lines waiting in outgoingLines
+    private int nextMatchId = 1;
+    private int sessionCount;
+    private long commandCount;
+    private long commandNanos;
+    private long maxCommandNanos;
+    private volatile boolean running = true;
+
+    /* CONSTRUCTORS */
+    /**
+     * Initializes a server listening on the given port, without a journal (the loop starts with run)
+     *
+     * @param port                  the TCP port, or 0 for any free one (see getPort)
+     * @param cpuThreads            how many CPU moves are worked out at the same time
+     * @param cpuTimeBudgetNanos    how long the searching CPU players may think per move
+     * @throws IOException if the port can't be opened
+     */
+    public GameServer( int port, int cpuThreads, long cpuTimeBudgetNanos ) throws IOException
+    {
+        this( port, cpuThreads, cpuTimeBudgetNanos, null );
+    } // end GameServer 3-arg constructor
+
+    /**
+     * Initializes a server listening on the given port that journals its matches, first rebuilding every match
+     * the journal holds from the last time (the loop starts with run)
+     *
+     * @param port                  the TCP port, or 0 for any free one (see getPort)
+     * @param cpuThreads            how many CPU moves are worked out at the same time
+     * @param cpuTimeBudgetNanos    how long the searching CPU players may think per move
+     * @param journalFolder         where the match journal is kept, or null for no journal
+     * @throws IOException if the port can't be opened, or the journal can't be read (e.g. it was written under
+     *                     other rules)
+     */
+    public GameServer( int port, int cpuThreads, long cpuTimeBudgetNanos, Path journalFolder ) throws IOException
+    {
+        if ( cpuThreads < 1 )
+        {
+            throw new IllegalArgumentException( "the server needs at least 1 CPU thread, got " + cpuThreads );
+        } // end if
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind( new InetSocketAddress( port ), 1024 );
+        serverChannel.configureBlocking( false );
+        serverChannel.register( selector, SelectionKey.OP_ACCEPT );
+
+        cpuExecutor = Executors.newFixedThreadPool( cpuThreads, runnable ->
+        {
+            Thread thread = new Thread( runnable, "GameServer CPU player" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        cpuPlayersForThread = ThreadLocal.withInitial( () -> new CpuPlayer[]{
+            new ExpectiminimaxCpuPlayer( cpuTimeBudgetNanos, ExpectiminimaxCpuPlayer.DEFAULT_MAX_DEPTH, new TranspositionTable( SEARCH_TABLE_MEGABYTES ) ),
+            new MonteCarloTreeSearchCpuPlayer( cpuTimeBudgetNanos, ForkJoinPool.commonPool(), 1 ),
+            new RandomCpuPlayer() } );
+        new GameManager(); // loads the rules and the engine's tables now rather than during the first client's command
+
+        journal = ( journalFolder == null ) ? null
+                  : new MatchJournal( journalFolder, MatchJournal.DEFAULT_SEGMENT_BYTES, MatchJournal.DEFAULT_COMMIT_INTERVAL_NANOS );
+        if ( journal != null )
+        {
+            recoverMatches();
+        } // end if
+    } // end GameServer 4-arg constructor
+
+    /* METHODS */
+    /**
+     * Rebuilds the matches the journal was still playing, compacts the journal down to them, and gets each one
+     * going again (a CPU player's turn is played, a human's waits for REJOIN)
+     */
+    private void recoverMatches() throws IOException
+    {
+        for ( MatchJournal.RecoveredMatch recoveredMatch : journal.recover().values() )
+        {
+            Match match = new Match( recoveredMatch.getMatchId(), recoveredMatch.getCpuPlayerOptionIndex( 0 ),
+                                     recoveredMatch.getCpuPlayerOptionIndex( 1 ), recoveredMatch.getGameManager() );
+            matches.put( match.id, match );
+        } // end for
+        nextMatchId = journal.getNextMatchId();
+        compactJournal();
+
+        for ( Match match : matches.values().toArray( new Match[0] ) )
+        {
+            int state = match.gameManager.getState();
+            if ( state != GameManager.PLAYER1_MOVE_RED && state != GameManager.PLAYER2_MOVE_BLUE )
+            {
+                playUntilMoveNeeded( match ); // between turns (or just won, if the crash came before the win was journaled)
+            } // end if
+            else if ( match.cpuPlayerOptionIndexForSeat[ match.gameManager.getCurrentPlayerIndex() ] >= 0 )
+            {
+                requestCpuMove( match, match.cpuPlayerOptionIndexForSeat[ match.gameManager.getCurrentPlayerIndex() ] );
+            } // end else if
+        } // end for
+    } // end method recoverMatches
+
+    /**
+     * Compacts the journal: checkpoints every started match into a new segment and deletes the older ones
+     * (a failure is reported and the journal just carries on growing)
+     */
+    private void compactJournal()
+    {
+        try
+        {
+            journal.compact( nextMatchId, compactedJournal ->
+            {
+                for ( Match match : matches.values() )
+                {
+                    if ( !openMatches.containsKey( match.id ) )
+                    {
+                        compactedJournal.appendCheckpoint( match.id, match.cpuPlayerOptionIndexForSeat[0],
+                                                           match.cpuPlayerOptionIndexForSeat[1], match.gameManager );
+                    } // end if
+                } // end for
+            } );
+        } // end try
+        catch ( IOException exception )
+        {
+            System.err.println( "Could not compact the match journal: " + exception.getMessage() );
+        } // end catch
+    } // end method compactJournal
+
+    /**
+     * Starts a server and runs it until the process is stopped
+     *
+     * @param args  optionally the port (default DEFAULT_PORT), the number of CPU threads (default one per core),
+     *              the searching CPU players' time per move in milliseconds (default 50) and the journal folder
+     *              (default DEFAULT_JOURNAL_FOLDER; - for no journal)
+     */
+    public static void main( String[] args ) throws IOException
+    {
+        int port = ( args.length > 0 ) ? Integer.parseInt( args[0] ) : DEFAULT_PORT;
+        int cpuThreads = ( args.length > 1 ) ? Integer.parseInt( args[1] ) : Runtime.getRuntime().availableProcessors();
+        long cpuTimeBudgetNanos = ( args.length > 2 ) ? Long.parseLong( args[2] ) * 1_000_000L : DEFAULT_CPU_TIME_BUDGET_NANOS;
+        String journalFolder = ( args.length > 3 ) ? args[3] : DEFAULT_JOURNAL_FOLDER;
+
+        GameServer server = new GameServer( port, cpuThreads, cpuTimeBudgetNanos, journalFolder.equals( "-" ) ? null : Paths.get( journalFolder ) );
+        System.out.println( "Wormhole Dash server (" + RuleVariant.ACTIVE.getName() + " rules) listening on port " + server.getPort()
+                            + ", " + server.matches.size() + " matches recovered" );
+        server.run();
+    } // end method main
+
+    /**
+     * Getter for the port the server is listening on
+     */
+    public int getPort()
+    {
+        try
+        {
+            return ( (InetSocketAddress) serverChannel.getLocalAddress() ).getPort();
+        } // end try
+        catch ( IOException exception )
+        {
+            throw new IllegalStateException( "the server socket is closed", exception );
+        } // end catch
+    } // end method getPort
+
+    /**
+     * The event loop: waits for connections, commands and finished CPU moves and handles them, until close
+     */
+    @Override
+    public void run()
+    {
+        try
+        {
+            while ( running )
+            {
+                selector.select();
+                Runnable task;
+                while ( ( task = loopTasks.poll() ) != null )
+                {
+                    task.run();
+                } // end while
+                flushSessions();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while ( keys.hasNext() )
+                {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if ( !key.isValid() )
+                    {
+                        continue;
+                    } // end if
+                    if ( key.isAcceptable() )
+                    {
+                        acceptSessions();
+                    } // end if
+                    else
+                    {
+                        Session session = (Session) key.attachment();
+                        if ( key.isWritable() )
+                        {
+                            flush( session );
+                        } // end if
+                        if ( key.isValid() && key.isReadable() )
+                        {
+                            readLines( session );
+                        } // end if
+                    } // end else
+                } // end while
+                flushSessions(); // e.g. the forfeit sent to the opponent of a client that disconnected
+                if ( journal != null && journal.isCompactionDue() )
+                {
+                    compactJournal();
+                } // end if
+            } // end while
+        } // end try
+        catch ( IOException exception )
+        {
+            System.err.println( "The game server stopped: " + exception.getMessage() );
+        } // end catch
+        finally
+        {
+            shutDown();
+        } // end finally
+    } // end method run
+
+    /**
+     * Stops the event loop (from any thread); the loop then closes every connection
+     */
+    @Override
+    public void close()
+    {
+        running = false;
+        selector.wakeup();
+    } // end method close
+
+    /**
+     * Closes every connection, the server socket and the CPU threads, once the loop has stopped
+     */
+    private void shutDown()
+    {
+        for ( SelectionKey key : selector.keys() )
+        {
+            closeQuietly( key.channel() );
+        } // end for
+        closeQuietly( selector );
+        closeQuietly( serverChannel );
+        cpuExecutor.shutdownNow();
+        try
+        {
+            cpuExecutor.awaitTermination( 1, TimeUnit.SECONDS );
+        } // end try
+        catch ( InterruptedException exception )
+        {
+            Thread.currentThread().interrupt();
+        } // end catch
+        if ( journal != null )
+        {
+            journal.close(); // the matches still being played stay in it, for the next start
+        } // end if
+    } // end method shutDown
+
+    /**
+     * Closes a channel or selector, ignoring any error (it is going away either way)
+     */
+    private static void closeQuietly( Closeable closeable )
+    {
+        try
+        {
+            closeable.close();
+        } // end try
+        catch ( IOException exception )
+        {
+            // nothing more to do with it
+        } // end catch
+    } // end method closeQuietly
+
+    /**
+     * Accepts every connection that is waiting, each as a new session
+     */
+    private void acceptSessions() throws IOException
+    {
+        SocketChannel channel;
+        while ( ( channel = serverChannel.accept() ) != null )
+        {
+            channel.configureBlocking( false );
+            channel.setOption( StandardSocketOptions.TCP_NODELAY, true );
+            Session session = new Session( channel );
+            session.key = channel.register( selector, SelectionKey.OP_READ, session );
+            sessionCount++;
+        } // end while
+    } // end method acceptSessions
+
+    /**
+     * Reads whatever a session has sent and handles every complete line in it
+     */
+    private void readLines( Session session )
+    {
+        while ( !session.closed )
+        {
+            readBuffer.clear();
+            int count;
+            try
+            {
+                count = session.channel.read( readBuffer );
+            } // end try
+            catch ( IOException exception )
+            {
+                count = -1;
+            } // end catch
+            if ( count <= 0 )
+            {
+                if ( count < 0 )
+                {
+                    closeSession( session );
+                } // end if
+                return;
+            } // end if
+
+            for ( int byteIndex = 0; byteIndex < count && !session.closed; byteIndex++ )
+            {
+                char character = (char) ( readBuffer.get( byteIndex ) & 0xFF );
+                if ( character == '\n' )
+                {
+                    String line = session.partialLine.toString();
+                    session.partialLine.setLength( 0 );
+                    handleLine( session, line );
+                } // end if
+                else if ( character != '\r' )
+                {
+                    if ( session.partialLine.length() == MAX_LINE_LENGTH )
+                    {
+                        send( session, "ERROR line longer than " + MAX_LINE_LENGTH + " characters" );
+                        closeSession( session );
+                        return;
+                    } // end if
+                    session.partialLine.append( character );
+                } // end else if
+            } // end for
+        } // end while
+    } // end method readLines
+
+    /**
+     * Handles one command line from a session, timing it for STATS
+     */
+    private void handleLine( Session session, String line )
+    {
+        long startNanos = System.nanoTime();
+        String[] words = line.trim().split( "\\s+" );
+        String command = words[0].toUpperCase( Locale.ROOT );
+        try
+        {
+            switch ( command )
+            {
+                case "NEW":
+                    newMatch( session, words );
+                    break;
+                case "JOIN":
+                    joinMatch( session, words );
+                    break;
+                case "REJOIN":
+                    rejoinMatch( session, words );
+                    break;
+                case "MOVE":
+                    movePiece( session, words );
+                    break;
+                case "BOARD":
+                    sendBoard( session );
+                    break;
+                case "LEAVE":
+                    leaveMatch( session );
+                    break;
+                case "STATS":
+                    sendStats( session );
+                    break;
+                case "PING":
+                    send( session, "PONG" );
+                    break;
+                case "QUIT":
+                    send( session, "BYE" );
+                    closeSession( session );
+                    break;
+                case "":
+                    break;
+                default:
+                    send( session, "ERROR unknown command " + words[0] );
+            } // end switch
+        } // end try
+        catch ( IllegalArgumentException | IllegalStateException exception )
+        {
+            send( session, "ERROR " + exception.getMessage() );
+        } // end catch
+        flushSessions();
+        long elapsedNanos = System.nanoTime() - startNanos;
+        commandCount++;
+        commandNanos += elapsedNanos;
+        maxCommandNanos = Math.max( maxCommandNanos, elapsedNanos );
+    } // end method handleLine
+
+    /**
+     * NEW CPU [name] or NEW HUMAN: starts a match with the session as red
+     */
+    private void newMatch( Session session, String[] words )
+    {
+        if ( session.match != null )
+        {
+            throw new IllegalStateException( "already in match " + session.match.id );
+        } // end if
+        if ( words.length < 2 )
+        {
+            throw new IllegalArgumentException( "NEW needs CPU or HUMAN" );
+        } // end if
+
+        Match match;
+        if ( words[1].equalsIgnoreCase( "CPU" ) )
+        {
+            String cpuPlayerName = ( words.length > 2 ) ? words[2] : CPU_PLAYER_NAMES[0];
+            int cpuPlayerOptionIndex = getCpuPlayerOptionIndex( cpuPlayerName );
+            match = new Match( nextMatchId++, -1, cpuPlayerOptionIndex, new GameManager() );
+        } // end if
+        else if ( words[1].equalsIgnoreCase( "HUMAN" ) )
+        {
+            match = new Match( nextMatchId++, -1, -1, new GameManager() );
+        } // end else if
+        else
+        {
+            throw new IllegalArgumentException( "NEW needs CPU or HUMAN, got " + words[1] );
+        } // end else
+        matches.put( match.id, match );
+        seat( session, match, 0 );
+
+        if ( match.cpuPlayerOptionIndexForSeat[1] >= 0 )
+        {
+            send( session, "MATCH " + match.id + " 1" );
+            startMatch( match );
+        } // end if
+        else
+        {
+            openMatches.put( match.id, match );
+            send( session, "MATCH " + match.id + " 1 WAITING" );
+        } // end else
+    } // end method newMatch
+
+    /**
+     * Finds a CPU player by name (case doesn't matter)
+     *
+     * @return its index in CPU_PLAYER_NAMES
+     */
+    private static int getCpuPlayerOptionIndex( String cpuPlayerName )
+    {
+        for ( int optionIndex = 0; optionIndex < CPU_PLAYER_NAMES.length; optionIndex++ )
+        {
+            if ( CPU_PLAYER_NAMES[optionIndex].equalsIgnoreCase( cpuPlayerName ) )
+            {
+                return optionIndex;
+            } // end if
+        } // end for
+        throw new IllegalArgumentException( "unknown CPU player " + cpuPlayerName );
+    } // end method getCpuPlayerOptionIndex
+
+    /**
+     * JOIN [matchId]: takes the blue seat of an open match and starts it
+     */
+    private void joinMatch( Session session, String[] words )
+    {
+        if ( session.match != null )
+        {
+            throw new IllegalStateException( "already in match " + session.match.id );
+        } // end if
+
+        Match match;
+        if ( words.length > 1 )
+        {
+            match = openMatches.remove( parseNumber( words[1], "match id" ) );
+            if ( match == null )
+            {
+                throw new IllegalArgumentException( "no open match " + words[1] );
+            } // end if
+        } // end if
+        else
+        {
+            Iterator<Match> oldestFirst = openMatches.values().iterator();
+            if ( !oldestFirst.hasNext() )
+            {
+                throw new IllegalStateException( "no open matches" );
+            } // end if
+            match = oldestFirst.next();
+            oldestFirst.remove();
+        } // end else
+        seat( session, match, 1 );
+        send( session, "MATCH " + match.id + " 2" );
+        startMatch( match );
+    } // end method joinMatch
+
+    /**
+     * REJOIN matchId seat: takes back the empty human seat of a match recovered from the journal, and tells the
+     * session where the match stands
+     */
+    private void rejoinMatch( Session session, String[] words )
+    {
+        if ( session.match != null )
+        {
+            throw new IllegalStateException( "already in match " + session.match.id );
+        } // end if
+        if ( words.length < 3 )
+        {
+            throw new IllegalArgumentException( "REJOIN needs a match id and a seat" );
+        } // end if
+        Match match = matches.get( parseNumber( words[1], "match id" ) );
+        int playerIndex = parseNumber( words[2], "seat" ) - 1;
+        if ( match == null || openMatches.containsKey( match.id ) )
+        {
+            throw new IllegalArgumentException( "no match " + words[1] + " to rejoin" );
+        } // end if
+        if ( playerIndex < 0 || playerIndex >= GameManager.NUMBER_OF_PLAYERS || match.cpuPlayerOptionIndexForSeat[playerIndex] >= 0
+             || match.sessionForSeat[playerIndex] != null )
+        {
+            throw new IllegalArgumentException( "seat " + words[2] + " of match " + match.id + " isn't free" );
+        } // end if
+
+        seat( session, match, playerIndex );
+        send( session, "MATCH " + match.id + " " + ( playerIndex + 1 ) );
+        sendBoard( session );
+        GameManager gameManager = match.gameManager;
+        int state = gameManager.getState();
+        if ( ( state == GameManager.PLAYER1_MOVE_RED || state == GameManager.PLAYER2_MOVE_BLUE ) && !gameManager.isMoveMade() )
+        {
+            int currentPlayerIndex = gameManager.getCurrentPlayerIndex();
+            send( session, "ROLL " + ( currentPlayerIndex + 1 ) + " " + gameManager.getDieRollValue() + " "
+                           + getMoveablePieces( gameManager, currentPlayerIndex ) );
+        } // end if
+    } // end method rejoinMatch
+
+    /**
+     * Puts a session into a seat of a match
+     */
+    private static void seat( Session session, Match match, int playerIndex )
+    {
+        match.sessionForSeat[playerIndex] = session;
+        session.match = match;
+        session.playerIndex = playerIndex;
+    } // end method seat
+
+    /**
+     * Tells both seats the match has started and plays until the first move is needed
+     */
+    private void startMatch( Match match )
+    {
+        if ( !journalEvent( match, () -> journal.appendStart( match.id, match.cpuPlayerOptionIndexForSeat[0], match.cpuPlayerOptionIndexForSeat[1] ) ) )
+        {
+            return;
+        } // end if
+        broadcast( match, "START " + match.id );
+        playUntilMoveNeeded( match );
+    } // end method startMatch
+
+    /**
+     * Rolls for turn after turn (a turn without a moveable piece passes by itself) until a player has a move to
+     * make, then waits for it: a human's comes in as MOVE, a CPU player's is worked out on a CPU thread
+     */
+    private void playUntilMoveNeeded( Match match )
+    {
+        GameManager gameManager = match.gameManager;
+        while ( !gameManager.isGameOver() )
+        {
+            int playerIndex = gameManager.getCurrentPlayerIndex();
+            int dieRollValue = gameManager.rollMovementDie();
+            if ( !journalEvent( match, () -> journal.appendRoll( match.id, playerIndex, dieRollValue ) ) )
+            {
+                return;
+            } // end if
+            broadcast( match, "ROLL " + ( playerIndex + 1 ) + " " + dieRollValue + " " + getMoveablePieces( gameManager, playerIndex ) );
+            if ( gameManager.hasMoveablePiece() )
+            {
+                if ( match.cpuPlayerOptionIndexForSeat[playerIndex] >= 0 )
+                {
+                    requestCpuMove( match, match.cpuPlayerOptionIndexForSeat[playerIndex] );
+                } // end if
+                return;
+            } // end if
+            gameManager.finishTurn();
+        } // end while
+        endMatch( match, gameManager.getWinnerPlayerIndex(), gameManager.getState() == GameManager.PLAYER1_WIN || gameManager.getState() == GameManager.PLAYER2_WIN ? "GOAL" : "ORBITER" );
+    } // end method playUntilMoveNeeded
+
+    /**
+     * Lists the moveable pieces of the player whose turn it is, comma separated (- for none)
+     */
+    private static String getMoveablePieces( GameManager gameManager, int playerIndex )
+    {
+        StringBuilder pieces = new StringBuilder();
+        for ( int pieceIndex = 0; pieceIndex < GameManager.NUMBER_OF_PIECES_PER_PLAYER; pieceIndex++ )
+        {
+            if ( gameManager.isMoveable( playerIndex, pieceIndex ) )
+            {
+                pieces.append( pieces.length() == 0 ? "" : "," ).append( pieceIndex );
+            } // end if
+        } // end for
+        return ( pieces.length() == 0 ) ? "-" : pieces.toString();
+    } // end method getMoveablePieces
+
+    /**
+     * Has a CPU thread pick the move for the player whose turn it is. The match isn't touched by the loop until the
+     * move comes back (a human's MOVE is refused while it's the CPU player's turn), so the CPU player can read the
+     * GameManager without copying it.
+     */
+    private void requestCpuMove( Match match, int cpuPlayerOptionIndex )
+    {
+        match.cpuThinking = true;
+        cpuExecutor.execute( () ->
+        {
+            int pieceIndex;
+            try
+            {
+                pieceIndex = cpuPlayersForThread.get()[cpuPlayerOptionIndex].selectPieceIndex( match.gameManager );
+            } // end try
+            catch ( RuntimeException exception )
+            {
+                System.err.println( "CPU player failed in match " + match.id + ": " + exception );
+                pieceIndex = match.gameManager.selectRandomCpuPieceIndex();
+            } // end catch
+            int chosenPieceIndex = pieceIndex;
+            loopTasks.add( () -> finishCpuMove( match, chosenPieceIndex ) );
+            selector.wakeup();
+        } );
+    } // end method requestCpuMove
+
+    /**
+     * Plays a CPU player's move on the loop, unless the match ended while it was thinking
+     */
+    private void finishCpuMove( Match match, int pieceIndex )
+    {
+        match.cpuThinking = false;
+        if ( !match.over )
+        {
+            playMove( match, pieceIndex );
+        } // end if
+    } // end method finishCpuMove
+
+    /**
+     * MOVE pieceIndex: plays a human's move
+     */
+    private void movePiece( Session session, String[] words )
+    {
+        Match match = session.match;
+        if ( match == null || match.over )
+        {
+            throw new IllegalStateException( "not in a match" );
+        } // end if
+        GameManager gameManager = match.gameManager;
+        if ( match.cpuThinking || match.sessionForSeat[1] == null && match.cpuPlayerOptionIndexForSeat[1] < 0
+             || gameManager.getCurrentPlayerIndex() != session.playerIndex || gameManager.isMoveMade() )
+        {
+            throw new IllegalStateException( "not your turn" );
+        } // end if
+        if ( words.length < 2 )
+        {
+            throw new IllegalArgumentException( "MOVE needs a piece index" );
+        } // end if
+        int pieceIndex = parseNumber( words[1], "piece index" );
+        if ( pieceIndex < 0 || pieceIndex >= GameManager.NUMBER_OF_PIECES_PER_PLAYER || !gameManager.isMoveable( session.playerIndex, pieceIndex ) )
+        {
+            throw new IllegalArgumentException( "piece " + words[1] + " can't move" );
+        } // end if
+        playMove( match, pieceIndex );
+    } // end method movePiece
+
+    /**
+     * Moves a piece of the player whose turn it is, tells both seats what happened and plays on
+     */
+    private void playMove( Match match, int pieceIndex )
+    {
+        GameManager gameManager = match.gameManager;
+        int playerIndex = gameManager.getCurrentPlayerIndex();
+        gameManager.movePiece( pieceIndex );
+        if ( !journalEvent( match, () -> journal.appendMove( match.id, gameManager ) ) )
+        {
+            return;
+        } // end if
+
+        StringBuilder event = new StringBuilder( "MOVED " ).append( playerIndex + 1 ).append( ' ' ).append( pieceIndex )
+            .append( ' ' ).append( gameManager.getGameBoardLocationIndex( playerIndex, pieceIndex ) );
+        if ( gameManager.wasLastMoveBattle() )
+        {
+            event.append( " BATTLE " ).append( gameManager.getLastBattleDefenderPieceIndex() )
+                 .append( gameManager.wasLastBattleWonByAttacker() ? " WON" : " LOST" );
+        } // end if
+        if ( gameManager.isStarSpaceRollAgain() )
+        {
+            event.append( " STAR" );
+        } // end if
+        broadcast( match, event.toString() );
+
+        gameManager.finishTurn();
+        playUntilMoveNeeded( match );
+    } // end method playMove
+
+    /**
+     * BOARD: sends the whole position of the session's match
+     */
+    private void sendBoard( Session session )
+    {
+        Match match = session.match;
+        if ( match == null )
+        {
+            throw new IllegalStateException( "not in a match" );
+        } // end if
+        StringBuilder board = new StringBuilder( "BOARD " ).append( match.gameManager.getState() );
+        for ( int playerIndex = 0; playerIndex < GameManager.NUMBER_OF_PLAYERS; playerIndex++ )
+        {
+            board.append( ' ' );
+            for ( int pieceIndex = 0; pieceIndex < GameManager.NUMBER_OF_PIECES_PER_PLAYER; pieceIndex++ )
+            {
+                board.append( pieceIndex == 0 ? "" : "," ).append( match.gameManager.getGameBoardLocationIndex( playerIndex, pieceIndex ) );
+            } // end INNER for
+        } // end OUTER for
+        send( session, board.toString() );
+    } // end method sendBoard
+
+    /**
+     * LEAVE: takes the session out of its match, which the opponent wins by forfeit if it was still going
+     */
+    private void leaveMatch( Session session )
+    {
+        Match match = session.match;
+        if ( match == null )
+        {
+            throw new IllegalStateException( "not in a match" );
+        } // end if
+        if ( openMatches.remove( match.id ) != null )
+        {
+            matches.remove( match.id ); // nobody had joined yet, so there is no one to forfeit to
+            match.over = true;
+        } // end if
+        else if ( !match.over )
+        {
+            endMatch( match, 1 - session.playerIndex, "FORFEIT" );
+        } // end else if
+        match.sessionForSeat[session.playerIndex] = null;
+        session.match = null;
+    } // end method leaveMatch
+
+    /**
+     * Journals an event of a match that has just happened in its GameManager. If the journal can't take it (e.g. a
+     * new segment couldn't be created), the match ends there with OVER 0 ERROR instead of playing on past the last
+     * event the journal holds, which is where a restart picks it up again.
+     *
+     * @param match     the match
+     * @param append    appends the event to the journal
+     * @return whether the match can carry on
+     */
+    private boolean journalEvent( Match match, Runnable append )
+    {
+        if ( journal == null )
+        {
+            return true;
+        } // end if
+        try
+        {
+            append.run();
+            return true;
+        } // end try
+        catch ( IllegalStateException exception )
+        {
+            System.err.println( "Could not journal match " + match.id + ", ending it: " + exception.getMessage() );
+            closeMatch( match, "OVER 0 ERROR" );
+            return false;
+        } // end catch
+    } // end method journalEvent
+
+    /**
+     * Ends a match: tells both seats who won, and frees the seats for new matches
+     */
+    private void endMatch( Match match, int winnerPlayerIndex, String reason )
+    {
+        try
+        {
+            if ( journal != null && match.gameManager.isGameOver() )
+            {
+                journal.appendWin( match.id, match.gameManager.getState() );
+            } // end if
+            else if ( journal != null )
+            {
+                journal.appendForfeit( match.id, winnerPlayerIndex );
+            } // end else if
+        } // end try
+        catch ( IllegalStateException exception )
+        {
+            // the match is over all the same (a restart brings it back from its last journaled event)
+            System.err.println( "Could not journal the end of match " + match.id + ": " + exception.getMessage() );
+        } // end catch
+        closeMatch( match, "OVER " + ( winnerPlayerIndex + 1 ) + " " + reason );
+    } // end method endMatch
+
+    /**
+     * Tells both seats a match is over with the given event, and frees the seats for new matches
+     */
+    private void closeMatch( Match match, String overEvent )
+    {
+        match.over = true;
+        broadcast( match, overEvent );
+        matches.remove( match.id );
+        openMatches.remove( match.id );
+        for ( Session session : match.sessionForSeat )
+        {
+            if ( session != null )
+            {
+                session.match = null;
+            } // end if
+        } // end for
+    } // end method closeMatch
+
+    /**
+     * STATS: sends the session, match and command counters
+     */
+    private void sendStats( Session session )
+    {
+        send( session, String.format( Locale.ROOT, "STATS sessions %d matches %d commands %d meanMicros %.2f maxMicros %.2f",
+                                      sessionCount, matches.size(), commandCount,
+                                      commandCount == 0 ? 0.0 : commandNanos / 1000.0 / commandCount, maxCommandNanos / 1000.0 ) );
+    } // end method sendStats
+
+    /**
+     * Parses a whole number argument of a command
+     */
+    private static int parseNumber( String word, String what )
+    {
+        try
+        {
+            return Integer.parseInt( word );
+        } // end try
+        catch ( NumberFormatException exception )
+        {
+            throw new IllegalArgumentException( "bad " + what + " " + word );
+        } // end catch
+    } // end method parseNumber
+
+    /**
+     * Sends a line to both seats of a match (a CPU seat or an empty one is skipped)
+     */
+    private void broadcast( Match match, String line )
+    {
+        for ( Session session : match.sessionForSeat )
+        {
+            if ( session != null )
+            {
+                send( session, line );
+            } // end if
+        } // end for
+    } // end method broadcast
+
+    /**
+     * Sends a line to a session. The lines a command produces are collected and written together once it has been
+     * handled (see flushSessions), so e.g. a MOVED and the ROLL after it go out in one packet.
+     */
+    private void send( Session session, String line )
+    {
+        if ( session.closed )
+        {
+            return;
+        } // end if
+        if ( session.outgoingLines.length() == 0 )
+        {
+            sessionsToFlush.add( session );
+        } // end if
+        session.outgoingLines.append( line ).append( '\n' );
+    } // end method send
+
+    /**
+     * Writes the lines collected by send to every session that has some: straight away if the socket takes them,
+     * otherwise queued until the selector says the socket can take more. A client whose queue grows past
+     * MAX_PENDING_OUTPUT_BYTES has stopped reading and is dropped.
+     */
+    private void flushSessions()
+    {
+        Session session;
+        while ( ( session = sessionsToFlush.poll() ) != null )
+        {
+            if ( session.closed )
+            {
+                continue;
+            } // end if
+            ByteBuffer bytes = ByteBuffer.wrap( session.outgoingLines.toString().getBytes( StandardCharsets.US_ASCII ) );
+            session.outgoingLines.setLength( 0 );
+            session.pendingOutput.add( bytes );
+            session.pendingOutputBytes += bytes.remaining();
+            flush( session );
+            if ( session.pendingOutputBytes > MAX_PENDING_OUTPUT_BYTES )
+            {
+                closeSession( session );
+            } // end if
+        } // end while
+    } // end method flushSessions
+
+    /**
+     * Writes as much of a session's queued output as the socket takes, and asks the selector to say when it can
+     * take the rest
+     */
+    private void flush( Session session )
+    {
+        try
+        {
+            while ( !session.pendingOutput.isEmpty() )
+            {
+                ByteBuffer bytes = session.pendingOutput.peek();
+                session.pendingOutputBytes -= session.channel.write( bytes );
+                if ( bytes.hasRemaining() )
+                {
+                    session.key.interestOps( SelectionKey.OP_READ | SelectionKey.OP_WRITE ); // the socket is full
+                    return;
+                } // end if
+                session.pendingOutput.poll();
+            } // end while
+            session.key.interestOps( SelectionKey.OP_READ );
+        } // end try
+        catch ( IOException exception )
+        {
+            closeSession( session );
+        } // end catch
+    } // end method flush
+
+    /**
+     * Closes a session's connection; a match it was playing is lost by forfeit
+     */
+    private void closeSession( Session session )
+    {
+        if ( session.closed )
+        {
+            return;
+        } // end if
+        session.closed = true;
+        sessionCount--;
+        if ( session.outgoingLines.length() > 0 )
+        {
+            // a last try at e.g. BYE or the ERROR that caused the close (a failure now just closes it as planned)
+            session.pendingOutput.add( ByteBuffer.wrap( session.outgoingLines.toString().getBytes( StandardCharsets.US_ASCII ) ) );
+            session.outgoingLines.setLength( 0 );
+            flush( session );
+        } // end if
+        session.key.cancel();
+        closeQuietly( session.channel );
+        if ( session.match != null )
+        {
+            leaveMatch( session );
+        } // end if
+    } // end method closeSession
+
+    /**
+     * One client connection, only ever used by the loop thread
+     */
+    private static final class Session
+    {
+        final SocketChannel channel;
+        SelectionKey key;
+        final StringBuilder partialLine = new StringBuilder();
+        final StringBuilder outgoingLines = new StringBuilder();
+        final ArrayDeque<ByteBuffer> pendingOutput = new ArrayDeque<>( 0 );
+        int pendingOutputBytes;
+        Match match;
+        int playerIndex;
+        boolean closed;
+
+        /**
+         * Initializes a session for a newly accepted connection
+         */
+        Session( SocketChannel channel )
+        {
+            this.channel = channel;
+        } // end Session 1-arg constructor
+    } // end class Session
+
+    /**
+     * One match: its game and who sits in each seat (a human seat is empty after a restart until REJOIN)
+     */
+    private static final class Match
+    {
+        final int id;
+        final GameManager gameManager;
+        final Session[] sessionForSeat = new Session[GameManager.NUMBER_OF_PLAYERS];
+        final int[] cpuPlayerOptionIndexForSeat;    // -1 for a human seat
+        boolean cpuThinking;
+        boolean over;
+
+        /**
+         * Initializes a match
+         *
+         * @param id                            the match id
+         * @param redCpuPlayerOptionIndex       red's CPU player (an index into CPU_PLAYER_NAMES), or -1 for a human
+         * @param blueCpuPlayerOptionIndex      blue's CPU player, or -1 for a human
+         * @param gameManager                   the match's game (a new one, or one rebuilt from the journal)
+         */
+        Match( int id, int redCpuPlayerOptionIndex, int blueCpuPlayerOptionIndex, GameManager gameManager )
+        {
+            this.id = id;
+            cpuPlayerOptionIndexForSeat = new int[]{ redCpuPlayerOptionIndex, blueCpuPlayerOptionIndex };
+            this.gameManager = gameManager;
+        } // end Match 4-arg constructor
+    } // end class Match
+} // end class GameServer
@@ -0,0 +1,105 @@
+import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
+import java.util.Arrays;
+
+/**
+ * Owns the GameBoard's on-screen text: a fixed set of slots (the die caption, the game mode, the space name,
+ * the battle banner and notices), each at its own spot on the screen. `World.showText` renders a new
+ * text image every time it is called, so a slot remembers what it is showing and only calls it when the text
+ * actually changes. Waiting for a click, the GameBoard shows the same (precomputed) strings every frame, which
+ * then costs nothing.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public class HudText
+{
+    /* PUBLIC CONSTANTS */
+    public static final int DIE_CAPTION = 0;        // under the die: rolls, prompts and who moves next
+    public static final int GAME_MODE_LABEL = 1;    // "Current Mode:"
+    public static final int GAME_MODE = 2;          // e.g. "Human vs CPU (Search)"
+    public static final int SPACE_NAME = 3;         // top right: the planet or star a piece just landed on
+    public static final int BANNER = 4;             // middle of the screen: battles and the winner
+    public static final int BANNER_DETAIL = 5;      // just under the banner: the battle odds
+    public static final int NOTICE = 6;             // top middle: the turn a replay is showing, or e.g. "Game saved"
+    public static final int NUMBER_OF_SLOTS = 7;
+
+    /* FIELDS */
+    private World world;
+    private int[] xCoordForSlot;
+    private int[] yCoordForSlot;
+    private String[] textShownInSlot;   // null if unknown (something else may have drawn over it)
+
+    /* CONSTRUCTORS */
+    /**
+     * Initializes the slots for a world (every slot starts out empty, at 0, 0 until it's placed)
+     *
+     * @param world     the world the text is shown in
+     */
+    public HudText( World world )
+    {
+        this.world = world;
+        xCoordForSlot = new int[NUMBER_OF_SLOTS];
+        yCoordForSlot = new int[NUMBER_OF_SLOTS];
+        textShownInSlot = new String[NUMBER_OF_SLOTS];
+        Arrays.fill( textShownInSlot, "" );
+    } // end HudText 1-arg constructor
+
+    /* METHODS */
+    /**
+     * Sets where on the screen a slot's text is centered
+     *
+     * @param slot      one of the slot constants
+     * @param xCoord    the X-coordinate of the center of the text
+     * @param yCoord    the Y-coordinate of the center of the text
+     */
+    public void placeSlot( int slot, int xCoord, int yCoord )
+    {
+        xCoordForSlot[slot] = xCoord;
+        yCoordForSlot[slot] = yCoord;
+    } // end method placeSlot
+
+    /**
+     * Shows text in a slot, replacing what was there. Does nothing if the slot already shows this text.
+     *
+     * @param slot  one of the slot constants
+     * @param text  the text to show ("" to clear the slot)
+     */
+    public void show( int slot, String text )
+    {
+        String textShown = textShownInSlot[slot];
+        if ( text == textShown || text.equals( textShown ) ) // the precomputed strings are usually the very same object
+        {
+            return;
+        } // end if
+        world.showText( text, xCoordForSlot[slot], yCoordForSlot[slot] );
+        textShownInSlot[slot] = text;
+    } // end method show
+
+    /**
+     * Clears a slot
+     *
+     * @param slot  one of the slot constants
+     */
+    public void clear( int slot )
+    {
+        show( slot, "" );
+    } // end method clear
+
+    /**
+     * Forgets what any slot at the given spot is showing, after something else (like a Button's info screen)
+     * drew text there, so the slot's next text is always shown
+     *
+     * @param xCoord    the X-coordinate the other text was centered at
+     * @param yCoord    the Y-coordinate the other text was centered at
+     */
+    public void forgetTextAt( int xCoord, int yCoord )
+    {
+        for ( int slot = 0; slot < NUMBER_OF_SLOTS; slot++ )
+        {
+            if ( xCoordForSlot[slot] == xCoord && yCoordForSlot[slot] == yCoord )
+            {
+                textShownInSlot[slot] = null;
+            } // end if
+        } // end for
+    } // end method forgetTextAt
+} // end class HudText
@@ -0,0 +1,801 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * An append-only journal of every match a GameServer is playing, so a crashed server can rebuild its matches
+ * when it starts again. Every event that changes a match (a roll, a move, a battle's dice, a star reroll, a win
+ * or a forfeit) is appended as one fixed-size record to a memory-mapped segment file. An append is a few stores
+ * into the mapping -- no system call and no lock -- so journaling costs the event loop almost nothing.
+ *
+ * Group commit: a background thread forces whatever was appended since its last pass to the disk every
+ * commit interval, so one msync makes a whole batch of events from any number of matches durable. A process
+ * crash loses nothing at all (the mapped pages belong to the operating system, which writes them out anyway);
+ * only an operating system crash or power cut can lose the last commit interval of events.
+ *
+ * Replay runs the rules again: rolls are applied with GameManager.applyMovementDieRoll, and a move that led to a
+ * battle is replayed with a dice source that hands back the battle dice that were journaled, so every rebuilt
+ * GameManager is exactly the one that was lost. A torn record at the end of a segment (the checksum doesn't
+ * match) ends the replay of that segment.
+ *
+ * Compaction: once half a segment of records has been appended since the last compaction, the server writes a
+ * checkpoint of every match still being played (its whole position, in 8 records) starting at a fresh segment, and
+ * every segment from before it is deleted. Finished matches simply disappear, and the journal never grows much past
+ * one segment (or twice the checkpoints, with so many matches being played that they fill more than one).
+ *
+ * Segment file layout (big-endian), named segment-<sequence>.wdj:
+ *   int     MAGIC
+ *   int     FORMAT_VERSION
+ *   int     the fingerprint of the RuleVariant the matches are played under
+ *   int     the next match id when the segment was started
+ *   long    sequence number
+ *   long    unused
+ *   then RECORD_BYTES records, each:
+ *     int     match id
+ *     long    record type (top byte), then up to 7 bytes of data (see the append methods)
+ *     int     checksum of the two fields before it
+ *   and zeros after the last one.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public final class MatchJournal implements Closeable
+{
+    /* PUBLIC CONSTANTS */
+    public static final int MAGIC = 0x57444D4A;   // "WDMJ"
+    public static final int FORMAT_VERSION = 1;
+    public static final int HEADER_BYTES = 32;
+    public static final int RECORD_BYTES = 16;
+    public static final int DEFAULT_SEGMENT_BYTES = 16 * 1024 * 1024;
+    public static final long DEFAULT_COMMIT_INTERVAL_NANOS = 5_000_000L;
+    public static final String FILE_EXTENSION = ".wdj";
+
+    /* PRIVATE CONSTANTS for the record types */
+    private static final int START = 1;             // a match started (or a checkpoint begins): red and blue CPU player + 1 (0 = human)
+    private static final int ROLL = 2;              // player index, die roll
+    private static final int MOVE = 3;              // player index, piece index
+    private static final int BATTLE = 4;            // won (bit 0) and instant (bit 1), then the attacker's and defender's dice
+    private static final int REROLL = 5;            // player index (the star landing of the move before it)
+    private static final int WIN = 6;               // the win state
+    private static final int FORFEIT = 7;           // the winner's player index
+    private static final int CHECKPOINT_LOCATIONS = 8;      // + player index: every piece's location
+    private static final int CHECKPOINT_WINS = 10;          // + player index: every piece's battle wins
+    private static final int CHECKPOINT_LOSSES = 12;        // + player index: every piece's battle losses
+    private static final int CHECKPOINT_STATE = 14;         // state, star reroll pending, die roll (0 between turns), instant battles
+
+    /* FIELDS */
+    private final Path folder;
+    private final int segmentBytes;
+    private final Thread committer;
+    private volatile boolean open = true;
+    private volatile Segment segment;       // the segment being appended to (only the event loop appends)
+    private final List<Segment> olderSegments = new ArrayList<>();
+    private long lastSequence;
+    private int nextMatchId = 1;
+    private long bytesSinceCompaction;      // appended since the last compaction's checkpoints, in any segment
+    private long checkpointBytes;           // how much the last compaction's checkpoints took
+
+    /* CONSTRUCTORS */
+    /**
+     * Opens the journal in a folder (creating it if needed) and starts the commit thread. Call recover before
+     * appending anything.
+     *
+     * @param folder                where the segment files are kept
+     * @param segmentBytes          how big each segment file is
+     * @param commitIntervalNanos   how often appended records are forced to the disk
+     * @throws IOException if the folder can't be created
+     */
+    public MatchJournal( Path folder, int segmentBytes, long commitIntervalNanos ) throws IOException
+    {
+        if ( segmentBytes < HEADER_BYTES + 64 * RECORD_BYTES || segmentBytes % RECORD_BYTES != 0 )
+        {
+            throw new IllegalArgumentException( "a segment must be a multiple of " + RECORD_BYTES + " bytes and hold at least 64 records, got " + segmentBytes );
+        } // end if
+        if ( commitIntervalNanos <= 0 )
+        {
+            throw new IllegalArgumentException( "the commit interval must be positive, got " + commitIntervalNanos );
+        } // end if
+        Files.createDirectories( folder );
+        this.folder = folder;
+        this.segmentBytes = segmentBytes;
+
+        committer = new Thread( () ->
+        {
+            while ( open )
+            {
+                LockSupport.parkNanos( commitIntervalNanos );
+                commit();
+            } // end while
+        }, "MatchJournal committer" );
+        committer.setDaemon( true );
+        committer.start();
+    } // end MatchJournal 3-arg constructor
+
+    /* METHODS */
+    /**
+     * Replays every segment in the folder and starts a new segment to append to. The old segments stay until the
+     * first compaction, which the caller should run straight away to checkpoint the matches rebuilt here.
+     *
+     * @return every match that was still being played, by match id
+     * @throws IOException if a segment can't be read or was written under other rules
+     */
+    public Map<Integer, RecoveredMatch> recover() throws IOException
+    {
+        if ( segment != null )
+        {
+            throw new IllegalStateException( "the journal has already been recovered" );
+        } // end if
+        TreeMap<Long, Path> segmentFiles = new TreeMap<>();
+        try ( DirectoryStream<Path> files = Files.newDirectoryStream( folder, "segment-*" + FILE_EXTENSION ) )
+        {
+            for ( Path file : files )
+            {
+                String name = file.getFileName().toString();
+                segmentFiles.put( Long.parseLong( name.substring( "segment-".length(), name.length() - FILE_EXTENSION.length() ) ), file );
+            } // end for
+        } // end try
+
+        Map<Integer, RecoveredMatch> matches = new TreeMap<>();
+        for ( Map.Entry<Long, Path> segmentFile : segmentFiles.entrySet() )
+        {
+            replaySegment( segmentFile.getValue(), matches );
+            olderSegments.add( new Segment( segmentFile.getKey(), segmentFile.getValue(), null ) );
+            lastSequence = segmentFile.getKey();
+        } // end for
+        for ( RecoveredMatch match : matches.values() )
+        {
+            match.playPendingMove();
+            nextMatchId = Math.max( nextMatchId, match.matchId + 1 );
+        } // end for
+
+        startSegment();
+        return matches;
+    } // end method recover
+
+    /**
+     * Replays one segment file's records into the matches
+     */
+    private void replaySegment( Path path, Map<Integer, RecoveredMatch> matches ) throws IOException
+    {
+        try ( FileChannel channel = FileChannel.open( path, StandardOpenOption.READ ) )
+        {
+            MappedByteBuffer bytes = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+            if ( bytes.limit() < HEADER_BYTES || bytes.getInt( 0 ) != MAGIC || bytes.getInt( 4 ) != FORMAT_VERSION )
+            {
+                throw new IOException( path + " is not a version " + FORMAT_VERSION + " Wormhole Dash match journal" );
+            } // end if
+            if ( bytes.getInt( 8 ) != RuleVariant.ACTIVE.getFingerprint() )
+            {
+                throw new IOException( path + " was written under other rules than " + RuleVariant.ACTIVE.getName() );
+            } // end if
+            nextMatchId = Math.max( nextMatchId, bytes.getInt( 12 ) );
+
+            for ( int offset = HEADER_BYTES; offset + RECORD_BYTES <= bytes.limit(); offset += RECORD_BYTES )
+            {
+                int matchId = bytes.getInt( offset );
+                long typeAndData = bytes.getLong( offset + 4 );
+                if ( typeAndData == 0 || bytes.getInt( offset + 12 ) != getChecksum( matchId, typeAndData ) )
+                {
+                    return; // the end of what was appended (or a record torn by a crash)
+                } // end if
+                replayRecord( matchId, (int)( typeAndData >>> 56 ), typeAndData, matches );
+            } // end for
+        } // end try
+    } // end method replaySegment
+
+    /**
+     * Replays one record. A match whose records don't fit the rules (which would take a damaged journal) is
+     * dropped with a message, and the rest carry on.
+     */
+    private static void replayRecord( int matchId, int type, long data, Map<Integer, RecoveredMatch> matches )
+    {
+        if ( type == START )
+        {
+            matches.put( matchId, new RecoveredMatch( matchId, getByte( data, 0 ) - 1, getByte( data, 1 ) - 1 ) );
+            return;
+        } // end if
+        RecoveredMatch match = matches.get( matchId );
+        if ( match == null )
+        {
+            return; // a match that had already finished (or whose start was compacted away with it)
+        } // end if
+
+        try
+        {
+            if ( type == BATTLE )
+            {
+                match.scriptBattle( data );
+                match.playPendingMove();
+                return;
+            } // end if
+            match.playPendingMove();
+            switch ( type )
+            {
+                case ROLL:
+                    match.playRoll( getByte( data, 0 ), getByte( data, 1 ) );
+                    break;
+                case MOVE:
+                    match.pendingMovePieceIndex = getByte( data, 1 );
+                    break;
+                case REROLL:
+                    break; // the rules give the reroll again when the move is replayed
+                case WIN:
+                case FORFEIT:
+                    matches.remove( matchId );
+                    break;
+                case CHECKPOINT_STATE:
+                    match.gameManager.setInstantBattles( getByte( data, 3 ) != 0 );
+                    match.restoreCheckpoint( getByte( data, 0 ), getByte( data, 1 ) != 0, getByte( data, 2 ) );
+                    break;
+                default:
+                    if ( type >= CHECKPOINT_LOCATIONS && type < CHECKPOINT_STATE )
+                    {
+                        int[][][] values = { match.checkpointLocations, match.checkpointWins, match.checkpointLosses };
+                        int[] valuesForPlayer = values[ ( type - CHECKPOINT_LOCATIONS ) / 2 ][ ( type - CHECKPOINT_LOCATIONS ) % 2 ];
+                        for ( int pieceIndex = 0; pieceIndex < GameManager.NUMBER_OF_PIECES_PER_PLAYER; pieceIndex++ )
+                        {
+                            valuesForPlayer[pieceIndex] = (byte) getByte( data, pieceIndex );
+                        } // end for
+                    } // end if
+            } // end switch
+        } // end try
+        catch ( IllegalArgumentException | IllegalStateException exception )
+        {
+            System.err.println( "Could not replay match " + matchId + " from the journal, dropping it: " + exception.getMessage() );
+            matches.remove( matchId );
+        } // end catch
+    } // end method replayRecord
+
+    /**
+     * Gets one of the 7 data bytes of a record (0 to 255)
+     */
+    private static int getByte( long data, int byteIndex )
+    {
+        return (int)( data >>> ( 8 * byteIndex ) ) & 0xFF;
+    } // end method getByte
+
+    /**
+     * Mixes a record's fields into its checksum (any torn or stale record is all but sure to fail it)
+     */
+    private static int getChecksum( int matchId, long typeAndData )
+    {
+        long hash = ( typeAndData ^ ( (long) matchId << 17 ) ) * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 29;
+        hash *= 0xBF58476D1CE4E5B9L;
+        return (int)( hash ^ ( hash >>> 32 ) );
+    } // end method getChecksum
+
+    /**
+     * Maps a new segment file to append to (the one before it is committed first, and kept)
+     */
+    private void startSegment() throws IOException
+    {
+        lastSequence++;
+        Path path = folder.resolve( String.format( "segment-%012d%s", lastSequence, FILE_EXTENSION ) );
+        MappedByteBuffer bytes;
+        try ( FileChannel channel = FileChannel.open( path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE ) )
+        {
+            bytes = channel.map( FileChannel.MapMode.READ_WRITE, 0, segmentBytes ); // the mapping stays valid after the channel closes
+        } // end try
+        bytes.putInt( 0, MAGIC ).putInt( 4, FORMAT_VERSION ).putInt( 8, RuleVariant.ACTIVE.getFingerprint() )
+             .putInt( 12, nextMatchId ).putLong( 16, lastSequence );
+        bytes.force( 0, HEADER_BYTES );
+
+        Segment newSegment = new Segment( lastSequence, path, bytes );
+        newSegment.appendedBytes = HEADER_BYTES;
+        newSegment.committedBytes = HEADER_BYTES;
+        synchronized ( this )
+        {
+            if ( segment != null )
+            {
+                commit();
+                olderSegments.add( segment );
+            } // end if
+            segment = newSegment;
+        } // end synchronized
+    } // end method startSegment
+
+    /**
+     * Moves on to a new segment if the current one hasn't room for the given number of records, so that records
+     * which belong together are never split across a failed segment start
+     *
+     * @throws IllegalStateException if the new segment can't be created (nothing has been appended then)
+     */
+    private void makeRoom( int numberOfRecords )
+    {
+        if ( segment.appendedBytes + numberOfRecords * RECORD_BYTES > segmentBytes )
+        {
+            try
+            {
+                startSegment();
+            } // end try
+            catch ( IOException exception )
+            {
+                throw new IllegalStateException( "could not start a new journal segment: " + exception.getMessage(), exception );
+            } // end catch
+        } // end if
+    } // end method makeRoom
+
+    /**
+     * Appends one record to the current segment, moving on to a new segment if it is full
+     */
+    private void append( int matchId, int type, long data )
+    {
+        makeRoom( 1 );
+        Segment current = segment;
+        long typeAndData = ( (long) type << 56 ) | data;
+        int offset = current.appendedBytes;
+        current.bytes.putInt( offset, matchId ).putLong( offset + 4, typeAndData ).putInt( offset + 12, getChecksum( matchId, typeAndData ) );
+        current.appendedBytes = offset + RECORD_BYTES;
+        bytesSinceCompaction += RECORD_BYTES;
+    } // end method append
+
+    /**
+     * Journals the start of a match
+     *
+     * @param matchId                   the match
+     * @param redCpuPlayerOptionIndex   red's CPU player (an index into GameServer.CPU_PLAYER_NAMES), or -1 for a human
+     * @param blueCpuPlayerOptionIndex  blue's CPU player, or -1 for a human
+     */
+    public void appendStart( int matchId, int redCpuPlayerOptionIndex, int blueCpuPlayerOptionIndex )
+    {
+        append( matchId, START, ( redCpuPlayerOptionIndex + 1 ) | ( ( blueCpuPlayerOptionIndex + 1 ) << 8 ) );
+        nextMatchId = Math.max( nextMatchId, matchId + 1 );
+    } // end method appendStart
+
+    /**
+     * Journals a movement die roll (a roll without a moveable piece ends the turn, as the server does)
+     */
+    public void appendRoll( int matchId, int playerIndex, int dieRollValue )
+    {
+        append( matchId, ROLL, playerIndex | ( dieRollValue << 8 ) );
+    } // end method appendRoll
+
+    /**
+     * Journals a move, just after GameManager.movePiece: the move itself, then its battle and star landing if
+     * there were any (all of them or, if a new segment can't be created, none)
+     *
+     * @param matchId       the match
+     * @param gameManager   the match's game, right after the move
+     * @throws IllegalStateException if the journal can't take the move
+     */
+    public void appendMove( int matchId, GameManager gameManager )
+    {
+        int playerIndex = gameManager.getCurrentPlayerIndex();
+        makeRoom( 1 + ( gameManager.wasLastMoveBattle() ? 1 : 0 ) + ( gameManager.isStarSpaceRollAgain() ? 1 : 0 ) );
+        append( matchId, MOVE, playerIndex | ( gameManager.getLastMovedPieceIndex() << 8 ) );
+        if ( gameManager.wasLastMoveBattle() )
+        {
+            long data = ( gameManager.wasLastBattleWonByAttacker() ? 1 : 0 ) | ( gameManager.isInstantBattles() ? 2 : 0 );
+            if ( !gameManager.isInstantBattles() )
+            {
+                // only each piece's tier of dice were rolled (the rest of the last battle's rolls are from older battles)
+                for ( int rollIndex = 0; rollIndex < GameManager.getPieceTier( gameManager.getLastBattleAttackerPieceIndex() ); rollIndex++ )
+                {
+                    data |= (long) gameManager.getLastBattleAttackerRoll( rollIndex ) << ( 8 * ( 1 + rollIndex ) );
+                } // end for
+                for ( int rollIndex = 0; rollIndex < GameManager.getPieceTier( gameManager.getLastBattleDefenderPieceIndex() ); rollIndex++ )
+                {
+                    data |= (long) gameManager.getLastBattleDefenderRoll( rollIndex ) << ( 8 * ( 1 + GameManager.MAX_PIECE_TIER + rollIndex ) );
+                } // end for
+            } // end if
+            append( matchId, BATTLE, data );
+        } // end if
+        if ( gameManager.isStarSpaceRollAgain() )
+        {
+            append( matchId, REROLL, playerIndex );
+        } // end if
+    } // end method appendMove
+
+    /**
+     * Journals the end of a match that was won on the board
+     *
+     * @param winState  PLAYER1_WIN, PLAYER2_WIN, PLAYER1_WIN2 or PLAYER2_WIN2
+     */
+    public void appendWin( int matchId, int winState )
+    {
+        append( matchId, WIN, winState );
+    } // end method appendWin
+
+    /**
+     * Journals the end of a match that a player left
+     */
+    public void appendForfeit( int matchId, int winnerPlayerIndex )
+    {
+        append( matchId, FORFEIT, winnerPlayerIndex );
+    } // end method appendForfeit
+
+    /**
+     * Journals a match's whole position, so the records before it aren't needed (see compact)
+     *
+     * @param matchId                   the match
+     * @param redCpuPlayerOptionIndex   red's CPU player, or -1 for a human
+     * @param blueCpuPlayerOptionIndex  blue's CPU player, or -1 for a human
+     * @param gameManager               the match's game, between turns or waiting for a move
+     */
+    public void appendCheckpoint( int matchId, int redCpuPlayerOptionIndex, int blueCpuPlayerOptionIndex, GameManager gameManager )
+    {
+        appendStart( matchId, redCpuPlayerOptionIndex, blueCpuPlayerOptionIndex );
+        for ( int playerIndex = 0; playerIndex < GameManager.NUMBER_OF_PLAYERS; playerIndex++ )
+        {
+            long locations = 0;
+            long wins = 0;
+            long losses = 0;
+            for ( int pieceIndex = 0; pieceIndex < GameManager.NUMBER_OF_PIECES_PER_PLAYER; pieceIndex++ )
+            {
+                locations |= (long)( gameManager.getGameBoardLocationIndex( playerIndex, pieceIndex ) & 0xFF ) << ( 8 * pieceIndex );
+                wins |= (long) Math.min( gameManager.getWins( playerIndex, pieceIndex ), Byte.MAX_VALUE ) << ( 8 * pieceIndex );
+                losses |= (long) Math.min( gameManager.getLosses( playerIndex, pieceIndex ), Byte.MAX_VALUE ) << ( 8 * pieceIndex );
+            } // end for
+            append( matchId, CHECKPOINT_LOCATIONS + playerIndex, locations );
+            append( matchId, CHECKPOINT_WINS + playerIndex, wins );
+            append( matchId, CHECKPOINT_LOSSES + playerIndex, losses );
+        } // end for
+        append( matchId, CHECKPOINT_STATE, gameManager.getState() | ( gameManager.isStarSpaceRollAgain() ? 1 << 8 : 0 )
+                                           | ( gameManager.getDieRollValue() << 16 ) | ( gameManager.isInstantBattles() ? 1 << 24 : 0 ) );
+    } // end method appendCheckpoint
+
+    /**
+     * Returns true once half a segment of records has been appended since the last compaction's checkpoints (and
+     * at least as much as those checkpoints took, so a compaction always frees more than it writes)
+     */
+    public boolean isCompactionDue()
+    {
+        return bytesSinceCompaction > Math.max( ( segmentBytes - HEADER_BYTES ) / 2, checkpointBytes );
+    } // end method isCompactionDue
+
+    /**
+     * Compacts the journal: starts a new segment, has the caller checkpoint every match still being played into
+     * it (the checkpoints may fill it and carry on into more segments), commits them and deletes every segment
+     * from before the compaction
+     *
+     * @param nextMatchId           the id the next new match will get (kept in the new segment's header)
+     * @param checkpointWriter      appends a checkpoint (appendCheckpoint) for every match still being played
+     * @throws IOException if the new segment can't be created
+     */
+    public void compact( int nextMatchId, Consumer<MatchJournal> checkpointWriter ) throws IOException
+    {
+        this.nextMatchId = Math.max( this.nextMatchId, nextMatchId );
+        startSegment();
+        long firstCheckpointSequence = segment.sequence;
+        bytesSinceCompaction = 0;
+        checkpointWriter.accept( this );
+        checkpointBytes = bytesSinceCompaction;
+        bytesSinceCompaction = 0;
+        commit();
+
+        synchronized ( this )
+        {
+            for ( Segment olderSegment : olderSegments )
+            {
+                if ( olderSegment.sequence < firstCheckpointSequence )
+                {
+                    Files.deleteIfExists( olderSegment.path );
+                } // end if
+            } // end for
+            olderSegments.removeIf( olderSegment -> olderSegment.sequence < firstCheckpointSequence );
+        } // end synchronized
+    } // end method compact
+
+    /**
+     * Forces every record appended since the last commit to the disk (the commit thread calls this every commit
+     * interval; it is safe to call from any thread)
+     */
+    public synchronized void commit()
+    {
+        Segment current = segment;
+        if ( current == null )
+        {
+            return;
+        } // end if
+        int appendedBytes = current.appendedBytes;
+        if ( appendedBytes > current.committedBytes )
+        {
+            current.bytes.force( current.committedBytes, appendedBytes - current.committedBytes );
+            current.committedBytes = appendedBytes;
+        } // end if
+    } // end method commit
+
+    /**
+     * Getter for the id the next new match should get, so ids aren't reused after a restart
+     */
+    public int getNextMatchId()
+    {
+        return nextMatchId;
+    } // end method getNextMatchId
+
+    /**
+     * Getter for the number of segment files the journal is using
+     */
+    public synchronized int getSegmentCount()
+    {
+        return olderSegments.size() + ( segment == null ? 0 : 1 );
+    } // end method getSegmentCount
+
+    /**
+     * Commits everything appended and stops the commit thread
+     */
+    @Override
+    public void close()
+    {
+        open = false;
+        LockSupport.unpark( committer );
+        try
+        {
+            committer.join( TimeUnit.SECONDS.toMillis( 1 ) );
+        } // end try
+        catch ( InterruptedException exception )
+        {
+            Thread.currentThread().interrupt();
+        } // end catch
+        commit();
+    } // end method close
+
+    /**
+     * One segment file: its mapping and how far it has been appended to and committed
+     */
+    private static final class Segment
+    {
+        final long sequence;
+        final Path path;
+        final MappedByteBuffer bytes;           // null for an older segment that was only replayed
+        volatile int appendedBytes;             // written by the event loop, read by the commit thread
+        int committedBytes;
+
+        /**
+         * Initializes a segment
+         */
+        Segment( long sequence, Path path, MappedByteBuffer bytes )
+        {
+            this.sequence = sequence;
+            this.path = path;
+            this.bytes = bytes;
+        } // end Segment 3-arg constructor
+    } // end class Segment
+
+    /**
+     * A match rebuilt from the journal: its players and its game, exactly as it was after its last event
+     */
+    public static final class RecoveredMatch
+    {
+        private final int matchId;
+        private final int[] cpuPlayerOptionIndexForSeat;
+        private final ScriptedDiceSource diceSource = new ScriptedDiceSource( new SplittableDiceSource() );
+        private final GameManager gameManager = new GameManager( diceSource );
+        private int pendingMovePieceIndex = -1;     // a journaled move waits for the record after it, which may be its battle
+        private final int[][] checkpointLocations = new int[GameManager.NUMBER_OF_PLAYERS][GameManager.NUMBER_OF_PIECES_PER_PLAYER];
+        private final int[][] checkpointWins = new int[GameManager.NUMBER_OF_PLAYERS][GameManager.NUMBER_OF_PIECES_PER_PLAYER];
+        private final int[][] checkpointLosses = new int[GameManager.NUMBER_OF_PLAYERS][GameManager.NUMBER_OF_PIECES_PER_PLAYER];
+
+        /**
+         * Initializes a match in its starting position
+         */
+        private RecoveredMatch( int matchId, int redCpuPlayerOptionIndex, int blueCpuPlayerOptionIndex )
+        {
+            this.matchId = matchId;
+            cpuPlayerOptionIndexForSeat = new int[]{ redCpuPlayerOptionIndex, blueCpuPlayerOptionIndex };
+        } // end RecoveredMatch 3-arg constructor
+
+        /**
+         * Replays a roll, ending the turn straight away if no piece can move (as the server does)
+         */
+        private void playRoll( int playerIndex, int dieRollValue )
+        {
+            if ( playerIndex != gameManager.getCurrentPlayerIndex() )
+            {
+                throw new IllegalStateException( "player " + ( playerIndex + 1 ) + " rolled out of turn" );
+            } // end if
+            gameManager.applyMovementDieRoll( dieRollValue );
+            if ( !gameManager.hasMoveablePiece() )
+            {
+                gameManager.finishTurn();
+            } // end if
+        } // end method playRoll
+
+        /**
+         * Hands a journaled battle's dice (or its outcome, for an instant battle) to the dice source for the
+         * pending move to roll
+         */
+        private void scriptBattle( long data )
+        {
+            if ( pendingMovePieceIndex < 0 )
+            {
+                throw new IllegalStateException( "a battle without a move" );
+            } // end if
+            gameManager.setInstantBattles( ( data & 2 ) != 0 );
+            if ( ( data & 2 ) != 0 )
+            {
+                diceSource.scriptDouble( ( data & 1 ) != 0 ? 0.0 : Math.nextDown( 1.0 ) ); // below any odds, or above them
+                return;
+            } // end if
+            for ( int dieIndex = 0; dieIndex < 2 * GameManager.MAX_PIECE_TIER; dieIndex++ )
+            {
+                int roll = getByte( data, 1 + dieIndex );
+                if ( roll != 0 )
+                {
+                    diceSource.scriptBattleDie( roll );
+                } // end if
+            } // end for
+        } // end method scriptBattle
+
+        /**
+         * Plays the journaled move that is waiting, if there is one, and finishes its turn
+         */
+        private void playPendingMove()
+        {
+            if ( pendingMovePieceIndex < 0 )
+            {
+                return;
+            } // end if
+            int pieceIndex = pendingMovePieceIndex;
+            pendingMovePieceIndex = -1;
+            gameManager.movePiece( pieceIndex );
+            diceSource.clearScript();
+            gameManager.finishTurn();
+        } // end method playPendingMove
+
+        /**
+         * Puts the game into a checkpoint's position (a die roll means the game was waiting for a move)
+         */
+        private void restoreCheckpoint( int state, boolean rerollPending, int dieRollValue )
+        {
+            int stateBetweenTurns = state;
+            if ( state == GameManager.PLAYER1_MOVE_RED || state == GameManager.PLAYER2_MOVE_BLUE )
+            {
+                stateBetweenTurns = ( state == GameManager.PLAYER1_MOVE_RED ) ? GameManager.PLAYER1_ROLL_DIE : GameManager.PLAYER2_ROLL_DIE;
+            } // end if
+            gameManager.restore( stateBetweenTurns, rerollPending, checkpointLocations, checkpointWins, checkpointLosses );
+            if ( stateBetweenTurns != state )
+            {
+                gameManager.applyMovementDieRoll( dieRollValue );
+            } // end if
+        } // end method restoreCheckpoint
+
+        /**
+         * Getter for the match id
+         */
+        public int getMatchId()
+        {
+            return matchId;
+        } // end method getMatchId
+
+        /**
+         * Getter for the CPU player in a seat (an index into GameServer.CPU_PLAYER_NAMES), or -1 for a human
+         */
+        public int getCpuPlayerOptionIndex( int playerIndex )
+        {
+            return cpuPlayerOptionIndexForSeat[playerIndex];
+        } // end method getCpuPlayerOptionIndex
+
+        /**
+         * Getter for the rebuilt game (its dice carry on from a fresh seed)
+         */
+        public GameManager getGameManager()
+        {
+            return gameManager;
+        } // end method getGameManager
+    } // end class RecoveredMatch
+
+    /**
+     * The dice of a rebuilt match: during replay it hands back the journaled battle dice, and afterwards it rolls
+     * like any other source
+     */
+    private static final class ScriptedDiceSource implements DiceSource
+    {
+        private final DiceSource diceSource;
+        private final int[] scriptedBattleDice = new int[2 * GameManager.MAX_PIECE_TIER];
+        private int scriptedBattleDieCount;
+        private int nextScriptedBattleDieIndex;
+        private double scriptedDouble = Double.NaN;
+
+        /**
+         * Initializes a source that rolls from the given one when nothing is scripted
+         */
+        ScriptedDiceSource( DiceSource diceSource )
+        {
+            this.diceSource = diceSource;
+        } // end ScriptedDiceSource 1-arg constructor
+
+        /**
+         * Queues a battle die for the next battle to roll
+         */
+        void scriptBattleDie( int roll )
+        {
+            scriptedBattleDice[scriptedBattleDieCount++] = roll;
+        } // end method scriptBattleDie
+
+        /**
+         * Sets the draw the next instant battle gets
+         */
+        void scriptDouble( double value )
+        {
+            scriptedDouble = value;
+        } // end method scriptDouble
+
+        /**
+         * Forgets anything scripted that wasn't used
+         */
+        void clearScript()
+        {
+            scriptedBattleDieCount = 0;
+            nextScriptedBattleDieIndex = 0;
+            scriptedDouble = Double.NaN;
+        } // end method clearScript
+
+        /**
+         * Rolls the movement die (never scripted: replayed rolls are applied straight to the GameManager)
+         */
+        @Override
+        public int rollMovementDie()
+        {
+            return diceSource.rollMovementDie();
+        } // end method rollMovementDie
+
+        /**
+         * Hands back the next scripted battle die, or rolls one
+         */
+        @Override
+        public int rollBattleDie()
+        {
+            if ( nextScriptedBattleDieIndex < scriptedBattleDieCount )
+            {
+                return scriptedBattleDice[nextScriptedBattleDieIndex++];
+            } // end if
+            return diceSource.rollBattleDie();
+        } // end method rollBattleDie
+
+        /**
+         * Draws a whole number from 0 to bound - 1
+         */
+        @Override
+        public int nextInt( int bound )
+        {
+            return diceSource.nextInt( bound );
+        } // end method nextInt
+
+        /**
+         * Hands back the scripted instant battle draw, or draws one
+         */
+        @Override
+        public double nextDouble()
+        {
+            if ( !Double.isNaN( scriptedDouble ) )
+            {
+                double value = scriptedDouble;
+                scriptedDouble = Double.NaN;
+                return value;
+            } // end if
+            return diceSource.nextDouble();
+        } // end method nextDouble
+
+        /**
+         * Getter for the seed of the source the rolls come from
+         */
+        @Override
+        public long getSeed()
+        {
+            return diceSource.getSeed();
+        } // end method getSeed
+
+        /**
+         * Creates an independent source split from the one the rolls come from
+         */
+        @Override
+        public DiceSource split()
+        {
+            return diceSource.split();
+        } // end method split
+    } // end class ScriptedDiceSource
+} // end class MatchJournal
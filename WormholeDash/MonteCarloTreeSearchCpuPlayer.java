@@ -0,0 +1,487 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Monte Carlo Tree Search CPU player. Instead of evaluating positions, it plays thousands of quick random games
+ * ("playouts") from the current position and grows a tree of the moves that keep winning, using UCB1 to balance
+ * trying the most promising moves against trying the less explored ones. The move played most often wins.
+ *
+ * Dice are handled with chance outcomes: after a move, the battle (if any) is decided by one draw against its
+ * exact odds, and the next movement die roll is rolled too. Each move can lead to up to
+ * 2 * GameManager.MOVEMENT_DIE_SIDES different child positions (battle won or lost, times the rolls), and each one gets its own subtree.
+ *
+ * The search uses tree parallelism: one worker per core runs playouts on the same shared tree in a ForkJoinPool,
+ * updating its statistics with atomic counters only (no locks). A worker that picks a move adds a "virtual loss"
+ * to it until its playout comes back, so the other workers spread out over different branches instead of all
+ * piling onto the same one.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public class MonteCarloTreeSearchCpuPlayer implements CpuPlayer
+{
+    /* PUBLIC CONSTANTS */
+    public static final long DEFAULT_TIME_BUDGET_NANOS = 15_000_000L;   // 15 ms, about one frame
+    public static final double DEFAULT_EXPLORATION_CONSTANT = 0.7;
+
+    /* PRIVATE CONSTANTS */
+    private static final int VIRTUAL_LOSS = 3;                          // visits (with no wins) added while a playout is running
+    private static final int MAX_MOVES = 16;
+    private static final int OUTCOMES_PER_MOVE = 2 * GameManager.MOVEMENT_DIE_SIDES;   // (battle won or lost) x next roll
+    private static final int MAX_TREE_DEPTH = 256;
+    private static final int MAX_PLAYOUT_TURNS = 2000;                  // a (very unlikely) endless playout is called for a random player
+
+    /* FIELDS */
+    private long timeBudgetNanos;
+    private double explorationConstant;
+    private ForkJoinPool pool;
+    private int parallelism;
+    private SplittableRandom seedRandom;
+
+    private long lastPlayoutCount;
+    private long lastElapsedNanos;
+
+    /* CONSTRUCTORS */
+    /**
+     * Initializes a CPU player with the default time budget (about one frame), using every core through the common pool
+     */
+    public MonteCarloTreeSearchCpuPlayer()
+    {
+        this( DEFAULT_TIME_BUDGET_NANOS );
+    } // end MonteCarloTreeSearchCpuPlayer no-arg constructor
+
+    /**
+     * Initializes a CPU player with its own time budget, using every core through the common pool
+     *
+     * @param timeBudgetNanos   how long one move may take to choose, in nanoseconds
+     */
+    public MonteCarloTreeSearchCpuPlayer( long timeBudgetNanos )
+    {
+        this( timeBudgetNanos, ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors() );
+    } // end MonteCarloTreeSearchCpuPlayer 1-arg constructor
+
+    /**
+     * Initializes a CPU player that runs its playouts in the given pool
+     *
+     * @param timeBudgetNanos   how long one move may take to choose, in nanoseconds
+     * @param pool              the pool the workers run in
+     * @param parallelism       how many workers search the tree at the same time (1 for a single-threaded search)
+     */
+    public MonteCarloTreeSearchCpuPlayer( long timeBudgetNanos, ForkJoinPool pool, int parallelism )
+    {
+        if ( parallelism < 1 )
+        {
+            throw new IllegalArgumentException( "parallelism must be at least 1, got " + parallelism );
+        } // end if
+        this.timeBudgetNanos = timeBudgetNanos;
+        this.explorationConstant = DEFAULT_EXPLORATION_CONSTANT;
+        this.pool = pool;
+        this.parallelism = parallelism;
+        this.seedRandom = new SplittableRandom();
+    } // end MonteCarloTreeSearchCpuPlayer 3-arg constructor
+
+    /* METHODS */
+    /**
+     * Searches the current position and picks the piece whose move was played the most
+     *
+     * @param gameManager   the game being played
+     * @return the index of the piece to move, or -1 if no piece is moveable
+     */
+    public int selectPieceIndex( GameManager gameManager )
+    {
+        if ( !gameManager.hasMoveablePiece() )
+        {
+            return -1;
+        } // end if
+
+        BoardState rootState = gameManager.getBoardState();
+        int move = searchBestMove( rootState );
+        return gameManager.getPieceIndexAtLocation( rootState.getCurrentPlayerIndex(),
+                                                    ExpectiminimaxCpuPlayer.getSourceOfMove( move ), ExpectiminimaxCpuPlayer.getTierOfMove( move ) );
+    } // end method selectPieceIndex
+
+    /**
+     * Runs playouts from the given position (the die must already be rolled) until the time budget runs out
+     *
+     * @param rootState     the position to search, in a PLAYER1_MOVE_RED or PLAYER2_MOVE_BLUE state
+     * @return the best move found (encoded like ExpectiminimaxCpuPlayer.encodeMove), or -1 if there is no legal move
+     */
+    public int searchBestMove( BoardState rootState )
+    {
+        Node root = new Node( new BoardState( rootState ) );
+        lastPlayoutCount = 0;
+        lastElapsedNanos = 0;
+        if ( root.numberOfMoves == 0 )
+        {
+            return -1;
+        } // end if
+        if ( root.numberOfMoves == 1 )
+        {
+            return root.moves[0]; // nothing to think about
+        } // end if
+
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + timeBudgetNanos;
+        LongAdder playoutCount = new LongAdder();
+        Worker[] workers = new Worker[parallelism];
+        for ( int workerIndex = 0; workerIndex < parallelism; workerIndex++ )
+        {
+            workers[workerIndex] = new Worker( root, deadlineNanos, seedRandom.split(), playoutCount );
+        } // end for
+        pool.invoke( new RecursiveAction()
+        {
+            protected void compute()
+            {
+                invokeAll( workers );
+            } // end method compute
+        } );
+        lastPlayoutCount = playoutCount.sum();
+        lastElapsedNanos = System.nanoTime() - startNanos;
+
+        int bestMoveIndex = 0;
+        for ( int moveIndex = 1; moveIndex < root.numberOfMoves; moveIndex++ )
+        {
+            if ( root.visitCounts.get( moveIndex ) > root.visitCounts.get( bestMoveIndex ) )
+            {
+                bestMoveIndex = moveIndex;
+            } // end if
+        } // end for
+        return root.moves[bestMoveIndex];
+    } // end method searchBestMove
+
+    /**
+     * Runs one playout: walks down the tree (UCB1 with virtual loss at decisions, dice rolled at chance outcomes),
+     * adds one new node, plays a random game from it, then records the result along the path
+     *
+     * @param root          the root of the shared tree
+     * @param random        the worker's own random numbers
+     * @param pathNodes     scratch space for the nodes walked through
+     * @param pathSlots     scratch space for the move slot picked at each of those nodes
+     * @param scratchState  scratch space for the random playout
+     * @param scratchMoves  scratch space for the random playout's moves
+     */
+    private void runIteration( Node root, SplittableRandom random, Node[] pathNodes, int[] pathSlots,
+                               BoardState scratchState, int[] scratchMoves )
+    {
+        Node node = root;
+        int pathLength = 0;
+        int winnerPlayerIndex;
+        while ( true )
+        {
+            if ( node.state.isGameOver() )
+            {
+                winnerPlayerIndex = getWinnerPlayerIndex( node.state );
+                break;
+            } // end if
+            if ( pathLength == MAX_TREE_DEPTH )
+            {
+                winnerPlayerIndex = playOut( node.state, random, scratchState, scratchMoves );
+                break;
+            } // end if
+
+            int slot = node.selectSlot( explorationConstant );
+            pathNodes[pathLength] = node;
+            pathSlots[pathLength] = slot;
+            pathLength++;
+
+            // chance outcomes: the battle (if this move starts one) and the next movement roll
+            boolean attackerWinsBattle = false;
+            if ( node.numberOfMoves > 0 )
+            {
+                int move = node.moves[slot];
+                int defenderTier = getDefenderTier( node.state, move );
+                attackerWinsBattle = defenderTier > 0 && rollBattle( random, ExpectiminimaxCpuPlayer.getTierOfMove( move ), defenderTier );
+            } // end if
+            int dieRollValue = 1 + random.nextInt( GameManager.MOVEMENT_DIE_SIDES );
+            int childIndex = slot * OUTCOMES_PER_MOVE + ( attackerWinsBattle ? GameManager.MOVEMENT_DIE_SIDES : 0 ) + dieRollValue - 1;
+
+            Node child = node.children.get( childIndex );
+            if ( child == null )
+            {
+                BoardState childState = new BoardState( node.state );
+                playSlot( childState, node.numberOfMoves > 0 ? node.moves[slot] : 0, attackerWinsBattle );
+                if ( !childState.isGameOver() )
+                {
+                    childState.applyMovementDieRoll( dieRollValue );
+                } // end if
+                Node newChild = new Node( childState );
+                child = node.children.compareAndSet( childIndex, null, newChild ) ? newChild : node.children.get( childIndex );
+                winnerPlayerIndex = child.state.isGameOver() ? getWinnerPlayerIndex( child.state )
+                                                              : playOut( child.state, random, scratchState, scratchMoves );
+                break;
+            } // end if
+            node = child;
+        } // end while
+
+        // back up the result, taking the virtual losses back off
+        for ( int pathIndex = 0; pathIndex < pathLength; pathIndex++ )
+        {
+            pathNodes[pathIndex].recordResult( pathSlots[pathIndex], winnerPlayerIndex );
+        } // end for
+    } // end method runIteration
+
+    /**
+     * Plays a move (or, with a move of 0, passes) on a position and finishes the turn
+     */
+    private static void playSlot( BoardState state, int move, boolean attackerWinsBattle )
+    {
+        if ( move != 0 )
+        {
+            state.movePiece( ExpectiminimaxCpuPlayer.getSourceOfMove( move ), ExpectiminimaxCpuPlayer.getTierOfMove( move ), attackerWinsBattle );
+        } // end if
+        state.finishTurn();
+    } // end method playSlot
+
+    /**
+     * Plays random moves from a position until the game ends (or becomes a race, whose result is drawn from the RaceDatabase)
+     *
+     * @return the index of the player who won
+     */
+    private static int playOut( BoardState startState, SplittableRandom random, BoardState state, int[] moves )
+    {
+        state.copyFrom( startState );
+        for ( int turn = 0; turn < MAX_PLAYOUT_TURNS && !state.isGameOver(); turn++ )
+        {
+            if ( state.getDieRollValue() == 0 )
+            {
+                if ( RaceDatabase.isRace( state ) )
+                {
+                    // the rest of the game is a race with a known result, so just draw it
+                    int playerIndex = state.getCurrentPlayerIndex();
+                    return ( random.nextDouble() < RaceDatabase.getWinProbability( state ) ) ? playerIndex : 1 - playerIndex;
+                } // end if
+                state.applyMovementDieRoll( 1 + random.nextInt( GameManager.MOVEMENT_DIE_SIDES ) );
+            } // end if
+            int numberOfMoves = listMoves( state, moves );
+            if ( numberOfMoves == 0 )
+            {
+                state.finishTurn();
+                continue;
+            } // end if
+
+            int move = moves[ random.nextInt( numberOfMoves ) ];
+            int defenderTier = getDefenderTier( state, move );
+            playSlot( state, move, defenderTier > 0 && rollBattle( random, ExpectiminimaxCpuPlayer.getTierOfMove( move ), defenderTier ) );
+        } // end for
+        return state.isGameOver() ? getWinnerPlayerIndex( state ) : random.nextInt( GameManager.NUMBER_OF_PLAYERS );
+    } // end method playOut
+
+    /**
+     * Lists every legal move for the player whose turn it is, in no particular order (cheaper than
+     * ExpectiminimaxCpuPlayer.generateMoves, which also sorts them)
+     *
+     * @return how many moves were listed
+     */
+    private static int listMoves( BoardState state, int[] moves )
+    {
+        int playerIndex = state.getCurrentPlayerIndex();
+        int legalSourceMask = MoveTable.getLegalSourceMask( state.getOccupancy(), playerIndex, state.getDieRollValue() );
+        int numberOfMoves = 0;
+        if ( ( legalSourceMask & MoveTable.START_ZONE_SOURCE_BIT ) != 0 )
+        {
+            legalSourceMask &= ~MoveTable.START_ZONE_SOURCE_BIT;
+            for ( int tier = 1; tier <= GameManager.MAX_PIECE_TIER; tier++ )
+            {
+                if ( state.getStartCountForPlayerIndex( playerIndex, tier ) > 0 )
+                {
+                    moves[numberOfMoves++] = ExpectiminimaxCpuPlayer.encodeMove( GameManager.START_ZONE_INDEX, tier );
+                } // end if
+            } // end for
+        } // end if
+        while ( legalSourceMask != 0 )
+        {
+            int sourceLocationIndex = Integer.numberOfTrailingZeros( legalSourceMask ) - 1;
+            legalSourceMask &= legalSourceMask - 1;
+            moves[numberOfMoves++] = ExpectiminimaxCpuPlayer.encodeMove( sourceLocationIndex, state.getTierAt( playerIndex, sourceLocationIndex ) );
+        } // end while
+        return numberOfMoves;
+    } // end method listMoves
+
+    /**
+     * Returns the tier of the opposing piece the given move lands on, or 0 if it doesn't start a battle
+     */
+    private static int getDefenderTier( BoardState state, int move )
+    {
+        int targetLocationIndex = ExpectiminimaxCpuPlayer.getSourceOfMove( move ) + state.getDieRollValue();
+        int playerIndex = state.getCurrentPlayerIndex();
+        int opposingPathIndex = ( targetLocationIndex < GameManager.GOAL_ZONE_INDEX ) ? BoardState.mirrorPathIndex( playerIndex, targetLocationIndex ) : -1;
+        return ( opposingPathIndex >= 0 ) ? state.getTierAt( 1 - playerIndex, opposingPathIndex ) : 0;
+    } // end method getDefenderTier
+
+    /**
+     * Decides a battle with a single random draw against the exact odds (see BattleOdds)
+     *
+     * @return true if the attacker won
+     */
+    private static boolean rollBattle( SplittableRandom random, int attackerTier, int defenderTier )
+    {
+        return random.nextDouble() < BattleOdds.getAttackerWinProbability( attackerTier, defenderTier );
+    } // end method rollBattle
+
+    /**
+     * Works out who won a finished game
+     */
+    private static int getWinnerPlayerIndex( BoardState state )
+    {
+        int finalState = state.getState();
+        return ( finalState == GameManager.PLAYER1_WIN || finalState == GameManager.PLAYER1_WIN2 ) ? 0 : 1;
+    } // end method getWinnerPlayerIndex
+
+    /**
+     * Sets the exploration constant used by UCB1 (higher tries more moves, lower sticks to the best ones)
+     */
+    public void setExplorationConstant( double explorationConstant )
+    {
+        this.explorationConstant = explorationConstant;
+    } // end method setExplorationConstant
+
+    /**
+     * Sets how long one move may take to choose
+     *
+     * @param timeBudgetNanos   the new time budget, in nanoseconds
+     */
+    public void setTimeBudgetNanos( long timeBudgetNanos )
+    {
+        this.timeBudgetNanos = timeBudgetNanos;
+    } // end method setTimeBudgetNanos
+
+    /**
+     * Getter for how many playouts the last move choice ran
+     */
+    public long getLastPlayoutCount()
+    {
+        return lastPlayoutCount;
+    } // end method getLastPlayoutCount
+
+    /**
+     * Returns how many playouts per second the last move choice ran (across all workers)
+     */
+    public double getLastPlayoutsPerSecond()
+    {
+        return ( lastElapsedNanos == 0 ) ? 0.0 : lastPlayoutCount * 1e9 / lastElapsedNanos;
+    } // end method getLastPlayoutsPerSecond
+
+    /**
+     * One decision in the shared tree: a position where the player to move has already rolled. Every statistic
+     * is an atomic counter, so any number of workers can update a node at the same time.
+     */
+    private static final class Node
+    {
+        final BoardState state;
+        final int playerIndex;
+        final int[] moves;
+        final int numberOfMoves;                        // 0 means the player can only pass (or the game is over)
+        final AtomicInteger totalVisitCount = new AtomicInteger();
+        final AtomicIntegerArray visitCounts;           // per move slot, virtual losses included
+        final AtomicIntegerArray winCounts;             // per move slot, wins for this node's player
+        final AtomicReferenceArray<Node> children;      // per move slot x chance outcome
+
+        /**
+         * Initializes a node for the given position (which the node keeps)
+         */
+        Node( BoardState state )
+        {
+            this.state = state;
+            this.playerIndex = state.getCurrentPlayerIndex();
+            int[] allMoves = new int[MAX_MOVES];
+            this.numberOfMoves = state.isGameOver() ? 0 : listMoves( state, allMoves );
+            this.moves = Arrays.copyOf( allMoves, numberOfMoves );
+            int numberOfSlots = Math.max( 1, numberOfMoves );
+            this.visitCounts = new AtomicIntegerArray( numberOfSlots );
+            this.winCounts = new AtomicIntegerArray( numberOfSlots );
+            this.children = new AtomicReferenceArray<>( numberOfSlots * OUTCOMES_PER_MOVE );
+        } // end Node 1-arg constructor
+
+        /**
+         * Picks the move slot with the highest UCB1 score (an unvisited move first) and adds a virtual loss to it
+         */
+        int selectSlot( double explorationConstant )
+        {
+            int bestSlot = 0;
+            if ( numberOfMoves > 1 )
+            {
+                double logTotal = Math.log( Math.max( 1, totalVisitCount.get() ) );
+                double bestScore = Double.NEGATIVE_INFINITY;
+                for ( int slot = 0; slot < numberOfMoves; slot++ )
+                {
+                    int visits = visitCounts.get( slot );
+                    if ( visits == 0 )
+                    {
+                        bestSlot = slot;
+                        break;
+                    } // end if
+                    double score = (double) winCounts.get( slot ) / visits + explorationConstant * Math.sqrt( logTotal / visits );
+                    if ( score > bestScore )
+                    {
+                        bestScore = score;
+                        bestSlot = slot;
+                    } // end if
+                } // end for
+            } // end if
+            visitCounts.addAndGet( bestSlot, VIRTUAL_LOSS );
+            totalVisitCount.addAndGet( VIRTUAL_LOSS );
+            return bestSlot;
+        } // end method selectSlot
+
+        /**
+         * Records a finished playout through the given slot, replacing its virtual loss with one real visit
+         */
+        void recordResult( int slot, int winnerPlayerIndex )
+        {
+            if ( winnerPlayerIndex == playerIndex )
+            {
+                winCounts.incrementAndGet( slot );
+            } // end if
+            visitCounts.addAndGet( slot, 1 - VIRTUAL_LOSS );
+            totalVisitCount.addAndGet( 1 - VIRTUAL_LOSS );
+        } // end method recordResult
+    } // end class Node
+
+    /**
+     * One search thread: runs playouts on the shared tree until the deadline (always at least one)
+     */
+    private final class Worker extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Node root;
+        private final long deadlineNanos;
+        private final SplittableRandom random;
+        private final LongAdder playoutCount;
+
+        /**
+         * Initializes a worker with its own random numbers
+         */
+        Worker( Node root, long deadlineNanos, SplittableRandom random, LongAdder playoutCount )
+        {
+            this.root = root;
+            this.deadlineNanos = deadlineNanos;
+            this.random = random;
+            this.playoutCount = playoutCount;
+        } // end Worker 4-arg constructor
+
+        /**
+         * Runs playouts until the time budget is used up
+         */
+        protected void compute()
+        {
+            Node[] pathNodes = new Node[MAX_TREE_DEPTH];
+            int[] pathSlots = new int[MAX_TREE_DEPTH];
+            BoardState scratchState = new BoardState( 0L, 0L );
+            int[] scratchMoves = new int[MAX_MOVES];
+            long playouts = 0;
+            do
+            {
+                runIteration( root, random, pathNodes, pathSlots, scratchState, scratchMoves );
+                playouts++;
+            } while ( System.nanoTime() < deadlineNanos );
+            playoutCount.add( playouts );
+        } // end method compute
+    } // end class Worker
+} // end class MonteCarloTreeSearchCpuPlayer
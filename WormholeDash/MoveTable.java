@@ -0,0 +1,172 @@
+/**
+ * Precomputed move generation. Whether a piece can move only depends on where the player's own pieces are
+ * (a piece can't land on its own player's piece, can't overshoot the goal and needs an exact roll to reach it)
+ * and on the die roll, so every answer is worked out once when the class loads. Generating the moves for a
+ * turn is then a single table lookup, used by both the GameManager (and so the GameBoard) and the CPU search.
+ *
+ * Masks use "location + 1" bits for sources, so bit 0 is the starting zone and bit i + 1 is path index i. With
+ * that layout a piece's target is always its source shifted left by (roll - 1), which makes bit t of a target
+ * mask path index t and bit 16 the goal zone. Landing on an opponent's piece is legal (it starts a battle), so
+ * the opponent's pieces never change which moves are legal, only which of them are battles:
+ *
+ *   legal sources   = lookup( own path mask, roll )
+ *   targets         = getTargetMask( sources, roll )
+ *   battles         = targets & opponent mask (from BoardState.getOpponentMaskForPlayerIndex)
+ *   star landings   = targets & getStarTargetMask( playerIndex )
+ *
+ * The die size and the star squares come from the active RuleVariant, so the table is built for whichever
+ * variant is being played.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public final class MoveTable
+{
+    /* PUBLIC CONSTANTS */
+    public static final int START_ZONE_SOURCE_BIT = 1;                 // source bit for a piece entering from the starting zone
+    public static final int GOAL_TARGET_BIT = 1 << GameManager.GOAL_ZONE_INDEX;
+
+    /* FIELDS */
+    // each player's star (reroll) squares, as path index bits along their own path
+    private static final int[] STAR_TARGET_MASK_FOR_PLAYER_INDEX = RuleVariant.ACTIVE.getStarTargetMasks();
+
+    // legal source masks, indexed by ( (roll - 1) << 16 ) | own path mask
+    private static final int[] LEGAL_SOURCE_MASK = new int[ GameManager.MOVEMENT_DIE_SIDES << GameManager.PATH_LENGTH ];
+
+    static
+    {
+        for ( int dieRollValue = 1; dieRollValue <= GameManager.MOVEMENT_DIE_SIDES; dieRollValue++ )
+        {
+            for ( int ownPathMask = 0; ownPathMask <= BoardState.FULL_PATH_MASK; ownPathMask++ )
+            {
+                LEGAL_SOURCE_MASK[ tableIndex( ownPathMask, dieRollValue ) ] = computeLegalSourceMask( ownPathMask, dieRollValue );
+            } // end INNER for
+        } // end OUTER for
+    } // end static initializer
+
+    /* CONSTRUCTORS */
+    /**
+     * MoveTable only has static lookups, so it is never instantiated
+     */
+    private MoveTable()
+    {
+    } // end private no-arg constructor
+
+    /* METHODS */
+    /**
+     * Works out, the slow way, which sources can move for one (own path mask, roll) pair. This is only used to
+     * fill in the table: it follows the same checks as the rules -- nothing moves out of the goal, the goal needs
+     * an exact roll, and a piece can't land on one of its own player's pieces.
+     *
+     * @param ownPathMask       the squares occupied by the moving player's pieces (bit i = path index i)
+     * @param dieRollValue      the movement die roll (1 to GameManager.MOVEMENT_DIE_SIDES)
+     * @return the legal sources, as "location + 1" bits (assuming the starting zone isn't empty)
+     */
+    private static int computeLegalSourceMask( int ownPathMask, int dieRollValue )
+    {
+        int legalSourceMask = 0;
+        for ( int locationIndex = GameManager.START_ZONE_INDEX; locationIndex < GameManager.PATH_LENGTH; locationIndex++ )
+        {
+            // a piece has to be at this location to move from it (the starting zone is checked by the caller)
+            if ( locationIndex >= 0 && ( ownPathMask & ( 1 << locationIndex ) ) == 0 )
+            {
+                continue;
+            } // end if
+
+            int targetLocationIndex = locationIndex + dieRollValue;
+            if ( targetLocationIndex > GameManager.GOAL_ZONE_INDEX )
+            {
+                continue; // overshoots the goal
+            } // end if
+            if ( targetLocationIndex < GameManager.GOAL_ZONE_INDEX && ( ownPathMask & ( 1 << targetLocationIndex ) ) != 0 )
+            {
+                continue; // own piece is already there
+            } // end if
+
+            legalSourceMask |= 1 << ( locationIndex + 1 );
+        } // end for
+        return legalSourceMask;
+    } // end method computeLegalSourceMask
+
+    /**
+     * Computes where in the table the entry for the given own path mask and die roll lives
+     */
+    private static int tableIndex( int ownPathMask, int dieRollValue )
+    {
+        return ( ( dieRollValue - 1 ) << GameManager.PATH_LENGTH ) | ownPathMask;
+    } // end method tableIndex
+
+    /**
+     * Looks up the legal sources for the given own path mask and die roll, assuming at least one piece is still
+     * in the starting zone (clear START_ZONE_SOURCE_BIT if it is empty)
+     *
+     * @param ownPathMask       the squares occupied by the moving player's pieces (bit i = path index i)
+     * @param dieRollValue      the movement die roll (1 to GameManager.MOVEMENT_DIE_SIDES)
+     * @return the legal sources, as "location + 1" bits
+     */
+    public static int getLegalSourceMask( int ownPathMask, int dieRollValue )
+    {
+        return LEGAL_SOURCE_MASK[ tableIndex( ownPathMask, dieRollValue ) ];
+    } // end method getLegalSourceMask
+
+    /**
+     * Looks up the legal sources for the given player in a packed board state, taking the starting zone into account
+     *
+     * @param occupancy         the board state's packed occupancy word
+     * @param playerIndex       the index of the player moving
+     * @param dieRollValue      the movement die roll (1 to GameManager.MOVEMENT_DIE_SIDES)
+     * @return the legal sources, as "location + 1" bits
+     */
+    public static int getLegalSourceMask( long occupancy, int playerIndex, int dieRollValue )
+    {
+        int legalSourceMask = LEGAL_SOURCE_MASK[ tableIndex( BoardState.pathMaskForPlayerIndex( occupancy, playerIndex ), dieRollValue ) ];
+        if ( BoardState.startCountForPlayerIndex( occupancy, playerIndex, 1 ) + BoardState.startCountForPlayerIndex( occupancy, playerIndex, 2 )
+             + BoardState.startCountForPlayerIndex( occupancy, playerIndex, 3 ) == 0 )
+        {
+            legalSourceMask &= ~START_ZONE_SOURCE_BIT;
+        } // end if
+        return legalSourceMask;
+    } // end method getLegalSourceMask
+
+    /**
+     * Converts a source mask into the matching target mask (bit t = path index t, bit 16 = the goal zone)
+     *
+     * @param sourceMask        sources, as "location + 1" bits
+     * @param dieRollValue      the movement die roll (1 to GameManager.MOVEMENT_DIE_SIDES)
+     */
+    public static int getTargetMask( int sourceMask, int dieRollValue )
+    {
+        return sourceMask << ( dieRollValue - 1 );
+    } // end method getTargetMask
+
+    /**
+     * Returns the targets that would start a battle
+     *
+     * @param targetMask        targets, from getTargetMask
+     * @param opponentMask      the opponent's pieces on the moving player's path, from BoardState.getOpponentMaskForPlayerIndex
+     */
+    public static int getBattleTargetMask( int targetMask, int opponentMask )
+    {
+        return targetMask & opponentMask;
+    } // end method getBattleTargetMask
+
+    /**
+     * Returns the given player's star squares (bit i = path index i along their own path)
+     *
+     * @param playerIndex       the index of the player moving
+     */
+    public static int getStarTargetMask( int playerIndex )
+    {
+        return STAR_TARGET_MASK_FOR_PLAYER_INDEX[playerIndex];
+    } // end method getStarTargetMask
+
+    /**
+     * Returns the bit used for the given location (START_ZONE_INDEX or a path index) in a source mask
+     *
+     * @param locationIndex     START_ZONE_INDEX or a path index (0 to 15)
+     */
+    public static int getSourceBit( int locationIndex )
+    {
+        return 1 << ( locationIndex + 1 );
+    } // end method getSourceBit
+} // end class MoveTable
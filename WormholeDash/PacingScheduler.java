@@ -0,0 +1,189 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+/**
+ * Paces the on-screen game without freezing it. `Greenfoot.delay` stops the whole act loop, so while a message is
+ * on screen no button responds and no actor moves. Instead, the GameBoard queues up what it wants to happen as a
+ * list of steps -- "wait this many act cycles", "then do this" -- and the scheduler works through them one act
+ * cycle (tick) at a time, while every actor keeps acting. The GameBoard's state machine simply waits while the
+ * scheduler is busy.
+ *
+ * A step scheduled while another step is running goes right after that step (ahead of anything queued
+ * earlier), so a method that paces itself can be called from inside a step and still happen in order.
+ *
+ * Every wait is multiplied by one global pacing scale: 1 is the normal speed, 0.5 twice as fast, and 0 runs
+ * every step immediately (fast play).
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public class PacingScheduler
+{
+    /* FIELDS */
+    private static double pacingScale = 1.0;      // shared by every scheduler
+
+    private ArrayDeque<Step> steps;
+    private ArrayList<Step> stepsScheduledByRunningStep;
+    private boolean runningStep;
+    private int ticksLeftInCurrentWait;
+
+    /* CONSTRUCTORS */
+    /**
+     * Initializes an empty scheduler
+     */
+    public PacingScheduler()
+    {
+        steps = new ArrayDeque<>();
+        stepsScheduledByRunningStep = new ArrayList<>();
+    } // end PacingScheduler no-arg constructor
+
+    /* METHODS */
+    /**
+     * Queues a wait of the given number of act cycles (scaled by the pacing scale)
+     *
+     * @param ticks     how many act cycles to wait at normal speed, like `Greenfoot.delay`
+     */
+    public void pause( int ticks )
+    {
+        addStep( new Step( ticks, null ) );
+    } // end method pause
+
+    /**
+     * Queues an action to run as soon as everything queued before it has run
+     *
+     * @param action    what to do
+     */
+    public void then( Runnable action )
+    {
+        addStep( new Step( 0, action ) );
+    } // end method then
+
+    /**
+     * Queues a wait followed by an action
+     *
+     * @param ticks     how many act cycles to wait at normal speed
+     * @param action    what to do after the wait
+     */
+    public void schedule( int ticks, Runnable action )
+    {
+        addStep( new Step( ticks, action ) );
+    } // end method schedule
+
+    /**
+     * Adds a step at the end of the queue, or right after the running step if one is running
+     */
+    private void addStep( Step step )
+    {
+        if ( runningStep )
+        {
+            stepsScheduledByRunningStep.add( step );
+        } // end if
+        else
+        {
+            steps.addLast( step );
+        } // end else
+    } // end method addStep
+
+    /**
+     * Advances the scheduler by one act cycle: counts down the current wait, then runs every step that is due
+     * (with a pacing scale of 0 that is every step queued)
+     */
+    public void tick()
+    {
+        if ( !steps.isEmpty() && steps.peekFirst().waitStarted && ticksLeftInCurrentWait > 0 )
+        {
+            ticksLeftInCurrentWait--;
+        } // end if
+
+        while ( !steps.isEmpty() )
+        {
+            Step step = steps.peekFirst();
+            if ( !step.waitStarted )
+            {
+                step.waitStarted = true; // a wait starts counting down on the tick after it reaches the front
+                ticksLeftInCurrentWait = (int) Math.round( step.ticks * pacingScale );
+            } // end if
+            if ( ticksLeftInCurrentWait > 0 )
+            {
+                return; // still waiting, so the rest of the queue waits too
+            } // end if
+
+            steps.pollFirst();
+            if ( step.action != null )
+            {
+                runningStep = true;
+                try
+                {
+                    step.action.run();
+                } // end try
+                finally
+                {
+                    runningStep = false;
+                } // end finally
+                for ( int stepIndex = stepsScheduledByRunningStep.size() - 1; stepIndex >= 0; stepIndex-- )
+                {
+                    steps.addFirst( stepsScheduledByRunningStep.get( stepIndex ) );
+                } // end for
+                stepsScheduledByRunningStep.clear();
+            } // end if
+        } // end while
+    } // end method tick
+
+    /**
+     * Returns true while there are steps left to run (the GameBoard's state machine waits until there aren't)
+     */
+    public boolean isBusy()
+    {
+        return !steps.isEmpty();
+    } // end method isBusy
+
+    /**
+     * Throws away every queued step
+     */
+    public void clear()
+    {
+        steps.clear();
+        stepsScheduledByRunningStep.clear();
+    } // end method clear
+
+    /**
+     * Sets the global pacing scale: 1 is normal speed, smaller is faster and 0 skips every wait
+     *
+     * @param newPacingScale    the new scale (0 or more)
+     */
+    public static void setPacingScale( double newPacingScale )
+    {
+        if ( newPacingScale < 0.0 )
+        {
+            throw new IllegalArgumentException( "the pacing scale can't be negative, got " + newPacingScale );
+        } // end if
+        pacingScale = newPacingScale;
+    } // end method setPacingScale
+
+    /**
+     * Getter for the global pacing scale
+     */
+    public static double getPacingScale()
+    {
+        return pacingScale;
+    } // end method getPacingScale
+
+    /**
+     * One queued step: a wait, then (optionally) an action
+     */
+    private static class Step
+    {
+        final int ticks;
+        final Runnable action;
+        boolean waitStarted;
+
+        /**
+         * Initializes a step
+         */
+        Step( int ticks, Runnable action )
+        {
+            this.ticks = ticks;
+            this.action = action;
+        } // end Step 2-arg constructor
+    } // end class Step
+} // end class PacingScheduler
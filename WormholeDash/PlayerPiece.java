@@ -23,6 +23,9 @@ public class PlayerPiece extends Actor
     private int losses = 0;
     
     private String shipTierName = "";
+
+    private GreenfootImage opaqueImage;     // shown while the piece is moveable (shared with every piece using this ship)
+    private GreenfootImage fadedImage;      // shown while it isn't (50% transparent, also shared)
     
     /* CONSTRUCTORS */
     /**
@@ -50,66 +53,26 @@ public class PlayerPiece extends Actor
     
     /* METHODS */
     /**
-     * The `act` method for the PlayerPiece is fairly simple
-     * since most of the game logic is handled by the GameBoard class;
-     * but we will use the `act` method to set the opacity (transparency)
-     * of the object depending on whether or not the piece is moveable
+     * The `act` method for the PlayerPiece does nothing: all of the game logic is handled by the GameBoard class,
+     * and the piece's opacity only changes when its moveable state does (see setMoveable)
      */
     public void act()
     {
-        if ( moveable ) 
-        {
-            getImage().setTransparency( 255 ); // if moveable, piece is fully opaque (0 = transparent, 255 = opaque)
-        } // end if
-        else 
-        {
-            getImage().setTransparency( 128 ); // if moveable, piece is 50% transparent
-        } // end else
+        // nothing to do on an idle frame
     } // end method act
     
     /**
      * This sets the appropriate image based off the player's team and the tier of the playerPiece.
+     * The opaque and 50% transparent versions of the ship are both built once by the SpriteRegistry and shared,
+     * so switching between them never touches any pixels.
      */
     public void setImageForPiece()
     {
-        String imageSelection;
-        
-        if (playerIndex == 0)
-        {
-            switch (pieceTier)
-            {
-                case 1:
-                    imageSelection = "Kla'ed - Fighter - Base.png";
-                    break;
-                case 2:
-                    imageSelection = "Kla'ed - Frigate - Base.png";
-                    break;
-                case 3:
-                    imageSelection = "Kla'ed - Dreadnought - Base.png";
-                default:
-                    imageSelection = "Kla'ed - Dreadnought - Base.png";
-            } // end switch
-        } // end if
-        else
-        {
-             switch (pieceTier) 
-             {
-                case 1:
-                    imageSelection = "Nautolan Ship - Bomber - Base.png";
-                    break;
-                case 2:
-                    imageSelection = "Nautolan Ship - Scout - Base.png";
-                    break;
-                case 3:
-                    imageSelection = "Nautolan Ship - Dreadnought - Base.png";
-                    break;
-                default:
-                    imageSelection = "Nautolan Ship - Scout - Base.png";
-            } // end switch
-        } // end else
-        
-        setImage(new GreenfootImage(imageSelection));
-    }
+        String shipImageFileName = SpriteRegistry.getShipImageFileName( playerIndex, pieceTier );
+        opaqueImage = SpriteRegistry.getImage( shipImageFileName );
+        fadedImage = SpriteRegistry.getFadedImage( shipImageFileName );
+        setImage( moveable ? opaqueImage : fadedImage );
+    } // end method setImageForPiece
         
     /**
      * Getter method for retrieving this player piece's `moveable` state value (true or false)
@@ -126,7 +89,12 @@ public class PlayerPiece extends Actor
      */
     public void setMoveable( boolean moveable ) 
     {
+        if ( this.moveable == moveable )
+        {
+            return; // nothing changed, so the image stays as it is
+        } // end if
         this.moveable = moveable; 
+        setImage( moveable ? opaqueImage : fadedImage ); // if moveable, piece is fully opaque; otherwise it is 50% transparent
     } // end method setMoveable
     
     /**
@@ -243,6 +211,26 @@ public class PlayerPiece extends Actor
     {
         losses++;
     } // end method incrementLosses
+
+    /**
+     * Setter for a piece's wins in battle (used when the board catches up with the GameManager in one go)
+     * 
+     * @param wins  the number of wins in battles for this piece
+     */
+    public void setWins( int wins )
+    {
+        this.wins = wins;
+    } // end method setWins
+
+    /**
+     * Setter for a piece's losses in battle
+     * 
+     * @param losses    the number of losses in battles for this piece
+     */
+    public void setLosses( int losses )
+    {
+        this.losses = losses;
+    } // end method setLosses
     
     /**
      * Setter for the name of each tier of spaceship to a historical reference.
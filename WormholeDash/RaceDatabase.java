@@ -0,0 +1,163 @@
+/**
+ * Exact win probabilities for "races": endgames where the two players' pieces can never meet again, so the
+ * game is decided only by who brings their pieces home first (like a backgammon bear-off database).
+ *
+ * Both movement paths cross the top lane (path indices 11-15) in opposite directions, so a race only starts once
+ * every piece either player has left is in the top lane and each red piece has already passed each blue one
+ * (red path index + blue path index >= 27, since red index i is blue index 26 - i there). From then on tiers
+ * don't matter (there are no more battles): all that matters is which of their 5 top-lane squares each player
+ * still occupies. That makes only 32 x 32 positions, which are solved exactly by value iteration when the class
+ * loads, so evaluating a race is a single array lookup instead of a search.
+ *
+ * All of this relies on the standard routes, so with a RuleVariant that changes them (or puts different stars on
+ * the two players' top lanes) no position counts as a race and the CPU players search instead.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public final class RaceDatabase
+{
+    /* PUBLIC CONSTANTS */
+    public static final int FIRST_RACE_PATH_INDEX = 11;                 // the top lane, the only place a race can happen
+    public static final int RACE_LANE_LENGTH = GameManager.PATH_LENGTH - FIRST_RACE_PATH_INDEX;
+    public static final int CROSSED_PATH_INDEX_SUM = 27;                // red index + blue index above 26 means they've passed
+    public static final boolean RACES_SUPPORTED = RuleVariant.ACTIVE.hasStandardRoutes()
+                                                  && ( MoveTable.getStarTargetMask( 0 ) & BoardState.SHARED_TOP_LANE_MASK ) == ( MoveTable.getStarTargetMask( 1 ) & BoardState.SHARED_TOP_LANE_MASK );
+
+    /* PRIVATE CONSTANTS */
+    private static final int NUMBER_OF_LANE_MASKS = 1 << RACE_LANE_LENGTH;
+    private static final double TOLERANCE = 1e-12;
+
+    // chance that the player about to roll wins, indexed by ( own lane mask << 5 ) | opponent lane mask
+    private static final double[] WIN_PROBABILITY = new double[NUMBER_OF_LANE_MASKS * NUMBER_OF_LANE_MASKS];
+
+    static
+    {
+        for ( int ownLaneMask = 0; ownLaneMask < NUMBER_OF_LANE_MASKS; ownLaneMask++ )
+        {
+            for ( int opponentLaneMask = 0; opponentLaneMask < NUMBER_OF_LANE_MASKS; opponentLaneMask++ )
+            {
+                // a player with nothing left has already won
+                WIN_PROBABILITY[ tableIndex( ownLaneMask, opponentLaneMask ) ] = ( opponentLaneMask == 0 ) ? 0.0 : ( ownLaneMask == 0 ) ? 1.0 : 0.5;
+            } // end INNER for
+        } // end OUTER for
+
+        double maxChange;
+        do
+        {
+            maxChange = 0.0;
+            for ( int ownLaneMask = 1; ownLaneMask < NUMBER_OF_LANE_MASKS; ownLaneMask++ )
+            {
+                for ( int opponentLaneMask = 1; opponentLaneMask < NUMBER_OF_LANE_MASKS; opponentLaneMask++ )
+                {
+                    double newValue = computeWinProbability( ownLaneMask, opponentLaneMask );
+                    int index = tableIndex( ownLaneMask, opponentLaneMask );
+                    maxChange = Math.max( maxChange, Math.abs( newValue - WIN_PROBABILITY[index] ) );
+                    WIN_PROBABILITY[index] = newValue;
+                } // end INNER for
+            } // end OUTER for
+        } while ( maxChange > TOLERANCE );
+    } // end static initializer
+
+    /* CONSTRUCTORS */
+    /**
+     * RaceDatabase only has static lookups, so it is never instantiated
+     */
+    private RaceDatabase()
+    {
+    } // end private no-arg constructor
+
+    /* METHODS */
+    /**
+     * One value iteration step for a race position: the average over the rolls of the best move, where landing on
+     * a star space rolls again and any other move hands the opponent the rest of the probability
+     */
+    private static double computeWinProbability( int ownLaneMask, int opponentLaneMask )
+    {
+        double valueSum = 0.0;
+        for ( int dieRollValue = 1; dieRollValue <= GameManager.MOVEMENT_DIE_SIDES; dieRollValue++ )
+        {
+            double bestValue = -1.0;
+            for ( int laneIndex = 0; laneIndex < RACE_LANE_LENGTH; laneIndex++ )
+            {
+                if ( ( ownLaneMask & ( 1 << laneIndex ) ) == 0 )
+                {
+                    continue;
+                } // end if
+                int targetLaneIndex = laneIndex + dieRollValue;
+                if ( targetLaneIndex > RACE_LANE_LENGTH || ( targetLaneIndex < RACE_LANE_LENGTH && ( ownLaneMask & ( 1 << targetLaneIndex ) ) != 0 ) )
+                {
+                    continue; // overshoots the goal, or lands on its own piece
+                } // end if
+
+                int newLaneMask = ownLaneMask & ~( 1 << laneIndex );
+                double value;
+                if ( targetLaneIndex == RACE_LANE_LENGTH )
+                {
+                    value = ( newLaneMask == 0 ) ? 1.0 : 1.0 - WIN_PROBABILITY[ tableIndex( opponentLaneMask, newLaneMask ) ];
+                } // end if
+                else
+                {
+                    newLaneMask |= 1 << targetLaneIndex;
+                    boolean rollsAgain = ( MoveTable.getStarTargetMask( 0 ) & ( 1 << ( FIRST_RACE_PATH_INDEX + targetLaneIndex ) ) ) != 0;
+                    value = rollsAgain ? WIN_PROBABILITY[ tableIndex( newLaneMask, opponentLaneMask ) ]
+                                       : 1.0 - WIN_PROBABILITY[ tableIndex( opponentLaneMask, newLaneMask ) ];
+                } // end else
+                bestValue = Math.max( bestValue, value );
+            } // end for
+
+            if ( bestValue < 0.0 )
+            {
+                bestValue = 1.0 - WIN_PROBABILITY[ tableIndex( opponentLaneMask, ownLaneMask ) ]; // no move, so the turn passes
+            } // end if
+            valueSum += bestValue;
+        } // end for
+        return valueSum / GameManager.MOVEMENT_DIE_SIDES;
+    } // end method computeWinProbability
+
+    /**
+     * Computes where in the table the entry for the given pair of lane masks lives
+     */
+    private static int tableIndex( int ownLaneMask, int opponentLaneMask )
+    {
+        return ( ownLaneMask << RACE_LANE_LENGTH ) | opponentLaneMask;
+    } // end method tableIndex
+
+    /**
+     * Checks whether a position is a race: races are supported by the rules in force, the game isn't over, neither player has a piece in their starting zone or
+     * below the top lane, and every red piece has already passed every blue piece
+     *
+     * @param boardState    the position to check
+     */
+    public static boolean isRace( BoardState boardState )
+    {
+        if ( !RACES_SUPPORTED || boardState.isGameOver() )
+        {
+            return false;
+        } // end if
+        int redPathMask = boardState.getPathMaskForPlayerIndex( 0 );
+        int bluePathMask = boardState.getPathMaskForPlayerIndex( 1 );
+        int laneMask = BoardState.SHARED_TOP_LANE_MASK;
+        if ( redPathMask == 0 || bluePathMask == 0 || ( redPathMask & ~laneMask ) != 0 || ( bluePathMask & ~laneMask ) != 0
+             || boardState.getTotalStartCountForPlayerIndex( 0 ) != 0 || boardState.getTotalStartCountForPlayerIndex( 1 ) != 0 )
+        {
+            return false;
+        } // end if
+        // the rearmost red piece and the rearmost blue piece are the closest pair to not having crossed yet
+        return Integer.numberOfTrailingZeros( redPathMask ) + Integer.numberOfTrailingZeros( bluePathMask ) >= CROSSED_PATH_INDEX_SUM;
+    } // end method isRace
+
+    /**
+     * Looks up the chance that the player about to roll wins a race, with perfect play from both sides
+     *
+     * @param boardState    a race (see isRace) at the start of a turn (PLAYER1_ROLL_DIE or PLAYER2_ROLL_DIE)
+     * @return the win probability (0 to 1) for the player whose turn it is
+     */
+    public static double getWinProbability( BoardState boardState )
+    {
+        int playerIndex = boardState.getCurrentPlayerIndex();
+        int ownLaneMask = boardState.getPathMaskForPlayerIndex( playerIndex ) >>> FIRST_RACE_PATH_INDEX;
+        int opponentLaneMask = boardState.getPathMaskForPlayerIndex( 1 - playerIndex ) >>> FIRST_RACE_PATH_INDEX;
+        return WIN_PROBABILITY[ tableIndex( ownLaneMask, opponentLaneMask ) ];
+    } // end method getWinProbability
+} // end class RaceDatabase
@@ -0,0 +1,20 @@
+/**
+ * The original CPU player: each moveable piece, in order, has a 30% chance of being picked until one is.
+ * It isn't "smart" AI, but it works well enough and is the baseline the other CPU players are measured against.
+ * 
+ * @author  bickfori@email.uscb.edu 
+ * @version Final Version
+ */
+public class RandomCpuPlayer implements CpuPlayer
+{
+    /**
+     * Picks a piece the same way the GameBoard's CPU always has
+     * 
+     * @param gameManager   the game being played
+     * @return the index of the piece to move, or -1 if no piece is moveable
+     */
+    public int selectPieceIndex( GameManager gameManager )
+    {
+        return gameManager.selectRandomCpuPieceIndex();
+    } // end method selectPieceIndex
+} // end class RandomCpuPlayer
@@ -0,0 +1,157 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Plays back a GameRecord on the GameBoard, from normal speed (one turn every ACTS_PER_TURN_AT_NORMAL_SPEED act
+ * cycles) up to 1000 times that. The viewer never plays the game itself: each act cycle it works out which turn
+ * should be showing, seeks the record there (at most one keyframe interval of recorded turns, however far it
+ * jumps) and the GameBoard moves the sprites to match, so 1000x is as cheap per frame as 1x.
+ *
+ * Keys while a replay is showing: "space" pauses and resumes, "up" and "down" change the speed, "left" and
+ * "right" step back and forward a turn, "home" and "end" jump to the start and the end.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public class ReplayViewer
+{
+    /* PUBLIC CONSTANTS */
+    public static final int[] SPEEDS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000 };
+    public static final int ACTS_PER_TURN_AT_NORMAL_SPEED = 60;
+
+    /* FIELDS */
+    private GameRecord record;
+    private double turnPosition;    // fractional, so slow speeds move on every few act cycles
+    private int speedIndex;
+    private boolean paused;
+    private int shownTurn = -1;     // the turn the GameBoard is showing, -1 before the first frame
+    private boolean shownPaused;
+    private int shownSpeedIndex;
+
+    /* CONSTRUCTORS */
+    /**
+     * Initializes a viewer at the start of a record, playing at normal speed
+     *
+     * @param record    the game to play back
+     */
+    public ReplayViewer( GameRecord record )
+    {
+        this.record = record;
+        record.seek( 0 );
+    } // end ReplayViewer 1-arg constructor
+
+    /* METHODS */
+    /**
+     * Opens the newest record in the records folder
+     *
+     * @return a viewer for it, or null if there is no record (or it can't be read)
+     */
+    public static ReplayViewer openNewest()
+    {
+        try
+        {
+            Path path = GameRecord.findNewest( Paths.get( GameRecord.RECORDS_FOLDER ) );
+            return ( path == null ) ? null : new ReplayViewer( GameRecord.read( path ) );
+        } // end try
+        catch ( IOException exception )
+        {
+            System.err.println( "Could not open the game record: " + exception.getMessage() );
+            return null;
+        } // end catch
+    } // end method openNewest
+
+    /**
+     * Handles a key pressed while the replay is showing (see the class comment)
+     *
+     * @param key   the key, as returned by `Greenfoot.getKey` (may be null)
+     */
+    public void handleKey( String key )
+    {
+        if ( key == null )
+        {
+            return;
+        } // end if
+        switch ( key )
+        {
+            case "space":
+                paused = !paused;
+                break;
+            case "up":
+                speedIndex = Math.min( speedIndex + 1, SPEEDS.length - 1 );
+                break;
+            case "down":
+                speedIndex = Math.max( speedIndex - 1, 0 );
+                break;
+            case "right":
+                jumpToTurn( (int) turnPosition + 1 );
+                break;
+            case "left":
+                jumpToTurn( (int) turnPosition - 1 );
+                break;
+            case "home":
+                jumpToTurn( 0 );
+                break;
+            case "end":
+                jumpToTurn( record.getTurnCount() );
+                break;
+            default:
+                break;
+        } // end switch
+    } // end method handleKey
+
+    /**
+     * Pauses the replay at a turn (clamped to the record)
+     */
+    private void jumpToTurn( int turn )
+    {
+        turnPosition = Math.max( 0, Math.min( turn, record.getTurnCount() ) );
+        paused = true;
+    } // end method jumpToTurn
+
+    /**
+     * Moves the replay on by one act cycle's worth of turns (pausing at the end) and seeks the record to the
+     * turn that should be showing
+     *
+     * @return true if the GameBoard has to redraw: the turn, the speed or the pause changed
+     */
+    public boolean act()
+    {
+        if ( !paused )
+        {
+            turnPosition += (double) SPEEDS[speedIndex] / ACTS_PER_TURN_AT_NORMAL_SPEED;
+            if ( turnPosition >= record.getTurnCount() )
+            {
+                turnPosition = record.getTurnCount();
+                paused = true;
+            } // end if
+        } // end if
+
+        int turn = (int) turnPosition;
+        if ( turn == shownTurn && paused == shownPaused && speedIndex == shownSpeedIndex )
+        {
+            return false;
+        } // end if
+        record.seek( turn );
+        shownTurn = turn;
+        shownPaused = paused;
+        shownSpeedIndex = speedIndex;
+        return true;
+    } // end method act
+
+    /**
+     * Returns the caption for under the die, e.g. "Replay\nturn 12 of 80\n50x"
+     */
+    public String getCaption()
+    {
+        return "Replay\nturn " + record.getTurn() + " of " + record.getTurnCount() + "\n" + SPEEDS[speedIndex] + "x" + ( paused ? " (paused)" : "" );
+    } // end method getCaption
+
+    /**
+     * Getter for the record, seeked to the turn being shown
+     */
+    public GameRecord getRecord()
+    {
+        return record;
+    } // end method getRecord
+} // end class ReplayViewer
@@ -0,0 +1,267 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongToDoubleFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Solves Wormhole Dash endgames exactly and writes the result as a Tablebase file.
+ *
+ * The whole game is far too big to solve (about 3 * 10^13 positions), but the endgames where each player has at
+ * most a few pieces left outside the goal form a closed game of their own (see TablebaseIndex). The solver lists
+ * every such position and runs value iteration on them, the same way the Royal Game of Ur was solved: the value of
+ * a position is the average over the movement die rolls of the best move's value, where a battle is averaged over its exact
+ * odds, a star reroll keeps the value with the same player and any other turn hands the opponent the rest
+ * (1 - their value). Every sweep updates all positions in parallel on the common ForkJoinPool until no value
+ * changes by more than the tolerance. Positions with cycles (a captured piece goes back to its starting zone)
+ * are why this needs iterating rather than a single backwards pass.
+ *
+ * Run it from the scenario folder with `java RetrogradeSolver [maxPiecesLeft] [file]`.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public final class RetrogradeSolver
+{
+    /* PUBLIC CONSTANTS */
+    public static final int DEFAULT_MAX_PIECES_LEFT = 2;
+    public static final double DEFAULT_TOLERANCE = 1e-6;
+    public static final int MAX_ITERATIONS = 10_000;
+
+    /* PRIVATE CONSTANTS */
+    private static final int STATES_PER_TASK = 1 << 14;
+    private static final int VALUES_PER_WRITE = 1 << 20;
+
+    /* FIELDS */
+    private final TablebaseIndex index;
+    private final float[] values;
+    private final LongToDoubleFunction valueOfSlot;
+    private int iterationCount;
+    private double lastMaxChange;
+
+    /* CONSTRUCTORS */
+    /**
+     * Initializes a solver for every position in the given index
+     *
+     * @param index     numbers the positions to solve
+     */
+    public RetrogradeSolver( TablebaseIndex index )
+    {
+        if ( index.getStateCount() > Integer.MAX_VALUE )
+        {
+            throw new IllegalArgumentException( "too many positions to solve in memory: " + index.getStateCount() );
+        } // end if
+        this.index = index;
+        this.values = new float[ (int) index.getStateCount() ];
+        this.valueOfSlot = slot -> values[ (int) slot ];
+    } // end RetrogradeSolver 1-arg constructor
+
+    /* METHODS */
+    /**
+     * Solves the endgames with the given number of pieces left and writes the tablebase
+     *
+     * @param args  optionally the most pieces left per player (default 2) and the file to write (default endgame.tb)
+     */
+    public static void main( String[] args ) throws IOException
+    {
+        int maxPiecesLeft = ( args.length > 0 ) ? Integer.parseInt( args[0] ) : DEFAULT_MAX_PIECES_LEFT;
+        Path path = Paths.get( ( args.length > 1 ) ? args[1] : Tablebase.DEFAULT_FILE_NAME );
+
+        long startNanos = System.nanoTime();
+        TablebaseIndex index = TablebaseIndex.enumerate( maxPiecesLeft );
+        System.out.println( index.getConfigurationCount() + " configurations per player, " + index.getStateCount() + " positions" );
+        RetrogradeSolver solver = new RetrogradeSolver( index );
+        solver.solve( DEFAULT_TOLERANCE );
+        System.out.println( "converged after " + solver.getIterationCount() + " sweeps (last change " + solver.getLastMaxChange() + ")" );
+        solver.write( path );
+        System.out.println( "wrote " + path + " in " + ( System.nanoTime() - startNanos ) / 1_000_000_000.0 + " s" );
+    } // end method main
+
+    /**
+     * Runs value iteration until no position's value changes by more than the tolerance
+     *
+     * @param tolerance     the largest change allowed in the last sweep
+     */
+    public void solve( double tolerance )
+    {
+        initializeValues();
+        iterationCount = 0;
+        do
+        {
+            lastMaxChange = sweep();
+            iterationCount++;
+        } while ( lastMaxChange > tolerance && iterationCount < MAX_ITERATIONS );
+    } // end method solve
+
+    /**
+     * Starts every possible position at 0.5, every impossible one at NaN and every decided one at its result
+     * (a player with no pieces left has already won)
+     */
+    private void initializeValues()
+    {
+        IntStream.range( 0, getNumberOfTasks() ).parallel().forEach( task ->
+        {
+            BoardState boardState = new BoardState( 0L, 0L );
+            int endSlot = Math.min( values.length, ( task + 1 ) * STATES_PER_TASK );
+            for ( int slot = task * STATES_PER_TASK; slot < endSlot; slot++ )
+            {
+                index.getBoardState( slot, boardState );
+                int playerIndex = boardState.getCurrentPlayerIndex();
+                if ( !TablebaseIndex.isPossible( boardState ) )
+                {
+                    values[slot] = Float.NaN;
+                } // end if
+                else if ( boardState.getGoalCountForPlayerIndex( playerIndex ) == GameManager.NUMBER_OF_PIECES_PER_PLAYER )
+                {
+                    values[slot] = 1.0f;
+                } // end else if
+                else if ( boardState.getGoalCountForPlayerIndex( 1 - playerIndex ) == GameManager.NUMBER_OF_PIECES_PER_PLAYER )
+                {
+                    values[slot] = 0.0f;
+                } // end else if
+                else
+                {
+                    values[slot] = 0.5f;
+                } // end else
+            } // end for
+        } );
+    } // end method initializeValues
+
+    /**
+     * Updates every undecided position once, in place and in parallel
+     *
+     * @return the largest change made to any value
+     */
+    private double sweep()
+    {
+        return IntStream.range( 0, getNumberOfTasks() ).parallel().mapToDouble( this::sweepTask ).max().orElse( 0.0 );
+    } // end method sweep
+
+    /**
+     * Updates one block of positions
+     *
+     * @return the largest change made in the block
+     */
+    private double sweepTask( int task )
+    {
+        BoardState boardState = new BoardState( 0L, 0L );
+        BoardState rolledState = new BoardState( 0L, 0L );
+        BoardState scratchState = new BoardState( 0L, 0L );
+        int[] moves = new int[16];
+        double maxChange = 0.0;
+
+        int endSlot = Math.min( values.length, ( task + 1 ) * STATES_PER_TASK );
+        for ( int slot = task * STATES_PER_TASK; slot < endSlot; slot++ )
+        {
+            float oldValue = values[slot];
+            if ( Float.isNaN( oldValue ) )
+            {
+                continue;
+            } // end if
+            index.getBoardState( slot, boardState );
+            if ( boardState.getGoalCountForPlayerIndex( 0 ) == GameManager.NUMBER_OF_PIECES_PER_PLAYER
+                 || boardState.getGoalCountForPlayerIndex( 1 ) == GameManager.NUMBER_OF_PIECES_PER_PLAYER )
+            {
+                continue; // already decided
+            } // end if
+
+            double valueSum = 0.0;
+            for ( int dieRollValue = 1; dieRollValue <= GameManager.MOVEMENT_DIE_SIDES; dieRollValue++ )
+            {
+                rolledState.copyFrom( boardState );
+                rolledState.applyMovementDieRoll( dieRollValue );
+                int numberOfMoves = ExpectiminimaxCpuPlayer.generateMoves( rolledState, moves );
+                double bestValue = ( numberOfMoves == 0 )
+                                   ? Tablebase.getMoveWinProbability( index, valueOfSlot, rolledState, 0, scratchState )
+                                   : 0.0;
+                for ( int moveIndex = 0; moveIndex < numberOfMoves; moveIndex++ )
+                {
+                    bestValue = Math.max( bestValue, Tablebase.getMoveWinProbability( index, valueOfSlot, rolledState, moves[moveIndex], scratchState ) );
+                } // end for
+                valueSum += bestValue;
+            } // end for
+
+            float newValue = (float)( valueSum / GameManager.MOVEMENT_DIE_SIDES );
+            values[slot] = newValue;
+            maxChange = Math.max( maxChange, Math.abs( newValue - oldValue ) );
+        } // end for
+        return maxChange;
+    } // end method sweepTask
+
+    /**
+     * Works out how many blocks the positions are split into for the parallel sweeps
+     */
+    private int getNumberOfTasks()
+    {
+        return ( values.length + STATES_PER_TASK - 1 ) / STATES_PER_TASK;
+    } // end method getNumberOfTasks
+
+    /**
+     * Writes the solved values as a tablebase file (see Tablebase for the layout)
+     *
+     * @param path  the file to write (replaced if it exists)
+     */
+    public void write( Path path ) throws IOException
+    {
+        try ( FileChannel channel = FileChannel.open( path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING ) )
+        {
+            long[] configurationKeys = index.getConfigurationKeys();
+            ByteBuffer header = ByteBuffer.allocate( Tablebase.HEADER_BYTES + 8 * configurationKeys.length );
+            header.putInt( Tablebase.MAGIC ).putInt( Tablebase.FORMAT_VERSION ).putInt( RuleVariant.ACTIVE.getFingerprint() )
+                  .putInt( index.getMaxPiecesLeft() )
+                  .putInt( configurationKeys.length ).putLong( values.length );
+            header.asLongBuffer().put( configurationKeys );
+            header.position( header.capacity() );
+            header.flip();
+            writeFully( channel, header );
+
+            ByteBuffer valueBuffer = ByteBuffer.allocate( 4 * VALUES_PER_WRITE );
+            for ( int firstSlot = 0; firstSlot < values.length; firstSlot += VALUES_PER_WRITE )
+            {
+                int count = Math.min( VALUES_PER_WRITE, values.length - firstSlot );
+                valueBuffer.clear();
+                valueBuffer.asFloatBuffer().put( values, firstSlot, count );
+                valueBuffer.limit( 4 * count );
+                writeFully( channel, valueBuffer );
+            } // end for
+        } // end try
+    } // end method write
+
+    /**
+     * Writes the whole buffer to the channel
+     */
+    private static void writeFully( FileChannel channel, ByteBuffer buffer ) throws IOException
+    {
+        while ( buffer.hasRemaining() )
+        {
+            channel.write( buffer );
+        } // end while
+    } // end method writeFully
+
+    /**
+     * Returns the solved win probability for the side to move in one slot (NaN for an impossible position)
+     */
+    public float getValue( int slot )
+    {
+        return values[slot];
+    } // end method getValue
+
+    /**
+     * Getter for how many sweeps the last solve took
+     */
+    public int getIterationCount()
+    {
+        return iterationCount;
+    } // end method getIterationCount
+
+    /**
+     * Getter for the largest change made in the last sweep
+     */
+    public double getLastMaxChange()
+    {
+        return lastMaxChange;
+    } // end method getLastMaxChange
+} // end class RetrogradeSolver
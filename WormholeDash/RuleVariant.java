@@ -0,0 +1,534 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of Wormhole Dash rules: which pieces each player has, the sizes of the movement die and the battle dice,
+ * which spaces are stars and the route each player's pieces take across the 20 spaces of the board. Variants are
+ * defined in a small config file (DEFAULT_FILE_NAME in the scenario folder), for example:
+ *
+ *   active = Finkel 5-piece
+ *
+ *   [Finkel 5-piece]
+ *   based on = Standard
+ *   pieces = 1 1 2 2 3
+ *
+ * Settings of a variant: "pieces" (the tier of every piece, lowest first), "movement die" and "battle die" (the
+ * number of sides), "stars" (the star spaces), "red route" and "blue route" (the 16 spaces of each path, in
+ * order) and "based on" (a variant defined earlier, or the built-in Standard, whose settings are used for the
+ * rest). Lines starting with # are comments. The variant played is the file's "active" one, unless the
+ * VARIANT_PROPERTY system property names another.
+ *
+ * The variant is picked once, when the engine's classes load: GameManager, BoardState, MoveTable and the rest copy
+ * the tables compiled here (the routes, every square's opponent square, the opponent-mask translation, the star
+ * targets) into their own static final fields, so a variant plays exactly as fast as the standard rules, with no
+ * checks of which rules are in force. The engine packs a position into two longs, which limits a variant to at
+ * most 3 tier 1 pieces, 3 tier 2 pieces and 1 tier 3 piece (see MAX_PIECES_FOR_TIER) and 16-space routes.
+ *
+ * Run it from the scenario folder with `java RuleVariant [file]` to check a config file and list its variants.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public final class RuleVariant
+{
+    /* PUBLIC CONSTANTS */
+    public static final String DEFAULT_FILE_NAME = "variants.cfg";
+    public static final String VARIANT_PROPERTY = "wormholedash.variant";
+    public static final String STANDARD_NAME = "Standard";
+    public static final int[] MAX_PIECES_FOR_TIER = { 0, 3, 3, 1 };    // indexed by tier, what a BoardState start zone can count
+    public static final int MAX_MOVEMENT_DIE_SIDES = 4;                 // a recorded turn keeps the roll in 2 bits
+    public static final int MAX_BATTLE_DIE_SIDES = 6;                   // the die sprite only has 6 faces
+
+    /* PRIVATE CONSTANTS */
+    private static final int[][] STANDARD_ROUTES = {
+        { 0, 1, 2, 3, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19 },  // red, player 1
+        { 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 19, 18, 17, 16, 15 }   // blue, player 2
+    };
+
+    /* PUBLIC CONSTANTS (these need the private ones above) */
+    public static final RuleVariant STANDARD = new RuleVariant( STANDARD_NAME, new int[]{ 1, 1, 1, 2, 2, 2, 3 }, 3, 6,
+                                                                new int[]{ 3, 7, 11, 15, 19 }, STANDARD_ROUTES );
+    public static final RuleVariant ACTIVE = loadActive();
+
+    /* FIELDS */
+    private final String name;
+    private final int[] pieceTiers;
+    private final int[] pieceCountForTier;          // indexed by tier (1 to 3)
+    private final int movementDieSides;
+    private final int battleDieSides;
+    private final int[] starSpaceIndices;
+    private final int[][] routes;                   // [playerIndex][pathIndex], the space index
+
+    // the compiled tables
+    private final boolean[] isStarSpace;            // [spaceIndex]
+    private final int[] starTargetMask;             // [playerIndex], bit i = path index i is a star
+    private final int[][] opponentPathIndex;        // [playerIndex][pathIndex], the same space on the opponent's path, or -1
+    private final int[][] opponentMaskFromLowByte;  // [playerIndex][byte], see getOpponentMaskFromLowByte
+    private final int[][] opponentMaskFromHighByte;
+    private final int fingerprint;
+
+    /* CONSTRUCTORS */
+    /**
+     * Initializes a variant, checking that the engine can play it, and compiles its tables
+     *
+     * @param name              what the variant is called
+     * @param pieceTiers        the tier (1 to 3) of every piece, lowest first
+     * @param movementDieSides  the number of sides on the movement die (2 to MAX_MOVEMENT_DIE_SIDES)
+     * @param battleDieSides    the number of sides on a battle die (2 to MAX_BATTLE_DIE_SIDES)
+     * @param starSpaceIndices  the star spaces (0 to 19)
+     * @param routes            each player's path, as GameManager.PATH_LENGTH different space indices
+     * @throws IllegalArgumentException if the engine can't play these rules
+     */
+    public RuleVariant( String name, int[] pieceTiers, int movementDieSides, int battleDieSides, int[] starSpaceIndices, int[][] routes )
+    {
+        if ( name.isEmpty() )
+        {
+            throw new IllegalArgumentException( "a rule variant needs a name" );
+        } // end if
+        if ( pieceTiers.length < 1 || pieceTiers.length > GameManager.MAX_PIECES_PER_PLAYER )
+        {
+            throw new IllegalArgumentException( name + ": a player needs 1 to " + GameManager.MAX_PIECES_PER_PLAYER + " pieces, got " + pieceTiers.length );
+        } // end if
+        pieceCountForTier = new int[GameManager.MAX_PIECE_TIER + 1];
+        for ( int pieceIndex = 0; pieceIndex < pieceTiers.length; pieceIndex++ )
+        {
+            int tier = pieceTiers[pieceIndex];
+            if ( tier < 1 || tier > GameManager.MAX_PIECE_TIER || ( pieceIndex > 0 && tier < pieceTiers[pieceIndex - 1] ) )
+            {
+                throw new IllegalArgumentException( name + ": piece tiers must be 1 to " + GameManager.MAX_PIECE_TIER + ", lowest first, got " + Arrays.toString( pieceTiers ) );
+            } // end if
+            if ( ++pieceCountForTier[tier] > MAX_PIECES_FOR_TIER[tier] )
+            {
+                throw new IllegalArgumentException( name + ": a player can have at most " + MAX_PIECES_FOR_TIER[tier] + " tier " + tier + " pieces" );
+            } // end if
+        } // end for
+        if ( movementDieSides < 2 || movementDieSides > MAX_MOVEMENT_DIE_SIDES )
+        {
+            throw new IllegalArgumentException( name + ": the movement die needs 2 to " + MAX_MOVEMENT_DIE_SIDES + " sides, got " + movementDieSides );
+        } // end if
+        if ( battleDieSides < 2 || battleDieSides > MAX_BATTLE_DIE_SIDES )
+        {
+            throw new IllegalArgumentException( name + ": a battle die needs 2 to " + MAX_BATTLE_DIE_SIDES + " sides, got " + battleDieSides );
+        } // end if
+        isStarSpace = new boolean[GameManager.NUMBER_OF_SPACES];
+        for ( int spaceIndex : starSpaceIndices )
+        {
+            checkSpaceIndex( name, spaceIndex );
+            isStarSpace[spaceIndex] = true;
+        } // end for
+        if ( routes.length != GameManager.NUMBER_OF_PLAYERS )
+        {
+            throw new IllegalArgumentException( name + ": needs a route for each of the " + GameManager.NUMBER_OF_PLAYERS + " players" );
+        } // end if
+
+        // where each space is along each route (-1 if the route doesn't use it)
+        int[][] pathIndexForSpaceIndex = new int[GameManager.NUMBER_OF_PLAYERS][GameManager.NUMBER_OF_SPACES];
+        for ( int playerIndex = 0; playerIndex < GameManager.NUMBER_OF_PLAYERS; playerIndex++ )
+        {
+            if ( routes[playerIndex].length != GameManager.PATH_LENGTH )
+            {
+                throw new IllegalArgumentException( name + ": player " + ( playerIndex + 1 ) + "'s route needs " + GameManager.PATH_LENGTH + " spaces, got " + routes[playerIndex].length );
+            } // end if
+            Arrays.fill( pathIndexForSpaceIndex[playerIndex], -1 );
+            for ( int pathIndex = 0; pathIndex < GameManager.PATH_LENGTH; pathIndex++ )
+            {
+                int spaceIndex = routes[playerIndex][pathIndex];
+                checkSpaceIndex( name, spaceIndex );
+                if ( pathIndexForSpaceIndex[playerIndex][spaceIndex] >= 0 )
+                {
+                    throw new IllegalArgumentException( name + ": player " + ( playerIndex + 1 ) + "'s route visits space " + spaceIndex + " twice" );
+                } // end if
+                pathIndexForSpaceIndex[playerIndex][spaceIndex] = pathIndex;
+            } // end INNER for
+        } // end OUTER for
+
+        this.name = name;
+        this.pieceTiers = pieceTiers.clone();
+        this.movementDieSides = movementDieSides;
+        this.battleDieSides = battleDieSides;
+        this.starSpaceIndices = starSpaceIndices.clone();
+        this.routes = new int[][]{ routes[0].clone(), routes[1].clone() };
+
+        // compile the tables the engine reads on every move
+        starTargetMask = new int[GameManager.NUMBER_OF_PLAYERS];
+        opponentPathIndex = new int[GameManager.NUMBER_OF_PLAYERS][GameManager.PATH_LENGTH];
+        opponentMaskFromLowByte = new int[GameManager.NUMBER_OF_PLAYERS][256];
+        opponentMaskFromHighByte = new int[GameManager.NUMBER_OF_PLAYERS][256];
+        for ( int playerIndex = 0; playerIndex < GameManager.NUMBER_OF_PLAYERS; playerIndex++ )
+        {
+            int opposingPlayerIndex = 1 - playerIndex;
+            for ( int pathIndex = 0; pathIndex < GameManager.PATH_LENGTH; pathIndex++ )
+            {
+                int spaceIndex = this.routes[playerIndex][pathIndex];
+                starTargetMask[playerIndex] |= isStarSpace[spaceIndex] ? 1 << pathIndex : 0;
+                opponentPathIndex[playerIndex][pathIndex] = pathIndexForSpaceIndex[opposingPlayerIndex][spaceIndex];
+            } // end INNER for
+        } // end OUTER for
+        for ( int playerIndex = 0; playerIndex < GameManager.NUMBER_OF_PLAYERS; playerIndex++ )
+        {
+            int opposingPlayerIndex = 1 - playerIndex;
+
+            // the opponent's path index j is this player's path index opponentPathIndex[opposingPlayerIndex][j]
+            for ( int pathByte = 0; pathByte < 256; pathByte++ )
+            {
+                for ( int bit = 0; bit < 8; bit++ )
+                {
+                    if ( ( pathByte & ( 1 << bit ) ) == 0 )
+                    {
+                        continue;
+                    } // end if
+                    int lowPathIndex = opponentPathIndex[opposingPlayerIndex][bit];
+                    int highPathIndex = opponentPathIndex[opposingPlayerIndex][bit + 8];
+                    opponentMaskFromLowByte[playerIndex][pathByte] |= ( lowPathIndex >= 0 ) ? 1 << lowPathIndex : 0;
+                    opponentMaskFromHighByte[playerIndex][pathByte] |= ( highPathIndex >= 0 ) ? 1 << highPathIndex : 0;
+                } // end INNER INNER for
+            } // end INNER for
+        } // end OUTER for
+
+        int hash = Arrays.hashCode( this.pieceTiers );
+        hash = 31 * hash + movementDieSides;
+        hash = 31 * hash + battleDieSides;
+        hash = 31 * hash + Arrays.hashCode( isStarSpace );
+        fingerprint = 31 * hash + Arrays.deepHashCode( this.routes );
+    } // end RuleVariant 6-arg constructor
+
+    /* METHODS */
+    /**
+     * Checks a config file and prints every variant in it, marking the one that would be played
+     *
+     * @param args  optionally the config file (DEFAULT_FILE_NAME by default)
+     */
+    public static void main( String[] args )
+    {
+        Path path = Paths.get( ( args.length > 0 ) ? args[0] : DEFAULT_FILE_NAME );
+        try
+        {
+            Map<String, Map<String, String>> sections = readSections( path );
+            String activeName = getActiveName( sections );
+            for ( RuleVariant variant : compileSections( sections ).values() )
+            {
+                System.out.println( ( variant.getName().equals( activeName ) ? "* " : "  " ) + variant );
+            } // end for
+            System.out.println( "Playing: " + ACTIVE.getName() );
+        } // end try
+        catch ( IOException | IllegalArgumentException exception )
+        {
+            System.err.println( "Could not read " + path + ": " + exception.getMessage() );
+        } // end catch
+    } // end method main
+
+    /**
+     * Picks the variant to play when the engine loads: the one named by VARIANT_PROPERTY, or else the config file's
+     * active one, or else Standard. A missing or broken config file is reported on System.err and Standard is played.
+     */
+    private static RuleVariant loadActive()
+    {
+        String requestedName = System.getProperty( VARIANT_PROPERTY );
+        Path path = Paths.get( DEFAULT_FILE_NAME );
+        if ( !Files.exists( path ) )
+        {
+            if ( requestedName != null && !requestedName.equals( STANDARD_NAME ) )
+            {
+                System.err.println( "No " + DEFAULT_FILE_NAME + " to find rule variant \"" + requestedName + "\" in, playing the " + STANDARD_NAME + " rules" );
+            } // end if
+            return STANDARD;
+        } // end if
+        try
+        {
+            return load( path, requestedName );
+        } // end try
+        catch ( IOException | IllegalArgumentException exception )
+        {
+            System.err.println( "Could not load the rule variant from " + path + ": " + exception.getMessage() + " (playing the " + STANDARD_NAME + " rules)" );
+            return STANDARD;
+        } // end catch
+    } // end method loadActive
+
+    /**
+     * Reads a config file and compiles one of its variants
+     *
+     * @param path  the config file
+     * @param name  the variant to compile, or null for the file's active one (Standard if it doesn't name one)
+     * @throws IOException if the file can't be read
+     * @throws IllegalArgumentException if the file is malformed, or has no such variant
+     */
+    public static RuleVariant load( Path path, String name ) throws IOException
+    {
+        Map<String, Map<String, String>> sections = readSections( path );
+        String wantedName = ( name != null ) ? name : getActiveName( sections );
+        RuleVariant variant = compileSections( sections ).get( wantedName );
+        if ( variant == null )
+        {
+            throw new IllegalArgumentException( "there is no rule variant named \"" + wantedName + "\"" );
+        } // end if
+        return variant;
+    } // end method load
+
+    /**
+     * Splits a config file into its sections of "key = value" settings, in file order. Settings before the
+     * first [section] go into the section named "".
+     *
+     * @throws IllegalArgumentException for a line that isn't a comment, a [section] or a setting
+     */
+    private static Map<String, Map<String, String>> readSections( Path path ) throws IOException
+    {
+        Map<String, Map<String, String>> sections = new LinkedHashMap<>();
+        Map<String, String> section = new LinkedHashMap<>();
+        sections.put( "", section );
+        List<String> lines = Files.readAllLines( path );
+        for ( int lineIndex = 0; lineIndex < lines.size(); lineIndex++ )
+        {
+            String line = lines.get( lineIndex ).trim();
+            int equalsIndex = line.indexOf( '=' );
+            if ( line.isEmpty() || line.startsWith( "#" ) )
+            {
+                continue;
+            } // end if
+            else if ( line.startsWith( "[" ) && line.endsWith( "]" ) )
+            {
+                String sectionName = line.substring( 1, line.length() - 1 ).trim();
+                if ( sections.containsKey( sectionName ) )
+                {
+                    throw new IllegalArgumentException( "line " + ( lineIndex + 1 ) + ": [" + sectionName + "] is defined twice" );
+                } // end if
+                section = new LinkedHashMap<>();
+                sections.put( sectionName, section );
+            } // end else if
+            else if ( equalsIndex > 0 )
+            {
+                section.put( line.substring( 0, equalsIndex ).trim().toLowerCase(), line.substring( equalsIndex + 1 ).trim() );
+            } // end else if
+            else
+            {
+                throw new IllegalArgumentException( "line " + ( lineIndex + 1 ) + ": expected a [variant] or a \"setting = value\", got \"" + line + "\"" );
+            } // end else
+        } // end for
+        return sections;
+    } // end method readSections
+
+    /**
+     * Returns the name of the variant a config file wants played (Standard if it doesn't say)
+     */
+    private static String getActiveName( Map<String, Map<String, String>> sections )
+    {
+        return sections.get( "" ).getOrDefault( "active", STANDARD_NAME );
+    } // end method getActiveName
+
+    /**
+     * Compiles every [section] of a config file into a variant, in file order, after the built-in Standard
+     * (which a section of the same name replaces)
+     */
+    private static Map<String, RuleVariant> compileSections( Map<String, Map<String, String>> sections )
+    {
+        Map<String, RuleVariant> variants = new LinkedHashMap<>();
+        variants.put( STANDARD_NAME, STANDARD );
+        for ( Map.Entry<String, Map<String, String>> section : sections.entrySet() )
+        {
+            if ( section.getKey().isEmpty() )
+            {
+                continue;
+            } // end if
+            String name = section.getKey();
+            Map<String, String> settings = section.getValue();
+            RuleVariant base = variants.get( settings.getOrDefault( "based on", STANDARD_NAME ) );
+            if ( base == null )
+            {
+                throw new IllegalArgumentException( name + ": based on \"" + settings.get( "based on" ) + "\", which isn't defined above it" );
+            } // end if
+            for ( String key : settings.keySet() )
+            {
+                if ( !Arrays.asList( "based on", "pieces", "movement die", "battle die", "stars", "red route", "blue route" ).contains( key ) )
+                {
+                    throw new IllegalArgumentException( name + ": unknown setting \"" + key + "\"" );
+                } // end if
+            } // end for
+
+            int[] pieceTiers = settings.containsKey( "pieces" ) ? parseNumbers( name, settings.get( "pieces" ) ) : base.pieceTiers;
+            int movementDieSides = settings.containsKey( "movement die" ) ? parseNumber( name, settings.get( "movement die" ) ) : base.movementDieSides;
+            int battleDieSides = settings.containsKey( "battle die" ) ? parseNumber( name, settings.get( "battle die" ) ) : base.battleDieSides;
+            int[] starSpaceIndices = settings.containsKey( "stars" ) ? parseNumbers( name, settings.get( "stars" ) ) : base.starSpaceIndices;
+            int[][] routes = { settings.containsKey( "red route" ) ? parseNumbers( name, settings.get( "red route" ) ) : base.routes[0],
+                               settings.containsKey( "blue route" ) ? parseNumbers( name, settings.get( "blue route" ) ) : base.routes[1] };
+            variants.put( name, new RuleVariant( name, pieceTiers, movementDieSides, battleDieSides, starSpaceIndices, routes ) );
+        } // end for
+        return variants;
+    } // end method compileSections
+
+    /**
+     * Parses a setting that is a list of whole numbers separated by spaces or commas (it may be empty)
+     */
+    private static int[] parseNumbers( String name, String value )
+    {
+        String trimmed = value.trim();
+        if ( trimmed.isEmpty() )
+        {
+            return new int[0];
+        } // end if
+        String[] words = trimmed.split( "[\\s,]+" );
+        int[] numbers = new int[words.length];
+        for ( int wordIndex = 0; wordIndex < words.length; wordIndex++ )
+        {
+            numbers[wordIndex] = parseNumber( name, words[wordIndex] );
+        } // end for
+        return numbers;
+    } // end method parseNumbers
+
+    /**
+     * Parses a setting that is a single whole number
+     */
+    private static int parseNumber( String name, String value )
+    {
+        try
+        {
+            return Integer.parseInt( value.trim() );
+        } // end try
+        catch ( NumberFormatException exception )
+        {
+            throw new IllegalArgumentException( name + ": \"" + value + "\" is not a whole number" );
+        } // end catch
+    } // end method parseNumber
+
+    /**
+     * Throws an IllegalArgumentException unless the given index is one of the board's spaces
+     */
+    private static void checkSpaceIndex( String name, int spaceIndex )
+    {
+        if ( spaceIndex < 0 || spaceIndex >= GameManager.NUMBER_OF_SPACES )
+        {
+            throw new IllegalArgumentException( name + ": there is no space " + spaceIndex + " (spaces are 0 to " + ( GameManager.NUMBER_OF_SPACES - 1 ) + ")" );
+        } // end if
+    } // end method checkSpaceIndex
+
+    /**
+     * Getter for the variant's name
+     */
+    public String getName()
+    {
+        return name;
+    } // end method getName
+
+    /**
+     * Getter for how many pieces each player has
+     */
+    public int getNumberOfPieces()
+    {
+        return pieceTiers.length;
+    } // end method getNumberOfPieces
+
+    /**
+     * Returns the tier of every piece, lowest first (a copy)
+     */
+    public int[] getPieceTiers()
+    {
+        return pieceTiers.clone();
+    } // end method getPieceTiers
+
+    /**
+     * Returns how many pieces of the given tier (1 to 3) each player has
+     */
+    public int getPieceCountForTier( int tier )
+    {
+        return pieceCountForTier[tier];
+    } // end method getPieceCountForTier
+
+    /**
+     * Getter for the number of sides on the movement die
+     */
+    public int getMovementDieSides()
+    {
+        return movementDieSides;
+    } // end method getMovementDieSides
+
+    /**
+     * Getter for the number of sides on a battle die
+     */
+    public int getBattleDieSides()
+    {
+        return battleDieSides;
+    } // end method getBattleDieSides
+
+    /**
+     * Returns each player's route, [playerIndex][pathIndex] to a space index (a copy)
+     */
+    public int[][] getRoutes()
+    {
+        return new int[][]{ routes[0].clone(), routes[1].clone() };
+    } // end method getRoutes
+
+    /**
+     * Returns which spaces are stars, indexed by space index (a copy)
+     */
+    public boolean[] getStarSpaces()
+    {
+        return isStarSpace.clone();
+    } // end method getStarSpaces
+
+    /**
+     * Returns each player's star squares as a mask along their own path (bit i = path index i), indexed by player (a copy)
+     */
+    public int[] getStarTargetMasks()
+    {
+        return starTargetMask.clone();
+    } // end method getStarTargetMasks
+
+    /**
+     * Returns, for each player and path index, the path index of the same space along the opponent's path, or
+     * -1 if the opponent's route doesn't cross it (a copy)
+     */
+    public int[][] getOpponentPathIndices()
+    {
+        return new int[][]{ opponentPathIndex[0].clone(), opponentPathIndex[1].clone() };
+    } // end method getOpponentPathIndices
+
+    /**
+     * Returns the tables that translate the opponent's path mask onto a player's own path one byte at a time:
+     * for player p, the opponent's mask m becomes table[p][m & 0xFF] with this table, OR'd with the high byte's
+     * (getOpponentMaskFromHighByte). Indexed by [playerIndex][byte] (the arrays themselves, so don't change them).
+     */
+    public int[][] getOpponentMaskFromLowByte()
+    {
+        return opponentMaskFromLowByte;
+    } // end method getOpponentMaskFromLowByte
+
+    /**
+     * The high-byte half of getOpponentMaskFromLowByte: path indices 8 to 15 of the opponent's mask
+     */
+    public int[][] getOpponentMaskFromHighByte()
+    {
+        return opponentMaskFromHighByte;
+    } // end method getOpponentMaskFromHighByte
+
+    /**
+     * Returns true if the variant uses the standard routes (the race database only knows that board)
+     */
+    public boolean hasStandardRoutes()
+    {
+        return Arrays.deepEquals( routes, STANDARD_ROUTES );
+    } // end method hasStandardRoutes
+
+    /**
+     * Returns a number that changes whenever any rule changes (but not the name), stored in saved games, game
+     * records and tablebases so a file made under other rules isn't read as if it were made under these
+     */
+    public int getFingerprint()
+    {
+        return fingerprint;
+    } // end method getFingerprint
+
+    /**
+     * Describes the variant in one line, e.g. for listing a config file
+     */
+    @Override
+    public String toString()
+    {
+        return name + ": pieces " + Arrays.toString( pieceTiers ) + ", d" + movementDieSides + " movement, d" + battleDieSides + " battle, stars "
+               + Arrays.toString( starSpaceIndices ) + ", routes " + Arrays.toString( routes[0] ) + " / " + Arrays.toString( routes[1] )
+               + String.format( ", fingerprint %08x", fingerprint );
+    } // end method toString
+} // end class RuleVariant
@@ -0,0 +1,245 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+/**
+ * A snapshot of a game between turns, small enough (about 50 bytes) to be written after every turn, so a game
+ * survives the scenario being closed or the machine being restarted. It holds everything the GameManager and the
+ * GameBoard can't work out for themselves: every piece's location and battle record, the game state (whose roll
+ * it is, or who has won), the star reroll flag, which players are human and which CPU player is picked. The goal
+ * counts and the start zones follow from the locations, and a piece's target is worked out again after the next
+ * roll, so neither is stored.
+ *
+ * The file is written to a temporary file first and then moved over the old one, so a crash part-way through a
+ * save leaves the previous save in place. A checksum and a range check on every field keep a damaged or
+ * hand-edited file from loading (GameManager.restore then rejects any position no game can reach).
+ *
+ * File layout (big-endian):
+ *   int     MAGIC
+ *   byte    FORMAT_VERSION
+ *   int     the fingerprint of the RuleVariant the game is played under (a save only loads under the same rules)
+ *   byte    state
+ *   byte    star reroll pending (0 or 1)
+ *   byte    which players are human (bit 0 = player 1, bit 1 = player 2)
+ *   byte    CPU player option index
+ *   byte[]  every piece's location, then wins, then losses (player 1's pieces first)
+ *   int     CRC-32 of every byte before it
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public final class SavedGame
+{
+    /* PUBLIC CONSTANTS */
+    public static final String DEFAULT_FILE_NAME = "savegame.wds";
+    public static final int MAGIC = 0x57445347;   // "WDSG"
+    public static final int FORMAT_VERSION = 3;
+    public static final int NUMBER_OF_CPU_PLAYER_OPTIONS = 3;     // search, MCTS and random (see AssetLoader.getCpuPlayerOptions)
+
+    /* FIELDS */
+    private final int state;
+    private final boolean rerollPending;
+    private final boolean[] isPlayerHuman;
+    private final int cpuPlayerOptionIndex;
+    private final int[][] gameBoardLocationIndex;
+    private final int[][] wins;
+    private final int[][] losses;
+
+    /* CONSTRUCTORS */
+    /**
+     * Initializes an empty snapshot, for capture and read to fill in
+     */
+    private SavedGame( int state, boolean rerollPending, boolean[] isPlayerHuman, int cpuPlayerOptionIndex )
+    {
+        this.state = state;
+        this.rerollPending = rerollPending;
+        this.isPlayerHuman = isPlayerHuman;
+        this.cpuPlayerOptionIndex = cpuPlayerOptionIndex;
+        gameBoardLocationIndex = new int[GameManager.NUMBER_OF_PLAYERS][GameManager.NUMBER_OF_PIECES_PER_PLAYER];
+        wins = new int[GameManager.NUMBER_OF_PLAYERS][GameManager.NUMBER_OF_PIECES_PER_PLAYER];
+        losses = new int[GameManager.NUMBER_OF_PLAYERS][GameManager.NUMBER_OF_PIECES_PER_PLAYER];
+    } // end SavedGame 4-arg constructor
+
+    /* METHODS */
+    /**
+     * Takes a snapshot of a game between turns
+     *
+     * @param gameManager           the game (waiting for a roll, or over)
+     * @param isPlayerHuman         which players are human, indexed by player
+     * @param cpuPlayerOptionIndex  which CPU player the GameBoard has picked
+     * @throws IllegalStateException if a turn is under way
+     */
+    public static SavedGame capture( GameManager gameManager, boolean[] isPlayerHuman, int cpuPlayerOptionIndex )
+    {
+        int state = gameManager.getState();
+        if ( state == GameManager.PLAYER1_MOVE_RED || state == GameManager.PLAYER2_MOVE_BLUE || state == GameManager.BOARD_SETUP )
+        {
+            throw new IllegalStateException( "a game can only be saved between turns (state " + state + ")" );
+        } // end if
+
+        SavedGame savedGame = new SavedGame( state, gameManager.isStarSpaceRollAgain(), isPlayerHuman.clone(), cpuPlayerOptionIndex );
+        for ( int playerIndex = 0; playerIndex < GameManager.NUMBER_OF_PLAYERS; playerIndex++ )
+        {
+            for ( int pieceIndex = 0; pieceIndex < GameManager.NUMBER_OF_PIECES_PER_PLAYER; pieceIndex++ )
+            {
+                savedGame.gameBoardLocationIndex[playerIndex][pieceIndex] = gameManager.getGameBoardLocationIndex( playerIndex, pieceIndex );
+                savedGame.wins[playerIndex][pieceIndex] = gameManager.getWins( playerIndex, pieceIndex );
+                savedGame.losses[playerIndex][pieceIndex] = gameManager.getLosses( playerIndex, pieceIndex );
+            } // end INNER for
+        } // end OUTER for
+        return savedGame;
+    } // end method capture
+
+    /**
+     * Puts the saved game back into a GameManager (see GameManager.restore)
+     */
+    public void restoreInto( GameManager gameManager )
+    {
+        gameManager.restore( state, rerollPending, gameBoardLocationIndex, wins, losses );
+    } // end method restoreInto
+
+    /**
+     * Writes the snapshot to a file, replacing any earlier save only once it has been written in full
+     *
+     * @param path  the save file
+     * @throws IOException if the file can't be written
+     */
+    public void write( Path path ) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream( bytes );
+        output.writeInt( MAGIC );
+        output.writeByte( FORMAT_VERSION );
+        output.writeInt( RuleVariant.ACTIVE.getFingerprint() );
+        output.writeByte( state );
+        output.writeByte( rerollPending ? 1 : 0 );
+        output.writeByte( ( isPlayerHuman[0] ? 1 : 0 ) | ( isPlayerHuman[1] ? 2 : 0 ) );
+        output.writeByte( cpuPlayerOptionIndex );
+        for ( int[][] values : new int[][][]{ gameBoardLocationIndex, wins, losses } )
+        {
+            for ( int[] valuesForPlayer : values )
+            {
+                for ( int value : valuesForPlayer )
+                {
+                    output.writeByte( Math.min( value, Byte.MAX_VALUE ) );
+                } // end INNER for
+            } // end MIDDLE for
+        } // end OUTER for
+
+        output.writeInt( getChecksum( bytes.toByteArray(), bytes.size() ) );
+
+        Path temporaryPath = path.resolveSibling( path.getFileName() + ".tmp" );
+        Files.write( temporaryPath, bytes.toByteArray() );
+        Files.move( temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+    } // end method write
+
+    /**
+     * Reads a snapshot written by write
+     *
+     * @param path  the save file
+     * @throws IOException if the file can't be read, isn't a saved game, or is damaged (a wrong checksum, or a
+     *                     value out of range)
+     */
+    public static SavedGame read( Path path ) throws IOException
+    {
+        byte[] bytes = Files.readAllBytes( path );
+        DataInputStream input = new DataInputStream( new ByteArrayInputStream( bytes ) );
+        if ( input.readInt() != MAGIC || input.readByte() != FORMAT_VERSION )
+        {
+            throw new IOException( path + " is not a version " + FORMAT_VERSION + " Wormhole Dash saved game" );
+        } // end if
+        if ( input.readInt() != RuleVariant.ACTIVE.getFingerprint() )
+        {
+            throw new IOException( path + " was saved under other rules than " + RuleVariant.ACTIVE.getName() );
+        } // end if
+        int checksumOffset = bytes.length - Integer.BYTES;
+        if ( checksumOffset < 0 || getChecksum( bytes, checksumOffset ) != ByteBuffer.wrap( bytes, checksumOffset, Integer.BYTES ).getInt() )
+        {
+            throw new IOException( path + " is damaged (its checksum doesn't match)" );
+        } // end if
+
+        int state = input.readByte();
+        boolean rerollPending = input.readByte() != 0;
+        int humanPlayerBits = input.readByte();
+        int cpuPlayerOptionIndex = input.readByte();
+        if ( state != GameManager.PLAYER1_ROLL_DIE && state != GameManager.PLAYER2_ROLL_DIE && ( state < GameManager.PLAYER1_WIN || state > GameManager.PLAYER2_WIN2 ) )
+        {
+            throw new IOException( path + " has a game state " + state + " a game can't be saved in" );
+        } // end if
+        if ( humanPlayerBits < 0 || humanPlayerBits > 3 || cpuPlayerOptionIndex < 0 || cpuPlayerOptionIndex >= NUMBER_OF_CPU_PLAYER_OPTIONS )
+        {
+            throw new IOException( path + " has an unknown player setup (human players " + humanPlayerBits + ", CPU player " + cpuPlayerOptionIndex + ")" );
+        } // end if
+        SavedGame savedGame = new SavedGame( state, rerollPending, new boolean[]{ ( humanPlayerBits & 1 ) != 0, ( humanPlayerBits & 2 ) != 0 }, cpuPlayerOptionIndex );
+        for ( int[][] values : new int[][][]{ savedGame.gameBoardLocationIndex, savedGame.wins, savedGame.losses } )
+        {
+            for ( int[] valuesForPlayer : values )
+            {
+                for ( int pieceIndex = 0; pieceIndex < valuesForPlayer.length; pieceIndex++ )
+                {
+                    valuesForPlayer[pieceIndex] = input.readByte();
+                    int lowestValue = ( values == savedGame.gameBoardLocationIndex ) ? GameManager.START_ZONE_INDEX : 0;
+                    int highestValue = ( values == savedGame.gameBoardLocationIndex ) ? GameManager.GOAL_ZONE_INDEX : Byte.MAX_VALUE;
+                    if ( valuesForPlayer[pieceIndex] < lowestValue || valuesForPlayer[pieceIndex] > highestValue )
+                    {
+                        throw new IOException( path + " has a piece with a location, win or loss count of " + valuesForPlayer[pieceIndex] );
+                    } // end if
+                } // end INNER for
+            } // end MIDDLE for
+        } // end OUTER for
+        if ( input.available() != Integer.BYTES )
+        {
+            throw new IOException( path + " is the wrong size for a saved game" );
+        } // end if
+        return savedGame;
+    } // end method read
+
+    /**
+     * Works out the CRC-32 of the first `length` bytes
+     */
+    private static int getChecksum( byte[] bytes, int length )
+    {
+        CRC32 checksum = new CRC32();
+        checksum.update( bytes, 0, length );
+        return (int) checksum.getValue();
+    } // end method getChecksum
+
+    /**
+     * Getter for the game state when the game was saved
+     */
+    public int getState()
+    {
+        return state;
+    } // end method getState
+
+    /**
+     * Returns true if the game was already over when it was saved
+     */
+    public boolean isGameOver()
+    {
+        return state >= GameManager.PLAYER1_WIN;
+    } // end method isGameOver
+
+    /**
+     * Returns true if the given player was human when the game was saved
+     */
+    public boolean isPlayerHuman( int playerIndex )
+    {
+        return isPlayerHuman[playerIndex];
+    } // end method isPlayerHuman
+
+    /**
+     * Getter for which CPU player the GameBoard had picked (an index into AssetLoader.getCpuPlayerOptions())
+     */
+    public int getCpuPlayerOptionIndex()
+    {
+        return cpuPlayerOptionIndex;
+    } // end method getCpuPlayerOptionIndex
+} // end class SavedGame
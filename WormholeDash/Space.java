@@ -1,8 +1,8 @@
 import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
 
 /**
- * Represents a GameBoard space and its associated attributes (i.e., is it a reroll space or not, is it occupied 
- * by a given player's piece or not, etc.)
+ * Represents a GameBoard space and its associated attributes (i.e., is it a reroll space or not, its name, etc.)
+ * Which player's piece is occupying a space is part of the game state, so that is kept by the GameManager.
  * 
  * @author  bickfori@email.uscb.edu
  * @version Final Version
@@ -10,9 +10,10 @@ import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
 public class Space extends Actor
 {
     /* FIELDS */
-    private boolean[] occupiedByPieceForPlayerIndex;
     private boolean rerollSpace;
     private String spaceName = "";
+    private int boardXcoord;    // where the space is on the board (kept here, since a space baked into the
+    private int boardYcoord;    // background isn't an actor in the world and has no location of its own)
 
     /* CONSTRUCTORS */
     /**
@@ -22,48 +23,54 @@ public class Space extends Actor
      */
     public Space( boolean rerollSpace ) 
     {
-        occupiedByPieceForPlayerIndex = new boolean[]{false, false}; // initializes each space to originally be occupied by no player piece
         this.rerollSpace = rerollSpace;
         if ( this.rerollSpace ) 
         {
-            setImage( new GreenfootImage("Lava.png") );
+            setImage( SpriteRegistry.getImage(SpriteRegistry.LAVA_SPACE_IMAGE) ); // shared by every reroll space, decoded once
         } // end if
         else 
         {
-            setImage( new GreenfootImage("Terran.png") );
+            setImage( SpriteRegistry.getImage(SpriteRegistry.TERRAN_SPACE_IMAGE) );
         } // end else
     } // end 1-arg Space constructor
 
     /* METHODS */
     /**
-     * Getter method returns `true` if this space is occupied by a piece
-     * belonging to the player corresponding to playerIndex;
-     * 
-     * @param playerIndex   the index of the player whose piece may be occupying this Space
+     * Getter method returns `true` if this space is a reroll space
      */
-    public boolean isOccupiedByPieceForPlayerIndex(int playerIndex) 
+    public boolean isRerollSpace() 
     {
-        return occupiedByPieceForPlayerIndex[playerIndex];
-    } // end method isOccupiedPieceForPlayerIndex
+        return rerollSpace;
+    } // end method isRerollSpace
 
     /**
-     * Setter method updates the value of the current ("this") object's value of who currently occupies the space.
+     * Sets where this space is on the board
      * 
-     * @param playerIndex   the index of the player whose piece may be occupying this Space
-     * @param occupied      true if this Space is now occupied by a piece belonging to the given player
+     * @param boardXcoord   the X-coordinate of the center of the space
+     * @param boardYcoord   the Y-coordinate of the center of the space
      */
-    public void setOccupiedByPieceForPlayerIndex( int playerIndex, boolean occupied ) 
+    public void setBoardLocation( int boardXcoord, int boardYcoord )
     {
-        this.occupiedByPieceForPlayerIndex[playerIndex] = occupied;
-    } // end method setOccupiedByPieceForPlayerIndex
+        this.boardXcoord = boardXcoord;
+        this.boardYcoord = boardYcoord;
+    } // end method setBoardLocation
 
     /**
-     * Getter method returns `true` if this space is a reroll space
+     * Getter for the X-coordinate of the center of this space on the board (works whether or not the space was
+     * added to the world as an actor)
      */
-    public boolean isRerollSpace() 
+    public int getBoardXcoord()
     {
-        return rerollSpace;
-    } // end method isRerollSpace
+        return boardXcoord;
+    } // end method getBoardXcoord
+
+    /**
+     * Getter for the Y-coordinate of the center of this space on the board
+     */
+    public int getBoardYcoord()
+    {
+        return boardYcoord;
+    } // end method getBoardYcoord
 
     /**
      * Setter for the name of planets and stars as part of my tangential learning component
@@ -0,0 +1,169 @@
+import java.util.SplittableRandom;
+
+/**
+ * The standard DiceSource, built on a SplittableRandom. Dice are rolled in bulk: one draw from the generator is
+ * split into as many rolls as fit in an int (19 movement rolls from a number below 3^19 and 11 battle rolls from a
+ * number below 6^11 with the standard dice; the sizes come from the active RuleVariant), which fill a buffer that
+ * the game then reads one roll at a time. A headless game rolls thousands of dice a
+ * second, so this cuts the generator calls (and the divisions inside nextInt) by more than ten times, while every
+ * roll stays exactly uniform.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public class SplittableDiceSource implements DiceSource
+{
+    /* PRIVATE CONSTANTS */
+    private static final int MOVEMENT_ROLLS_PER_DRAW = getRollsPerDraw( GameManager.MOVEMENT_DIE_SIDES );
+    private static final int MOVEMENT_DRAW_BOUND = getDrawBound( GameManager.MOVEMENT_DIE_SIDES );     // 3^19 for a 3-sided die
+    private static final int BATTLE_ROLLS_PER_DRAW = getRollsPerDraw( GameManager.BATTLE_DIE_SIDES );
+    private static final int BATTLE_DRAW_BOUND = getDrawBound( GameManager.BATTLE_DIE_SIDES );         // 6^11 for a 6-sided die
+    private static final int DRAWS_PER_REFILL = 16;
+
+    /* FIELDS */
+    private final long seed;
+    private final SplittableRandom random;
+    private final byte[] movementRolls;
+    private int nextMovementRollIndex;
+    private final byte[] battleRolls;
+    private int nextBattleRollIndex;
+
+    /* CONSTRUCTORS */
+    /**
+     * Initializes a source with a fresh seed (different every time, and safe to call from any thread)
+     */
+    public SplittableDiceSource()
+    {
+        this( new SplittableRandom().nextLong() );
+    } // end SplittableDiceSource no-arg constructor
+
+    /**
+     * Initializes a source from a seed, so the same seed always rolls the same dice
+     *
+     * @param seed  the seed
+     */
+    public SplittableDiceSource( long seed )
+    {
+        this.seed = seed;
+        random = new SplittableRandom( seed );
+        movementRolls = new byte[MOVEMENT_ROLLS_PER_DRAW * DRAWS_PER_REFILL];
+        nextMovementRollIndex = movementRolls.length; // empty, filled on the first roll
+        battleRolls = new byte[BATTLE_ROLLS_PER_DRAW * DRAWS_PER_REFILL];
+        nextBattleRollIndex = battleRolls.length;
+    } // end SplittableDiceSource 1-arg constructor
+
+    /* METHODS */
+    /**
+     * Works out how many rolls of a die with the given number of sides one int draw can hold: the most for which
+     * sides^rolls is still an int
+     */
+    private static int getRollsPerDraw( int sides )
+    {
+        int rollsPerDraw = 0;
+        for ( long bound = sides; bound <= Integer.MAX_VALUE; bound *= sides )
+        {
+            rollsPerDraw++;
+        } // end for
+        return rollsPerDraw;
+    } // end method getRollsPerDraw
+
+    /**
+     * Works out sides^getRollsPerDraw(sides), the bound of one draw
+     */
+    private static int getDrawBound( int sides )
+    {
+        long bound = 1;
+        for ( int roll = 0; roll < getRollsPerDraw( sides ); roll++ )
+        {
+            bound *= sides;
+        } // end for
+        return (int) bound;
+    } // end method getDrawBound
+
+    /**
+     * Rolls the movement die (from the buffer, refilling it when it runs out)
+     */
+    @Override
+    public int rollMovementDie()
+    {
+        if ( nextMovementRollIndex == movementRolls.length )
+        {
+            fillRolls( movementRolls, MOVEMENT_DRAW_BOUND, MOVEMENT_ROLLS_PER_DRAW, GameManager.MOVEMENT_DIE_SIDES );
+            nextMovementRollIndex = 0;
+        } // end if
+        return movementRolls[nextMovementRollIndex++];
+    } // end method rollMovementDie
+
+    /**
+     * Rolls one battle die (from the buffer, refilling it when it runs out)
+     */
+    @Override
+    public int rollBattleDie()
+    {
+        if ( nextBattleRollIndex == battleRolls.length )
+        {
+            fillRolls( battleRolls, BATTLE_DRAW_BOUND, BATTLE_ROLLS_PER_DRAW, GameManager.BATTLE_DIE_SIDES );
+            nextBattleRollIndex = 0;
+        } // end if
+        return battleRolls[nextBattleRollIndex++];
+    } // end method rollBattleDie
+
+    /**
+     * Fills a buffer with die rolls: each draw below sides^rollsPerDraw is uniform, so its base-`sides` digits
+     * are that many independent, uniform rolls
+     *
+     * @param rolls         the buffer to fill (a multiple of rollsPerDraw long)
+     * @param drawBound     sides^rollsPerDraw
+     * @param rollsPerDraw  how many rolls one draw holds
+     * @param sides         the number of sides on the die
+     */
+    private void fillRolls( byte[] rolls, int drawBound, int rollsPerDraw, int sides )
+    {
+        int rollIndex = 0;
+        while ( rollIndex < rolls.length )
+        {
+            int draw = random.nextInt( drawBound );
+            for ( int digit = 0; digit < rollsPerDraw; digit++ )
+            {
+                rolls[rollIndex++] = (byte) ( draw % sides + 1 );
+                draw /= sides;
+            } // end for
+        } // end while
+    } // end method fillRolls
+
+    /**
+     * Draws a whole number from 0 to bound - 1, each equally likely
+     */
+    @Override
+    public int nextInt( int bound )
+    {
+        return random.nextInt( bound );
+    } // end method nextInt
+
+    /**
+     * Draws a number between 0 (inclusive) and 1 (exclusive)
+     */
+    @Override
+    public double nextDouble()
+    {
+        return random.nextDouble();
+    } // end method nextDouble
+
+    /**
+     * Getter for the seed this source started from
+     */
+    @Override
+    public long getSeed()
+    {
+        return seed;
+    } // end method getSeed
+
+    /**
+     * Creates an independent source seeded from this one's generator
+     */
+    @Override
+    public DiceSource split()
+    {
+        return new SplittableDiceSource( random.nextLong() );
+    } // end method split
+} // end class SplittableDiceSource
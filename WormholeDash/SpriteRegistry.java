@@ -0,0 +1,166 @@
+import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decodes every image the game uses once and hands out the decoded images, so that rolling the die, building
+ * the board's spaces and ships, and resetting the world never read a PNG from disk again.
+ *
+ * The images handed out by getImage are SHARED by every actor that uses them, so they must never be drawn on or
+ * have their transparency changed. An actor that needs a different version of an image either asks for a shared,
+ * pre-built one (getFadedImage, for a PlayerPiece that can't move) or for getCopy, which copies the
+ * already-decoded pixels.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public final class SpriteRegistry
+{
+    /* PUBLIC CONSTANTS */
+    public static final String LAVA_SPACE_IMAGE = "Lava.png";
+    public static final String TERRAN_SPACE_IMAGE = "Terran.png";
+    public static final String WORMHOLE_IMAGE = "Black_hole.png";
+    public static final String TITLE_SCREEN_IMAGE = "TitleScreenAlternate.png";
+    public static final String BOARD_BACKGROUND_IMAGE = "starryGalaxy.jpg";
+
+    // ship images, indexed by [playerIndex][pieceTier] (tier 0 is never used)
+    public static final String[][] SHIP_IMAGES = {
+        { "Kla'ed - Dreadnought - Base.png", "Kla'ed - Fighter - Base.png", "Kla'ed - Frigate - Base.png", "Kla'ed - Dreadnought - Base.png" },
+        { "Nautolan Ship - Scout - Base.png", "Nautolan Ship - Bomber - Base.png", "Nautolan Ship - Scout - Base.png", "Nautolan Ship - Dreadnought - Base.png" }
+    };
+
+    public static final String[] BUTTON_IMAGES = {
+        "ResetButton.png", "LearnMore.png", "ExitButton.png", "rules.png", "LoreButton.png", "SmallredButton.png", "MuteButton.png"
+    };
+
+    public static final int FADED_TRANSPARENCY = 128;  // 50% transparent (0 = transparent, 255 = opaque)
+
+    /* PRIVATE CONSTANTS */
+    private static final int HIGHEST_DIE_FACE = GameManager.BATTLE_DIE_SIDES;
+    private static final String[] DIE_IMAGES = new String[HIGHEST_DIE_FACE + 1];   // "dieWhite_border0.png" to "dieWhite_border6.png"
+
+    private static final ConcurrentHashMap<String, GreenfootImage> IMAGES = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, GreenfootImage> FADED_IMAGES = new ConcurrentHashMap<>();
+
+    static
+    {
+        for ( int dieFace = 0; dieFace <= HIGHEST_DIE_FACE; dieFace++ )
+        {
+            DIE_IMAGES[dieFace] = "dieWhite_border" + dieFace + ".png";
+        } // end for
+    } // end static initializer
+
+    /* CONSTRUCTORS */
+    /**
+     * SpriteRegistry only has static lookups, so it is never instantiated
+     */
+    private SpriteRegistry()
+    {
+    } // end private no-arg constructor
+
+    /* METHODS */
+    /**
+     * Decodes every image the game uses (images that were already decoded are skipped, so this only costs
+     * anything the first time)
+     */
+    public static void preloadAll()
+    {
+        getImage( LAVA_SPACE_IMAGE );
+        getImage( TERRAN_SPACE_IMAGE );
+        getImage( WORMHOLE_IMAGE );
+        getImage( TITLE_SCREEN_IMAGE );
+        getImage( BOARD_BACKGROUND_IMAGE );
+        for ( String[] shipImagesForPlayer : SHIP_IMAGES )
+        {
+            for ( String shipImage : shipImagesForPlayer )
+            {
+                getFadedImage( shipImage ); // decodes the opaque version too
+            } // end INNER for
+        } // end OUTER for
+        for ( String buttonImage : BUTTON_IMAGES )
+        {
+            getImage( buttonImage );
+        } // end for
+        for ( String dieImage : DIE_IMAGES )
+        {
+            getImage( dieImage );
+        } // end for
+    } // end method preloadAll
+
+    /**
+     * Returns the shared, decoded image for a file in the images folder, decoding it the first time it's asked for.
+     * Don't change the image that comes back: every actor using this file shows that same image.
+     *
+     * @param fileName  the image's file name, e.g. "Lava.png"
+     */
+    public static GreenfootImage getImage( String fileName )
+    {
+        GreenfootImage image = IMAGES.get( fileName );
+        return ( image != null ) ? image : IMAGES.computeIfAbsent( fileName, GreenfootImage::new );
+    } // end method getImage
+
+    /**
+     * Returns a private copy of an image, for an actor that is going to change it (e.g. its transparency).
+     * The copy is made from the decoded pixels, so no file is read.
+     *
+     * @param fileName  the image's file name
+     */
+    public static GreenfootImage getCopy( String fileName )
+    {
+        return new GreenfootImage( getImage( fileName ) );
+    } // end method getCopy
+
+    /**
+     * Returns a shared, 50% transparent version of an image, built from the decoded image the first time it's
+     * asked for. Like getImage, don't change the image that comes back.
+     *
+     * @param fileName  the image's file name
+     */
+    public static GreenfootImage getFadedImage( String fileName )
+    {
+        GreenfootImage fadedImage = FADED_IMAGES.get( fileName );
+        return ( fadedImage != null ) ? fadedImage : FADED_IMAGES.computeIfAbsent( fileName, SpriteRegistry::createFadedImage );
+    } // end method getFadedImage
+
+    /**
+     * Copies an image and makes the copy 50% transparent
+     */
+    private static GreenfootImage createFadedImage( String fileName )
+    {
+        GreenfootImage fadedImage = new GreenfootImage( getImage( fileName ) );
+        fadedImage.setTransparency( FADED_TRANSPARENCY );
+        return fadedImage;
+    } // end method createFadedImage
+
+    /**
+     * Returns the shared image of the die showing the given face
+     *
+     * @param dieFace   the value rolled, 1 to 6 (0 is the blank die)
+     */
+    public static GreenfootImage getDieImage( int dieFace )
+    {
+        if ( dieFace < 0 || dieFace > HIGHEST_DIE_FACE )
+        {
+            throw new IllegalArgumentException( "a die face must be 0 to " + HIGHEST_DIE_FACE + ", got " + dieFace );
+        } // end if
+        return getImage( DIE_IMAGES[dieFace] );
+    } // end method getDieImage
+
+    /**
+     * Returns the file name of the ship image for the given player and tier
+     *
+     * @param playerIndex   0 for red, 1 for blue
+     * @param pieceTier     1 to 3
+     */
+    public static String getShipImageFileName( int playerIndex, int pieceTier )
+    {
+        return SHIP_IMAGES[playerIndex][ ( pieceTier >= 1 && pieceTier <= GameManager.MAX_PIECE_TIER ) ? pieceTier : 0 ];
+    } // end method getShipImageFileName
+
+    /**
+     * Checks whether an image has already been decoded
+     */
+    public static boolean isLoaded( String fileName )
+    {
+        return IMAGES.containsKey( fileName );
+    } // end method isLoaded
+} // end class SpriteRegistry
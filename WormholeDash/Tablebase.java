@@ -0,0 +1,263 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongToDoubleFunction;
+
+/**
+ * Reads an endgame tablebase written by the RetrogradeSolver: the exact chance that the player about to roll wins,
+ * with perfect play from both sides, for every endgame in its TablebaseIndex.
+ *
+ * The values are read straight out of the file through a memory-mapped FileChannel, so looking up a position is
+ * one read from the page cache and the table never takes up heap space (only the small list of configurations is
+ * read into memory).
+ *
+ * File layout (big-endian):
+ *   int     MAGIC
+ *   int     FORMAT_VERSION
+ *   int     the fingerprint of the RuleVariant it was solved under (a tablebase only opens under the same rules)
+ *   int     max pieces left per player
+ *   int     number of configurations (C)
+ *   long    number of values (2 * C * C)
+ *   long[C] configuration keys, sorted
+ *   float[] win probability for the side to move, one per slot (NaN for impossible positions)
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public final class Tablebase
+{
+    /* PUBLIC CONSTANTS */
+    public static final String DEFAULT_FILE_NAME = "endgame.tb";
+    public static final int MAGIC = 0x57445442;   // "WDTB"
+    public static final int FORMAT_VERSION = 2;
+    public static final int HEADER_BYTES = 28;
+
+    /* PRIVATE CONSTANTS */
+    private static final int SEGMENT_SHIFT = 30;    // the file is mapped in 1 GB pieces (a single mapping is limited to 2 GB)
+    private static final long SEGMENT_MASK = ( 1L << SEGMENT_SHIFT ) - 1;
+
+    /* FIELDS */
+    private final TablebaseIndex index;
+    private final MappedByteBuffer[] segments;
+    private final LongToDoubleFunction valueOfSlot = this::readValue;
+
+    /* CONSTRUCTORS */
+    /**
+     * Initializes a tablebase from an index and the mapped value segments (use open)
+     */
+    private Tablebase( TablebaseIndex index, MappedByteBuffer[] segments )
+    {
+        this.index = index;
+        this.segments = segments;
+    } // end Tablebase 2-arg constructor
+
+    /* METHODS */
+    /**
+     * Opens a tablebase file, reading its configurations and mapping its values into memory
+     *
+     * @param path  the file written by the RetrogradeSolver
+     * @throws IOException if the file can't be read or isn't a tablebase
+     */
+    public static Tablebase open( Path path ) throws IOException
+    {
+        try ( FileChannel channel = FileChannel.open( path, StandardOpenOption.READ ) )
+        {
+            ByteBuffer header = ByteBuffer.allocate( HEADER_BYTES );
+            readFully( channel, header, 0 );
+            header.flip();
+            if ( header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION )
+            {
+                throw new IOException( path + " is not a version " + FORMAT_VERSION + " Wormhole Dash tablebase" );
+            } // end if
+            if ( header.getInt() != RuleVariant.ACTIVE.getFingerprint() )
+            {
+                throw new IOException( path + " was solved under other rules than " + RuleVariant.ACTIVE.getName() );
+            } // end if
+            int maxPiecesLeft = header.getInt();
+            int numberOfConfigurations = header.getInt();
+            long numberOfValues = header.getLong();
+
+            ByteBuffer keyBuffer = ByteBuffer.allocate( 8 * numberOfConfigurations );
+            readFully( channel, keyBuffer, HEADER_BYTES );
+            keyBuffer.flip();
+            long[] configurationKeys = new long[numberOfConfigurations];
+            keyBuffer.asLongBuffer().get( configurationKeys );
+
+            TablebaseIndex index = new TablebaseIndex( maxPiecesLeft, configurationKeys );
+            if ( index.getStateCount() != numberOfValues )
+            {
+                throw new IOException( path + " has " + numberOfValues + " values, expected " + index.getStateCount() );
+            } // end if
+
+            long dataOffset = HEADER_BYTES + 8L * numberOfConfigurations;
+            long dataBytes = 4 * numberOfValues;
+            if ( channel.size() < dataOffset + dataBytes )
+            {
+                throw new IOException( path + " is truncated" );
+            } // end if
+            MappedByteBuffer[] segments = new MappedByteBuffer[ (int)( ( dataBytes + SEGMENT_MASK ) >>> SEGMENT_SHIFT ) ];
+            for ( int segmentIndex = 0; segmentIndex < segments.length; segmentIndex++ )
+            {
+                long segmentStart = (long) segmentIndex << SEGMENT_SHIFT;
+                long segmentBytes = Math.min( SEGMENT_MASK + 1, dataBytes - segmentStart );
+                segments[segmentIndex] = channel.map( FileChannel.MapMode.READ_ONLY, dataOffset + segmentStart, segmentBytes );
+            } // end for
+            return new Tablebase( index, segments ); // the mappings stay valid after the channel is closed
+        } // end try
+    } // end method open
+
+    /**
+     * Opens a tablebase file if it exists, for callers that can play without one
+     *
+     * @param fileName  the tablebase file
+     * @return the tablebase, or null if the file is missing or can't be read
+     */
+    public static Tablebase openIfPresent( String fileName )
+    {
+        Path path = Paths.get( fileName );
+        if ( !Files.isReadable( path ) )
+        {
+            return null;
+        } // end if
+        try
+        {
+            return open( path );
+        } // end try
+        catch ( IOException exception )
+        {
+            System.err.println( "Could not open tablebase " + fileName + ": " + exception.getMessage() );
+            return null;
+        } // end catch
+    } // end method openIfPresent
+
+    /**
+     * Reads from a channel until the buffer is full
+     */
+    private static void readFully( FileChannel channel, ByteBuffer buffer, long position ) throws IOException
+    {
+        while ( buffer.hasRemaining() )
+        {
+            int bytesRead = channel.read( buffer, position );
+            if ( bytesRead < 0 )
+            {
+                throw new IOException( "unexpected end of tablebase file" );
+            } // end if
+            position += bytesRead;
+        } // end while
+    } // end method readFully
+
+    /**
+     * Reads the value in one slot straight from the mapped file
+     */
+    private double readValue( long slot )
+    {
+        long offset = 4 * slot;
+        return segments[ (int)( offset >>> SEGMENT_SHIFT ) ].getFloat( (int)( offset & SEGMENT_MASK ) );
+    } // end method readValue
+
+    /**
+     * Checks whether the tablebase has the given position (every player has few enough pieces left)
+     */
+    public boolean covers( BoardState boardState )
+    {
+        return !boardState.isGameOver() && index.indexOf( boardState ) >= 0;
+    } // end method covers
+
+    /**
+     * Looks up the chance that the player about to roll wins, with perfect play
+     *
+     * @param boardState    the position, in a PLAYER1_ROLL_DIE or PLAYER2_ROLL_DIE state
+     * @return the win probability (0 to 1), or NaN if the tablebase doesn't have this position
+     */
+    public double getWinProbability( BoardState boardState )
+    {
+        long slot = index.indexOf( boardState );
+        return ( slot < 0 ) ? Double.NaN : readValue( slot );
+    } // end method getWinProbability
+
+    /**
+     * Works out the chance that the player who just rolled wins after playing the given move, with perfect play
+     * afterwards: averaged over the battle, if the move starts one
+     *
+     * @param rolledState   the position, in a PLAYER1_MOVE_RED or PLAYER2_MOVE_BLUE state, which the tablebase covers
+     * @param move          a legal move (see ExpectiminimaxCpuPlayer.encodeMove)
+     * @param scratchState  overwritten while working it out
+     */
+    public double getMoveWinProbability( BoardState rolledState, int move, BoardState scratchState )
+    {
+        return getMoveWinProbability( index, valueOfSlot, rolledState, move, scratchState );
+    } // end method getMoveWinProbability
+
+    /**
+     * Works out a move's win probability for the player making it, reading the values of the positions it leads to
+     * through valueOfSlot. This is shared with the RetrogradeSolver, which reads them from its array instead.
+     *
+     * @param index         numbers the positions
+     * @param valueOfSlot   the win probability for the side to move in each slot
+     * @param rolledState   the position, in a PLAYER1_MOVE_RED or PLAYER2_MOVE_BLUE state
+     * @param move          a legal move (ExpectiminimaxCpuPlayer.encodeMove), or 0 to pass
+     * @param scratchState  overwritten while working it out
+     */
+    public static double getMoveWinProbability( TablebaseIndex index, LongToDoubleFunction valueOfSlot,
+                                                BoardState rolledState, int move, BoardState scratchState )
+    {
+        int playerIndex = rolledState.getCurrentPlayerIndex();
+        if ( move == 0 )
+        {
+            scratchState.copyFrom( rolledState );
+            scratchState.finishTurn();
+            return getWinProbabilityForPlayerIndex( index, valueOfSlot, scratchState, playerIndex );
+        } // end if
+
+        int sourceLocationIndex = ExpectiminimaxCpuPlayer.getSourceOfMove( move );
+        int tier = ExpectiminimaxCpuPlayer.getTierOfMove( move );
+        int targetLocationIndex = sourceLocationIndex + rolledState.getDieRollValue();
+        int opposingPathIndex = ( targetLocationIndex < GameManager.GOAL_ZONE_INDEX ) ? BoardState.mirrorPathIndex( playerIndex, targetLocationIndex ) : -1;
+        int defenderTier = ( opposingPathIndex >= 0 ) ? rolledState.getTierAt( 1 - playerIndex, opposingPathIndex ) : 0;
+
+        scratchState.copyFrom( rolledState );
+        scratchState.movePiece( sourceLocationIndex, tier, true );
+        scratchState.finishTurn();
+        double winValue = getWinProbabilityForPlayerIndex( index, valueOfSlot, scratchState, playerIndex );
+        if ( defenderTier == 0 )
+        {
+            return winValue;
+        } // end if
+
+        scratchState.copyFrom( rolledState );
+        scratchState.movePiece( sourceLocationIndex, tier, false );
+        scratchState.finishTurn();
+        double lossValue = getWinProbabilityForPlayerIndex( index, valueOfSlot, scratchState, playerIndex );
+        double attackerWinProbability = BattleOdds.getAttackerWinProbability( tier, defenderTier );
+        return attackerWinProbability * winValue + ( 1.0 - attackerWinProbability ) * lossValue;
+    } // end method getMoveWinProbability
+
+    /**
+     * Returns the chance the given player wins from a position at the start of a turn (or a finished game)
+     */
+    private static double getWinProbabilityForPlayerIndex( TablebaseIndex index, LongToDoubleFunction valueOfSlot,
+                                                           BoardState boardState, int playerIndex )
+    {
+        if ( boardState.isGameOver() )
+        {
+            int finalState = boardState.getState();
+            boolean player1Won = finalState == GameManager.PLAYER1_WIN || finalState == GameManager.PLAYER1_WIN2;
+            return ( player1Won == ( playerIndex == 0 ) ) ? 1.0 : 0.0;
+        } // end if
+        double value = valueOfSlot.applyAsDouble( index.indexOf( boardState ) );
+        return ( boardState.getCurrentPlayerIndex() == playerIndex ) ? value : 1.0 - value;
+    } // end method getWinProbabilityForPlayerIndex
+
+    /**
+     * Getter for the index that numbers this tablebase's positions
+     */
+    public TablebaseIndex getIndex()
+    {
+        return index;
+    } // end method getIndex
+} // end class Tablebase
@@ -0,0 +1,66 @@
+/**
+ * A CPU player that plays endgames perfectly from a Tablebase and hands every other position to another CPU player.
+ * Choosing a move in an endgame only takes a handful of reads from the memory-mapped tablebase file.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public class TablebaseCpuPlayer implements CpuPlayer
+{
+    /* FIELDS */
+    private Tablebase tablebase;
+    private CpuPlayer fallbackCpuPlayer;
+    private BoardState scratchState;
+    private int[] moves;
+
+    /* CONSTRUCTORS */
+    /**
+     * Initializes a CPU player that uses the given tablebase when it can
+     *
+     * @param tablebase             the solved endgames
+     * @param fallbackCpuPlayer     picks the move in positions the tablebase doesn't have
+     */
+    public TablebaseCpuPlayer( Tablebase tablebase, CpuPlayer fallbackCpuPlayer )
+    {
+        this.tablebase = tablebase;
+        this.fallbackCpuPlayer = fallbackCpuPlayer;
+        this.scratchState = new BoardState( 0L, 0L );
+        this.moves = new int[16];
+    } // end TablebaseCpuPlayer 2-arg constructor
+
+    /* METHODS */
+    /**
+     * Picks the move with the highest win probability if the tablebase has the position, otherwise asks the fallback
+     *
+     * @param gameManager   the game being played
+     * @return the index of the piece to move, or -1 if no piece is moveable
+     */
+    public int selectPieceIndex( GameManager gameManager )
+    {
+        if ( !gameManager.hasMoveablePiece() )
+        {
+            return -1;
+        } // end if
+
+        BoardState rolledState = gameManager.getBoardState();
+        if ( !tablebase.covers( rolledState ) )
+        {
+            return fallbackCpuPlayer.selectPieceIndex( gameManager );
+        } // end if
+
+        int numberOfMoves = ExpectiminimaxCpuPlayer.generateMoves( rolledState, moves );
+        int bestMove = moves[0];
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for ( int moveIndex = 0; moveIndex < numberOfMoves; moveIndex++ )
+        {
+            double value = tablebase.getMoveWinProbability( rolledState, moves[moveIndex], scratchState );
+            if ( value > bestValue )
+            {
+                bestValue = value;
+                bestMove = moves[moveIndex];
+            } // end if
+        } // end for
+        return gameManager.getPieceIndexAtLocation( rolledState.getCurrentPlayerIndex(),
+                                                    ExpectiminimaxCpuPlayer.getSourceOfMove( bestMove ), ExpectiminimaxCpuPlayer.getTierOfMove( bestMove ) );
+    } // end method selectPieceIndex
+} // end class TablebaseCpuPlayer
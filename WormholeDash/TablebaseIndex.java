@@ -0,0 +1,247 @@
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * Numbers every endgame position in which each player has at most a few pieces left that haven't reached the
+ * goal, so each position gets its own slot in a flat tablebase file.
+ *
+ * Once a piece reaches the goal it never leaves, so the set of pieces a player still has to bring home can only
+ * shrink: an endgame with at most N pieces left per side only ever leads to other such endgames (or the end of
+ * the game). That makes it a closed game of its own, which the RetrogradeSolver can solve exactly.
+ *
+ * Each player's half of a position (their "configuration": which tiers are on which of their squares and which are
+ * still in their starting zone) is numbered separately, then a position at the start of a turn is numbered as
+ *
+ *   ( sideToMove * numberOfConfigurations + redConfiguration ) * numberOfConfigurations + blueConfiguration
+ *
+ * Some of those numbers are impossible (both players on the same physical square); the solver simply skips them.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public final class TablebaseIndex
+{
+    /* PUBLIC CONSTANTS */
+    public static final int MAX_PIECES_LEFT = 3;        // 4 already needs over 30 billion positions
+
+    /* FIELDS */
+    private final int maxPiecesLeft;
+    private final long[] configurationKeys;             // sorted, see getConfigurationKey
+    private final long[][] occupancyForConfiguration;   // [playerIndex][configuration], that player's bits of the occupancy word
+    private final long[][] tiersForConfiguration;       // [playerIndex][configuration], that player's bits of the tiers word
+
+    /* CONSTRUCTORS */
+    /**
+     * Initializes an index from a list of configuration keys (e.g. read back from a tablebase file)
+     *
+     * @param maxPiecesLeft         the most pieces a player may have left outside the goal
+     * @param configurationKeys     every configuration's key, sorted
+     */
+    public TablebaseIndex( int maxPiecesLeft, long[] configurationKeys )
+    {
+        this.maxPiecesLeft = maxPiecesLeft;
+        this.configurationKeys = configurationKeys;
+        occupancyForConfiguration = new long[GameManager.NUMBER_OF_PLAYERS][configurationKeys.length];
+        tiersForConfiguration = new long[GameManager.NUMBER_OF_PLAYERS][configurationKeys.length];
+
+        for ( int configuration = 0; configuration < configurationKeys.length; configuration++ )
+        {
+            for ( int playerIndex = 0; playerIndex < GameManager.NUMBER_OF_PLAYERS; playerIndex++ )
+            {
+                BoardState playerOnly = buildConfiguration( playerIndex, configurationKeys[configuration] );
+                occupancyForConfiguration[playerIndex][configuration] = playerOnly.getOccupancy();
+                tiersForConfiguration[playerIndex][configuration] = playerOnly.getTiers();
+            } // end INNER for
+        } // end OUTER for
+    } // end TablebaseIndex 2-arg constructor
+
+    /* METHODS */
+    /**
+     * Lists every configuration with at most the given number of pieces left and builds the index for them
+     *
+     * @param maxPiecesLeft     the most pieces a player may have left outside the goal (1 to MAX_PIECES_LEFT)
+     */
+    public static TablebaseIndex enumerate( int maxPiecesLeft )
+    {
+        if ( maxPiecesLeft < 1 || maxPiecesLeft > MAX_PIECES_LEFT )
+        {
+            throw new IllegalArgumentException( "maxPiecesLeft must be 1 to " + MAX_PIECES_LEFT + ", got " + maxPiecesLeft );
+        } // end if
+
+        TreeSet<Long> keys = new TreeSet<>();
+        int[] tiersLeft = new int[maxPiecesLeft];
+        for ( int tier1Left = 0; tier1Left <= RuleVariant.ACTIVE.getPieceCountForTier( 1 ); tier1Left++ )
+        {
+            for ( int tier2Left = 0; tier2Left <= RuleVariant.ACTIVE.getPieceCountForTier( 2 ); tier2Left++ )
+            {
+                for ( int tier3Left = 0; tier3Left <= RuleVariant.ACTIVE.getPieceCountForTier( 3 ); tier3Left++ )
+                {
+                    int piecesLeft = tier1Left + tier2Left + tier3Left;
+                    if ( piecesLeft > maxPiecesLeft )
+                    {
+                        continue;
+                    } // end if
+                    for ( int pieceIndex = 0; pieceIndex < piecesLeft; pieceIndex++ )
+                    {
+                        tiersLeft[pieceIndex] = ( pieceIndex < tier1Left ) ? 1 : ( pieceIndex < tier1Left + tier2Left ) ? 2 : 3;
+                    } // end for
+                    addPlacements( keys, tiersLeft, piecesLeft, 0, 0L, 0L );
+                } // end INNER INNER for
+            } // end INNER for
+        } // end OUTER for
+
+        long[] configurationKeys = new long[keys.size()];
+        int configuration = 0;
+        for ( long key : keys )
+        {
+            configurationKeys[configuration++] = key;
+        } // end for
+        return new TablebaseIndex( maxPiecesLeft, configurationKeys );
+    } // end method enumerate
+
+    /**
+     * Recursively puts each piece left either in the starting zone or on a free square, adding every resulting key
+     */
+    private static void addPlacements( TreeSet<Long> keys, int[] tiersLeft, int piecesLeft, int pieceIndex, long pathTiers, long startBits )
+    {
+        if ( pieceIndex == piecesLeft )
+        {
+            keys.add( pathTiers | ( startBits << 32 ) );
+            return;
+        } // end if
+
+        int tier = tiersLeft[pieceIndex];
+        addPlacements( keys, tiersLeft, piecesLeft, pieceIndex + 1, pathTiers, startBits + ( 1L << ( 2 * ( tier - 1 ) ) ) );
+        for ( int pathIndex = 0; pathIndex < GameManager.PATH_LENGTH; pathIndex++ )
+        {
+            if ( ( ( pathTiers >>> ( 2 * pathIndex ) ) & 3 ) == 0 )
+            {
+                addPlacements( keys, tiersLeft, piecesLeft, pieceIndex + 1, pathTiers | ( (long) tier << ( 2 * pathIndex ) ), startBits );
+            } // end if
+        } // end for
+    } // end method addPlacements
+
+    /**
+     * Builds a board state holding only one player's configuration (the rest of their pieces in the goal)
+     */
+    private static BoardState buildConfiguration( int playerIndex, long configurationKey )
+    {
+        BoardState boardState = new BoardState( 0L, 0L );
+        int piecesLeft = 0;
+        for ( int pathIndex = 0; pathIndex < GameManager.PATH_LENGTH; pathIndex++ )
+        {
+            int tier = (int)( configurationKey >>> ( 2 * pathIndex ) ) & 3;
+            if ( tier != 0 )
+            {
+                boardState.placePiece( playerIndex, pathIndex, tier );
+                piecesLeft++;
+            } // end if
+        } // end for
+        int startBits = (int)( configurationKey >>> 32 );
+        int[] startCountForTier = { 0, startBits & 3, ( startBits >>> 2 ) & 3, ( startBits >>> 4 ) & 1 };
+        for ( int tier = 1; tier <= GameManager.MAX_PIECE_TIER; tier++ )
+        {
+            for ( int count = 0; count < startCountForTier[tier]; count++ )
+            {
+                boardState.addToStartZone( playerIndex, tier );
+                piecesLeft++;
+            } // end INNER for
+        } // end OUTER for
+        for ( int count = piecesLeft; count < GameManager.NUMBER_OF_PIECES_PER_PLAYER; count++ )
+        {
+            boardState.addToGoalZone( playerIndex );
+        } // end for
+        return boardState;
+    } // end method buildConfiguration
+
+    /**
+     * Computes the key of one player's configuration: their 32 bits of the tiers word, with their start zone
+     * counts (tier 1 in 2 bits, tier 2 in 2 bits, tier 3 in 1 bit) above them
+     */
+    private static long getConfigurationKey( BoardState boardState, int playerIndex )
+    {
+        long pathTiers = ( boardState.getTiers() >>> ( 32 * playerIndex ) ) & 0xFFFFFFFFL;
+        long startBits = boardState.getStartCountForPlayerIndex( playerIndex, 1 )
+                         | ( boardState.getStartCountForPlayerIndex( playerIndex, 2 ) << 2 )
+                         | ( boardState.getStartCountForPlayerIndex( playerIndex, 3 ) << 4 );
+        return pathTiers | ( startBits << 32 );
+    } // end method getConfigurationKey
+
+    /**
+     * Numbers a position at the start of a turn (the game must not be over)
+     *
+     * @param boardState    the position, in a PLAYER1_ROLL_DIE or PLAYER2_ROLL_DIE state
+     * @return the position's slot, or -1 if a player has too many pieces left for this index
+     */
+    public long indexOf( BoardState boardState )
+    {
+        int redConfiguration = Arrays.binarySearch( configurationKeys, getConfigurationKey( boardState, 0 ) );
+        int blueConfiguration = Arrays.binarySearch( configurationKeys, getConfigurationKey( boardState, 1 ) );
+        if ( redConfiguration < 0 || blueConfiguration < 0 )
+        {
+            return -1;
+        } // end if
+        long numberOfConfigurations = configurationKeys.length;
+        return ( boardState.getCurrentPlayerIndex() * numberOfConfigurations + redConfiguration ) * numberOfConfigurations + blueConfiguration;
+    } // end method indexOf
+
+    /**
+     * Rebuilds the position in a slot, at the start of the side to move's turn
+     *
+     * @param index         the slot (0 to getStateCount() - 1)
+     * @param boardState    overwritten with the position
+     */
+    public void getBoardState( long index, BoardState boardState )
+    {
+        int numberOfConfigurations = configurationKeys.length;
+        int blueConfiguration = (int)( index % numberOfConfigurations );
+        long rest = index / numberOfConfigurations;
+        int redConfiguration = (int)( rest % numberOfConfigurations );
+        int sideToMove = (int)( rest / numberOfConfigurations );
+
+        boardState.set( occupancyForConfiguration[0][redConfiguration] | occupancyForConfiguration[1][blueConfiguration],
+                        tiersForConfiguration[0][redConfiguration] | tiersForConfiguration[1][blueConfiguration] );
+        boardState.setState( sideToMove == 0 ? GameManager.PLAYER1_ROLL_DIE : GameManager.PLAYER2_ROLL_DIE );
+    } // end method getBoardState
+
+    /**
+     * Checks whether a rebuilt position can actually happen: no two pieces on the same physical square
+     */
+    public static boolean isPossible( BoardState boardState )
+    {
+        return ( boardState.getPathMaskForPlayerIndex( 0 ) & boardState.getOpponentMaskForPlayerIndex( 0 ) ) == 0;
+    } // end method isPossible
+
+    /**
+     * Getter for the most pieces a player may have left outside the goal
+     */
+    public int getMaxPiecesLeft()
+    {
+        return maxPiecesLeft;
+    } // end method getMaxPiecesLeft
+
+    /**
+     * Getter for how many configurations each player has
+     */
+    public int getConfigurationCount()
+    {
+        return configurationKeys.length;
+    } // end method getConfigurationCount
+
+    /**
+     * Getter for the configuration keys, sorted (the array itself, so don't change it)
+     */
+    public long[] getConfigurationKeys()
+    {
+        return configurationKeys;
+    } // end method getConfigurationKeys
+
+    /**
+     * Getter for how many slots the index has (impossible positions included)
+     */
+    public long getStateCount()
+    {
+        long numberOfConfigurations = configurationKeys.length;
+        return GameManager.NUMBER_OF_PLAYERS * numberOfConfigurations * numberOfConfigurations;
+    } // end method getStateCount
+} // end class TablebaseIndex
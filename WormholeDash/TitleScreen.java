@@ -16,6 +16,6 @@ public class TitleScreen extends Actor
      */
     public TitleScreen()
     {
-        setImage("TitleScreenAlternate.png");
+        setImage(SpriteRegistry.getImage(SpriteRegistry.TITLE_SCREEN_IMAGE));
     } // end no-arg constructor
 } // end class TitleScreen
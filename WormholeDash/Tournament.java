@@ -0,0 +1,516 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Plays headless CPU vs CPU matches between any number of CPU players and reports how strong each one is, so
+ * strategies can be compared without watching games one at a time in the Greenfoot window.
+ *
+ * Every pairing of entrants (all of them in a round robin; the first entrant against each of the others in a
+ * gauntlet) plays up to a set number of games. Games come in pairs with the same seed and the colors swapped, to
+ * cancel out player 1's first-move advantage. The games run on a pool of worker threads (one per core by
+ * default); each worker builds its own instance of every CPU player, since the searching ones keep per-search
+ * state. A pairing stops early once a sequential probability ratio test (SPRT) is sure which of its two
+ * hypotheses is right, so a lopsided pairing doesn't use up its whole budget.
+ *
+ * Results are reported as the Elo difference of each pairing (with a 95% confidence interval and the SPRT
+ * verdict) and as a rating for every entrant, fitted to all of the games (Bradley-Terry), relative to the first.
+ *
+ * Run it from the scenario folder with `java Tournament [round-robin|gauntlet] [maxGamesPerPairing] [msPerMove] [threads]`.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public class Tournament
+{
+    /* PUBLIC CONSTANTS */
+    public static final int ROUND_ROBIN = 0;    // every entrant plays every other entrant
+    public static final int GAUNTLET = 1;       // the first entrant (the baseline) plays each of the others
+
+    public static final double DEFAULT_SPRT_ELO0 = 0.0;     // H0: the second entrant is no stronger than the first
+    public static final double DEFAULT_SPRT_ELO1 = 50.0;    // H1: it is at least this much stronger
+    public static final double DEFAULT_SPRT_ALPHA = 0.05;
+    public static final double DEFAULT_SPRT_BETA = 0.05;
+
+    /* PRIVATE CONSTANTS */
+    private static final double CONFIDENCE_Z = 1.96;        // 95% confidence intervals
+    private static final double ELO_PER_NATURAL_UNIT = 400.0 / Math.log( 10.0 );
+    private static final int RATING_ITERATIONS = 1000;
+    private static final int SPRT_MIN_GAMES = 10;           // never stop before both colors have had a few games
+
+    /* FIELDS */
+    private final List<Entrant> entrants;
+    private final int format;
+    private final int maxGamesPerPairing;
+    private final List<Pairing> pairings;
+    private final long seed;
+    private double sprtLowerBound;
+    private double sprtUpperBound;
+    private double sprtWinProbability0;
+    private double sprtWinProbability1;
+    private final AtomicInteger pairingCursor = new AtomicInteger();
+    private final AtomicInteger gamesPlayed = new AtomicInteger();
+
+    /* CONSTRUCTORS */
+    /**
+     * Initializes a tournament, with the default SPRT settings
+     *
+     * @param entrants              the CPU players (the first one is the baseline)
+     * @param format                ROUND_ROBIN or GAUNTLET
+     * @param maxGamesPerPairing    the most games any two entrants play (rounded up to an even number)
+     * @param seed                  the seed every game's dice are drawn from
+     */
+    public Tournament( List<Entrant> entrants, int format, int maxGamesPerPairing, long seed )
+    {
+        if ( entrants.size() < 2 )
+        {
+            throw new IllegalArgumentException( "a tournament needs at least 2 entrants, got " + entrants.size() );
+        } // end if
+        if ( format != ROUND_ROBIN && format != GAUNTLET )
+        {
+            throw new IllegalArgumentException( "unknown tournament format " + format );
+        } // end if
+        if ( maxGamesPerPairing < 2 )
+        {
+            throw new IllegalArgumentException( "each pairing needs at least 2 games, got " + maxGamesPerPairing );
+        } // end if
+        this.entrants = new ArrayList<>( entrants );
+        this.format = format;
+        this.maxGamesPerPairing = maxGamesPerPairing + ( maxGamesPerPairing & 1 );
+        this.seed = seed;
+
+        pairings = new ArrayList<>();
+        for ( int firstIndex = 0; firstIndex < entrants.size(); firstIndex++ )
+        {
+            for ( int secondIndex = firstIndex + 1; secondIndex < entrants.size(); secondIndex++ )
+            {
+                if ( format == ROUND_ROBIN || firstIndex == 0 )
+                {
+                    pairings.add( new Pairing( firstIndex, secondIndex ) );
+                } // end if
+            } // end INNER for
+        } // end OUTER for
+        setSprt( DEFAULT_SPRT_ELO0, DEFAULT_SPRT_ELO1, DEFAULT_SPRT_ALPHA, DEFAULT_SPRT_BETA );
+    } // end Tournament 4-arg constructor
+
+    /* METHODS */
+    /**
+     * Plays a tournament between the built-in CPU players and prints the report
+     *
+     * @param args  optionally the format ("round-robin" or "gauntlet", default round-robin), the most games per
+     *              pairing (default 400), the searching players' time per move in milliseconds (default 2) and
+     *              the number of worker threads (default one per core)
+     */
+    public static void main( String[] args )
+    {
+        int format = ( args.length > 0 && args[0].equalsIgnoreCase( "gauntlet" ) ) ? GAUNTLET : ROUND_ROBIN;
+        int maxGamesPerPairing = ( args.length > 1 ) ? Integer.parseInt( args[1] ) : 400;
+        long timeBudgetNanos = ( args.length > 2 ) ? Long.parseLong( args[2] ) * 1_000_000L : 2_000_000L;
+        int numberOfThreads = ( args.length > 3 ) ? Integer.parseInt( args[3] ) : Runtime.getRuntime().availableProcessors();
+
+        Tournament tournament = new Tournament( getDefaultEntrants( timeBudgetNanos ), format, maxGamesPerPairing, System.nanoTime() );
+        long startNanos = System.nanoTime();
+        tournament.run( numberOfThreads );
+        System.out.print( tournament.getReport() );
+        System.out.println( tournament.getGamesPlayed() + " games in " + ( System.nanoTime() - startNanos ) / 1_000_000_000.0 + " s on " + numberOfThreads + " threads" );
+    } // end method main
+
+    /**
+     * Builds the built-in entrants: the original 30% random picker (the baseline), the expectiminimax search and
+     * MCTS. The searches get a small table and a single thread each, since the tournament already keeps every
+     * core busy with games.
+     *
+     * @param timeBudgetNanos   how long the searching players may think per move
+     */
+    public static List<Entrant> getDefaultEntrants( long timeBudgetNanos )
+    {
+        List<Entrant> defaultEntrants = new ArrayList<>();
+        defaultEntrants.add( new Entrant( "Random", RandomCpuPlayer::new ) );
+        defaultEntrants.add( new Entrant( "Search", () -> new ExpectiminimaxCpuPlayer( timeBudgetNanos, ExpectiminimaxCpuPlayer.DEFAULT_MAX_DEPTH, new TranspositionTable( 4 ) ) ) );
+        defaultEntrants.add( new Entrant( "MCTS", () -> new MonteCarloTreeSearchCpuPlayer( timeBudgetNanos, ForkJoinPool.commonPool(), 1 ) ) );
+        return defaultEntrants;
+    } // end method getDefaultEntrants
+
+    /**
+     * Sets the hypotheses and error rates of the early-stopping test each pairing runs
+     *
+     * @param elo0      H0: the second entrant of a pairing is at most this much stronger than the first
+     * @param elo1      H1: it is at least this much stronger (must be more than elo0)
+     * @param alpha     the chance of accepting H1 when H0 is true
+     * @param beta      the chance of accepting H0 when H1 is true
+     */
+    public void setSprt( double elo0, double elo1, double alpha, double beta )
+    {
+        if ( elo1 <= elo0 || alpha <= 0.0 || alpha >= 1.0 || beta <= 0.0 || beta >= 1.0 )
+        {
+            throw new IllegalArgumentException( "bad SPRT settings: elo0 " + elo0 + ", elo1 " + elo1 + ", alpha " + alpha + ", beta " + beta );
+        } // end if
+        sprtWinProbability0 = getExpectedScore( elo0 );
+        sprtWinProbability1 = getExpectedScore( elo1 );
+        sprtLowerBound = Math.log( beta / ( 1.0 - alpha ) );
+        sprtUpperBound = Math.log( ( 1.0 - beta ) / alpha );
+    } // end method setSprt
+
+    /**
+     * Plays every pairing's games (until each one has played them all or been stopped by the SPRT) on the
+     * given number of worker threads, and waits for them to finish
+     *
+     * @param numberOfThreads   how many games are played at the same time
+     */
+    public void run( int numberOfThreads )
+    {
+        if ( numberOfThreads < 1 )
+        {
+            throw new IllegalArgumentException( "a tournament needs at least 1 thread, got " + numberOfThreads );
+        } // end if
+        Thread[] workers = new Thread[numberOfThreads];
+        for ( int workerIndex = 0; workerIndex < numberOfThreads; workerIndex++ )
+        {
+            workers[workerIndex] = new Thread( this::playGames, "Tournament worker " + workerIndex );
+            workers[workerIndex].start();
+        } // end for
+        for ( Thread worker : workers )
+        {
+            try
+            {
+                worker.join();
+            } // end try
+            catch ( InterruptedException exception )
+            {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException( "interrupted while waiting for the tournament", exception );
+            } // end catch
+        } // end for
+    } // end method run
+
+    /**
+     * One worker thread: keeps taking the next game of the next unfinished pairing (going around the pairings in
+     * turn, so they all progress together) until there are none left
+     */
+    private void playGames()
+    {
+        CpuPlayer[] cpuPlayers = new CpuPlayer[entrants.size()];   // this worker's own instances
+        for ( int entrantIndex = 0; entrantIndex < cpuPlayers.length; entrantIndex++ )
+        {
+            cpuPlayers[entrantIndex] = entrants.get( entrantIndex ).createCpuPlayer();
+        } // end for
+
+        int numberOfPairings = pairings.size();
+        int pairingsWithoutGames = 0;
+        while ( pairingsWithoutGames < numberOfPairings )
+        {
+            Pairing pairing = pairings.get( Math.floorMod( pairingCursor.getAndIncrement(), numberOfPairings ) );
+            int gameIndex = pairing.claimGame();
+            if ( gameIndex < 0 )
+            {
+                pairingsWithoutGames++; // every pairing has to come up empty in a row before this worker quits
+                continue;
+            } // end if
+            pairingsWithoutGames = 0;
+
+            // games 2k and 2k + 1 share their dice seed, with the colors swapped
+            boolean firstEntrantIsRed = ( gameIndex & 1 ) == 0;
+            long gameSeed = new SplittableRandom( seed ^ ( (long) pairing.firstEntrantIndex << 48 ) ^ ( (long) pairing.secondEntrantIndex << 32 ) ^ ( gameIndex >>> 1 ) ).nextLong();
+            CpuPlayer firstCpuPlayer = cpuPlayers[pairing.firstEntrantIndex];
+            CpuPlayer secondCpuPlayer = cpuPlayers[pairing.secondEntrantIndex];
+
+            GameManager gameManager = new GameManager( gameSeed );
+            int finalState = firstEntrantIsRed ? gameManager.playCpuVsCpuGame( firstCpuPlayer, secondCpuPlayer )
+                                               : gameManager.playCpuVsCpuGame( secondCpuPlayer, firstCpuPlayer );
+            boolean redWon = finalState == GameManager.PLAYER1_WIN || finalState == GameManager.PLAYER1_WIN2;
+            pairing.recordGame( gameIndex, redWon == firstEntrantIsRed, redWon );
+            gamesPlayed.incrementAndGet();
+        } // end while
+    } // end method playGames
+
+    /**
+     * Returns the score (chance of winning) expected against an opponent rated the given number of Elo points lower
+     */
+    public static double getExpectedScore( double eloDifference )
+    {
+        return 1.0 / ( 1.0 + Math.pow( 10.0, -eloDifference / 400.0 ) );
+    } // end method getExpectedScore
+
+    /**
+     * Returns the Elo difference that produces the given score (clamped so that 0% and 100% stay finite)
+     */
+    public static double getEloDifference( double score )
+    {
+        double clampedScore = Math.min( Math.max( score, 1e-4 ), 1.0 - 1e-4 );
+        return -400.0 * Math.log10( 1.0 / clampedScore - 1.0 );
+    } // end method getEloDifference
+
+    /**
+     * Fits one rating per entrant to every game played (the Bradley-Terry model, by minorization-maximization),
+     * in Elo relative to the first entrant. Each pairing gets half a win for each side so an entrant that won or
+     * lost every game still has a finite rating.
+     *
+     * @return the ratings, indexed like the entrants
+     */
+    public double[] getRatings()
+    {
+        int numberOfEntrants = entrants.size();
+        double[] strength = new double[numberOfEntrants];
+        Arrays.fill( strength, 1.0 );
+        for ( int iteration = 0; iteration < RATING_ITERATIONS; iteration++ )
+        {
+            double[] newStrength = new double[numberOfEntrants];
+            for ( int entrantIndex = 0; entrantIndex < numberOfEntrants; entrantIndex++ )
+            {
+                double winSum = 0.0;
+                double gamesOverStrengthSum = 0.0;
+                for ( Pairing pairing : pairings )
+                {
+                    int opponentIndex = pairing.getOpponentIndex( entrantIndex );
+                    if ( opponentIndex < 0 )
+                    {
+                        continue;
+                    } // end if
+                    winSum += pairing.getWinsForEntrant( entrantIndex ) + 0.5;
+                    gamesOverStrengthSum += ( pairing.getGameCount() + 1.0 ) / ( strength[entrantIndex] + strength[opponentIndex] );
+                } // end for
+                newStrength[entrantIndex] = ( gamesOverStrengthSum > 0.0 ) ? winSum / gamesOverStrengthSum : strength[entrantIndex];
+            } // end for
+            strength = newStrength;
+        } // end for
+
+        double[] ratings = new double[numberOfEntrants];
+        for ( int entrantIndex = 0; entrantIndex < numberOfEntrants; entrantIndex++ )
+        {
+            ratings[entrantIndex] = ELO_PER_NATURAL_UNIT * Math.log( strength[entrantIndex] / strength[0] );
+        } // end for
+        return ratings;
+    } // end method getRatings
+
+    /**
+     * Builds the report: every pairing's result, Elo difference with its 95% confidence interval and SPRT
+     * verdict, then every entrant's fitted rating
+     */
+    public String getReport()
+    {
+        StringBuilder report = new StringBuilder();
+        report.append( format == ROUND_ROBIN ? "Round robin" : "Gauntlet" ).append( ", up to " ).append( maxGamesPerPairing ).append( " games per pairing\n" );
+        for ( Pairing pairing : pairings )
+        {
+            int games = pairing.getGameCount();
+            int secondWins = pairing.getWinsForEntrant( pairing.secondEntrantIndex );
+            double score = ( games == 0 ) ? 0.5 : (double) secondWins / games;
+            double standardError = ( games == 0 ) ? 0.5 : Math.sqrt( score * ( 1.0 - score ) / games );
+            report.append( String.format( Locale.ROOT, "%-8s vs %-8s  %4d games  %4d-%-4d  Elo %+7.1f [%+7.1f, %+7.1f]  red won %.1f%%  %s%n",
+                                          entrants.get( pairing.secondEntrantIndex ).getName(), entrants.get( pairing.firstEntrantIndex ).getName(),
+                                          games, secondWins, games - secondWins,
+                                          getEloDifference( score ),
+                                          getEloDifference( score - CONFIDENCE_Z * standardError ),
+                                          getEloDifference( score + CONFIDENCE_Z * standardError ),
+                                          ( games == 0 ) ? 0.0 : 100.0 * pairing.getRedWins() / games,
+                                          pairing.getVerdict() ) );
+        } // end for
+
+        double[] ratings = getRatings();
+        report.append( "Ratings (Elo, relative to " ).append( entrants.get( 0 ).getName() ).append( "):\n" );
+        for ( int entrantIndex = 0; entrantIndex < entrants.size(); entrantIndex++ )
+        {
+            report.append( String.format( Locale.ROOT, "  %-8s %+7.1f%n", entrants.get( entrantIndex ).getName(), ratings[entrantIndex] ) );
+        } // end for
+        return report.toString();
+    } // end method getReport
+
+    /**
+     * Getter for how many games have been played so far
+     */
+    public int getGamesPlayed()
+    {
+        return gamesPlayed.get();
+    } // end method getGamesPlayed
+
+    /**
+     * Getter for the pairings, in the order they are reported
+     */
+    public List<Pairing> getPairings()
+    {
+        return pairings;
+    } // end method getPairings
+
+    /**
+     * A CPU player taking part in a tournament: a name and a way to build a fresh instance for each worker thread
+     */
+    public static class Entrant
+    {
+        private final String name;
+        private final Supplier<CpuPlayer> cpuPlayerFactory;
+
+        /**
+         * Initializes an entrant
+         *
+         * @param name              how the entrant is shown in the report
+         * @param cpuPlayerFactory  builds a new instance of the CPU player (called once per worker thread)
+         */
+        public Entrant( String name, Supplier<CpuPlayer> cpuPlayerFactory )
+        {
+            this.name = name;
+            this.cpuPlayerFactory = cpuPlayerFactory;
+        } // end Entrant 2-arg constructor
+
+        /**
+         * Getter for the entrant's name
+         */
+        public String getName()
+        {
+            return name;
+        } // end method getName
+
+        /**
+         * Builds a new instance of the entrant's CPU player
+         */
+        public CpuPlayer createCpuPlayer()
+        {
+            return cpuPlayerFactory.get();
+        } // end method createCpuPlayer
+    } // end class Entrant
+
+    /**
+     * The match between two entrants: hands out game numbers to the workers, counts the results and runs the
+     * SPRT (from the second entrant's point of view) each time both colors of a seed have been played. Only whole
+     * pairs of games go into the SPRT, so a verdict is never swayed by which color happened to finish first, and
+     * once it stops the pairing the other color of a seed already started is still played.
+     */
+    public class Pairing
+    {
+        private final int firstEntrantIndex;
+        private final int secondEntrantIndex;
+        private final AtomicInteger gamesClaimed = new AtomicInteger();
+        private int secondEntrantWins;
+        private int gameCount;
+        private int redWins;
+        private final Map<Integer, Boolean> firstEntrantWonForHalfPlayedSeed = new HashMap<>();  // by seed (game number / 2)
+        private int pairedGameCount;            // games whose seed has had both colors played
+        private int pairedSecondEntrantWins;
+        private volatile String verdict = "";
+
+        /**
+         * Initializes a pairing with no games played
+         */
+        Pairing( int firstEntrantIndex, int secondEntrantIndex )
+        {
+            this.firstEntrantIndex = firstEntrantIndex;
+            this.secondEntrantIndex = secondEntrantIndex;
+        } // end Pairing 2-arg constructor
+
+        /**
+         * Takes the next game to play
+         *
+         * @return the game's number, or -1 if the pairing has played all of its games or the SPRT has stopped it
+         *         (and the last seed started has had both colors)
+         */
+        int claimGame()
+        {
+            while ( true )
+            {
+                int gameIndex = gamesClaimed.get();
+                if ( gameIndex >= maxGamesPerPairing || !verdict.isEmpty() && ( gameIndex & 1 ) == 0 )
+                {
+                    return -1;
+                } // end if
+                if ( gamesClaimed.compareAndSet( gameIndex, gameIndex + 1 ) )
+                {
+                    return gameIndex;
+                } // end if
+            } // end while
+        } // end method claimGame
+
+        /**
+         * Records a finished game and, if the other color of its seed has finished too, checks whether the SPRT
+         * can stop the pairing
+         *
+         * @param gameIndex         the game's number (games 2k and 2k + 1 share a seed)
+         * @param firstEntrantWon   true if the first entrant won the game
+         * @param redWon            true if player 1 (red) won the game
+         */
+        synchronized void recordGame( int gameIndex, boolean firstEntrantWon, boolean redWon )
+        {
+            gameCount++;
+            secondEntrantWins += firstEntrantWon ? 0 : 1;
+            redWins += redWon ? 1 : 0;
+            Boolean firstEntrantWonOtherColor = firstEntrantWonForHalfPlayedSeed.remove( gameIndex >>> 1 );
+            if ( firstEntrantWonOtherColor == null )
+            {
+                firstEntrantWonForHalfPlayedSeed.put( gameIndex >>> 1, firstEntrantWon );
+                return;
+            } // end if
+            pairedGameCount += 2;
+            pairedSecondEntrantWins += ( firstEntrantWon ? 0 : 1 ) + ( firstEntrantWonOtherColor ? 0 : 1 );
+            if ( !verdict.isEmpty() || pairedGameCount < SPRT_MIN_GAMES )
+            {
+                return;
+            } // end if
+
+            double logLikelihoodRatio = getLogLikelihoodRatio();
+            if ( logLikelihoodRatio >= sprtUpperBound )
+            {
+                verdict = "SPRT: H1 accepted";
+            } // end if
+            else if ( logLikelihoodRatio <= sprtLowerBound )
+            {
+                verdict = "SPRT: H0 accepted";
+            } // end else if
+        } // end method recordGame
+
+        /**
+         * Computes the SPRT's log-likelihood ratio of H1 over H0 for the seeds played in both colors so far (games
+         * have no draws, so each one is a win or a loss for the second entrant)
+         */
+        public synchronized double getLogLikelihoodRatio()
+        {
+            int secondEntrantLosses = pairedGameCount - pairedSecondEntrantWins;
+            return pairedSecondEntrantWins * Math.log( sprtWinProbability1 / sprtWinProbability0 )
+                   + secondEntrantLosses * Math.log( ( 1.0 - sprtWinProbability1 ) / ( 1.0 - sprtWinProbability0 ) );
+        } // end method getLogLikelihoodRatio
+
+        /**
+         * Returns the other entrant in this pairing, or -1 if the given entrant isn't in it
+         */
+        int getOpponentIndex( int entrantIndex )
+        {
+            return ( entrantIndex == firstEntrantIndex ) ? secondEntrantIndex : ( entrantIndex == secondEntrantIndex ) ? firstEntrantIndex : -1;
+        } // end method getOpponentIndex
+
+        /**
+         * Returns how many games the given entrant (one of the two in this pairing) has won
+         */
+        public synchronized int getWinsForEntrant( int entrantIndex )
+        {
+            return ( entrantIndex == secondEntrantIndex ) ? secondEntrantWins : gameCount - secondEntrantWins;
+        } // end method getWinsForEntrant
+
+        /**
+         * Getter for how many games have finished
+         */
+        public synchronized int getGameCount()
+        {
+            return gameCount;
+        } // end method getGameCount
+
+        /**
+         * Getter for how many games player 1 (red) won, whichever entrant it was
+         */
+        public synchronized int getRedWins()
+        {
+            return redWins;
+        } // end method getRedWins
+
+        /**
+         * Getter for the SPRT's verdict ("" if it hasn't stopped the pairing)
+         */
+        public String getVerdict()
+        {
+            return verdict;
+        } // end method getVerdict
+    } // end class Pairing
+} // end class Tournament
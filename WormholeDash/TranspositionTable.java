@@ -0,0 +1,297 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size transposition table that remembers what the search already found out about a position, so
+ * reaching the same position through a different move order (which happens a lot with dice, e.g. through the
+ * shared middle lane) doesn't have to be searched again.
+ *
+ * The table lives off-heap in a direct ByteBuffer, so its size doesn't count against the Java heap, and it is
+ * lock-free: any number of search threads can probe and store at the same time. Each entry is two 64-bit words
+ * written with single atomic (opaque) accesses, the key stored XOR-ed with the data (the "lockless hashing"
+ * trick), so an entry torn by two threads writing at once just fails the key check and reads as a miss.
+ *
+ * Entries are grouped into buckets of 4 (one 64-byte cache line). When a bucket is full, the entry to replace
+ * is the one from the oldest search, then the one searched least deeply.
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public final class TranspositionTable
+{
+    /* PUBLIC CONSTANTS for the kind of bound a stored value is */
+    public static final int BOUND_EXACT = 1;
+    public static final int BOUND_LOWER = 2;   // the real value is at least the stored value (the search failed high)
+    public static final int BOUND_UPPER = 3;   // the real value is at most the stored value (the search failed low)
+
+    /* PRIVATE CONSTANTS */
+    private static final int ENTRIES_PER_BUCKET = 4;
+    private static final int BYTES_PER_ENTRY = 16;
+    private static final int BYTES_PER_BUCKET = ENTRIES_PER_BUCKET * BYTES_PER_ENTRY;
+    private static final int AGE_MASK = 63;
+
+    // atomic 8-byte reads and writes into the direct buffer
+    private static final VarHandle LONG_VIEW = MethodHandles.byteBufferViewVarHandle( long[].class, ByteOrder.nativeOrder() );
+
+    // data word layout: value (float bits) | depth << 32 | bound << 40 | age << 42 | best move << 48
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 40;
+    private static final int AGE_SHIFT = 42;
+    private static final int MOVE_SHIFT = 48;
+
+    /* FIELDS */
+    private final ByteBuffer table;
+    private final long bucketMask;
+    private volatile int age;
+
+    private final LongAdder probeCount = new LongAdder();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder storeCount = new LongAdder();
+    private final LongAdder overwriteCount = new LongAdder();
+
+    /* CONSTRUCTORS */
+    /**
+     * Initializes an empty table that uses (at most) the given amount of off-heap memory
+     *
+     * @param sizeInMegabytes   how big the table may be; it is rounded down to a power of two number of buckets
+     */
+    public TranspositionTable( int sizeInMegabytes )
+    {
+        long bytes = Math.max( 1L, (long) sizeInMegabytes ) << 20;
+        long buckets = Long.highestOneBit( Math.min( bytes, Integer.MAX_VALUE ) / BYTES_PER_BUCKET );
+        table = ByteBuffer.allocateDirect( (int)( buckets * BYTES_PER_BUCKET ) ).order( ByteOrder.nativeOrder() );
+        bucketMask = buckets - 1;
+    } // end TranspositionTable 1-arg constructor
+
+    /* METHODS */
+    /**
+     * Looks up a position
+     *
+     * @param hash  the position's Zobrist hash
+     * @return the entry's data word (decode it with the static getters), or 0 if the position isn't in the table
+     */
+    public long probe( long hash )
+    {
+        probeCount.increment();
+        int bucketOffset = getBucketOffset( hash );
+        for ( int entryIndex = 0; entryIndex < ENTRIES_PER_BUCKET; entryIndex++ )
+        {
+            int entryOffset = bucketOffset + entryIndex * BYTES_PER_ENTRY;
+            long data = (long) LONG_VIEW.getOpaque( table, entryOffset + 8 );
+            long checkedKey = (long) LONG_VIEW.getOpaque( table, entryOffset );
+            if ( data != 0 && ( checkedKey ^ data ) == hash )
+            {
+                hitCount.increment();
+                return data;
+            } // end if
+        } // end for
+        return 0L;
+    } // end method probe
+
+    /**
+     * Stores what the search found out about a position
+     *
+     * @param hash      the position's Zobrist hash
+     * @param value     the value found
+     * @param depth     how deep (in turns) the position was searched
+     * @param bound     BOUND_EXACT, BOUND_LOWER or BOUND_UPPER
+     * @param bestMove  the best move found (0 to 255), or 0 if none
+     */
+    public void store( long hash, float value, int depth, int bound, int bestMove )
+    {
+        storeCount.increment();
+        int currentAge = age;
+        long data = ( Float.floatToRawIntBits( value ) & 0xFFFFFFFFL )
+                    | ( (long)( depth & 0xFF ) << DEPTH_SHIFT )
+                    | ( (long) bound << BOUND_SHIFT )
+                    | ( (long) currentAge << AGE_SHIFT )
+                    | ( (long)( bestMove & 0xFF ) << MOVE_SHIFT );
+
+        int bucketOffset = getBucketOffset( hash );
+        int replaceOffset = bucketOffset;
+        int replaceScore = Integer.MAX_VALUE;
+        boolean replacesOtherPosition = true;   // until an empty slot or the same position turns up
+        for ( int entryIndex = 0; entryIndex < ENTRIES_PER_BUCKET; entryIndex++ )
+        {
+            int entryOffset = bucketOffset + entryIndex * BYTES_PER_ENTRY;
+            long oldData = (long) LONG_VIEW.getOpaque( table, entryOffset + 8 );
+            long oldKey = (long) LONG_VIEW.getOpaque( table, entryOffset ) ^ oldData;
+
+            if ( oldData == 0 || oldKey == hash )
+            {
+                // an empty slot, or the same position: don't let a shallow result replace a deeper one from this search
+                if ( oldData != 0 && getAge( oldData ) == currentAge && getDepth( oldData ) > depth && bound != BOUND_EXACT )
+                {
+                    return;
+                } // end if
+                replaceOffset = entryOffset;
+                replacesOtherPosition = false;
+                break;
+            } // end if
+
+            // otherwise prefer to replace entries from older searches, then shallower ones
+            int staleness = ( currentAge - getAge( oldData ) ) & AGE_MASK;
+            int score = getDepth( oldData ) - 8 * staleness;
+            if ( score < replaceScore )
+            {
+                replaceScore = score;
+                replaceOffset = entryOffset;
+            } // end if
+        } // end for
+
+        if ( replacesOtherPosition )
+        {
+            overwriteCount.increment();
+        } // end if
+        LONG_VIEW.setOpaque( table, replaceOffset, hash ^ data );
+        LONG_VIEW.setOpaque( table, replaceOffset + 8, data );
+    } // end method store
+
+    /**
+     * Starts a new search "generation", so entries left over from earlier searches are replaced first
+     */
+    public void newSearch()
+    {
+        age = ( age + 1 ) & AGE_MASK;
+    } // end method newSearch
+
+    /**
+     * Empties the table and resets the counters
+     */
+    public void clear()
+    {
+        for ( int offset = 0; offset < table.capacity(); offset += 8 )
+        {
+            LONG_VIEW.setOpaque( table, offset, 0L );
+        } // end for
+        probeCount.reset();
+        hitCount.reset();
+        storeCount.reset();
+        overwriteCount.reset();
+    } // end method clear
+
+    /**
+     * Works out where a hash's bucket starts in the buffer
+     */
+    private int getBucketOffset( long hash )
+    {
+        return (int)( ( hash >>> 20 ) & bucketMask ) * BYTES_PER_BUCKET;
+    } // end method getBucketOffset
+
+    /**
+     * Decodes the stored value from a data word
+     */
+    public static float getValue( long data )
+    {
+        return Float.intBitsToFloat( (int) data );
+    } // end method getValue
+
+    /**
+     * Decodes the stored search depth from a data word
+     */
+    public static int getDepth( long data )
+    {
+        return (int)( data >>> DEPTH_SHIFT ) & 0xFF;
+    } // end method getDepth
+
+    /**
+     * Decodes the kind of bound (BOUND_EXACT, BOUND_LOWER or BOUND_UPPER) from a data word
+     */
+    public static int getBound( long data )
+    {
+        return (int)( data >>> BOUND_SHIFT ) & 3;
+    } // end method getBound
+
+    /**
+     * Decodes the search generation from a data word
+     */
+    public static int getAge( long data )
+    {
+        return (int)( data >>> AGE_SHIFT ) & AGE_MASK;
+    } // end method getAge
+
+    /**
+     * Decodes the best move from a data word
+     */
+    public static int getBestMove( long data )
+    {
+        return (int)( data >>> MOVE_SHIFT ) & 0xFF;
+    } // end method getBestMove
+
+    /**
+     * Getter for how many bytes of off-heap memory the table uses
+     */
+    public long getSizeInBytes()
+    {
+        return table.capacity();
+    } // end method getSizeInBytes
+
+    /**
+     * Getter for how many entries the table can hold
+     */
+    public long getCapacity()
+    {
+        return table.capacity() / BYTES_PER_ENTRY;
+    } // end method getCapacity
+
+    /**
+     * Getter for how many lookups have been made since the table was created (or cleared)
+     */
+    public long getProbeCount()
+    {
+        return probeCount.sum();
+    } // end method getProbeCount
+
+    /**
+     * Getter for how many lookups found their position
+     */
+    public long getHitCount()
+    {
+        return hitCount.sum();
+    } // end method getHitCount
+
+    /**
+     * Getter for how many results have been stored
+     */
+    public long getStoreCount()
+    {
+        return storeCount.sum();
+    } // end method getStoreCount
+
+    /**
+     * Getter for how many stores had to throw away another position's entry (a sign the table is too small)
+     */
+    public long getOverwriteCount()
+    {
+        return overwriteCount.sum();
+    } // end method getOverwriteCount
+
+    /**
+     * Returns the fraction of lookups that found their position (0 to 1)
+     */
+    public double getHitRate()
+    {
+        long probes = probeCount.sum();
+        return ( probes == 0 ) ? 0.0 : (double) hitCount.sum() / probes;
+    } // end method getHitRate
+
+    /**
+     * Estimates how full the table is (0 to 1) by sampling the first few thousand entries
+     */
+    public double getFillRate()
+    {
+        int sampledEntries = (int) Math.min( getCapacity(), 4096 );
+        int usedEntries = 0;
+        for ( int entryIndex = 0; entryIndex < sampledEntries; entryIndex++ )
+        {
+            if ( (long) LONG_VIEW.getOpaque( table, entryIndex * BYTES_PER_ENTRY + 8 ) != 0 )
+            {
+                usedEntries++;
+            } // end if
+        } // end for
+        return (double) usedEntries / sampledEntries;
+    } // end method getFillRate
+} // end class TranspositionTable
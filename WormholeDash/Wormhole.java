@@ -13,7 +13,7 @@ public class Wormhole extends Actor
      */
     public Wormhole() 
     {
-        setImage( new GreenfootImage("Black_hole.png") );
+        setImage( SpriteRegistry.getImage(SpriteRegistry.WORMHOLE_IMAGE) );
     } // end no-arg Wormhole constructor
 } // end class Wormhole
 
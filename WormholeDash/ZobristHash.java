@@ -0,0 +1,107 @@
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist hashing for packed BoardStates. Every part of a position -- the tier of the piece on each square of each
+ * player's path, how many of each tier are still in each starting zone, each goal count, the game state (which
+ * also says whose turn it is), the die roll and the pending star reroll -- has its own random 64-bit key, and
+ * the hash of a position is all of its keys XOR-ed together. Two different positions almost never share a hash,
+ * which is what lets a transposition table recognize a position it has seen before through a different move order.
+ *
+ * The keys come from a fixed seed, so a position always hashes to the same value (even across runs).
+ *
+ * @author  bickfori@email.uscb.edu
+ * @version Final Version
+ */
+public final class ZobristHash
+{
+    /* PRIVATE CONSTANTS */
+    private static final long SEED = 0x5EED_0F_0DA5L;
+
+    // [playerIndex][pathIndex][tier], tier 0 (empty square) is never used
+    private static final long[][][] PIECE_KEYS = new long[GameManager.NUMBER_OF_PLAYERS][GameManager.PATH_LENGTH][GameManager.MAX_PIECE_TIER + 1];
+    // [playerIndex][tier][count]
+    private static final long[][][] START_COUNT_KEYS = new long[GameManager.NUMBER_OF_PLAYERS][GameManager.MAX_PIECE_TIER + 1][4];
+    // [playerIndex][count]
+    private static final long[][] GOAL_COUNT_KEYS = new long[GameManager.NUMBER_OF_PLAYERS][GameManager.NUMBER_OF_PIECES_PER_PLAYER + 1];
+    private static final long[] STATE_KEYS = new long[16];
+    private static final long[] DIE_ROLL_KEYS = new long[GameManager.MOVEMENT_DIE_SIDES + 1];
+    private static final long REROLL_PENDING_KEY;
+
+    static
+    {
+        SplittableRandom random = new SplittableRandom( SEED );
+        for ( int playerIndex = 0; playerIndex < GameManager.NUMBER_OF_PLAYERS; playerIndex++ )
+        {
+            for ( int pathIndex = 0; pathIndex < GameManager.PATH_LENGTH; pathIndex++ )
+            {
+                for ( int tier = 1; tier <= GameManager.MAX_PIECE_TIER; tier++ )
+                {
+                    PIECE_KEYS[playerIndex][pathIndex][tier] = random.nextLong();
+                } // end INNER INNER for
+            } // end INNER for
+            for ( int tier = 1; tier <= GameManager.MAX_PIECE_TIER; tier++ )
+            {
+                for ( int count = 1; count < 4; count++ ) // a count of 0 contributes nothing
+                {
+                    START_COUNT_KEYS[playerIndex][tier][count] = random.nextLong();
+                } // end INNER for
+            } // end INNER for
+            for ( int count = 1; count <= GameManager.NUMBER_OF_PIECES_PER_PLAYER; count++ )
+            {
+                GOAL_COUNT_KEYS[playerIndex][count] = random.nextLong();
+            } // end INNER for
+        } // end OUTER for
+        for ( int state = 0; state < STATE_KEYS.length; state++ )
+        {
+            STATE_KEYS[state] = random.nextLong();
+        } // end for
+        for ( int dieRollValue = 1; dieRollValue < DIE_ROLL_KEYS.length; dieRollValue++ )
+        {
+            DIE_ROLL_KEYS[dieRollValue] = random.nextLong();
+        } // end for
+        REROLL_PENDING_KEY = random.nextLong();
+    } // end static initializer
+
+    /* CONSTRUCTORS */
+    /**
+     * ZobristHash only has static methods, so it is never instantiated
+     */
+    private ZobristHash()
+    {
+    } // end private no-arg constructor
+
+    /* METHODS */
+    /**
+     * Computes the Zobrist hash of a position
+     *
+     * @param boardState    the position to hash
+     * @return the 64-bit hash
+     */
+    public static long hash( BoardState boardState )
+    {
+        long occupancy = boardState.getOccupancy();
+        long tiers = boardState.getTiers();
+        long hash = STATE_KEYS[ BoardState.stateOf( occupancy ) ] ^ DIE_ROLL_KEYS[ boardState.getDieRollValue() ];
+        if ( boardState.isRerollPending() )
+        {
+            hash ^= REROLL_PENDING_KEY;
+        } // end if
+
+        for ( int playerIndex = 0; playerIndex < GameManager.NUMBER_OF_PLAYERS; playerIndex++ )
+        {
+            int pathMask = BoardState.pathMaskForPlayerIndex( occupancy, playerIndex );
+            while ( pathMask != 0 )
+            {
+                int pathIndex = Integer.numberOfTrailingZeros( pathMask );
+                pathMask &= pathMask - 1;
+                hash ^= PIECE_KEYS[playerIndex][pathIndex][ BoardState.tierAt( tiers, playerIndex, pathIndex ) ];
+            } // end while
+            for ( int tier = 1; tier <= GameManager.MAX_PIECE_TIER; tier++ )
+            {
+                hash ^= START_COUNT_KEYS[playerIndex][tier][ BoardState.startCountForPlayerIndex( occupancy, playerIndex, tier ) ];
+            } // end for
+            hash ^= GOAL_COUNT_KEYS[playerIndex][ BoardState.goalCountForPlayerIndex( occupancy, playerIndex ) ];
+        } // end for
+        return hash;
+    } // end method hash
+} // end class ZobristHash